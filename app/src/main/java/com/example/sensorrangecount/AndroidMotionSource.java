@@ -0,0 +1,115 @@
+package com.example.sensorrangecount;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+// 가속도계 + 자이로스코프 입력 -> MotionFeatureExtractor (운행 중에만 등록)
+// - 두 센서를 같은 전용 스레드에서 받아서 특징 계산은 한 스레드에서만 일어남
+// - non-wakeup 센서 + FIFO 배치: AP 를 따로 깨우지 않고, 심박수 묶음 등으로 깨어날 때 같이 전달됨
+// - 한번에 전달된 이벤트가 모두 끝나면 publish() (AndroidSensorSource 와 같은 방식)
+// - 보고 지연은 FIFO 크기(getFifoMaxEventCount)로 제한 - 25Hz 두 센서면 심박수 묶음 지연 동안 FIFO 가 넘쳐서
+//   오래된 이벤트를 잃음 (정지/끄덕임 특징이 비어 버림)
+public class AndroidMotionSource implements SensorEventListener {
+    private static final long STOP_JOIN_TIMEOUT_MS = 1_000;
+    private static final double FIFO_FILL_RATIO = 0.8; // FIFO 를 이만큼만 채우고 전달 (타이밍 여유)
+
+    private final SensorManager sensorManager;
+    private final MotionFeatureExtractor extractor;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private boolean publishPosted = false; // publish 호출이 예약되어 있는지 (센서 스레드 전용)
+
+    private final Runnable publishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            publishPosted = false;
+            extractor.publish();
+        }
+    };
+
+    public AndroidMotionSource(SensorManager sensorManager, MotionFeatureExtractor extractor) {
+        this.sensorManager = sensorManager;
+        this.extractor = extractor;
+    }
+
+    public boolean isStarted() {
+        return thread != null;
+    }
+
+    // 센서 등록 (이미 등록되어 있으면 다시 등록) - 둘 중 하나라도 없으면 false
+    public boolean start(int samplingPeriodUs, int maxReportLatencyUs) {
+        stop();
+        Sensor accel = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        Sensor gyro = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+        if (accel == null || gyro == null) {
+            Log.e("TAG___", "Motion sensors not available");
+            return false;
+        }
+
+        // 두 센서가 FIFO 를 같이 쓰는 경우가 많음 - 둘 다 같은 주기로 채운다고 보고 더 작은 쪽 기준
+        int latencyUs = Math.min(cappedLatencyUs(accel, samplingPeriodUs, maxReportLatencyUs),
+                cappedLatencyUs(gyro, samplingPeriodUs, maxReportLatencyUs));
+        thread = new HandlerThread("MotionSource");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        boolean registered = sensorManager.registerListener(this, accel, samplingPeriodUs, latencyUs, handler)
+                && sensorManager.registerListener(this, gyro, samplingPeriodUs, latencyUs, handler);
+        if (!registered) {
+            Log.e("TAG___", "Failed to register motion sensors");
+            stop();
+        }
+        return registered;
+    }
+
+    // FIFO 가 FIFO_FILL_RATIO 만큼 차는 시간보다 길게 기다리지 않음 (FIFO 가 없으면 0 - 바로 전달)
+    static int cappedLatencyUs(Sensor sensor, int samplingPeriodUs, int maxReportLatencyUs) {
+        int fifo = sensor.getFifoMaxEventCount();
+        if (fifo <= 0) {
+            return 0;
+        }
+        long fillUs = (long) (fifo * FIFO_FILL_RATIO) * samplingPeriodUs / 2; // 가속도 + 자이로
+        return (int) Math.min(maxReportLatencyUs, fillUs);
+    }
+
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        sensorManager.unregisterListener(this);
+        thread.quitSafely();
+        try {
+            thread.join(STOP_JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        handler = null;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        Handler h = handler;
+        if (h == null) {
+            return;
+        }
+        float[] v = event.values;
+        if (event.sensor.getType() == Sensor.TYPE_GYROSCOPE) {
+            extractor.onGyro(event.timestamp, v[0], v[1], v[2]);
+        } else {
+            extractor.onAccel(event.timestamp, v[0], v[1], v[2]);
+        }
+        if (!publishPosted) {
+            publishPosted = true;
+            h.post(publishRunnable);
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+}
@@ -0,0 +1,112 @@
+package com.example.sensorrangecount;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+// SensorManager 기반 센서 입력
+// - 전용 스레드에서 이벤트를 받고, 한번에 전달된 이벤트가 모두 끝나면 onBatchEnd() 호출
+// - FIFO 배치 모드에서는 wake-up 센서를 우선 사용 (배치가 차면 AP 를 깨워서 전달)
+public class AndroidSensorSource implements SensorSource, SensorEventListener {
+    private static final long STOP_JOIN_TIMEOUT_MS = 1_000;
+
+    private final SensorManager sensorManager; // 센서 매니저
+    private final int sensorType; // 센서 종류 (Sensor.TYPE_HEART_RATE 등)
+
+    private Sensor sensor; // 등록된 센서
+    private HandlerThread thread; // 센서 이벤트 수신 스레드
+    private Handler handler;
+    private Listener listener;
+    private boolean batchEndPosted = false; // onBatchEnd 호출이 예약되어 있는지 (센서 스레드 전용)
+
+    // 이벤트 묶음 처리가 끝난 뒤 실행 (센서 이벤트가 모두 전달된 다음 순서로 실행됨)
+    private final Runnable batchEndRunnable = new Runnable() {
+        @Override
+        public void run() {
+            batchEndPosted = false;
+            Listener l = listener;
+            if (l != null) {
+                l.onBatchEnd();
+            }
+        }
+    };
+
+    public AndroidSensorSource(SensorManager sensorManager, int sensorType) {
+        this.sensorManager = sensorManager;
+        this.sensorType = sensorType;
+    }
+
+    @Override
+    public boolean start(Listener listener, int samplingPeriodUs, int maxReportLatencyUs) {
+        stop();
+        sensor = null;
+        if (maxReportLatencyUs > 0) {
+            sensor = sensorManager.getDefaultSensor(sensorType, true); // wake-up 센서
+        }
+        if (sensor == null) {
+            sensor = sensorManager.getDefaultSensor(sensorType);
+        }
+        if (sensor == null) {
+            Log.e("TAG___", "Sensor not available: " + sensorType);
+            return false;
+        }
+        if (maxReportLatencyUs > 0 && sensor.getFifoMaxEventCount() == 0) {
+            Log.d("TAG___", "Sensor has no FIFO, events are delivered without batching");
+        }
+
+        this.listener = listener;
+        thread = new HandlerThread("SensorSource-" + sensorType);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        boolean registered = sensorManager.registerListener(this, sensor, samplingPeriodUs, maxReportLatencyUs, handler);
+        if (!registered) {
+            Log.e("TAG___", "Failed to register sensor: " + sensorType);
+            stop();
+        }
+        return registered;
+    }
+
+    @Override
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        sensorManager.unregisterListener(this);
+        thread.quitSafely();
+        // 남은 onBatchEnd 까지 끝난 뒤 다시 등록 (두 스레드가 동시에 listener 를 호출하지 않도록)
+        try {
+            thread.join(STOP_JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        handler = null;
+        listener = null;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        Listener l = listener;
+        Handler h = handler;
+        if (l == null || h == null) {
+            return;
+        }
+        l.onSample(event.timestamp, event.values[0]);
+        if (!batchEndPosted) {
+            batchEndPosted = true;
+            h.post(batchEndRunnable);
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        Listener l = listener;
+        if (l != null) {
+            l.onAccuracyChanged(accuracy);
+        }
+    }
+}
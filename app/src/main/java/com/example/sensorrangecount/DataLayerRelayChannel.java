@@ -0,0 +1,104 @@
+package com.example.sensorrangecount;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.android.gms.wearable.CapabilityClient;
+import com.google.android.gms.wearable.CapabilityInfo;
+import com.google.android.gms.wearable.MessageClient;
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.Wearable;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Wearable Data Layer(MessageClient) 로 폰 앱과 주고받는 통로 (프로세스 안에서 하나만 사용)
+// - 폰 앱이 광고하는 capability 로 중계할 노드를 찾고, 연결 상태 변화를 계속 반영
+// - 메시지 크기는 배치 하나(수 KB)라 ChannelClient 스트림 없이 MessageClient 로 충분
+public class DataLayerRelayChannel implements RelayChannel,
+        CapabilityClient.OnCapabilityChangedListener, MessageClient.OnMessageReceivedListener {
+    public static final String CAPABILITY = "heart_rate_relay"; // 폰 앱 res/values/wear.xml
+    private static final long SEND_TIMEOUT_MS = 5_000; // 메시지를 블루투스로 넘기는 시간 (서버 응답은 ack 로)
+
+    private static DataLayerRelayChannel instance;
+
+    private final MessageClient messageClient;
+    private final CapabilityClient capabilityClient;
+    private final CopyOnWriteArrayList<Receiver> receivers = new CopyOnWriteArrayList<>();
+    private volatile String nodeId; // 중계할 폰 노드 (없으면 null)
+
+    // 서비스 onCreate 에서 호출 (같은 프로세스에 하나)
+    static synchronized DataLayerRelayChannel init(Context context) {
+        if (instance == null) {
+            instance = new DataLayerRelayChannel(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DataLayerRelayChannel(Context context) {
+        messageClient = Wearable.getMessageClient(context);
+        capabilityClient = Wearable.getCapabilityClient(context);
+        messageClient.addListener(this);
+        capabilityClient.addListener(this, CAPABILITY);
+        capabilityClient.getCapability(CAPABILITY, CapabilityClient.FILTER_REACHABLE)
+                .addOnSuccessListener(this::onCapabilityChanged)
+                .addOnFailureListener(e -> Log.e("TAG___", "Error finding relay node: " + e.getMessage()));
+    }
+
+    // 폰 앱 설치/연결 상태가 바뀜 (가까운 노드 우선)
+    @Override
+    public void onCapabilityChanged(CapabilityInfo info) {
+        String best = null;
+        for (Node node : info.getNodes()) {
+            if (node.isNearby()) {
+                best = node.getId();
+                break;
+            }
+            if (best == null) {
+                best = node.getId();
+            }
+        }
+        nodeId = best;
+        Log.d("TAG___", "Relay node: " + (best != null ? best : "none"));
+    }
+
+    @Override
+    public boolean isConnected() {
+        return nodeId != null;
+    }
+
+    // 워커 스레드에서 호출 (메인 스레드에서 호출하면 안 됨)
+    @Override
+    public void send(String path, byte[] data) throws IOException {
+        String node = nodeId;
+        if (node == null) {
+            throw new IOException("No relay node");
+        }
+        try {
+            Tasks.await(messageClient.sendMessage(node, path, data), SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Error sending to relay node: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending to relay node");
+        }
+    }
+
+    @Override
+    public void addReceiver(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    // 폰에서 온 메시지 (ack)
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        for (Receiver receiver : receivers) {
+            receiver.onMessage(event.getPath(), event.getData());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.sensorrangecount;
+
+import android.app.Activity;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.widget.TextView;
+
+// 계측값 확인용 디버그 화면 (메인 화면에서 심박수를 길게 누르면 열림) - 1초마다 갱신
+public class DebugMetricsActivity extends Activity {
+    private static final long REFRESH_INTERVAL_MS = 1_000;
+
+    private TextView metricsText;
+    private final Handler handler = new Handler();
+    private final StringBuilder sb = new StringBuilder(1024);
+    private PipelineMetrics metrics; // 서비스에 바인딩된 동안만 있음
+    private LiveState liveState;
+    private NotiDispatcher notiDispatcher;
+    private final LiveState.Snapshot live = new LiveState.Snapshot();
+    private boolean isServiceBound = false;
+
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            metrics = ((HeartRateService.LocalBinder) service).getMetrics();
+            liveState = ((HeartRateService.LocalBinder) service).getLiveState();
+            notiDispatcher = ((HeartRateService.LocalBinder) service).getNotiDispatcher();
+            refresh.run();
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            metrics = null;
+            liveState = null;
+            notiDispatcher = null;
+        }
+    };
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            handler.removeCallbacks(this);
+            sb.setLength(0);
+            if (liveState != null) {
+                liveState.read(live); // 감지 스레드가 쓰는 중이어도 섞이지 않은 값
+                if (live.timeMillis != 0) {
+                    sb.append("live ").append(live.heartRate).append(" bpm, baseline ")
+                            .append(Math.round(live.baselineMean)).append(" (").append(live.baselineMin)
+                            .append('-').append(live.baselineMax).append(", n=").append(live.baselineCount)
+                            .append(")\n").append(SamplingScheduler.Session.values()[live.session])
+                            .append(live.isResting() ? " resting" : "")
+                            .append(live.isAlertActive() ? " ALERT" : "").append('\n');
+                }
+            }
+            if (metrics != null) {
+                metrics.appendReadable(sb);
+            }
+            if (notiDispatcher != null) {
+                sb.append("noti\n").append(notiDispatcher.formatMetrics());
+            }
+            metricsText.setText(sb);
+            handler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_debug_metrics);
+        metricsText = findViewById(R.id.metricsText);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        isServiceBound = bindService(new Intent(this, HeartRateService.class), serviceConnection, Context.BIND_AUTO_CREATE);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresh);
+        if (isServiceBound) {
+            unbindService(serviceConnection);
+            isServiceBound = false;
+        }
+        metrics = null;
+        liveState = null;
+        notiDispatcher = null;
+    }
+}
@@ -1,60 +1,289 @@
 package com.example.sensorrangecount;
 
+import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Binder;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.os.Vibrator;
+import android.provider.Settings;
 import android.util.Log;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-
-import java.io.OutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
-
-public class HeartRateService extends Service implements SensorEventListener {
-    private SensorManager sensorManager; // 센서 매니저
-    private Sensor heartRateSensor; // 심박수 센서
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class HeartRateService extends Service implements HeartRatePipeline.Callback {
+    private SensorSource heartRateSource; // 심박수 센서 입력
     private PowerManager.WakeLock wakeLock; // Wake Lock
 
+    // 센서 샘플링 설정
+    private static final boolean LOW_POWER_MODE = true; // 센서 FIFO 배치 모드 (false 면 Wake Lock 을 계속 유지)
+    // 주기/배치 지연은 운행 상태와 신호 안정도에 따라 SamplingScheduler 가 고름 (SamplingReplay 로 정책 비교)
+    private static final SamplingPolicy SAMPLING_POLICY = SamplingPolicy.BALANCED;
+    private static final long SAMPLING_JOIN_TIMEOUT_MS = 1_000;
+    private static final long PROCESS_WAKELOCK_TIMEOUT_MS = 3_000; // 묶음 처리 중 Wake Lock 최대 유지 시간
+
+    // 센서 원본 이벤트 기록 (TraceReplayer 로 PC 에서 재생) - files/traces/trace-<시작시각>.hrt
+    private static final boolean RECORD_TRACE = false;
+    private SensorTraceWriter traceWriter;
+
+    // 센서 모드 전환 (등록/해제는 SamplingControl 스레드에서만)
+    private final SamplingScheduler samplingScheduler = new SamplingScheduler(SAMPLING_POLICY,
+            SystemClock::elapsedRealtimeNanos);
+    private SensorSource.Listener sensorListener; // 센서 등록할 때마다 같은 리스너 사용
+    private SamplingScheduler.Mode appliedMode = SamplingScheduler.Mode.OFF; // SamplingControl 스레드 전용
+    private HandlerThread samplingThread;
+    private Handler samplingHandler;
+    private AlarmManager alarmManager;
+    private final Runnable samplingUpdate = this::updateSampling;
+
+    // 운행 중(STABLE/DENSE)에만 가속도/자이로로 움직임 특징 계산 -> 심박수와 합쳐 졸음 점수
+    private static final int MOTION_SAMPLING_PERIOD_US = 40_000; // 25Hz
+    private final MotionFeatureExtractor motionFeatures = new MotionFeatureExtractor();
+    private final DrowsinessScore drowsinessScore = DrowsinessScore.createDefault(motionFeatures);
+    private AndroidMotionSource motionSource;
+    // 대기/휴식 중 센서 켜기/끄기 시각 (센서가 꺼져 있으면 묶음이 오지 않으므로 알람으로 깨움)
+    private final AlarmManager.OnAlarmListener dutyAlarm = this::updateSampling;
+
     private Vibrator vibrator; // 진동 서비스 객체
-    List<Integer> heartRateList = MainActivity.heartRateList;
 
-    private boolean isResting = false;  // 휴식 상태를 추적하는 변수
+    // 졸음 감지 (휴식 상태 포함) - 운행 중 IMU 데이터가 있으면 움직임이 섞인 졸음 점수도 한 표
+    private final DrowsinessEngine drowsinessEngine = DrowsinessEngine.create(DrowsinessEngine.DEFAULT_RATIO,
+            drowsinessScore);
+    private HeartRatePipeline pipeline; // 샘플 처리 (기준 심박수 -> 감지 -> 업로드/저장/구독자)
+    private AlertLane alertLane; // 감지/진동은 전용 스레드, 업로드/저장/구독자는 기록 스레드에서 처리
+
+    private static final long[] VIBRATION_PATTERN = {0, 500, 100, 500}; // 진동 패턴
+    private long bootTimeMillis; // 부팅 시각 (epoch 밀리초) - 센서 타임스탬프 변환용
 
     private static final String CHANNEL_ID = "HeartRateServiceChannel"; // 알림 채널 ID
     private String heartUrl = "http://172.168.10.88:9000/heartrate/heartrate"; // 웹 서버 URL
 
+    // 운행 요약 - 운행 종료 때 운행 시간과 같이 한 번에 전송 (실패하면 TRIP_RETRY_MS 부터 두 배씩 늘려 재시도)
+    private String drivingUrl = "http://172.168.10.88:9000/heartrate/drivingtime";
+    private static final long TRIP_RETRY_MS = 30_000;
+    private static final int TRIP_MAX_ATTEMPTS = 5;
+    private final TripSummary tripSummary = new TripSummary(DrowsinessEngine.DEFAULT_RATIO);
+
+    // 운행 세션 (대기/운행 중/휴식) - 화면이 아니라 서비스가 소유, 전환마다 기록 파일에 남겨서 프로세스가 죽어도 복원
+    private static final String SESSION_JOURNAL_FILE = "session.journal";
+    private SessionJournal sessionJournal;
+    private DrivingSession drivingSession;
+
+    // 운행 알림 (시작/휴식/휴식 끝/종료/졸음) - 서비스가 소유, 보내지 못한 알림은 files/noti.journal 에 남겨서 다음 실행 때
+    // Idempotency-Key 는 운행 기록(DrivingSession) 으로 만들어서 프로세스가 다시 떠도 같은 전환은 같은 키
+    private static final String NOTI_JOURNAL_FILE = "noti.journal";
+    private String notiUrl = "http://172.168.10.88:9000/"; // 경로는 알림 종류 (NotiDispatcher.Event.path)
+    private NotiDispatcher notiDispatcher;
+    // 긴급 알림과 심박수/롤업 업로드 사이의 전송 순서
+    private final NetworkPriority networkPriority = new NetworkPriority();
+
+    // 업로드 큐 설정
+    private static final int UPLOAD_BATCH_SIZE = 30; // 한번에 보낼 최대 샘플 수
+    private static final long UPLOAD_MAX_BATCH_AGE_MS = 30_000; // 최대 30초 모아서 전송
+    private static final int UPLOAD_QUEUE_CAPACITY = 600; // 메모리 큐 크기
+    private static final long UPLOAD_MAX_JOURNAL_RECORDS = 12 * 60 * 60; // 오프라인 보관 최대 샘플 수 (약 12시간)
+    private static final boolean UPLOAD_BINARY = false; // 바이너리 배치 포맷 사용 (서버가 지원할 때만 켬)
+    private static final boolean UPLOAD_COMPRESS = true; // 바이너리 포맷 deflate 압축
+    // 연결된 폰 앱이 있으면 폰을 거쳐 전송 (심박수 배치 + 운행 알림), 없으면 HTTP 로 직접 전송
+    static final boolean RELAY_VIA_PHONE = true;
+    private HeartRateUploader uploader; // 심박수 업로드 큐
+
+    // 롤업 업로드 - 원본 대신 10초/1분 통계를 올리고, 원본은 경보 전후와 서버가 요청한 구간만
+    private static final boolean UPLOAD_ROLLUPS = true;
+    private String rollupUrl = "http://172.168.10.88:9000/heartrate/rollup";
+    private static final int ROLLUP_BATCH_SIZE = 60;
+    private static final long ROLLUP_MAX_BATCH_AGE_MS = 5 * 60_000; // 대시보드는 분 단위라 5분까지 모아서 전송
+    private static final int ROLLUP_QUEUE_CAPACITY = 240;
+    private static final long ROLLUP_MAX_JOURNAL_RECORDS = 7 * 24 * 60 * 7; // 약 7일 (1분 1개 + 10초 6개)
+    private static final long RAW_PRE_EVENT_MS = 2 * 60_000; // 경보 전 원본 구간
+    private static final long RAW_POST_EVENT_MS = 2 * 60_000; // 경보 후 원본 구간
+    private static final int RAW_RECENT_CAPACITY = 2048; // 경보 전후 구간을 담는 메모리 버퍼 (1초 주기 약 34분)
+    private RollupUploader rollupUploader;
+    private RollupAggregator rollups; // 기록 스레드 전용
+    private RawWindowExporter rawWindows;
+
+    // 관제 화면 실시간 스트림 (선택 기능, 서버가 지원할 때만 켬) - WebSocket 연결 하나로 샘플/경보를 바로 전송
+    // 업로드 큐와 별개 (기록은 업로드 큐가 담당, 이쪽은 끊기면 최근 것만 이어서 보냄)
+    private static final boolean LIVE_STREAM = false;
+    private String liveUrl = "ws://172.168.10.88:9000/heartrate/live";
+    private static final long LIVE_HEARTBEAT_MS = 15_000; // 보낼 게 없을 때 ping 주기 (x2 동안 응답 없으면 재연결)
+    private static final int LIVE_CAPACITY = 256; // ACK 대기 프레임 (1초 주기 약 4분)
+    private volatile LiveStreamClient liveStream;
+
+    // 기기 내 심박수 저장소
+    private static final long STORE_RETENTION_MS = 7L * 24 * 60 * 60_000; // 7일 보관
+    private static final long STORE_PRUNE_INTERVAL_MS = 60 * 60_000; // 서비스가 계속 떠 있어도 세그먼트(1시간)마다 정리
+    private HeartRateStore store;
+
+    // 운전자별 평소 심박수 프로필 (files/profiles/baseline-<userId>.bin) - 운행 시작 직후 기준 심박수의 사전값
+    // 서비스 시작 때 metricsExecutor 에서 읽고, 주기적으로/운행 종료/운전자 변경/서비스 종료 때 저장
+    private static final long PROFILE_SAVE_INTERVAL_MS = 5 * 60_000;
+    private static final String DRIVER_PREFS = "driver"; // 마지막으로 선택된 운전자 (userId)
+    private BaselineProfileStore profileStore;
+
+    // 계측 (디버그 화면 + files/metrics.log 주기적 스냅샷)
+    private static final long METRICS_SNAPSHOT_INTERVAL_MS = 60_000;
+    private static final long METRICS_MAX_BYTES = 256 * 1024; // 넘으면 metrics.log.1 로 교체
+    private static final long METRICS_SHUTDOWN_TIMEOUT_MS = 2_000; // 서비스 종료 때 남은 작업을 기다리는 최대 시간
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private volatile ScheduledExecutorService metricsExecutor; // 덤프도 여기서 (경보 스레드에서 예약)
+
+    // 이벤트 기록기 (항상 켬, 1초 주기 샘플 기준 약 4시간 분량) - 요청/크래시/졸음 경보 때 files/flight/ 에 덤프 (FlightLogDecoder 로 확인)
+    // 프로세스에 하나 (알림 전송 결과도 기록)
+    private static final int FLIGHT_RECORDER_CAPACITY = 16_384; // 이벤트당 32바이트 -> 512KB
+    private static final int FLIGHT_MAX_DUMPS = 10;
+    private static final long FLIGHT_ALERT_DUMP_DELAY_MS = 60_000; // 경보 후 상황까지 담기게 잠시 뒤에 덤프
+    static final FlightRecorder FLIGHT_RECORDER =
+            new FlightRecorder(FLIGHT_RECORDER_CAPACITY, SystemClock::elapsedRealtimeNanos);
+    private final AtomicBoolean alertDumpPending = new AtomicBoolean(); // 연달아 경보가 나도 덤프는 한 번
+    private Thread.UncaughtExceptionHandler defaultCrashHandler;
+
+    private final IBinder binder = new LocalBinder(); // 같은 프로세스 바인딩용
+
+    // 같은 프로세스에서 서비스에 바인딩할 때 사용
+    public class LocalBinder extends Binder {
+        public HeartRateHub getHub() {
+            return pipeline.getHub();
+        }
+
+        public PipelineMetrics getMetrics() {
+            return metrics;
+        }
+
+        public LiveState getLiveState() {
+            return pipeline.getLiveState();
+        }
+
+        public DrivingSession getSession() {
+            return drivingSession;
+        }
+
+        public NotiDispatcher getNotiDispatcher() {
+            return notiDispatcher;
+        }
+    }
+
     // 서비스가 생성될 때 호출
     @Override
     public void onCreate() {
         super.onCreate();
-        setupHeartRateSensor(); // 심박수 센서 설정
+        bootTimeMillis = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        pipeline = new HeartRatePipeline(bootTimeMillis, drowsinessEngine, this);
+        pipeline.setMetrics(metrics, SystemClock::elapsedRealtimeNanos);
+        pipeline.setDrowsinessScore(drowsinessScore);
+        pipeline.setFlightRecorder(FLIGHT_RECORDER);
+        pipeline.setTripSummary(tripSummary);
+        FLIGHT_RECORDER.record(FlightRecorder.SERVICE, 1, 0);
+        installCrashDump();
+        metrics.setDrowsinessScore(drowsinessScore);
+        setupNotiDispatcher(); // 운행 알림 전송기 (경보 스레드보다 먼저)
         createNotificationChannel(); // 알림 채널 생성
         acquireWakeLock(); // Wake Lock 획득
-
-        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        setupUploader(); // 업로드 큐 시작
+        setupStore(); // 기기 내 저장소 열기
+        startAlertLane(); // 경보/기록 스레드 시작 (센서 등록 전)
+        restoreSession(); // 운행 중에 프로세스가 죽었으면 이어서 (센서 모드 정하기 전)
+        setupHeartRateSensor(); // 심박수 센서 설정 (등록은 SamplingControl 스레드에서)
+        startMetricsSnapshots(); // 계측 스냅샷 기록 시작
+        startProfile(); // 운전자 프로필 읽기 (백그라운드)
+        startStorePruning(); // 오래된 저장소 세그먼트 주기적 정리
+        setupLiveStream(); // 실시간 스트림 연결 (켠 경우, 운전자가 정해진 뒤)
     }
 
     // 서비스가 시작될 때 호출
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         startForeground(1, createNotification()); // 포그라운드 서비스 시작
+
+        // MainActivity 에서 보낸 휴식 시작/종료 처리
+        String action = intent != null ? intent.getStringExtra("action") : null;
+        if ("toggleRest".equals(action)) { // 휴식 버튼 - 지금 세션 상태로 결정
+            action = drivingSession.getState() == DrivingSession.State.RESTING ? "endRest" : "startRest";
+        }
+        // 세션 상태에 맞지 않는 전환(버튼 연타, 이미 복원된 상태)은 무시 - 알림도 전환에 성공했을 때만
+        if ("startDriving".equals(action)) {
+            if (drivingSession.start(SystemClock.elapsedRealtime(), System.currentTimeMillis())) {
+                tripSummary.begin(System.currentTimeMillis());
+                setSession(SamplingScheduler.Session.DRIVING);
+                sendSessionNoti(NotiDispatcher.Event.START);
+            }
+        } else if ("stopDriving".equals(action)) {
+            long drivingTime = drivingSession.stop(SystemClock.elapsedRealtime(), System.currentTimeMillis());
+            if (drivingTime >= 0) { // 휴식을 뺀 운행 시간
+                sendSessionNoti(NotiDispatcher.Event.END);
+                stopRest();
+                setSession(SamplingScheduler.Session.IDLE);
+                Log.d("TAG___", "Driving time: " + drivingTime / 1000 + " s");
+                sendTripSummary(tripSummary.toJson(drivingTime, System.currentTimeMillis()), 1);
+                ScheduledExecutorService executor = metricsExecutor;
+                if (executor != null) {
+                    executor.execute(this::saveProfile); // 운행 끝에 이번 운행까지 반영
+                }
+            }
+        } else if ("startRest".equals(action)) {
+            if (drivingSession.rest(SystemClock.elapsedRealtime(), System.currentTimeMillis())) {
+                startRest();
+                setSession(SamplingScheduler.Session.RESTING);
+                sendSessionNoti(NotiDispatcher.Event.REST);
+            }
+        } else if ("endRest".equals(action)) {
+            if (drivingSession.resume(SystemClock.elapsedRealtime(), System.currentTimeMillis())) {
+                stopRest();
+                setSession(SamplingScheduler.Session.DRIVING);
+                sendSessionNoti(NotiDispatcher.Event.END_REST);
+            }
+        } else if ("uploadRaw".equals(action) && rawWindows != null) {
+            // 서버가 원본을 요청한 구간 (epoch 밀리초, 폰 앱/푸시에서 전달)
+            rawWindows.request(intent.getLongExtra("from", 0), intent.getLongExtra("to", 0));
+        } else if ("setDriver".equals(action)) {
+            // 워치를 같이 쓰는 운전자 변경 (지금 프로필 저장 후 새 운전자 프로필로)
+            String userId = intent.getStringExtra("userId");
+            if (userId != null && !userId.isEmpty() && !userId.equals(MainActivity.userId)) {
+                MainActivity.userId = userId;
+                getSharedPreferences(DRIVER_PREFS, MODE_PRIVATE).edit().putString("userId", userId).apply();
+                if (liveStream != null) {
+                    startLiveStream(userId); // 새 운전자로 다시 연결
+                }
+                ScheduledExecutorService executor = metricsExecutor;
+                if (executor != null) {
+                    // 새 프로필을 읽을 때까지 프로필 없이 (이전 운전자 프로필에 새 운전자 샘플이 섞이지 않게)
+                    final BaselineProfile previous = pipeline.getBaselineProfile();
+                    pipeline.setBaselineProfile(null);
+                    executor.execute(() -> {
+                        saveProfile(previous);
+                        loadProfile(userId);
+                    });
+                }
+            }
+        } else if ("dumpFlight".equals(action)) {
+            // adb shell am startservice -n <패키지>/.HeartRateService --es action dumpFlight
+            ScheduledExecutorService executor = metricsExecutor;
+            if (executor != null) {
+                executor.execute(() -> dumpFlightRecorder(FlightRecorder.DUMP_ON_DEMAND));
+            }
+        }
         return START_NOT_STICKY;
     }
 
@@ -62,67 +291,294 @@ public class HeartRateService extends Service implements SensorEventListener {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (heartRateSensor != null) {
-            sensorManager.unregisterListener(this, heartRateSensor); // 센서 리스너 해제
+        FLIGHT_RECORDER.record(FlightRecorder.SERVICE, 0, 0);
+        stopSamplingControl(); // 예약된 모드 전환/알람 취소
+        if (heartRateSource != null) {
+            heartRateSource.stop(); // 센서 리스너 해제
+        }
+        if (motionSource != null) {
+            motionSource.stop();
+        }
+        if (alertLane != null) {
+            alertLane.stop(); // 남은 샘플 처리 후 종료
+        }
+        if (rollups != null) {
+            rollups.flush(); // 기록 스레드가 끝난 뒤라 여기서 마지막 구간을 닫음
+        }
+        if (metricsExecutor != null) {
+            metricsExecutor.shutdown();
+            try {
+                metricsExecutor.awaitTermination(METRICS_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS); // 진행 중인 저장/덤프가 끝날 때까지
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveProfile(); // 기록 스레드/metricsExecutor 가 끝난 뒤라 더 바뀌지 않고 겹쳐 쓰지 않음
+        if (traceWriter != null) {
+            try {
+                traceWriter.close();
+            } catch (IOException e) {
+                Log.e("TAG___", "Error writing sensor trace: " + e.getMessage());
+            }
+        }
+        if (uploader != null) {
+            uploader.stop(); // 남은 샘플은 journal 에 저장
+        }
+        if (notiDispatcher != null) {
+            notiDispatcher.stop(); // 보내지 못한 알림은 journal 에 남음
+        }
+        if (rollupUploader != null) {
+            rollupUploader.stop();
+        }
+        LiveStreamClient live = liveStream;
+        if (live != null) {
+            liveStream = null;
+            live.stop();
+        }
+        if (sessionJournal != null) {
+            try {
+                sessionJournal.close(); // 남은 전환 기록 fsync
+            } catch (IOException e) {
+                Log.e("TAG___", "Error closing session journal: " + e.getMessage());
+            }
+        }
+        if (store != null) {
+            try {
+                store.close(); // 저장소 닫기
+            } catch (IOException e) {
+                Log.e("TAG___", "Error closing heart rate store: " + e.getMessage());
+            }
         }
         if (wakeLock != null && wakeLock.isHeld()) {
             wakeLock.release(); // Wake Lock 해제
         }
+        if (defaultCrashHandler != null) {
+            Thread.setDefaultUncaughtExceptionHandler(defaultCrashHandler);
+        }
     }
 
-    // 센서 데이터 변경 시 호출
+    // 묶음의 첫 샘플 - 처리가 끝날 때까지만 Wake Lock 유지
     @Override
-    public void onSensorChanged(SensorEvent event) {
-        if (event.sensor.getType() == Sensor.TYPE_HEART_RATE) {
-            int heartRate = (int) event.values[0];
-            Log.d("TAG___", "심박수: " + heartRate);
-
-            //시간
-            long currentTimeMillis = System.currentTimeMillis();
-            String heartRateLogTime = formatDate(currentTimeMillis);
-            Log.d("TAG___", "시간: " + heartRateLogTime);
-
-            if (heartRate != 0) {
-                // 서버로 전송
-                sendHeartRateToServer(heartRate, heartRateLogTime);
-
-                if (heartRateList.size() < 60) {
-                    heartRateList.add(heartRate);
-                }
-                double average = calculateAverage(heartRateList);
-                Log.d("TAG___", "평균 심박수 : " + average);
-                double threshold = average * 0.93;
-
-                if (!isResting && heartRate < threshold) {
-                    if (vibrator != null) {
-                        vibrate();
-                    } else {
-                        Log.e("TAG___", "Vibrator is not initialized");
-                    }
-                }
+    public void onBatchStart() {
+        holdWakeLock();
+    }
 
-                // 심박수 데이터를 브로드캐스트로 전송
-                Intent intent = new Intent("HEART_RATE_UPDATE");
-                intent.putExtra("heartRate", heartRate);
-                intent.putExtra("heartRateLogTime", heartRateLogTime);
-                LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
-            }
+    // 묶음마다 센서 모드 다시 평가 (새로 깨우지 않고 센서가 깨운 김에)
+    @Override
+    public void onBatchProcessed() {
+        releaseWakeLock();
+        Handler h = samplingHandler;
+        if (h != null) {
+            h.removeCallbacks(samplingUpdate);
+            h.post(samplingUpdate);
         }
     }
 
-    // 센서 정확도 변경 시 호출
+    // 졸음 경보 (경보 스레드) - 진동 후 긴급 알림을 업로드보다 먼저 전송
+    // 로그/브로드캐스트 등 느린 작업은 여기서 하지 않음
     @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+    public void onAlert(long timeMillis, int heartRate) {
+        if (vibrator != null) {
+            long start = System.nanoTime();
+            vibrate();
+            metrics.vibrateCall.record(System.nanoTime() - start);
+        } else {
+            Log.e("TAG___", "Vibrator is not initialized");
+        }
+        // 졸음감지 알림 - 대기 중인 다른 알림과 업로드보다 먼저 전송 (키는 운행 ID + 경보 시각)
+        String userId = MainActivity.userId;
+        DrivingSession session = drivingSession;
+        notiDispatcher.dispatchUrgent(NotiDispatcher.Event.EMERGENCY, userId,
+                NotiDispatcher.idempotencyKey(userId, session != null ? session.getSessionId() : 0, timeMillis));
+        LiveStreamClient live = liveStream;
+        if (live != null) {
+            live.offerAlert(timeMillis, heartRate);
+        }
+        scheduleAlertDump();
+    }
+
+    @Override
+    public void onError(String message, IOException e) {
+        FLIGHT_RECORDER.record(FlightRecorder.ERROR, FlightRecorder.ERROR_STORE, 0);
+        Log.e("TAG___", message + ": " + e.getMessage());
+    }
+
+    // 경보 후 FLIGHT_ALERT_DUMP_DELAY_MS 뒤에 덤프 (경보 스레드에서는 예약만)
+    private void scheduleAlertDump() {
+        ScheduledExecutorService executor = metricsExecutor;
+        if (executor != null && alertDumpPending.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                alertDumpPending.set(false);
+                dumpFlightRecorder(FlightRecorder.DUMP_ALERT);
+            }, FLIGHT_ALERT_DUMP_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void dumpFlightRecorder(int reason) {
+        try {
+            File file = FLIGHT_RECORDER.dumpToDirectory(new File(getFilesDir(), "flight"), reason,
+                    System.currentTimeMillis(), FLIGHT_MAX_DUMPS);
+            Log.d("TAG___", file != null ? "Flight recorder dumped: " + file.getName()
+                    : "Flight recorder dump skipped (another dump in progress)");
+        } catch (IOException e) {
+            Log.e("TAG___", "Error dumping flight recorder: " + e.getMessage());
+        }
+    }
+
+    // 처리되지 않은 예외로 죽기 직전에 덤프 (그 스레드에서 바로 쓰고 원래 핸들러로 넘김)
+    private void installCrashDump() {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        defaultCrashHandler = previous;
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            try {
+                FLIGHT_RECORDER.record(FlightRecorder.CRASH, thread.getId(), 0);
+                dumpFlightRecorder(FlightRecorder.DUMP_CRASH);
+            } catch (Throwable dumpError) {
+                // 덤프가 실패해도 원래 처리기(크래시 보고/프로세스 종료)는 반드시 호출
+            } finally {
+                if (previous != null) {
+                    previous.uncaughtException(thread, e);
+                }
+            }
+        });
+    }
 
     // 심박수 센서 설정
     private void setupHeartRateSensor() {
-        sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
-        heartRateSensor = sensorManager.getDefaultSensor(Sensor.TYPE_HEART_RATE); // 심박수 센서 초기화
-        if (heartRateSensor != null) {
-            sensorManager.registerListener(this, heartRateSensor, SensorManager.SENSOR_DELAY_NORMAL); // 센서 리스너 등록
-        } else {
+        SensorManager sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
+        heartRateSource = new AndroidSensorSource(sensorManager, Sensor.TYPE_HEART_RATE);
+        motionSource = new AndroidMotionSource(sensorManager, motionFeatures);
+        alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
+        SensorSource.Listener listener = alertLane != null ? alertLane : pipeline;
+        if (RECORD_TRACE) {
+            traceWriter = openTraceWriter(listener);
+            if (traceWriter != null) {
+                listener = traceWriter;
+            }
+        }
+        sensorListener = listener;
+        // 안정도 판단용 샘플 (기록 스레드) - 스케줄러 시계와 같은 부팅 후 경과 시간으로
+        pipeline.getHub().subscribe((timeMillis, heartRate) ->
+                samplingScheduler.onSample(timeMillis - bootTimeMillis, heartRate), null, false);
+
+        samplingThread = new HandlerThread("SamplingControl");
+        samplingThread.start();
+        samplingHandler = new Handler(samplingThread.getLooper());
+        samplingHandler.post(samplingUpdate); // 첫 모드 적용 (운행 전이면 DUTY/OFF)
+    }
+
+    // 운행 시작/휴식/종료를 센서 모드에 반영
+    private void setSession(SamplingScheduler.Session session) {
+        FLIGHT_RECORDER.record(FlightRecorder.SESSION, session.ordinal(), 0);
+        samplingScheduler.setSession(session);
+        pipeline.setSession(session);
+        Handler h = samplingHandler;
+        if (h != null) {
+            h.removeCallbacks(samplingUpdate);
+            h.post(samplingUpdate);
+        }
+    }
+
+    // 지금 모드를 다시 평가하고 바뀌었으면 센서를 다시 등록 (SamplingControl 스레드)
+    private void updateSampling() {
+        // 경보 상태는 감지 스레드가 LiveState 로 공개한 값 (엔진 필드를 직접 읽지 않음)
+        samplingScheduler.setAlertActive((pipeline.getLiveState().getFlags() & LiveState.FLAG_ALERT_ACTIVE) != 0);
+        SamplingScheduler.Mode mode = samplingScheduler.evaluate();
+        if (mode != appliedMode) {
+            applySamplingMode(mode);
+        }
+        scheduleDutyAlarm();
+    }
+
+    private void applySamplingMode(SamplingScheduler.Mode mode) {
+        FLIGHT_RECORDER.record(FlightRecorder.SAMPLING_MODE, appliedMode.ordinal(), mode.ordinal());
+        appliedMode = mode;
+        boolean driving = mode == SamplingScheduler.Mode.STABLE || mode == SamplingScheduler.Mode.DENSE;
+        if (!driving) {
+            motionSource.stop();
+            motionFeatures.reset(); // 스레드가 멈춘 뒤라 여기서 초기화해도 됨
+        }
+        if (mode == SamplingScheduler.Mode.OFF) {
+            heartRateSource.stop();
+            return;
+        }
+        int periodUs = SAMPLING_POLICY.samplingPeriodUs(mode);
+        int reportLatencyUs = LOW_POWER_MODE ? SAMPLING_POLICY.reportLatencyUs(mode) : 0;
+        if (alertLane != null) {
+            alertLane.setReportLatencyNanos(reportLatencyUs * 1000L); // 경보 지연 목표 = FIFO 보고 지연 + 처리 목표
+        }
+        if (!heartRateSource.start(sensorListener, periodUs, reportLatencyUs)) { // 센서 리스너 등록
+            FLIGHT_RECORDER.record(FlightRecorder.ERROR, FlightRecorder.ERROR_SENSOR, 0);
             Log.e("TAG___", "Heart Rate Sensor not available");
         }
+        if (driving) {
+            // 심박수 묶음과 같은 주기로 전달 (움직임 FIFO 가 그 전에 차면 그만큼 짧게 - AndroidMotionSource)
+            motionSource.start(MOTION_SAMPLING_PERIOD_US, reportLatencyUs);
+        }
+    }
+
+    // 대기/휴식 중 다음 켜기/끄기 시각에 알람 (정확할 필요 없음, 운행 중에는 알람 없음)
+    private void scheduleDutyAlarm() {
+        if (alarmManager == null) {
+            return;
+        }
+        alarmManager.cancel(dutyAlarm);
+        long next = samplingScheduler.nextDutyChangeMs(); // elapsedRealtime 기준
+        if (next >= 0) {
+            alarmManager.set(AlarmManager.ELAPSED_REALTIME_WAKEUP, next,
+                    "HeartRateService:duty", dutyAlarm, samplingHandler);
+        }
+    }
+
+    private void stopSamplingControl() {
+        if (alarmManager != null) {
+            alarmManager.cancel(dutyAlarm);
+        }
+        if (samplingThread == null) {
+            return;
+        }
+        Handler h = samplingHandler;
+        samplingHandler = null;
+        h.removeCallbacksAndMessages(null);
+        samplingThread.quitSafely();
+        try {
+            samplingThread.join(SAMPLING_JOIN_TIMEOUT_MS); // 진행 중인 센서 등록이 끝날 때까지
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        samplingThread = null;
+    }
+
+    // 경보 스레드는 화면 갱신과 같은 우선순위, 기록 스레드는 백그라운드 우선순위
+    private void startAlertLane() {
+        alertLane = new AlertLane(pipeline, r -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            r.run();
+        }, "AlertLane"), r -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            r.run();
+        }, "AlertLane-record"));
+        alertLane.start();
+    }
+
+    // 센서 트레이스 파일 열기 (실패하면 기록 없이 진행)
+    // 헤더의 주기/배치 지연은 운행 중 촘촘한 모드 기준 (실제 모드는 운행 상태에 따라 바뀜)
+    private SensorTraceWriter openTraceWriter(SensorSource.Listener listener) {
+        File dir = new File(getFilesDir(), "traces");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e("TAG___", "Cannot create trace directory");
+            return null;
+        }
+        File file = new File(dir, "trace-" + System.currentTimeMillis() + ".hrt");
+        try {
+            SamplingScheduler.Mode mode = SamplingScheduler.Mode.DENSE;
+            return new SensorTraceWriter(file, Sensor.TYPE_HEART_RATE, bootTimeMillis,
+                    SAMPLING_POLICY.samplingPeriodUs(mode), LOW_POWER_MODE ? SAMPLING_POLICY.reportLatencyUs(mode) : 0,
+                    SystemClock::elapsedRealtimeNanos, listener);
+        } catch (IOException e) {
+            Log.e("TAG___", "Error opening sensor trace: " + e.getMessage());
+            return null;
+        }
     }
 
     // 알림 생성 메서드
@@ -149,88 +605,348 @@ public class HeartRateService extends Service implements SensorEventListener {
         }
     }
 
-    // Wake Lock 획득
+    // Wake Lock 획득 - 저전력 모드에서는 생성만 하고 묶음 처리할 때만 잠깐 잡음
     private void acquireWakeLock() {
         PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
         wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "MyApp::HeartRateWakelock");
         if (wakeLock != null) {
-            wakeLock.acquire(); // Wake Lock 획득
+            wakeLock.setReferenceCounted(false);
+            if (!LOW_POWER_MODE) {
+                wakeLock.acquire(); // Wake Lock 획득
+            }
         }
     }
 
-    // 심박수 서버 전송 메서드
-    private void sendHeartRateToServer(int heartRate, String heartRateLogTime) {
-        new Thread(() -> {
-            try {
-                URL url = new URL(heartUrl);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("POST");
-                connection.setRequestProperty("Content-Type", "application/json");
-                connection.setDoOutput(true);
-
-                String jsonInputString = "{\"heartrate\": " + heartRate + ", \"heartratelogtime\": \"" + heartRateLogTime + "\"}";
-                Log.d("TAG___", "Sending Heart Rate: " + jsonInputString);
-
-                try (OutputStream os = connection.getOutputStream()) {
-                    byte[] input = jsonInputString.getBytes("utf-8");
-                    os.write(input, 0, input.length);
+    // 묶음 처리 동안만 Wake Lock 유지 (타임아웃으로 최대 시간 제한)
+    private void holdWakeLock() {
+        if (LOW_POWER_MODE && wakeLock != null) {
+            wakeLock.acquire(PROCESS_WAKELOCK_TIMEOUT_MS);
+        }
+    }
+
+    private void releaseWakeLock() {
+        if (LOW_POWER_MODE && wakeLock != null && wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+    }
+
+    // 기기 내 저장소 열기 및 오래된 데이터 정리
+    private void setupStore() {
+        HeartRateStore opened = new HeartRateStore(new File(getFilesDir(), "heartrate"));
+        try {
+            opened.open();
+            opened.deleteOlderThan(System.currentTimeMillis() - STORE_RETENTION_MS);
+            store = opened;
+            pipeline.setStore(opened);
+            if (rawWindows != null) {
+                rawWindows.setStore(opened); // 메모리 버퍼보다 오래된 요청 구간
+            }
+        } catch (IOException e) {
+            Log.e("TAG___", "Error opening heart rate store: " + e.getMessage());
+        }
+    }
+
+    // 운행 알림 전송기 생성 및 시작 (이전 실행에서 보내지 못한 알림부터)
+    private void setupNotiDispatcher() {
+        NotiDispatcher.Transport transport = new HttpNotiTransport(notiUrl);
+        if (RELAY_VIA_PHONE) {
+            transport = new RelayTransport(DataLayerRelayChannel.init(this), null, transport); // 폰이 없으면 HTTP 직접 전송
+        }
+        notiDispatcher = new NotiDispatcher(transport, new File(getFilesDir(), NOTI_JOURNAL_FILE));
+        notiDispatcher.setNetworkPriority(networkPriority);
+        notiDispatcher.setMetrics(metrics);
+        notiDispatcher.setListener(new NotiDispatcher.Listener() {
+            @Override
+            public void onDelivered(NotiDispatcher.Event event, int responseCode, long latencyMs) {
+                FLIGHT_RECORDER.record(FlightRecorder.NOTI_SENT, event.ordinal(), latencyMs);
+            }
+
+            @Override
+            public void onFailed(NotiDispatcher.Event event, String reason, int attempt) {
+                FLIGHT_RECORDER.record(FlightRecorder.NOTI_FAILED, event.ordinal(), attempt);
+                Log.e("TAG___", "Error sending noti " + event.path + " (attempt " + attempt + "): " + reason);
+            }
+        });
+        notiDispatcher.start();
+    }
+
+    // 세션 전환 알림 - 전환에 성공한 직후 (키는 운행 ID + 방금 기록한 전환 순번)
+    private void sendSessionNoti(NotiDispatcher.Event event) {
+        String userId = MainActivity.userId;
+        notiDispatcher.dispatch(event, userId,
+                NotiDispatcher.idempotencyKey(userId, drivingSession.getSessionId(), drivingSession.getSequence()));
+    }
+
+    // 업로드 큐 생성 및 시작
+    private void setupUploader() {
+        try {
+            UploadTransport transport = new HttpUploadTransport(heartUrl);
+            if (RELAY_VIA_PHONE) {
+                transport = new RelayTransport(DataLayerRelayChannel.init(this), transport, null);
+            }
+            uploader = new HeartRateUploader(
+                    transport,
+                    new File(getFilesDir(), "heartrate-journal.bin"),
+                    UPLOAD_BATCH_SIZE, UPLOAD_MAX_BATCH_AGE_MS,
+                    UPLOAD_QUEUE_CAPACITY, UPLOAD_MAX_JOURNAL_RECORDS);
+        } catch (IOException e) {
+            Log.e("TAG___", "Invalid heart rate url: " + e.getMessage());
+            return;
+        }
+        if (UPLOAD_BINARY) {
+            uploader.setBinaryEncoding(MainActivity.userId, UPLOAD_COMPRESS);
+        }
+        uploader.setListener(new HeartRateUploader.Listener() {
+            @Override
+            public void onBatchSent(int count, int responseCode) {
+                FLIGHT_RECORDER.record(FlightRecorder.UPLOAD_SENT, count, responseCode);
+            }
+
+            @Override
+            public void onBatchFailed(int count, String reason) {
+                FLIGHT_RECORDER.record(FlightRecorder.UPLOAD_FAILED, count, 0);
+                Log.e("TAG___", "Error sending heart rate batch: " + count + " (" + reason + ")");
+            }
+        });
+        uploader.setMetrics(metrics);
+        uploader.setNetworkPriority(networkPriority); // 긴급 알림이 대기 중이면 양보
+        metrics.setUploader(uploader);
+        pipeline.setUploader(uploader);
+        uploader.start();
+        if (UPLOAD_ROLLUPS) {
+            setupRollups();
+        }
+    }
+
+    // 실시간 스트림 - 기록 스레드에서 샘플마다 프레임 하나 (짧은 lock 만, 네트워크는 스트림 스레드)
+    private void setupLiveStream() {
+        if (!LIVE_STREAM) {
+            return;
+        }
+        if (startLiveStream(MainActivity.userId)) {
+            pipeline.getHub().subscribe((timeMillis, heartRate) -> {
+                LiveStreamClient live = liveStream;
+                if (live != null) {
+                    live.offerSample(timeMillis, heartRate);
                 }
+            }, null, false);
+        }
+    }
 
-                int responseCode = connection.getResponseCode();
-                Log.d("TAG___", "Response Code: " + responseCode);
+    // 운전자 userId 로 새 연결 (이전 연결은 닫음)
+    private boolean startLiveStream(String userId) {
+        LiveStreamClient live;
+        try {
+            live = new LiveStreamClient(liveUrl, userId, LIVE_CAPACITY, LIVE_HEARTBEAT_MS);
+        } catch (IllegalArgumentException e) {
+            Log.e("TAG___", "Invalid live stream url: " + e.getMessage());
+            return false;
+        }
+        live.start();
+        LiveStreamClient old = liveStream;
+        liveStream = live;
+        if (old != null) {
+            old.stop();
+        }
+        return true;
+    }
 
-                if (responseCode != HttpURLConnection.HTTP_OK) {
-                    Log.e("TAG___", "Error sending heart rate: " + connection.getResponseMessage());
+    // 롤업 업로드 큐 생성 - 원본 업로드 큐는 경보 전후/요청 구간에만 사용
+    private void setupRollups() {
+        try {
+            UploadTransport transport = new HttpUploadTransport(rollupUrl);
+            if (RELAY_VIA_PHONE) {
+                transport = new RelayTransport(DataLayerRelayChannel.init(this), transport, null);
+            }
+            rollupUploader = new RollupUploader(
+                    transport,
+                    new File(getFilesDir(), "heartrate-rollups.bin"),
+                    ROLLUP_BATCH_SIZE, ROLLUP_MAX_BATCH_AGE_MS,
+                    ROLLUP_QUEUE_CAPACITY, ROLLUP_MAX_JOURNAL_RECORDS);
+        } catch (IOException e) {
+            Log.e("TAG___", "Invalid rollup url: " + e.getMessage());
+            return;
+        }
+        rollupUploader.setListener(new HeartRateUploader.Listener() {
+            @Override
+            public void onBatchSent(int count, int responseCode) {
+                FLIGHT_RECORDER.record(FlightRecorder.ROLLUP_SENT, count, responseCode);
+            }
+
+            @Override
+            public void onBatchFailed(int count, String reason) {
+                FLIGHT_RECORDER.record(FlightRecorder.ROLLUP_FAILED, count, 0);
+                Log.e("TAG___", "Error sending rollup batch: " + count + " (" + reason + ")");
+            }
+        });
+        rollupUploader.setMetrics(metrics);
+        rollupUploader.setNetworkPriority(networkPriority);
+        rollups = new RollupAggregator(rollupUploader, RollupAggregator.DEFAULT_TIERS_MS);
+        rawWindows = new RawWindowExporter(uploader, RAW_PRE_EVENT_MS, RAW_POST_EVENT_MS,
+                RAW_RECENT_CAPACITY, UPLOAD_QUEUE_CAPACITY / 2);
+        pipeline.setRollups(rollups, rawWindows);
+        rollupUploader.start();
+    }
+
+    // 운행 시간 + 운행 요약 전송 (metricsExecutor 에서, 실패하면 예약해서 다시)
+    private void sendTripSummary(String payload, int attempt) {
+        ScheduledExecutorService executor = metricsExecutor;
+        if (executor == null) {
+            return;
+        }
+        long delay = attempt == 1 ? 0 : TRIP_RETRY_MS << (attempt - 2);
+        executor.schedule(() -> {
+            String error;
+            try {
+                int responseCode = new HttpUploadTransport(drivingUrl)
+                        .send(payload.getBytes(StandardCharsets.UTF_8), "application/json");
+                if (responseCode == HttpURLConnection.HTTP_OK) {
+                    return;
                 }
-            } catch (Exception e) {
-                Log.e("TAG___", "Error sending heart rate: " + e.getMessage());
+                error = "response " + responseCode;
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+            Log.e("TAG___", "Error sending driving time (attempt " + attempt + "): " + error);
+            if (attempt < TRIP_MAX_ATTEMPTS) {
+                sendTripSummary(payload, attempt + 1);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // 계측값을 주기적으로 files/metrics.log 에 한 줄씩 기록
+    private void startMetricsSnapshots() {
+        final MetricsSnapshotWriter writer = new MetricsSnapshotWriter(
+                new File(getFilesDir(), "metrics.log"), METRICS_MAX_BYTES, metrics);
+        metricsExecutor = Executors.newSingleThreadScheduledExecutor();
+        metricsExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                writer.write(System.currentTimeMillis());
+            } catch (IOException e) {
+                Log.e("TAG___", "Error writing metrics snapshot: " + e.getMessage());
             }
-        }).start();
+        }, METRICS_SNAPSHOT_INTERVAL_MS, METRICS_SNAPSHOT_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
-    
-    // 시간 보내기 설정 (포맷)
-    private String formatDate(long timeInMillis) {
-        Date date = new Date(timeInMillis);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
-        return sdf.format(date);
+
+    // 보관 기간이 지난 세그먼트를 metricsExecutor 에서 주기적으로 삭제 (처음 한 번은 setupStore 에서)
+    private void startStorePruning() {
+        final HeartRateStore opened = store;
+        if (opened == null) {
+            return;
+        }
+        metricsExecutor.scheduleWithFixedDelay(() -> {
+            int deleted = opened.deleteOlderThan(System.currentTimeMillis() - STORE_RETENTION_MS);
+            if (deleted > 0) {
+                Log.d("TAG___", "Deleted " + deleted + " old heart rate segments");
+            }
+        }, STORE_PRUNE_INTERVAL_MS, STORE_PRUNE_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
-    private double calculateAverage(List<Integer> heartRates) {
-        int sum = 0;
-        for (int rate : heartRates) {
-            sum += rate;
+    // 마지막 운전자 프로필을 백그라운드에서 읽어서 파이프라인에 연결, 주기적으로 저장
+    private void startProfile() {
+        MainActivity.userId = getSharedPreferences(DRIVER_PREFS, MODE_PRIVATE).getString("userId", MainActivity.userId);
+        profileStore = new BaselineProfileStore(new File(getFilesDir(), "profiles"), TimeZone.getDefault());
+        final String userId = MainActivity.userId;
+        metricsExecutor.execute(() -> loadProfile(userId));
+        metricsExecutor.scheduleWithFixedDelay(this::saveProfile,
+                PROFILE_SAVE_INTERVAL_MS, PROFILE_SAVE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void loadProfile(String userId) {
+        try {
+            BaselineProfile profile = profileStore.load(userId);
+            pipeline.setBaselineProfile(profile);
+            Log.d("TAG___", "Baseline profile " + userId + ": " + profile.totalCount() + " samples");
+        } catch (IOException e) {
+            Log.e("TAG___", "Error loading baseline profile: " + e.getMessage());
+            pipeline.setBaselineProfile(new BaselineProfile(userId, TimeZone.getDefault())); // 새로 시작
+        }
+    }
+
+    // 바뀐 게 있으면 저장 (metricsExecutor 또는 서비스 종료 때)
+    private void saveProfile() {
+        saveProfile(pipeline.getBaselineProfile());
+    }
+
+    private void saveProfile(BaselineProfile profile) {
+        if (profile == null || profileStore == null) {
+            return;
+        }
+        try {
+            profileStore.save(profile);
+        } catch (IOException e) {
+            Log.e("TAG___", "Error saving baseline profile: " + e.getMessage());
         }
-        return (double) sum / heartRates.size();
     }
 
     private void vibrate() {
-        long[] pattern = {0, 500, 100, 500};
         if (vibrator != null) {
-            vibrator.vibrate(pattern, -1);
+            vibrator.vibrate(VIBRATION_PATTERN, -1);
         } else {
             Log.e("TAG___", "Vibrator is not available during vibrate()");
         }
     }
 
+    // 운행 세션 기록 파일을 열고 마지막 상태로 복원 (운행 중/휴식 중이었으면 요약과 센서 모드도 이어서)
+    // 요약은 복원 시점부터 다시 모음 (죽기 전 샘플은 저장소에 있음)
+    private void restoreSession() {
+        sessionJournal = new SessionJournal(new File(getFilesDir(), SESSION_JOURNAL_FILE));
+        int bootId = Settings.Global.getInt(getContentResolver(), Settings.Global.BOOT_COUNT, 0);
+        drivingSession = new DrivingSession(sessionJournal, bootId);
+        drivingSession.addListener(new DrivingSession.Listener() {
+            @Override
+            public void onStateChanged(DrivingSession.State state) {}
+
+            @Override
+            public void onJournalFailed(IOException e) {
+                // 메모리 상태는 그대로 진행 (이번 전환만 복원되지 않음)
+                Log.e("TAG___", "Error writing session journal: " + e.getMessage());
+                FLIGHT_RECORDER.record(FlightRecorder.ERROR, FlightRecorder.ERROR_SESSION, 0);
+            }
+        });
+        DrivingSession.State state;
+        try {
+            state = drivingSession.restore(SystemClock.elapsedRealtime(), System.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e("TAG___", "Error opening session journal: " + e.getMessage());
+            FLIGHT_RECORDER.record(FlightRecorder.ERROR, FlightRecorder.ERROR_SESSION, 0);
+            return;
+        }
+        if (state == DrivingSession.State.IDLE) {
+            return;
+        }
+        Log.d("TAG___", "Session restored: " + state + ", driving "
+                + drivingSession.getTimer().elapsedMillis(SystemClock.elapsedRealtime()) / 1000 + " s");
+        tripSummary.begin(System.currentTimeMillis());
+        if (state == DrivingSession.State.RESTING) {
+            startRest();
+            setSession(SamplingScheduler.Session.RESTING);
+        } else {
+            setSession(SamplingScheduler.Session.DRIVING);
+        }
+    }
+
     // 휴식 시작
     private void startRest() {
-        if (!isResting) {
-            isResting = true;
-            Log.d("HeartRateService", "휴식 시작");
+        if (!drowsinessEngine.isResting()) {
+            drowsinessEngine.setResting(true);
+            tripSummary.restStarted(System.currentTimeMillis());
+            FLIGHT_RECORDER.record(FlightRecorder.REST, 1, 0);
         }
     }
 
     // 휴식 종료
     private void stopRest() {
-        if (isResting) {
-            isResting = false;
-            Log.d("HeartRateService", "휴식 종료");
+        if (drowsinessEngine.isResting()) {
+            drowsinessEngine.setResting(false);
+            tripSummary.restEnded(System.currentTimeMillis());
+            FLIGHT_RECORDER.record(FlightRecorder.REST, 0, 0);
         }
     }
 
     // 바인딩을 위한 메서드
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 }
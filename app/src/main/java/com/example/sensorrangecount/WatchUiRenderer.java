@@ -0,0 +1,195 @@
+package com.example.sensorrangecount;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.TextView;
+
+import androidx.wear.ambient.AmbientLifecycleObserver;
+
+import java.util.TimeZone;
+
+// MainActivity 화면 갱신 (메인 스레드 전용)
+// - 시계: 분 경계에서만 갱신 (앰비언트 모드에서는 시스템의 onUpdateAmbient 가 1분마다 호출)
+// - 운행 시간: 화면이 켜져 있고(인터랙티브) 타이머가 돌 때만 초 경계마다 갱신, 앰비언트에서는 분 단위
+// - 심박수: 앰비언트에서는 화면에 그리지 않고 마지막 값만 기억
+// - 문자열은 DigitText 에 직접 써서 할당 없음, 값이 그대로면 setText 도 하지 않음
+// - 화면이 보이지 않으면(onStop) 예약한 틱을 모두 취소
+public class WatchUiRenderer implements AmbientLifecycleObserver.AmbientLifecycleCallback {
+    private static final long MINUTE_MS = 60_000;
+
+    private final TextView timeView;
+    private final TextView heartRateView;
+    private final TextView drivingTimeView;
+    private DrivingTimer timer; // 서비스의 운행 세션 타이머 (바인딩 전에는 빈 타이머)
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final DigitText clockText = new DigitText("", 8);
+    private final DigitText heartRateText = new DigitText("심박수: ", 24);
+    private final DigitText drivingText = new DigitText("운행시간: ", 24);
+
+    private TimeZone timeZone = TimeZone.getDefault(); // onStart 마다 다시 읽음 (틱마다 복사하지 않도록)
+    private boolean visible = false;
+    private boolean ambient = false;
+    private int pendingHeartRate = 0; // 앰비언트 중 들어온 마지막 심박수 (0 이면 없음)
+
+    // 갱신 횟수 (onStop 때 시간당 횟수로 로그)
+    private long wakeups = 0; // 예약한 틱이 실행된 횟수
+    private long textUpdates = 0; // 실제로 setText 한 횟수
+    private long visibleSinceMs = 0;
+
+    private final Runnable clockTick = new Runnable() {
+        @Override
+        public void run() {
+            wakeups++;
+            renderClock();
+            scheduleClock();
+        }
+    };
+
+    private final Runnable timerTick = new Runnable() {
+        @Override
+        public void run() {
+            wakeups++;
+            renderTimer();
+            scheduleTimer();
+        }
+    };
+
+    public WatchUiRenderer(TextView timeView, TextView heartRateView, TextView drivingTimeView, DrivingTimer timer) {
+        this.timeView = timeView;
+        this.heartRateView = heartRateView;
+        this.drivingTimeView = drivingTimeView;
+        this.timer = timer;
+    }
+
+    // 화면이 보이기 시작함 (Activity.onStart)
+    public void onStart() {
+        visible = true;
+        timeZone = TimeZone.getDefault();
+        visibleSinceMs = SystemClock.elapsedRealtime();
+        wakeups = 0;
+        textUpdates = 0;
+        renderAll();
+        scheduleTicks();
+    }
+
+    // 화면이 보이지 않음 (Activity.onStop)
+    public void onStop() {
+        visible = false;
+        cancelTicks();
+        long visibleMs = SystemClock.elapsedRealtime() - visibleSinceMs;
+        if (visibleMs > 0) {
+            Log.d("TAG___", "UI wakeups/h=" + wakeups * 3_600_000L / visibleMs
+                    + " text updates/h=" + textUpdates * 3_600_000L / visibleMs);
+        }
+    }
+
+    // 서비스에 바인딩되면 운행 세션의 타이머로 교체
+    public void setTimer(DrivingTimer timer) {
+        this.timer = timer;
+        onTimerChanged();
+    }
+
+    // 타이머 시작/휴식/종료 후 호출
+    public void onTimerChanged() {
+        renderTimer();
+        handler.removeCallbacks(timerTick);
+        if (visible && !ambient) {
+            scheduleTimer();
+        }
+    }
+
+    // 심박수 구독 콜백 (메인 스레드)
+    public void onHeartRate(int heartRate) {
+        if (ambient) {
+            pendingHeartRate = heartRate; // 다음 onUpdateAmbient 또는 앰비언트 해제 때 표시
+            return;
+        }
+        renderHeartRate(heartRate);
+    }
+
+    @Override
+    public void onEnterAmbient(AmbientLifecycleObserver.AmbientDetails ambientDetails) {
+        ambient = true;
+        cancelTicks(); // 이후 갱신은 onUpdateAmbient (1분마다)
+        renderTimer(); // 초 표시 없이
+    }
+
+    @Override
+    public void onUpdateAmbient() {
+        wakeups++;
+        renderAll();
+    }
+
+    @Override
+    public void onExitAmbient() {
+        ambient = false;
+        renderAll();
+        if (visible) {
+            scheduleTicks();
+        }
+    }
+
+    private void renderAll() {
+        renderClock();
+        renderTimer();
+        if (pendingHeartRate != 0) {
+            renderHeartRate(pendingHeartRate);
+            pendingHeartRate = 0;
+        }
+    }
+
+    private void renderClock() {
+        long now = System.currentTimeMillis();
+        long minuteOfDay = Math.floorMod(now + timeZone.getOffset(now), 24 * 60 * MINUTE_MS) / MINUTE_MS;
+        if (clockText.setClock((int) (minuteOfDay / 60), (int) (minuteOfDay % 60))) {
+            timeView.setText(clockText.chars(), 0, clockText.length());
+            textUpdates++;
+        }
+    }
+
+    private void renderTimer() {
+        if (drivingText.setDuration(timer.elapsedMillis(SystemClock.elapsedRealtime()), !ambient)) {
+            drivingTimeView.setText(drivingText.chars(), 0, drivingText.length());
+            textUpdates++;
+        }
+    }
+
+    private void renderHeartRate(int heartRate) {
+        if (heartRateText.setNumber(heartRate, " bpm")) {
+            heartRateView.setText(heartRateText.chars(), 0, heartRateText.length());
+            textUpdates++;
+        }
+    }
+
+    private void scheduleTicks() {
+        scheduleClock();
+        scheduleTimer();
+    }
+
+    private void cancelTicks() {
+        handler.removeCallbacks(clockTick);
+        handler.removeCallbacks(timerTick);
+    }
+
+    // 다음 분 경계에 시계 갱신
+    private void scheduleClock() {
+        if (!visible || ambient) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long delay = MINUTE_MS - Math.floorMod(now + timeZone.getOffset(now), MINUTE_MS);
+        handler.postAtTime(clockTick, SystemClock.uptimeMillis() + delay);
+    }
+
+    // 타이머가 돌고 있으면 다음 초 경계에 운행 시간 갱신
+    private void scheduleTimer() {
+        if (!visible || ambient || !timer.isRunning()) {
+            return;
+        }
+        long delay = timer.millisUntilNextSecond(SystemClock.elapsedRealtime());
+        handler.postAtTime(timerTick, SystemClock.uptimeMillis() + delay);
+    }
+}
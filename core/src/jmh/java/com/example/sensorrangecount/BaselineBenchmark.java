@@ -0,0 +1,64 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 기준 심박수 계산 - 이전 방식(List<Integer> 60개 전체 합) vs HeartRateWindow (5분, O(1))
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BaselineBenchmark {
+    private static final int MASK = 4095;
+
+    private int[] rates;
+    private int index = 0;
+    private long timeMillis = BenchmarkTraces.START_MILLIS;
+    private final List<Integer> legacyList = new ArrayList<>();
+    private final HeartRateWindow window = new HeartRateWindow(5 * 60_000, 1024);
+
+    @Setup
+    public void setup() {
+        rates = BenchmarkTraces.heartRates(MASK + 1, 1);
+        for (int i = 0; i < 600; i++) {
+            legacyAverage();
+            ringWindowMean();
+        }
+    }
+
+    // HeartRateService.calculateAverage 이전 구현
+    @Benchmark
+    public double legacyAverage() {
+        int heartRate = rates[index++ & MASK];
+        if (legacyList.size() < 60) {
+            legacyList.add(heartRate);
+        }
+        int sum = 0;
+        for (int rate : legacyList) {
+            sum += rate;
+        }
+        return (double) sum / legacyList.size();
+    }
+
+    @Benchmark
+    public double ringWindowMean() {
+        timeMillis += 1000;
+        window.add(timeMillis, rates[index++ & MASK]);
+        return window.mean();
+    }
+
+    @Benchmark
+    public double ringWindowAllStats() {
+        timeMillis += 1000;
+        window.add(timeMillis, rates[index++ & MASK]);
+        return window.mean() + window.variance() + window.min() + window.max();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.sensorrangecount;
+
+import java.util.Random;
+
+// 벤치마크용 합성 심박수 데이터
+final class BenchmarkTraces {
+    static final long START_MILLIS = 1_720_000_000_000L;
+
+    private BenchmarkTraces() {
+    }
+
+    // 평균 75 근처에서 천천히 흔들리는 심박수 (길이는 2의 거듭제곱으로 맞춰서 & 로 순환)
+    static int[] heartRates(int length, long seed) {
+        Random random = new Random(seed);
+        int[] rates = new int[length];
+        double rate = 75;
+        for (int i = 0; i < length; i++) {
+            rate += (75 - rate) * 0.05 + random.nextGaussian();
+            rates[i] = (int) Math.round(rate);
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// 졸음 감지 - 이전 한 줄 규칙 vs DrowsinessEngine 기본 구성
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DetectionBenchmark {
+    private static final int MASK = 4095;
+
+    private int[] rates;
+    private int index = 0;
+    private long timeMillis = BenchmarkTraces.START_MILLIS;
+    private final DrowsinessEngine engine = DrowsinessEngine.createDefault();
+
+    @Setup
+    public void setup() {
+        rates = BenchmarkTraces.heartRates(MASK + 1, 3);
+    }
+
+    // 이전 onSensorChanged 의 heartRate < average * 0.93
+    @Benchmark
+    public boolean legacyThreshold() {
+        return rates[index++ & MASK] < 75.0 * 0.93;
+    }
+
+    @Benchmark
+    public boolean engine() {
+        timeMillis += 1000;
+        return engine.onSample(timeMillis, rates[index++ & MASK], 75.0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// 이벤트 기록 비용 - 시각을 넘겨줄 때(샘플)/시계를 읽을 때, 스레드 4 개가 동시에 기록할 때
+// gc.alloc.rate.norm 이 0 이어야 함
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlightRecorderBenchmark {
+    private final FlightRecorder recorder = new FlightRecorder(16_384, Clock.SYSTEM);
+    private long n = 0;
+
+    @Benchmark
+    @Group("recordAt")
+    public void recordAt() {
+        long i = ++n;
+        recorder.recordAt(FlightRecorder.SAMPLE, i, 60 + (i & 63), 0);
+    }
+
+    @Benchmark
+    @Group("record")
+    public void record() {
+        recorder.record(FlightRecorder.BATCH, 30, 250_000);
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(4)
+    public void sharedRecordAt() {
+        recorder.recordAt(FlightRecorder.SAMPLE, 1, 72, 0);
+    }
+}
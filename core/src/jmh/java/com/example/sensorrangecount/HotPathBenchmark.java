@@ -0,0 +1,59 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// 샘플 하나의 전체 처리 경로 (기준 심박수 -> 감지 -> 업로드 큐 -> 구독자 전달)
+// gc.alloc.rate.norm 이 0 에 가까워야 함
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HotPathBenchmark {
+    private static final int MASK = 4095;
+
+    private int[] rates;
+    private int index = 0;
+    private long timeMillis = BenchmarkTraces.START_MILLIS;
+    private final HeartRateWindow window = new HeartRateWindow(5 * 60_000, 1024);
+    private final DrowsinessEngine engine = DrowsinessEngine.createDefault();
+    private final HeartRateHub hub = new HeartRateHub();
+    private HeartRateUploader uploader;
+    private File journal;
+
+    @Setup
+    public void setup(final Blackhole bh) throws IOException {
+        rates = BenchmarkTraces.heartRates(MASK + 1, 4);
+        journal = Files.createTempFile("journal", ".bin").toFile();
+        // 워커를 시작하지 않으므로 큐가 차면 오래된 샘플부터 버려짐 (offer 비용만 측정)
+        uploader = new HeartRateUploader((body, contentType) -> 200, journal, 30, 30_000, 600, 1);
+        hub.subscribe((t, hr) -> bh.consume(hr), null, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.delete();
+    }
+
+    @Benchmark
+    public boolean processSample() {
+        timeMillis += 1000;
+        int heartRate = rates[index++ & MASK];
+        uploader.offer(timeMillis, heartRate);
+        boolean alert = engine.onSample(timeMillis, heartRate, DrowsinessEngine.baselineOf(window));
+        window.add(timeMillis, heartRate);
+        hub.publish(timeMillis, heartRate);
+        return alert;
+    }
+}
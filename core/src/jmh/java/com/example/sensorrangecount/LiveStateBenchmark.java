@@ -0,0 +1,60 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// LiveState 쓰기/읽기 비용 - 혼자 쓸 때/혼자 읽을 때, 쓰기 1 + 읽기 3 이 동시에 돌 때
+// (동시 실행 중 섞인 스냅샷이 없는지는 LiveStateStressTest 로 확인)
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LiveStateBenchmark {
+    private final LiveState state = new LiveState();
+    private long n = 0;
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final LiveState.Snapshot snapshot = new LiveState.Snapshot();
+    }
+
+    @Benchmark
+    @Group("alone_write")
+    public void write() {
+        writeNext();
+    }
+
+    @Benchmark
+    @Group("alone_read")
+    public long read(Reader reader) {
+        state.read(reader.snapshot);
+        return reader.snapshot.samples;
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(1)
+    public void sharedWrite() {
+        writeNext();
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(3)
+    public int sharedRead(Reader reader) {
+        return state.read(reader.snapshot);
+    }
+
+    private void writeNext() {
+        long i = ++n;
+        state.write(1_700_000_000_000L + i * 1000, 60 + (int) (i & 63), 72.5, 4.5, 55, 98, 600,
+                (int) (i & 3), 1, 0.25);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// IMU 샘플 처리 (50Hz 가속도 + 자이로) - 샘플당 MotionFeatureExtractor.SAMPLE_BUDGET_NANOS 이하,
+// gc.alloc.rate.norm 이 0 이어야 함
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MotionBenchmark {
+    private static final int HZ = 50;
+    private static final long PERIOD_NANOS = 1_000_000_000L / HZ;
+
+    private float[][] loop;
+    private int index = 0;
+    private long timeNanos = 1_000_000_000_000L;
+    private final MotionFeatureExtractor extractor = new MotionFeatureExtractor();
+    private final DrowsinessScore score = DrowsinessScore.createDefault(extractor);
+
+    @Setup
+    public void setup() {
+        loop = MotionTraces.motionLoop(HZ, 1);
+        for (int i = 0; i < 10_000; i++) {
+            accelSample();
+            gyroSample();
+        }
+    }
+
+    @Benchmark
+    public void accelSample() {
+        int k = index++ % loop[0].length;
+        timeNanos += PERIOD_NANOS;
+        extractor.onAccel(timeNanos, loop[0][k], loop[1][k], loop[2][k]);
+    }
+
+    @Benchmark
+    public void gyroSample() {
+        int k = index++ % loop[0].length;
+        timeNanos += PERIOD_NANOS;
+        extractor.onGyro(timeNanos, loop[3][k], loop[4][k], loop[5][k]);
+    }
+
+    // 묶음마다 한번 (60초 구간 합산)
+    @Benchmark
+    public double publish() {
+        extractor.publish();
+        return extractor.getScore(timeNanos);
+    }
+
+    // 심박수 샘플마다 한번 (감지 스레드)
+    @Benchmark
+    public double fuseScore() {
+        return score.update(timeNanos, 70 + (index++ & 7), 75.0);
+    }
+}
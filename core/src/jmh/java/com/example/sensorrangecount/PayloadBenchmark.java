@@ -0,0 +1,80 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// 업로드 페이로드 생성 (배치 하나 기준) - 이전 샘플별 JSON vs 배치 JSON vs 바이너리(압축/비압축)
+// 배치당 바이트 수는 시작할 때 출력
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PayloadBenchmark {
+    @Param({"30"})
+    public int batchSize;
+
+    private long[] times;
+    private int[] rates;
+    private final HeartRateJson json = new HeartRateJson();
+    private final HeartRateBatchCodec binary = new HeartRateBatchCodec(false);
+    private final HeartRateBatchCodec deflate = new HeartRateBatchCodec(true);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        times = new long[batchSize];
+        rates = BenchmarkTraces.heartRates(batchSize, 2);
+        for (int i = 0; i < batchSize; i++) {
+            times[i] = BenchmarkTraces.START_MILLIS + i * 1000L;
+        }
+        int legacyBytes = 0;
+        for (int i = 0; i < batchSize; i++) {
+            legacyBytes += legacyJson(rates[i], times[i]).length;
+        }
+        System.out.printf(Locale.ROOT, "%nbytes per %d samples: legacy=%d batchJson=%d binary=%d deflate=%d%n",
+                batchSize, legacyBytes, json.buildBatch(times, rates, batchSize).length,
+                binary.encode("E001", times, rates, batchSize).length,
+                deflate.encode("E001", times, rates, batchSize).length);
+    }
+
+    // 이전 sendHeartRateToServer: 샘플마다 formatDate + 문자열 연결 JSON
+    private static byte[] legacyJson(int heartRate, long timeMillis) {
+        String heartRateLogTime = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault()).format(new Date(timeMillis));
+        String jsonInputString = "{\"heartrate\": " + heartRate + ", \"heartratelogtime\": \"" + heartRateLogTime + "\"}";
+        return jsonInputString.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void legacyPerSampleJson(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            bh.consume(legacyJson(rates[i], times[i]));
+        }
+    }
+
+    @Benchmark
+    public byte[] batchJson() {
+        return json.buildBatch(times, rates, batchSize);
+    }
+
+    @Benchmark
+    public byte[] binaryBatch() {
+        return binary.encode("E001", times, rates, batchSize);
+    }
+
+    @Benchmark
+    public byte[] binaryDeflateBatch() {
+        return deflate.encode("E001", times, rates, batchSize);
+    }
+}
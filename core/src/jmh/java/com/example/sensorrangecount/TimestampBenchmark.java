@@ -0,0 +1,49 @@
+package com.example.sensorrangecount;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// 시간 포맷 - 이전 formatDate (호출마다 SimpleDateFormat 생성) vs TimestampFormatter
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimestampBenchmark {
+    private long timeMillis = BenchmarkTraces.START_MILLIS;
+    private final SimpleDateFormat sharedFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
+    private final Date date = new Date();
+    private final TimestampFormatter formatter = new TimestampFormatter();
+    private final StringBuilder sb = new StringBuilder(32);
+
+    // HeartRateService.formatDate 이전 구현
+    @Benchmark
+    public String legacyFormatDate() {
+        timeMillis += 1000;
+        Date d = new Date(timeMillis);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
+        return sdf.format(d);
+    }
+
+    @Benchmark
+    public String sharedSimpleDateFormat() {
+        timeMillis += 1000;
+        date.setTime(timeMillis);
+        return sharedFormat.format(date);
+    }
+
+    @Benchmark
+    public int timestampFormatter() {
+        timeMillis += 1000;
+        sb.setLength(0);
+        formatter.append(sb, timeMillis);
+        return sb.length();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.sensorrangecount;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// 졸음 경보 전용 처리 경로 - 감지/진동을 I/O 와 분리
+// - 센서 스레드: 샘플을 alertRing 에 넣기만 함
+// - 경보 스레드 (높은 우선순위): HeartRatePipeline.detect() -> 경보면 바로 진동/긴급 알림
+// - 기록 스레드: HeartRatePipeline.record()/flush() (업로드 큐, 저장소, 구독자)
+// 기록 스레드가 느려도 경보는 기다리지 않음 (recordRing 이 가득 차면 기록할 샘플을 버리고 센다)
+// 지연 목표는 센서 타임스탬프 -> 진동 호출 완료 (센서 FIFO 에서 기다린 시간 포함)
+// = 지금 센서 등록의 최대 보고 지연 + LATENCY_BUDGET_NANOS, 넘으면 PipelineMetrics.alertBudgetMisses
+public class AlertLane implements SensorSource.Listener {
+    public static final long LATENCY_BUDGET_NANOS = 20_000_000L; // FIFO 보고 지연을 뺀 처리 목표 (20ms)
+
+    private static final int TAG_SAMPLE = 0;
+    private static final int TAG_BATCH_END = 1;
+    private static final int RING_CAPACITY = 4096;
+    private static final long IDLE_PARK_NANOS = 100_000_000L; // 깨우기를 놓쳐도 이 시간 안에 다시 확인
+
+    private final HeartRatePipeline pipeline;
+    private final PipelineMetrics metrics; // 없으면 계측 안 함
+    private final SampleRing alertRing = new SampleRing(RING_CAPACITY); // 센서 스레드 -> 경보 스레드
+    private final SampleRing recordRing = new SampleRing(RING_CAPACITY); // 경보 스레드 -> 기록 스레드
+    private final ThreadFactory alertThreadFactory;
+    private final ThreadFactory recordThreadFactory;
+    private final AtomicInteger openBatches = new AtomicInteger(); // 기록이 끝나지 않은 묶음 수 (Wake Lock 해제 시점)
+
+    private volatile boolean running = false;
+    private volatile boolean alertThreadDone = false;
+    private volatile long reportLatencyNanos = 0; // 센서 FIFO 최대 보고 지연 (센서를 다시 등록할 때 갱신)
+    private Thread alertThread;
+    private Thread recordThread;
+    private boolean batchOpen = false; // 센서 스레드 전용
+    private int deferredBatchEnds = 0; // recordRing 이 가득 차서 아직 못 넘긴 묶음 끝 (경보 스레드 전용)
+
+    // alertThreadFactory: 높은 우선순위 스레드 (안드로이드는 Process.setThreadPriority 로 올림)
+    public AlertLane(HeartRatePipeline pipeline, ThreadFactory alertThreadFactory, ThreadFactory recordThreadFactory) {
+        this.pipeline = pipeline;
+        this.metrics = pipeline.getMetrics();
+        this.alertThreadFactory = alertThreadFactory;
+        this.recordThreadFactory = recordThreadFactory;
+    }
+
+    // 자바 스레드 우선순위만 사용하는 기본 구성
+    public static AlertLane withDefaultThreads(HeartRatePipeline pipeline) {
+        return new AlertLane(pipeline, r -> {
+            Thread t = new Thread(r, "AlertLane");
+            t.setPriority(Thread.MAX_PRIORITY);
+            return t;
+        }, r -> new Thread(r, "AlertLane-record"));
+    }
+
+    // 센서 등록 전에 호출
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        alertThreadDone = false;
+        alertThread = alertThreadFactory.newThread(this::runAlert);
+        recordThread = recordThreadFactory.newThread(this::runRecord);
+        alertThread.start();
+        recordThread.start();
+    }
+
+    // 센서를 (다시) 등록할 때 그 최대 보고 지연 (0 = 이벤트마다 바로 전달)
+    public void setReportLatencyNanos(long reportLatencyNanos) {
+        this.reportLatencyNanos = reportLatencyNanos;
+    }
+
+    // 센서 해제 후 호출 - 남은 샘플을 모두 처리하고 종료
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // interrupt 는 쓰지 않음 (저장소 FileChannel 이 닫힘)
+        LockSupport.unpark(alertThread);
+        try {
+            alertThread.join(2_000);
+            recordThread.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 센서 스레드 - 바로 경보 스레드로 넘김
+    @Override
+    public void onSample(long timestampNanos, float value) {
+        if (metrics != null) {
+            metrics.sensorEvents.incrementAndGet();
+        }
+        int heartRate = (int) value;
+        if (heartRate == 0) {
+            return;
+        }
+        if (!batchOpen) {
+            batchOpen = true;
+            openBatches.incrementAndGet();
+            pipeline.beginBatch();
+        }
+        offerBlocking(alertRing, pipeline.toEpochMillis(timestampNanos), timestampNanos, heartRate, TAG_SAMPLE);
+    }
+
+    @Override
+    public void onBatchEnd() {
+        if (batchOpen) {
+            batchOpen = false;
+            offerBlocking(alertRing, 0, 0, 0, TAG_BATCH_END);
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(int accuracy) {
+        pipeline.onAccuracyChanged(accuracy);
+    }
+
+    // 경보 스레드가 밀려 있으면 센서 스레드가 기다림 (감지는 샘플당 수십 ns 라 거의 일어나지 않음)
+    private void offerBlocking(SampleRing ring, long time, long stamp, int value, int tag) {
+        while (!ring.offer(time, stamp, value, tag) && running) {
+            Thread.yield();
+        }
+    }
+
+    private void runAlert() {
+        long nowNanos = 0;
+        boolean haveNow = false;
+        try {
+            while (true) {
+                if (!alertRing.poll()) {
+                    forwardDeferredBatchEnds();
+                    if (!running) {
+                        return;
+                    }
+                    alertRing.await(IDLE_PARK_NANOS);
+                    haveNow = false;
+                    continue;
+                }
+                if (alertRing.polledTag() == TAG_BATCH_END) {
+                    deferredBatchEnds++;
+                    forwardDeferredBatchEnds();
+                    haveNow = false;
+                    continue;
+                }
+                if (!haveNow) {
+                    nowNanos = pipeline.nowNanos(); // 한번 깨어날 때마다 한번만 읽음
+                    haveNow = true;
+                }
+                long timeMillis = alertRing.polledTime();
+                int heartRate = alertRing.polledValue();
+                int flags = pipeline.detect(timeMillis, heartRate, nowNanos);
+                if ((flags & HeartRateStore.FLAG_ALERT) != 0 && metrics != null) {
+                    // 센서 타임스탬프 기준 (pipeline 이 sensorToVibrate 에 기록, 여기서는 목표만 확인)
+                    long latency = pipeline.nowNanos() - alertRing.polledStamp();
+                    if (latency > reportLatencyNanos + LATENCY_BUDGET_NANOS) {
+                        metrics.alertBudgetMisses.incrementAndGet();
+                    }
+                }
+                forwardDeferredBatchEnds();
+                if (deferredBatchEnds > 0 || !recordRing.offer(timeMillis, flags, heartRate, TAG_SAMPLE)) {
+                    if (metrics != null) {
+                        metrics.recordDropped.incrementAndGet(); // 기록 스레드가 밀림 - 경보는 계속 처리
+                    }
+                }
+            }
+        } finally {
+            alertThreadDone = true;
+            LockSupport.unpark(recordThread);
+        }
+    }
+
+    private void forwardDeferredBatchEnds() {
+        while (deferredBatchEnds > 0 && recordRing.offer(0, 0, 0, TAG_BATCH_END)) {
+            deferredBatchEnds--;
+        }
+    }
+
+    private void runRecord() {
+        while (true) {
+            if (!recordRing.poll()) {
+                if (!alertThreadDone) {
+                    recordRing.await(IDLE_PARK_NANOS);
+                    continue;
+                }
+                // 비어 있는 것을 본 뒤 경보 스레드가 마지막 샘플을 넣고 끝났을 수 있음 - 한번 더 확인
+                if (!recordRing.poll()) {
+                    return;
+                }
+            }
+            if (recordRing.polledTag() == TAG_SAMPLE) {
+                pipeline.record(recordRing.polledTime(), recordRing.polledValue(), (int) recordRing.polledStamp());
+            } else {
+                pipeline.flush();
+                if (openBatches.decrementAndGet() == 0) {
+                    pipeline.endBatch();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.sensorrangecount;
+
+import java.util.TimeZone;
+
+// 운전자 한 명의 평소 심박수 (시간대 x 운행 경과 구간별 평균/분산) - 운행 시작 직후 기준 심박수의 사전값
+// - 구간: 하루 24시간 x 운행 시작 후 경과(30분 미만/2시간 미만/4시간 미만/그 이상)
+// - 구간마다 개수/평균/M2 (Welford) 를 샘플마다 갱신 (O(1), 할당 없음)
+// - 개수는 MAX_COUNT 에서 멈춤 -> 그 뒤로는 지수 이동 평균처럼 최근 운행 쪽으로 천천히 따라감
+// - 구간에 샘플이 부족하면 같은 시간대 전체 -> 전체 평균 순서로 대신 씀
+// - 사전값은 구간이 바뀔 때만 다시 계산 (같은 구간 안에서는 고정, 샘플마다 최대 96 구간을 훑지 않음)
+// 감지 스레드에서 add/prior, 저장은 다른 스레드에서 copyTo 로 (배열 접근은 synchronized, 경합은 거의 없음)
+public class BaselineProfile {
+    public static final int HOURS = 24;
+    static final long[] PHASE_LIMITS_MS = {30 * 60_000L, 2 * 60 * 60_000L, 4 * 60 * 60_000L}; // 운행 경과 구간 경계
+    public static final int PHASES = PHASE_LIMITS_MS.length + 1;
+    public static final int BUCKETS = HOURS * PHASES;
+    static final int MIN_COUNT = 60; // 사전값으로 쓰기 위한 최소 샘플 수
+    static final int MAX_COUNT = 3_600; // 구간마다 약 1시간 분량까지만 누적
+
+    private static final long HOUR_MS = 60 * 60_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private final String userId;
+    private final TimeZone zone; // 시간대 구간 계산용 (재생은 UTC 로 고정)
+    final int[] count = new int[BUCKETS];
+    final double[] mean = new double[BUCKETS];
+    final double[] m2 = new double[BUCKETS];
+    private long updates = 0; // 마지막 저장 이후 add 횟수
+    // 감지 스레드 전용 - 마지막으로 사전값을 계산한 구간과 그 값
+    private int priorBucket = -1;
+    private double priorValue = Double.NaN;
+
+    public BaselineProfile(String userId, TimeZone zone) {
+        this.userId = userId;
+        this.zone = zone;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    // 평소(깨어 있는 상태) 샘플 하나 반영 - tripElapsedMs: 운행 시작 후 경과 시간
+    public synchronized void add(long timeMillis, long tripElapsedMs, int heartRate) {
+        int bucket = bucketOf(timeMillis, tripElapsedMs);
+        int n = count[bucket];
+        if (n < MAX_COUNT) {
+            n++;
+            count[bucket] = n;
+        }
+        double delta = heartRate - mean[bucket];
+        mean[bucket] += delta / n;
+        m2[bucket] += delta * (heartRate - mean[bucket]);
+        if (count[bucket] == MAX_COUNT) {
+            m2[bucket] *= (double) (MAX_COUNT - 1) / MAX_COUNT; // 분산도 같은 비율로 잊음
+        }
+        updates++;
+    }
+
+    // 이 시각/운행 경과의 평소 심박수 (샘플이 부족하면 NaN) - 감지 스레드에서만 호출
+    public double prior(long timeMillis, long tripElapsedMs) {
+        int bucket = bucketOf(timeMillis, tripElapsedMs);
+        if (bucket != priorBucket) {
+            priorValue = priorOf(bucket);
+            priorBucket = bucket;
+        }
+        return priorValue;
+    }
+
+    private synchronized double priorOf(int bucket) {
+        if (count[bucket] >= MIN_COUNT) {
+            return mean[bucket];
+        }
+        int hour = bucket / PHASES;
+        double hourMean = weightedMean(hour * PHASES, (hour + 1) * PHASES);
+        return !Double.isNaN(hourMean) ? hourMean : weightedMean(0, BUCKETS);
+    }
+
+    // 이 시각/운행 경과 구간의 표준편차 (샘플이 부족하면 NaN)
+    public synchronized double stdDev(long timeMillis, long tripElapsedMs) {
+        int bucket = bucketOf(timeMillis, tripElapsedMs);
+        int n = count[bucket];
+        return n >= MIN_COUNT ? Math.sqrt(m2[bucket] / (n - 1)) : Double.NaN;
+    }
+
+    // 전체 샘플 수 (구간별 MAX_COUNT 까지)
+    public synchronized long totalCount() {
+        long total = 0;
+        for (int n : count) {
+            total += n;
+        }
+        return total;
+    }
+
+    // 마지막 저장 이후 바뀐 게 있는지 (저장 스레드에서 확인 후 0 으로)
+    synchronized long takeUpdates() {
+        long n = updates;
+        updates = 0;
+        return n;
+    }
+
+    // 저장용 복사 (감지 스레드를 오래 막지 않게 배열 복사만)
+    synchronized void copyTo(int[] counts, double[] means, double[] m2s) {
+        System.arraycopy(count, 0, counts, 0, BUCKETS);
+        System.arraycopy(mean, 0, means, 0, BUCKETS);
+        System.arraycopy(m2, 0, m2s, 0, BUCKETS);
+    }
+
+    // 파일에서 읽은 값으로 채움 (공유하기 전에만)
+    void load(int[] counts, double[] means, double[] m2s) {
+        System.arraycopy(counts, 0, count, 0, BUCKETS);
+        System.arraycopy(means, 0, mean, 0, BUCKETS);
+        System.arraycopy(m2s, 0, m2, 0, BUCKETS);
+    }
+
+    private double weightedMean(int from, int to) {
+        long n = 0;
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            n += count[i];
+            sum += mean[i] * count[i];
+        }
+        return n >= MIN_COUNT ? sum / n : Double.NaN;
+    }
+
+    private int bucketOf(long timeMillis, long tripElapsedMs) {
+        long local = timeMillis + zone.getOffset(timeMillis);
+        int hour = (int) (Math.floorMod(local, DAY_MS) / HOUR_MS);
+        int phase = 0;
+        while (phase < PHASE_LIMITS_MS.length && tripElapsedMs >= PHASE_LIMITS_MS[phase]) {
+            phase++;
+        }
+        return hour * PHASES + phase;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+// 운전자별 BaselineProfile 파일 (dir/baseline-<userId>.bin, 한 워치를 여러 운전자가 쓰면 각자 파일)
+// - 구간마다 개수(int) + 평균/M2(float) 12바이트 -> 약 1.2KB
+// - 임시 파일에 쓰고 fsync 후 rename (쓰다가 죽거나 전원이 꺼져도 이전 파일 또는 새 파일 전체가 남음)
+// - 파일이 없거나 깨졌으면 빈 프로필 (처음 운행처럼 실시간 창만으로 시작)
+public class BaselineProfileStore {
+    private static final int MAGIC = 0x48524250; // "HRBP"
+    private static final int VERSION = 1;
+
+    private final File dir;
+    private final TimeZone zone;
+    // 저장용 버퍼 (save 는 synchronized)
+    private final int[] counts = new int[BaselineProfile.BUCKETS];
+    private final double[] means = new double[BaselineProfile.BUCKETS];
+    private final double[] m2s = new double[BaselineProfile.BUCKETS];
+
+    public BaselineProfileStore(File dir, TimeZone zone) {
+        this.dir = dir;
+        this.zone = zone;
+    }
+
+    // 운전자 프로필 읽기 (없으면 빈 프로필)
+    public BaselineProfile load(String userId) throws IOException {
+        BaselineProfile profile = new BaselineProfile(userId, zone);
+        File file = fileOf(userId);
+        int[] c = new int[BaselineProfile.BUCKETS];
+        double[] m = new double[BaselineProfile.BUCKETS];
+        double[] v = new double[BaselineProfile.BUCKETS];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != BaselineProfile.BUCKETS
+                    || !userId.equals(in.readUTF())) {
+                return profile; // 다른 형식 - 새로 시작
+            }
+            for (int i = 0; i < BaselineProfile.BUCKETS; i++) {
+                c[i] = in.readInt();
+                m[i] = in.readFloat();
+                v[i] = in.readFloat();
+            }
+        } catch (FileNotFoundException | EOFException e) {
+            return profile; // 없거나 잘린 파일
+        }
+        profile.load(c, m, v);
+        return profile;
+    }
+
+    // 바뀐 게 있으면 저장 - 저장했으면 true
+    public synchronized boolean save(BaselineProfile profile) throws IOException {
+        if (profile.takeUpdates() == 0) {
+            return false;
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        profile.copyTo(counts, means, m2s);
+        File file = fileOf(profile.getUserId());
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(BaselineProfile.BUCKETS);
+            out.writeUTF(profile.getUserId());
+            for (int i = 0; i < BaselineProfile.BUCKETS; i++) {
+                out.writeInt(counts[i]);
+                out.writeFloat((float) means[i]);
+                out.writeFloat((float) m2s[i]);
+            }
+            out.flush();
+            fileOut.getFD().sync(); // rename 전에 내용이 디스크에 있어야 함
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot rename " + tmp);
+        }
+        return true;
+    }
+
+    // 파일 이름에 쓸 수 없는 문자는 _ 로
+    File fileOf(String userId) {
+        StringBuilder name = new StringBuilder("baseline-");
+        for (int i = 0; i < userId.length(); i++) {
+            char c = userId.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' ? c : '_');
+        }
+        return new File(dir, name.append(".bin").toString());
+    }
+}
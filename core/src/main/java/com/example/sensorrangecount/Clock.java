@@ -0,0 +1,9 @@
+package com.example.sensorrangecount;
+
+// 단조 증가 시계 (나노초) - 실제 실행은 System.nanoTime / SystemClock.elapsedRealtimeNanos,
+// 트레이스 재생은 VirtualClock 을 사용해서 실제 시간을 기다리지 않음
+public interface Clock {
+    Clock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+}
@@ -0,0 +1,25 @@
+package com.example.sensorrangecount;
+
+// 단측 CUSUM 변화점 감지 - 기준 대비 하락분(slack 초과분)을 누적해서 threshold 를 넘으면 감지
+public class CusumDetector implements DrowsinessDetector {
+    private final double slack; // 무시할 하락 비율 (예: 0.03 = 3% 이내 하락은 정상)
+    private final double threshold; // 누적 하락 비율 임계값
+    private double sum = 0; // 누적 값
+
+    public CusumDetector(double slack, double threshold) {
+        this.slack = slack;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean update(long timeMillis, int heartRate, double baseline) {
+        double drop = (baseline - heartRate) / baseline - slack;
+        sum = Math.max(0, sum + drop);
+        return sum > threshold;
+    }
+
+    @Override
+    public void reset() {
+        sum = 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.sensorrangecount;
+
+// 화면 문자열을 미리 잡아둔 char[] 에 숫자만 바꿔 쓰는 버퍼 (틱마다 할당 없음)
+// - TextView.setText(chars(), 0, length()) 로 그대로 넘김
+// - 값이 그대로면 set*() 이 false 를 리턴 -> 화면을 다시 그리지 않아도 됨
+// - 버퍼 하나는 한 가지 형식(시계/시간/숫자)으로만 사용
+public class DigitText {
+    private final char[] chars;
+    private final int prefixLength;
+    private int length;
+    private long lastKey = Long.MIN_VALUE; // 마지막으로 쓴 값
+
+    public DigitText(String prefix, int maxLength) {
+        if (maxLength < prefix.length()) {
+            throw new IllegalArgumentException("maxLength < prefix length");
+        }
+        chars = new char[maxLength];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        prefixLength = prefix.length();
+        length = prefixLength;
+    }
+
+    // 접두사 + "HH:mm"
+    public boolean setClock(int hour, int minute) {
+        long key = hour * 60L + minute;
+        if (key == lastKey) {
+            return false;
+        }
+        lastKey = key;
+        int i = prefixLength;
+        i = putTwoDigits(i, hour);
+        chars[i++] = ':';
+        i = putTwoDigits(i, minute);
+        length = i;
+        return true;
+    }
+
+    // 접두사 + "HH:MM:SS" (시는 최소 두 자리) - withSeconds 가 false 면 "HH:MM" (앰비언트 모드)
+    public boolean setDuration(long millis, boolean withSeconds) {
+        long totalSeconds = Math.max(0, millis) / 1000;
+        long key = withSeconds ? totalSeconds * 2 + 1 : (totalSeconds / 60) * 2;
+        if (key == lastKey) {
+            return false;
+        }
+        lastKey = key;
+        long hours = totalSeconds / 3600;
+        int i = prefixLength;
+        i = hours < 100 ? putTwoDigits(i, (int) hours) : putNumber(i, hours);
+        chars[i++] = ':';
+        i = putTwoDigits(i, (int) (totalSeconds / 60 % 60));
+        if (withSeconds) {
+            chars[i++] = ':';
+            i = putTwoDigits(i, (int) (totalSeconds % 60));
+        }
+        length = i;
+        return true;
+    }
+
+    // 접두사 + 정수 + 접미사 (예: "심박수: 72 bpm")
+    public boolean setNumber(int value, String suffix) {
+        if (value == lastKey) {
+            return false;
+        }
+        lastKey = value;
+        int i = putNumber(prefixLength, value);
+        suffix.getChars(0, suffix.length(), chars, i);
+        length = i + suffix.length();
+        return true;
+    }
+
+    public char[] chars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private int putTwoDigits(int i, int value) {
+        chars[i] = (char) ('0' + value / 10 % 10);
+        chars[i + 1] = (char) ('0' + value % 10);
+        return i + 2;
+    }
+
+    private int putNumber(int i, long value) {
+        if (value < 0) {
+            chars[i++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int d = digits - 1; d >= 0; d--) {
+            chars[i + d] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return i + digits;
+    }
+}
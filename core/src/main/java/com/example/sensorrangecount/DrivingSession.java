@@ -0,0 +1,148 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 운행 세션 (대기/운행 중/휴식) - 서비스가 소유하고 화면은 바인딩해서 상태와 타이머를 읽음
+// 전환마다 SessionJournal 에 한 줄 -> 프로세스가 죽었다 살아나도 restore() 로 같은 상태/운행 시간
+// - 시각은 elapsedRealtime 밀리초 + 벽시계 (벽시계는 다른 부팅에서 쓴 기록을 옮길 때만)
+// - 부팅이 바뀌었으면 그 사이(꺼져 있던 시간 포함)는 벽시계 차이로 계산하고, 지금 부팅 기준으로 다시 기록
+// - 기록 실패는 Listener 로 알리고 메모리 상태는 그대로 진행
+// 한 스레드(서비스 메인 스레드)에서만 사용
+public class DrivingSession {
+    public enum State { IDLE, DRIVING, RESTING }
+
+    // 상태 변경/기록 실패 (전환을 호출한 스레드에서 호출됨)
+    public interface Listener {
+        void onStateChanged(State state);
+
+        void onJournalFailed(IOException e);
+    }
+
+    private final SessionJournal journal;
+    private final int bootId; // 부팅마다 다른 값 (Settings.Global.BOOT_COUNT)
+    private final DrivingTimer timer = new DrivingTimer();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private State state = State.IDLE;
+
+    public DrivingSession(SessionJournal journal, int bootId) {
+        this.journal = journal;
+        this.bootId = bootId;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // 화면 표시용 (elapsedRealtime 기준)
+    public DrivingTimer getTimer() {
+        return timer;
+    }
+
+    // 운행 ID 와 마지막 전환의 순번 (기록 파일 기준 - 재시작해도 이어짐, 알림 Idempotency-Key 용)
+    // 다른 스레드에서 읽어도 됨
+    public long getSessionId() {
+        return journal.getSessionId();
+    }
+
+    public int getSequence() {
+        return journal.getSequence();
+    }
+
+    // 기록 파일의 마지막 레코드로 상태를 다시 만듦 (서비스 시작 때 한 번)
+    public State restore(long elapsedMillis, long wallMillis) throws IOException {
+        SessionJournal.Entry last = journal.open();
+        if (last == null || last.type == SessionJournal.STOP) {
+            state = State.IDLE;
+            timer.restore(0, -1);
+            return state;
+        }
+        boolean sameBoot = last.bootId == bootId;
+        long since = Math.max(0, sameBoot ? elapsedMillis - last.elapsedMillis : wallMillis - last.wallMillis);
+        if (last.type == SessionJournal.REST) {
+            state = State.RESTING;
+            timer.restore(last.drivingMillis, -1);
+        } else {
+            state = State.DRIVING;
+            timer.restore(last.drivingMillis + since, elapsedMillis); // 기록 이후 지금까지 운행 중이었음
+        }
+        if (!sameBoot) {
+            // 지금 부팅 기준으로 다시 기록 (다음 복원부터는 벽시계를 쓰지 않도록)
+            write(state == State.RESTING ? SessionJournal.REST : SessionJournal.RESUME, elapsedMillis, wallMillis);
+        }
+        return state;
+    }
+
+    // 운행 시작 (대기 중일 때만)
+    public boolean start(long elapsedMillis, long wallMillis) {
+        if (state != State.IDLE) {
+            return false;
+        }
+        timer.stop(elapsedMillis);
+        timer.start(elapsedMillis);
+        return change(State.DRIVING, SessionJournal.START, elapsedMillis, wallMillis);
+    }
+
+    // 휴식 시작 (운행 중일 때만)
+    public boolean rest(long elapsedMillis, long wallMillis) {
+        if (state != State.DRIVING) {
+            return false;
+        }
+        timer.pause(elapsedMillis);
+        return change(State.RESTING, SessionJournal.REST, elapsedMillis, wallMillis);
+    }
+
+    // 휴식 끝 (휴식 중일 때만)
+    public boolean resume(long elapsedMillis, long wallMillis) {
+        if (state != State.RESTING) {
+            return false;
+        }
+        timer.start(elapsedMillis);
+        return change(State.DRIVING, SessionJournal.RESUME, elapsedMillis, wallMillis);
+    }
+
+    // 운행 종료 - 총 운행 시간 (휴식 제외), 대기 중이었으면 -1
+    public long stop(long elapsedMillis, long wallMillis) {
+        if (state == State.IDLE) {
+            return -1;
+        }
+        long total = timer.elapsedMillis(elapsedMillis);
+        write(SessionJournal.STOP, elapsedMillis, wallMillis); // 타이머를 0 으로 만들기 전에 총 시간으로 기록
+        timer.stop(elapsedMillis);
+        state = State.IDLE;
+        notifyChanged();
+        return total;
+    }
+
+    private boolean change(State next, int type, long elapsedMillis, long wallMillis) {
+        state = next;
+        write(type, elapsedMillis, wallMillis);
+        notifyChanged();
+        return true;
+    }
+
+    private void write(int type, long elapsedMillis, long wallMillis) {
+        try {
+            journal.append(type, bootId, elapsedMillis, wallMillis, timer.elapsedMillis(elapsedMillis));
+        } catch (IOException | IllegalStateException e) {
+            IOException error = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+            for (Listener l : listeners) {
+                l.onJournalFailed(error);
+            }
+        }
+    }
+
+    private void notifyChanged() {
+        for (Listener l : listeners) {
+            l.onStateChanged(state);
+        }
+    }
+}
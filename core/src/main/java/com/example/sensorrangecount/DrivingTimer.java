@@ -0,0 +1,50 @@
+package com.example.sensorrangecount;
+
+// 운행 시간 타이머 - 시각은 SystemClock.elapsedRealtime() (밀리초)
+// 벽시계가 바뀌거나 기기가 잠들어도 경과 시간이 틀어지지 않음
+public class DrivingTimer {
+    private long accumulatedMillis = 0; // 일시정지 전까지 누적한 시간
+    private long runningSinceMillis = -1; // 실행 중이면 마지막으로 시작한 시각
+
+    // 시작/재개 (이미 실행 중이면 무시)
+    public void start(long nowMillis) {
+        if (runningSinceMillis < 0) {
+            runningSinceMillis = nowMillis;
+        }
+    }
+
+    // 일시정지 (휴식)
+    public void pause(long nowMillis) {
+        if (runningSinceMillis >= 0) {
+            accumulatedMillis += nowMillis - runningSinceMillis;
+            runningSinceMillis = -1;
+        }
+    }
+
+    // 종료 - 총 운행 시간을 리턴하고 0 으로 초기화
+    public long stop(long nowMillis) {
+        long total = elapsedMillis(nowMillis);
+        accumulatedMillis = 0;
+        runningSinceMillis = -1;
+        return total;
+    }
+
+    // 저장해 둔 상태로 되돌림 (runningSinceMillis: 실행 중이 아니면 -1)
+    public void restore(long accumulatedMillis, long runningSinceMillis) {
+        this.accumulatedMillis = accumulatedMillis;
+        this.runningSinceMillis = runningSinceMillis;
+    }
+
+    public boolean isRunning() {
+        return runningSinceMillis >= 0;
+    }
+
+    public long elapsedMillis(long nowMillis) {
+        return runningSinceMillis >= 0 ? accumulatedMillis + nowMillis - runningSinceMillis : accumulatedMillis;
+    }
+
+    // 다음 초 경계까지 남은 시간 (실행 중 표시 갱신 시점)
+    public long millisUntilNextSecond(long nowMillis) {
+        return 1000 - elapsedMillis(nowMillis) % 1000;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.sensorrangecount;
+
+// 졸음 감지기 - 샘플마다 O(1) 시간/메모리로 상태를 갱신
+public interface DrowsinessDetector {
+
+    // 샘플 하나 처리 - 현재 졸음 신호가 있으면 true (baseline: 기준 심박수 평균)
+    boolean update(long timeMillis, int heartRate, double baseline);
+
+    // 상태 초기화 (휴식 시작/종료 등)
+    void reset();
+}
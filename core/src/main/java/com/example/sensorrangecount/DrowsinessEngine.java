@@ -0,0 +1,129 @@
+package com.example.sensorrangecount;
+
+// 졸음 감지 엔진 - 감지기 결과에 히스테리시스/쿨다운/휴식 상태를 적용해서 경보 시점을 결정
+// - 감지가 confirmSamples 번 연속되면 경보 상태, 미감지가 clearSamples 번 연속되면 해제
+// - 경보 상태에서는 cooldownMs 마다 한번씩만 경보
+// - 휴식 중에는 감지하지 않고, 휴식 시작/종료 때 감지기 상태를 초기화
+public class DrowsinessEngine {
+    public static final double DEFAULT_RATIO = 0.93; // 기준 심박수 대비 7% 하락
+    public static final int MIN_BASELINE_SAMPLES = 10; // 기준 심박수로 쓰기 위한 최소 샘플 수
+    public static final int PRIOR_WEIGHT_SAMPLES = 30; // 운전자 평소 심박수를 샘플 몇 개만큼으로 볼지
+    public static final double MOTION_VOTE_SCORE = 0.5; // 졸음 점수가 이 이상이면 움직임 감지기가 한 표
+
+    private final DrowsinessDetector detector;
+    private final int confirmSamples; // 경보 상태 진입에 필요한 연속 감지 수
+    private final int clearSamples; // 경보 상태 해제에 필요한 연속 미감지 수
+    private final long cooldownMs; // 경보 사이 최소 간격
+
+    private volatile boolean resting = false; // 휴식 상태 (다른 스레드에서 변경)
+    private boolean appliedResting = false; // 감지 스레드에서 마지막으로 반영한 휴식 상태
+    private boolean active = false; // 경보 상태
+    private int detectedRun = 0;
+    private int clearRun = 0;
+    private long lastAlertAt = Long.MIN_VALUE / 2;
+    private long alertCount = 0;
+
+    public DrowsinessEngine(DrowsinessDetector detector, int confirmSamples, int clearSamples, long cooldownMs) {
+        this.detector = detector;
+        this.confirmSamples = confirmSamples;
+        this.clearSamples = clearSamples;
+        this.cooldownMs = cooldownMs;
+    }
+
+    // 기본 구성: 지속 하락 / EWMA / CUSUM (+ 움직임 점수) 중 2개 이상 감지
+    public static DrowsinessEngine createDefault() {
+        return create(DEFAULT_RATIO);
+    }
+
+    public static DrowsinessEngine create(double ratio) {
+        return create(ratio, null);
+    }
+
+    // 움직임 점수(score)도 한 표로 (IMU 데이터가 있을 때만 표를 던짐) - score 가 null 이면 create(ratio) 와 같음
+    // 같은 DrowsinessScore 를 HeartRatePipeline.setDrowsinessScore 로도 넘겨야 갱신됨
+    public static DrowsinessEngine create(double ratio, DrowsinessScore score) {
+        double drop = 1 - ratio;
+        DrowsinessDetector sustained = new SustainedBelowDetector(ratio, 10_000);
+        DrowsinessDetector ewma = new EwmaDriftDetector(0.2, ratio);
+        DrowsinessDetector cusum = new CusumDetector(drop / 2, drop * 3);
+        DrowsinessDetector detector = score == null
+                ? new VoteDetector(2, sustained, ewma, cusum)
+                : new VoteDetector(2, sustained, ewma, cusum, new MotionVoteDetector(score, MOTION_VOTE_SCORE));
+        return new DrowsinessEngine(detector, 1, 5, 60_000);
+    }
+
+    // 감지에 사용할 기준 심박수 (샘플이 부족하면 NaN)
+    public static double baselineOf(HeartRateWindow window) {
+        return window.size() >= MIN_BASELINE_SAMPLES ? window.mean() : Double.NaN;
+    }
+
+    // 운전자 평소 심박수(prior, BaselineProfile)를 PRIOR_WEIGHT_SAMPLES 개 샘플만큼 섞은 기준 심박수
+    // - 운행 시작 직후에는 사전값 그대로 -> 첫 샘플부터 감지, 창이 차면서 실시간 값 쪽으로
+    // - prior 가 NaN 이면 baselineOf(window) 와 같음
+    public static double baselineOf(HeartRateWindow window, double prior) {
+        if (Double.isNaN(prior)) {
+            return baselineOf(window);
+        }
+        int n = window.size();
+        return n == 0 ? prior : (prior * PRIOR_WEIGHT_SAMPLES + window.mean() * n) / (PRIOR_WEIGHT_SAMPLES + n);
+    }
+
+    // 샘플 하나 처리 - 지금 경보(진동)해야 하면 true
+    public boolean onSample(long timeMillis, int heartRate, double baseline) {
+        boolean isResting = resting;
+        if (isResting != appliedResting) {
+            appliedResting = isResting;
+            reset();
+        }
+        if (isResting || Double.isNaN(baseline) || baseline <= 0) {
+            return false;
+        }
+
+        if (detector.update(timeMillis, heartRate, baseline)) {
+            detectedRun++;
+            clearRun = 0;
+            if (!active && detectedRun >= confirmSamples) {
+                active = true;
+            }
+        } else {
+            clearRun++;
+            detectedRun = 0;
+            if (active && clearRun >= clearSamples) {
+                active = false;
+            }
+        }
+
+        if (active && timeMillis - lastAlertAt >= cooldownMs) {
+            lastAlertAt = timeMillis;
+            alertCount++;
+            return true;
+        }
+        return false;
+    }
+
+    // 휴식 상태 변경 (어느 스레드에서든 호출 가능, 다음 샘플에서 반영)
+    public void setResting(boolean resting) {
+        this.resting = resting;
+    }
+
+    public boolean isResting() {
+        return resting;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getAlertCount() {
+        return alertCount;
+    }
+
+    // 감지 상태 초기화 (감지 스레드에서 호출)
+    public void reset() {
+        detector.reset();
+        active = false;
+        detectedRun = 0;
+        clearRun = 0;
+        lastAlertAt = Long.MIN_VALUE / 2;
+    }
+}
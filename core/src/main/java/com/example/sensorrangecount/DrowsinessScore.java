@@ -0,0 +1,67 @@
+package com.example.sensorrangecount;
+
+// 심박수 하락과 움직임 특징을 합친 졸음 점수 0~1 (감지 스레드에서 샘플마다 update)
+// - 심박수: 기준 심박수 대비 하락 비율을 fullDropRatio 로 나눠 0~1 로 맞추고 EWMA 로 평활
+// - 움직임: MotionFeatureExtractor 의 최근 점수 (IMU 가 꺼져 있거나 오래되면 심박수만 사용)
+// - 경보는 DrowsinessEngine 이 결정 - 움직임 부분이 있을 때 이 점수가 MotionVoteDetector 로 한 표 (화면/계측에도 표시)
+public class DrowsinessScore {
+    private static final double HEART_RATE_WEIGHT = 0.6;
+    private static final double MOTION_WEIGHT = 0.4;
+    private static final double HEART_RATE_ALPHA = 0.1; // 심박수 부분 평활 계수
+
+    private final MotionFeatureExtractor motion; // 없으면 심박수만
+    private final double fullDropRatio; // 이만큼 하락하면 심박수 부분이 1
+    private double heartRateLevel = 0; // 감지 스레드 전용
+
+    private volatile double score = Double.NaN;
+    private volatile double heartRatePart = Double.NaN;
+    private volatile double motionPart = Double.NaN;
+
+    public DrowsinessScore(MotionFeatureExtractor motion, double fullDropRatio) {
+        this.motion = motion;
+        this.fullDropRatio = fullDropRatio;
+    }
+
+    // 기본 구성: 경보 기준(DrowsinessEngine.DEFAULT_RATIO)의 두 배 하락이면 심박수 부분 1
+    public static DrowsinessScore createDefault(MotionFeatureExtractor motion) {
+        return new DrowsinessScore(motion, 2 * (1 - DrowsinessEngine.DEFAULT_RATIO));
+    }
+
+    // 샘플 하나 (sensorNanos: 센서 기준 시각, 움직임 점수가 최근 것인지 확인용) - 할당 없음
+    public double update(long sensorNanos, int heartRate, double baseline) {
+        if (Double.isNaN(baseline) || baseline <= 0) {
+            return score;
+        }
+        double drop = 1 - heartRate / baseline;
+        double level = drop <= 0 ? 0 : Math.min(1, drop / fullDropRatio);
+        heartRateLevel += HEART_RATE_ALPHA * (level - heartRateLevel);
+        double motionScore = motion != null ? motion.getScore(sensorNanos) : Double.NaN;
+        heartRatePart = heartRateLevel;
+        motionPart = motionScore;
+        score = Double.isNaN(motionScore)
+                ? heartRateLevel
+                : HEART_RATE_WEIGHT * heartRateLevel + MOTION_WEIGHT * motionScore;
+        return score;
+    }
+
+    // 휴식 시작/종료 때 (감지 스레드)
+    public void reset() {
+        heartRateLevel = 0;
+        score = Double.NaN;
+        heartRatePart = Double.NaN;
+        motionPart = Double.NaN;
+    }
+
+    // 최근 점수 (아직 없으면 NaN) - 어느 스레드에서든 호출 가능
+    public double get() {
+        return score;
+    }
+
+    public double getHeartRatePart() {
+        return heartRatePart;
+    }
+
+    public double getMotionPart() {
+        return motionPart;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sensorrangecount;
+
+// 기준 대비 심박수 비율의 지수이동평균(EWMA)이 ratio 아래로 내려가면 감지 (순간적인 흔들림에 둔감)
+public class EwmaDriftDetector implements DrowsinessDetector {
+    private final double alpha; // 새 샘플 가중치 (0~1)
+    private final double ratio; // 기준 대비 비율 (예: 0.93)
+    private double ewma = Double.NaN; // 기준 대비 비율의 이동평균
+
+    public EwmaDriftDetector(double alpha, double ratio) {
+        this.alpha = alpha;
+        this.ratio = ratio;
+    }
+
+    @Override
+    public boolean update(long timeMillis, int heartRate, double baseline) {
+        double relative = heartRate / baseline;
+        ewma = Double.isNaN(ewma) ? relative : ewma + alpha * (relative - ewma);
+        return ewma < ratio;
+    }
+
+    @Override
+    public void reset() {
+        ewma = Double.NaN;
+    }
+}
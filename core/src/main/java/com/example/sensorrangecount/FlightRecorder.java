@@ -0,0 +1,203 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 항상 켜 두는 이벤트 기록기 (비행 기록 장치) - 고정 크기 원형 버퍼에 바이너리 이벤트만 남김
+// - 이벤트 하나 = 종류 + 시각(나노초) + long 인자 두 개, 문자열/할당 없음 (Log.d 대신 핫패스에서 사용)
+// - 여러 스레드에서 락 없이 기록: 순번을 AtomicLong 으로 받고 칸에 lazySet
+//   칸의 헤더(순번 + 종류)를 먼저 지우고 마지막에 다시 써서, 덤프 중에 덮어쓰인 칸은 버려짐
+// - 버퍼가 차면 가장 오래된 이벤트부터 덮어씀
+// - dump() 로 파일에 저장 (요청 시/크래시/졸음 경보), FlightLogDecoder 로 PC 에서 시간순으로 출력
+public class FlightRecorder {
+    // 이벤트 종류 (파일에 숫자로 저장되므로 번호를 바꾸지 말고 뒤에 추가)
+    public static final int SAMPLE = 1; // a: 심박수, b: 저장 플래그 (HeartRateStore.FLAG_*)
+    public static final int ALERT = 2; // a: 심박수, b: 기준 심박수 x100
+    public static final int BATCH = 3; // a: 기록한 샘플 수, b: 처리 시간 (나노초)
+    public static final int UPLOAD_SENT = 4; // a: 샘플 수, b: 응답 코드
+    public static final int UPLOAD_FAILED = 5; // a: 샘플 수
+    public static final int ROLLUP_SENT = 6; // a: 롤업 수, b: 응답 코드
+    public static final int ROLLUP_FAILED = 7; // a: 롤업 수
+    public static final int NOTI_SENT = 8; // a: NotiDispatcher.Event ordinal, b: 지연 (밀리초)
+    public static final int NOTI_FAILED = 9; // a: NotiDispatcher.Event ordinal, b: 시도 횟수
+    public static final int SAMPLING_MODE = 10; // a: 이전 SamplingScheduler.Mode ordinal, b: 새 모드
+    public static final int SESSION = 11; // a: SamplingScheduler.Session ordinal
+    public static final int REST = 12; // a: 1 휴식 시작, 0 휴식 종료
+    public static final int ERROR = 13; // a: ERROR_* 코드, b: 코드별 값
+    public static final int SERVICE = 14; // a: 1 시작, 0 종료
+    public static final int DUMP = 15; // a: DUMP_* 이유
+    public static final int CRASH = 16; // a: 스레드 id
+
+    // 이벤트 이름 (디코더 출력용, 번호가 인덱스)
+    static final String[] NAMES = {"?", "SAMPLE", "ALERT", "BATCH", "UPLOAD_SENT", "UPLOAD_FAILED", "ROLLUP_SENT",
+            "ROLLUP_FAILED", "NOTI_SENT", "NOTI_FAILED", "SAMPLING_MODE", "SESSION", "REST", "ERROR", "SERVICE",
+            "DUMP", "CRASH"};
+
+    // ERROR 코드
+    public static final int ERROR_STORE = 1;
+    public static final int ERROR_SENSOR = 2;
+    public static final int ERROR_OTHER = 3;
+    public static final int ERROR_SESSION = 4; // 운행 세션 기록 파일
+    public static final int ERROR_RAW_WINDOW = 5; // 원본 구간 일부를 보낼 수 없음 (b: 빠진 길이, 밀리초)
+
+    // 덤프 이유
+    public static final int DUMP_ON_DEMAND = 0;
+    public static final int DUMP_CRASH = 1;
+    public static final int DUMP_ALERT = 2;
+    static final String[] DUMP_REASONS = {"demand", "crash", "alert"};
+
+    static final int MAGIC = 0x48524652; // "HRFR"
+    static final int VERSION = 1;
+    private static final int FIELDS = 4; // 헤더, 시각, a, b
+    private static final int TYPE_BITS = 8;
+    private static final long COUNT_OFFSET = 4 + 4 + 4 + 8 + 8 + 8; // 파일 헤더에서 이벤트 수 위치
+
+    private final Clock clock;
+    private final int mask;
+    private final AtomicLongArray slots;
+    private final AtomicLong cursor = new AtomicLong(); // 다음 순번 (지금까지 기록한 이벤트 수)
+    private final ReentrantLock dumpLock = new ReentrantLock();
+    private final ByteBuffer countBuffer = ByteBuffer.allocate(4); // 덤프 전용 (dumpLock)
+
+    // capacity: 이벤트 수 (2 의 거듭제곱으로 올림), clock: 시각 기준 (안드로이드는 SystemClock.elapsedRealtimeNanos)
+    public FlightRecorder(int capacity, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.clock = clock;
+        this.mask = size - 1;
+        this.slots = new AtomicLongArray(size * FIELDS);
+    }
+
+    // 지금 시각으로 이벤트 기록 (어느 스레드에서든)
+    public void record(int type, long a, long b) {
+        recordAt(type, clock.nanoTime(), a, b);
+    }
+
+    // 시각을 이미 알고 있을 때 (센서 타임스탬프 등 - 같은 시계 기준이어야 함)
+    public void recordAt(int type, long timeNanos, long a, long b) {
+        long seq = cursor.getAndIncrement();
+        int base = (int) (seq & mask) * FIELDS;
+        slots.lazySet(base, 0); // 쓰는 중 (덤프가 이 칸을 버리도록)
+        slots.lazySet(base + 1, timeNanos);
+        slots.lazySet(base + 2, a);
+        slots.lazySet(base + 3, b);
+        slots.lazySet(base, ((seq + 1) << TYPE_BITS) | type); // 순번은 1 부터 (0 은 비어 있음)
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    // 지금까지 기록한 이벤트 수 (덮어쓴 것 포함)
+    public long getRecorded() {
+        return cursor.get();
+    }
+
+    // 버퍼에 남은 이벤트를 파일로 저장 - 저장한 이벤트 수를 리턴 (동시에 여러 번 호출되면 차례로)
+    // wallMillis: 지금 epoch 밀리초 (디코더가 이벤트 시각을 벽시계로 바꿀 때 기준)
+    // 크래시 덤프(DUMP_CRASH)는 기다리지 않음 - 다른 덤프가 진행 중이면 건너뛰고 -1
+    public int dump(File file, int reason, long wallMillis) throws IOException {
+        if (reason == DUMP_CRASH) {
+            if (!dumpLock.tryLock()) {
+                return -1;
+            }
+        } else {
+            dumpLock.lock();
+        }
+        try {
+            return dumpLocked(file, reason, wallMillis);
+        } finally {
+            dumpLock.unlock();
+        }
+    }
+
+    // 칸을 복사하지 않고 바로 파일로 씀 (크래시 중에도 버퍼 크기만큼 할당하지 않게)
+    // 개수는 다 쓴 뒤에 헤더 자리에 채움
+    private int dumpLocked(File file, int reason, long wallMillis) throws IOException {
+        record(DUMP, reason, 0);
+        long anchorNanos = clock.nanoTime();
+        long end = cursor.get();
+        long start = Math.max(0, end - getCapacity());
+        int count = 0;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(reason);
+            out.writeLong(wallMillis);
+            out.writeLong(anchorNanos);
+            out.writeLong(end);
+            out.writeInt(0); // 개수 (COUNT_OFFSET, 마지막에 채움)
+            for (long seq = start; seq < end; seq++) {
+                int base = (int) (seq & mask) * FIELDS;
+                long header = slots.get(base);
+                long timeNanos = slots.get(base + 1);
+                long a = slots.get(base + 2);
+                long b = slots.get(base + 3);
+                // 아직 쓰는 중이거나 덤프 중에 덮어쓰인 칸은 버림
+                if (header >>> TYPE_BITS != seq + 1 || slots.get(base) != header) {
+                    continue;
+                }
+                out.writeLong(header);
+                out.writeLong(timeNanos);
+                out.writeLong(a);
+                out.writeLong(b);
+                count++;
+            }
+            out.flush();
+            countBuffer.clear();
+            countBuffer.putInt(0, count);
+            while (countBuffer.hasRemaining()) {
+                fileOut.getChannel().write(countBuffer, COUNT_OFFSET + countBuffer.position());
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot rename " + tmp);
+        }
+        return count;
+    }
+
+    // dir/flight-<wallMillis>-<이유>.bin 으로 저장하고 오래된 덤프는 maxFiles 개만 남김 (건너뛰었으면 null)
+    public File dumpToDirectory(File dir, int reason, long wallMillis, int maxFiles) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File file = new File(dir, "flight-" + wallMillis + "-" + DUMP_REASONS[reason] + ".bin");
+        if (dump(file, reason, wallMillis) < 0) {
+            return null;
+        }
+        File[] dumps = dir.listFiles((d, name) -> name.startsWith("flight-") && name.endsWith(".bin"));
+        if (dumps != null && dumps.length > maxFiles) {
+            Arrays.sort(dumps, (x, y) -> Long.compare(x.lastModified(), y.lastModified()));
+            for (int i = 0; i < dumps.length - maxFiles; i++) {
+                if (!dumps[i].equals(file)) {
+                    dumps[i].delete();
+                }
+            }
+        }
+        return file;
+    }
+
+    static int typeOf(long header) {
+        return (int) (header & ((1 << TYPE_BITS) - 1));
+    }
+
+    static long sequenceOf(long header) {
+        return (header >>> TYPE_BITS) - 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sensorrangecount;
+
+// 센서 스레드에서 한 묶음의 샘플을 모아두는 버퍼 (primitive 배열, 재사용)
+public class HeartRateBatch {
+    private final long[] times;
+    private final int[] rates;
+    private int size = 0;
+
+    public HeartRateBatch(int capacity) {
+        times = new long[capacity];
+        rates = new int[capacity];
+    }
+
+    // 샘플 추가 - 가득 차면 false (먼저 처리 후 clear 필요)
+    public boolean add(long timeMillis, int heartRate) {
+        if (size == times.length) {
+            return false;
+        }
+        times[size] = timeMillis;
+        rates[size] = heartRate;
+        size++;
+        return true;
+    }
+
+    public boolean isFull() {
+        return size == times.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timeAt(int index) {
+        return times[index];
+    }
+
+    public int rateAt(int index) {
+        return rates[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
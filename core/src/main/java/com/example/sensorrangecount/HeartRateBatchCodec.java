@@ -0,0 +1,241 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 심박수 배치 바이너리 포맷 (서버 디코더와 공용)
+// 헤더: 'H' 'R' 'B' + 버전(1) + 플래그(1, FLAG_DEFLATE 면 본문이 deflate 압축)
+// 본문: varint 사용자ID 길이 + UTF-8 사용자ID + varint 개수 + varint 기준시각(epoch ms)
+//       + 샘플마다 zig-zag varint (이전 대비 시간 차이, 이전 대비 심박수 차이)
+// 인코더는 내부 버퍼를 재사용하므로 스레드 하나에서만 사용
+// 디코더는 크기를 먼저 확인 (사용자ID/샘플 수 상한, 압축 해제 결과는 최대 배치 크기까지만 - 압축 폭탄 방지)
+public class HeartRateBatchCodec {
+    public static final String CONTENT_TYPE = "application/x-heartrate-batch";
+    public static final int MAX_SAMPLES = 4096; // 배치 하나의 최대 샘플 수 (업로드 배치는 30개)
+    public static final int MAX_USER_ID_BYTES = 256;
+    // 본문 최대 크기 - varint 길이/개수/기준시각 + 사용자ID + 샘플마다 최대 15바이트 (시간 10 + 심박수 5)
+    static final int MAX_BODY_BYTES = 3 * 10 + MAX_USER_ID_BYTES + MAX_SAMPLES * 15;
+
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int HEADER_BYTES = 5;
+
+    // 디코딩 결과
+    public static class Batch {
+        public final String userId;
+        public final long[] times;
+        public final int[] heartRates;
+
+        Batch(String userId, long[] times, int[] heartRates) {
+            this.userId = userId;
+            this.times = times;
+            this.heartRates = heartRates;
+        }
+
+        public int size() {
+            return times.length;
+        }
+    }
+
+    private final boolean compress; // deflate 압축 여부
+    private byte[] buffer = new byte[256]; // 인코딩 버퍼
+    private int length = 0;
+    private byte[] compressed = new byte[256]; // 압축 결과 버퍼
+    private final Deflater deflater;
+
+    public HeartRateBatchCodec(boolean compress) {
+        this.compress = compress;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED, true) : null;
+    }
+
+    public static boolean isBatchContentType(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE);
+    }
+
+    // 샘플 count 개를 인코딩
+    public byte[] encode(String userId, long[] times, int[] heartRates, int count) {
+        length = 0;
+        byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+        if (count > MAX_SAMPLES || id.length > MAX_USER_ID_BYTES) {
+            throw new IllegalArgumentException("batch too large: " + count + " samples, user id " + id.length);
+        }
+        writeVarint(id.length);
+        ensure(id.length);
+        System.arraycopy(id, 0, buffer, length, id.length);
+        length += id.length;
+
+        writeVarint(count);
+        long base = count > 0 ? times[0] : 0;
+        writeVarint(base);
+        long previousTime = base;
+        int previousRate = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(zigZag(times[i] - previousTime));
+            writeVarint(zigZag(heartRates[i] - previousRate));
+            previousTime = times[i];
+            previousRate = heartRates[i];
+        }
+
+        if (!compress) {
+            byte[] out = new byte[HEADER_BYTES + length];
+            writeHeader(out, 0);
+            System.arraycopy(buffer, 0, out, HEADER_BYTES, length);
+            return out;
+        }
+
+        deflater.reset();
+        deflater.setInput(buffer, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        byte[] out = new byte[HEADER_BYTES + compressedLength];
+        writeHeader(out, FLAG_DEFLATE);
+        System.arraycopy(compressed, 0, out, HEADER_BYTES, compressedLength);
+        return out;
+    }
+
+    // 바이너리 배치 디코딩 (서버에서 사용)
+    public static Batch decode(byte[] data, int offset, int length) throws IOException {
+        if (length < HEADER_BYTES || data[offset] != 'H' || data[offset + 1] != 'R' || data[offset + 2] != 'B') {
+            throw new IOException("Not a heart rate batch");
+        }
+        if (data[offset + 3] != VERSION) {
+            throw new IOException("Unsupported batch version: " + data[offset + 3]);
+        }
+        byte[] body = data;
+        int position = offset + HEADER_BYTES;
+        int end = offset + length;
+        if ((data[offset + 4] & FLAG_DEFLATE) != 0) {
+            body = inflate(data, position, end - position);
+            position = 0;
+            end = body.length;
+        } else if (end - position > MAX_BODY_BYTES) {
+            throw new IOException("Batch too large: " + (end - position) + " bytes");
+        }
+
+        // 길이/개수는 long 으로 범위를 확인한 뒤에 int 로 (큰 varint 가 음수/작은 값으로 바뀌지 않도록)
+        Reader reader = new Reader(body, position, end);
+        long idLength = reader.readVarint();
+        if (idLength < 0 || idLength > MAX_USER_ID_BYTES || idLength > reader.remaining()) {
+            throw new IOException("Corrupt batch: user id length " + idLength);
+        }
+        String userId = new String(body, reader.position, (int) idLength, StandardCharsets.UTF_8);
+        reader.position += (int) idLength;
+
+        long samples = reader.readVarint();
+        if (samples < 0 || samples > MAX_SAMPLES || samples > reader.remaining()) {
+            throw new IOException("Corrupt batch: count " + samples);
+        }
+        int count = (int) samples;
+        long time = reader.readVarint();
+        int rate = 0;
+        long[] times = new long[count];
+        int[] heartRates = new int[count];
+        for (int i = 0; i < count; i++) {
+            time += unZigZag(reader.readVarint());
+            rate += (int) unZigZag(reader.readVarint());
+            times[i] = time;
+            heartRates[i] = rate;
+        }
+        return new Batch(userId, times, heartRates);
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] out = new byte[(int) Math.min(MAX_BODY_BYTES, Math.max(64, length * 4L))];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == out.length) {
+                    if (out.length >= MAX_BODY_BYTES) {
+                        throw new IOException("Compressed batch inflates past " + MAX_BODY_BYTES + " bytes");
+                    }
+                    out = Arrays.copyOf(out, Math.min(MAX_BODY_BYTES, out.length * 2));
+                }
+                int n = inflater.inflate(out, size, out.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed batch");
+                }
+                size += n;
+            }
+            return Arrays.copyOf(out, size);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed batch", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeHeader(byte[] out, int flags) {
+        out[0] = 'H';
+        out[1] = 'R';
+        out[2] = 'B';
+        out[3] = VERSION;
+        out[4] = (byte) flags;
+    }
+
+    private void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // varint 읽기용
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+        private final int end;
+
+        Reader(byte[] data, int position, int end) {
+            this.data = data;
+            this.position = position;
+            this.end = end;
+        }
+
+        int remaining() {
+            return end - position;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= end) {
+                    throw new IOException("Truncated batch");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
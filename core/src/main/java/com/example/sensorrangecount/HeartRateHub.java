@@ -0,0 +1,119 @@
+package com.example.sensorrangecount;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 심박수 구독 허브 - 센서는 서비스만 등록하고, UI/감지/업로드 등은 여기서 구독
+// - executor 없이 구독하면 publish 한 스레드에서 바로 호출
+// - conflate 구독은 처리 중에 들어온 값은 최신 값 하나만 전달 (느린 UI 용)
+public class HeartRateHub {
+
+    // 심박수 수신 콜백
+    public interface Subscriber {
+        void onHeartRate(long timeMillis, int heartRate);
+    }
+
+    // 구독 해제 핸들
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final Object lock = new Object(); // 구독 추가/해제용
+    private volatile Entry[] entries = new Entry[0]; // publish 시 할당 없이 순회하도록 배열로 교체
+
+    // 구독 - executor 가 null 이면 publish 스레드에서 바로 호출
+    public Subscription subscribe(Subscriber subscriber, Executor executor, boolean conflate) {
+        final Entry entry = new Entry(subscriber, executor, conflate);
+        synchronized (lock) {
+            Entry[] current = entries;
+            Entry[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = entry;
+            entries = next;
+        }
+        return new Subscription() {
+            @Override
+            public void cancel() {
+                unsubscribe(entry);
+            }
+        };
+    }
+
+    private void unsubscribe(Entry entry) {
+        synchronized (lock) {
+            entry.cancelled = true;
+            Entry[] current = entries;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == entry) {
+                    Entry[] next = new Entry[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    entries = next;
+                    return;
+                }
+            }
+        }
+    }
+
+    // 새 샘플 전달 (생산자 스레드 하나에서 호출)
+    public void publish(long timeMillis, int heartRate) {
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            entry.deliver(timeMillis, heartRate);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return entries.length;
+    }
+
+    private static final class Entry implements Runnable {
+        private final Subscriber subscriber;
+        private final Executor executor;
+        private final boolean conflate;
+        private volatile boolean cancelled = false;
+
+        // conflate 용 - 최신 값 (시간 << 16 | 심박수) 과 실행 예약 여부
+        private final AtomicLong latest = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        Entry(Subscriber subscriber, Executor executor, boolean conflate) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.conflate = conflate;
+        }
+
+        void deliver(final long timeMillis, final int heartRate) {
+            if (executor == null) {
+                subscriber.onHeartRate(timeMillis, heartRate);
+            } else if (conflate) {
+                latest.set(timeMillis << 16 | (heartRate & 0xFFFF));
+                if (scheduled.compareAndSet(false, true)) {
+                    executor.execute(this);
+                }
+            } else {
+                // 모든 값을 순서대로 전달 (샘플마다 Runnable 생성)
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!cancelled) {
+                            subscriber.onHeartRate(timeMillis, heartRate);
+                        }
+                    }
+                });
+            }
+        }
+
+        // conflate 전달 - 실행 시점의 최신 값만 전달
+        @Override
+        public void run() {
+            scheduled.set(false);
+            if (cancelled) {
+                return;
+            }
+            long packed = latest.get();
+            subscriber.onHeartRate(packed >>> 16, (int) (packed & 0xFFFF));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sensorrangecount;
+
+import java.nio.charset.StandardCharsets;
+
+// 심박수 JSON 페이로드 생성 - [{"heartrate": 72, "heartratelogtime": "2024/07/02 14:27:59"}, ...]
+// (StringBuilder 와 포맷터를 재사용, 스레드 하나에서만 사용)
+public class HeartRateJson {
+    private final StringBuilder json = new StringBuilder(256);
+    private final TimestampFormatter formatter = new TimestampFormatter();
+
+    public byte[] buildBatch(long[] times, int[] rates, int count) {
+        json.setLength(0);
+        json.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append("{\"heartrate\": ").append(rates[i]).append(", \"heartratelogtime\": \"");
+            formatter.append(json, times[i]);
+            json.append("\"}");
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+
+// 심박수 샘플 처리 경로 (센서 이벤트 -> 기준 심박수 -> 졸음 감지 -> 업로드/저장/구독자 전달)
+// - 안드로이드 의존성 없음: 서비스와 트레이스 재생(TraceReplayer)이 같은 코드를 사용
+// - 두 단계로 나뉨: detect() (감지 + 진동, I/O 없음) 와 record()/flush() (업로드/저장/구독자)
+// - 리스너로 직접 쓰면 센서 스레드에서 한 묶음씩 모았다가 onBatchEnd() 에서 두 단계를 차례로 처리,
+//   AlertLane 을 거치면 두 단계가 각자 스레드에서 처리됨
+public class HeartRatePipeline implements SensorSource.Listener {
+    // 기준 심박수 (최근 5분 이동 통계)
+    public static final long BASELINE_WINDOW_MS = 5 * 60_000;
+    public static final int BASELINE_CAPACITY = 1024; // 5분 동안 들어올 수 있는 최대 샘플 수보다 넉넉하게
+    private static final int PENDING_CAPACITY = 256;
+
+    // 처리 결과 콜백 (센서 스레드에서 호출됨, AlertLane 을 거치면 onAlert 는 경보 스레드, onBatchProcessed 는 기록 스레드)
+    public interface Callback {
+        // 묶음의 첫 샘플이 들어옴 - 처리가 끝날 때까지 Wake Lock 유지
+        void onBatchStart();
+
+        // 묶음 처리가 끝남 (저장소 flush 이후)
+        void onBatchProcessed();
+
+        // 졸음 경보 (진동)
+        void onAlert(long timeMillis, int heartRate);
+
+        void onError(String message, IOException e);
+    }
+
+    private final long bootTimeMillis; // 부팅 시각 (epoch 밀리초) - 센서 타임스탬프 변환용
+    private final DrowsinessEngine engine;
+    private final Callback callback;
+    private final HeartRateWindow baselineWindow = new HeartRateWindow(BASELINE_WINDOW_MS, BASELINE_CAPACITY);
+    private final HeartRateBatch pendingBatch = new HeartRateBatch(PENDING_CAPACITY); // 센서 스레드에서 모아둔 샘플
+    private final HeartRateHub hub = new HeartRateHub(); // 심박수 구독 허브 (UI 등)
+    private final LiveState liveState = new LiveState(); // 최신 값 스냅샷 (감지 스레드가 쓰고 아무 스레드나 읽음)
+    private volatile int session = SamplingScheduler.Session.IDLE.ordinal(); // 다음 샘플 때 liveState 에 반영
+    private volatile BaselineProfile profile; // 운전자 평소 심박수 (없으면 실시간 창만으로 기준 심박수)
+    private long tripStartMillis = -1; // 이번 운행 첫 샘플 시각 (감지 스레드 전용, 운행 중이 아니면 -1)
+    private volatile TripSummary tripSummary; // 운행 요약 (운행 중 샘플만, 시작/종료는 서비스가)
+
+    private HeartRateUploader uploader; // 없으면 업로드 안 함
+    private RollupAggregator rollups; // 있으면 원본 대신 롤업을 올림 (원본은 rawWindows 구간만)
+    private RawWindowExporter rawWindows;
+    private long lastRecordedMillis = Long.MIN_VALUE; // 기록 단계에서 본 가장 최근 샘플 시각
+    private HeartRateStore store; // 없으면 저장 안 함
+    private DrowsinessScore score; // 없으면 졸음 점수 계산 안 함
+    private PipelineMetrics metrics; // 없으면 계측 안 함
+    private FlightRecorder recorder; // 없으면 이벤트 기록 안 함
+    private int batchSamples = 0; // record() 쪽 묶음의 샘플 수 (이벤트 기록용)
+    private Clock clock; // 센서 타임스탬프와 같은 기준의 시계 (지연 시간 계측용)
+    private long batchStartNanos = -1; // record() 쪽 묶음 처리 시작 시각 (계측용)
+
+    public HeartRatePipeline(long bootTimeMillis, DrowsinessEngine engine, Callback callback) {
+        this.bootTimeMillis = bootTimeMillis;
+        this.engine = engine;
+        this.callback = callback;
+    }
+
+    // 센서 등록 전에 설정
+    public void setUploader(HeartRateUploader uploader) {
+        this.uploader = uploader;
+    }
+
+    // 롤업 업로드 켜기 - 원본 업로드는 rawWindows 가 고른 구간만 (rawWindows 가 없으면 원본은 올리지 않음)
+    public void setRollups(RollupAggregator rollups, RawWindowExporter rawWindows) {
+        this.rollups = rollups;
+        this.rawWindows = rawWindows;
+    }
+
+    public void setStore(HeartRateStore store) {
+        this.store = store;
+    }
+
+    // 심박수 + 움직임 졸음 점수 (센서 등록 전에 설정)
+    public void setDrowsinessScore(DrowsinessScore score) {
+        this.score = score;
+    }
+
+    // 계측 켜기 (clock: 안드로이드는 SystemClock.elapsedRealtimeNanos, 재생은 VirtualClock)
+    public void setMetrics(PipelineMetrics metrics, Clock clock) {
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    // 샘플/경보/묶음 이벤트 기록 (센서 등록 전에 설정, recorder 의 시계는 센서 타임스탬프와 같은 기준)
+    public void setFlightRecorder(FlightRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public HeartRateHub getHub() {
+        return hub;
+    }
+
+    public LiveState getLiveState() {
+        return liveState;
+    }
+
+    // 운행 상태 변경 (어느 스레드에서든, 다음 샘플부터 liveState 에 보임)
+    public void setSession(SamplingScheduler.Session session) {
+        this.session = session.ordinal();
+    }
+
+    // 운전자 프로필 교체 (어느 스레드에서든, 다음 샘플부터 사전값으로 쓰고 평소 샘플을 누적, null 이면 실시간 창만)
+    public void setBaselineProfile(BaselineProfile profile) {
+        this.profile = profile;
+    }
+
+    public BaselineProfile getBaselineProfile() {
+        return profile;
+    }
+
+    public void setTripSummary(TripSummary tripSummary) {
+        this.tripSummary = tripSummary;
+    }
+
+    public DrowsinessEngine getEngine() {
+        return engine;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    // 계측용 현재 시각 (계측을 켜지 않았으면 0)
+    public long nowNanos() {
+        return metrics != null ? clock.nanoTime() : 0;
+    }
+
+    // 센서 타임스탬프(부팅 후 경과 나노초)를 epoch 밀리초로 변환
+    public long toEpochMillis(long timestampNanos) {
+        return bootTimeMillis + timestampNanos / 1_000_000L;
+    }
+
+    // 센서 이벤트 수신 (센서 스레드) - 묶음이 끝날 때까지 모아두기만 함
+    @Override
+    public void onSample(long timestampNanos, float value) {
+        if (metrics != null) {
+            metrics.sensorEvents.incrementAndGet();
+        }
+        int heartRate = (int) value;
+        if (heartRate == 0) {
+            return;
+        }
+        if (pendingBatch.size() == 0) {
+            beginBatch();
+        }
+        long timeMillis = toEpochMillis(timestampNanos);
+        if (!pendingBatch.add(timeMillis, heartRate)) {
+            processPendingBatch();
+            beginBatch();
+            pendingBatch.add(timeMillis, heartRate);
+        }
+    }
+
+    // 센서가 한번에 전달한 묶음이 끝남 - 모아둔 샘플을 한번에 처리
+    // (0 bpm 만 있던 묶음은 beginBatch 도 없었으므로 건너뜀 - AlertLane 과 같이)
+    @Override
+    public void onBatchEnd() {
+        if (pendingBatch.size() > 0) {
+            processPendingBatch();
+        }
+    }
+
+    // 센서 정확도 변경 시 호출
+    @Override
+    public void onAccuracyChanged(int accuracy) {}
+
+    private void processPendingBatch() {
+        try {
+            long nowNanos = nowNanos();
+            for (int i = 0; i < pendingBatch.size(); i++) {
+                long timeMillis = pendingBatch.timeAt(i);
+                int heartRate = pendingBatch.rateAt(i);
+                record(timeMillis, heartRate, detect(timeMillis, heartRate, nowNanos));
+            }
+        } finally {
+            pendingBatch.clear();
+            flush();
+            endBatch();
+        }
+    }
+
+    // 묶음 시작 - 처리가 끝날 때까지 Wake Lock 유지
+    public void beginBatch() {
+        callback.onBatchStart();
+    }
+
+    // 묶음 처리 완료 - Wake Lock 해제
+    public void endBatch() {
+        callback.onBatchProcessed();
+    }
+
+    // 1단계: 기준 심박수 + 졸음 감지 + 경보 (샘플마다 호출, I/O/할당 없음) - 저장할 플래그를 리턴
+    // nowNanos: 계측용 현재 시각 (센서 타임스탬프 기준, 묶음마다 한번 읽어서 전달)
+    public int detect(long timeMillis, int heartRate, long nowNanos) {
+        // 현재 샘플을 넣기 전의 기준 심박수로 감지 (운전자 프로필이 있으면 평소 심박수를 섞음)
+        BaselineProfile p = profile;
+        long tripElapsedMs = updateTrip(timeMillis);
+        double prior = p != null ? p.prior(timeMillis, tripElapsedMs) : Double.NaN;
+        double baseline = DrowsinessEngine.baselineOf(baselineWindow, prior);
+        // 졸음 점수를 먼저 갱신 (엔진의 움직임 감지기 MotionVoteDetector 가 같은 샘플의 점수로 투표)
+        if (score != null) {
+            if (engine.isResting()) {
+                score.reset();
+            } else {
+                score.update(sensorNanosOf(timeMillis), heartRate, baseline);
+            }
+        }
+        boolean alert = engine.onSample(timeMillis, heartRate, baseline);
+        baselineWindow.add(timeMillis, heartRate);
+        // 운행 중 평소 상태(휴식/경보 아님) 샘플만 프로필에 누적
+        if (p != null && tripStartMillis >= 0 && !engine.isResting() && !engine.isActive()) {
+            p.add(timeMillis, tripElapsedMs, heartRate);
+        }
+
+        int flags = engine.isResting() ? HeartRateStore.FLAG_RESTING : 0;
+        publishLiveState(timeMillis, heartRate, DrowsinessEngine.baselineOf(baselineWindow, prior));
+        if (recorder != null) {
+            recorder.recordAt(FlightRecorder.SAMPLE, sensorNanosOf(timeMillis), heartRate, flags);
+        }
+        if (metrics != null) {
+            metrics.sensorToProcessed.record(nowNanos - sensorNanosOf(timeMillis));
+        }
+        TripSummary summary = tripSummary;
+        if (summary != null && tripStartMillis >= 0) {
+            summary.add(timeMillis, heartRate, baseline, engine.isResting(), engine.isActive(), alert);
+        }
+        if (alert) {
+            flags |= HeartRateStore.FLAG_ALERT;
+            if (recorder != null) {
+                recorder.record(FlightRecorder.ALERT, heartRate, Math.round(baseline * 100));
+            }
+            callback.onAlert(timeMillis, heartRate);
+            if (metrics != null) {
+                metrics.alerts.incrementAndGet();
+                metrics.sensorToVibrate.record(clock.nanoTime() - sensorNanosOf(timeMillis));
+            }
+        }
+        return flags;
+    }
+
+    // 감지 결과를 다른 스레드에 공개 (락/할당 없음)
+    private void publishLiveState(long timeMillis, int heartRate, double baselineMean) {
+        int liveFlags = (engine.isResting() ? LiveState.FLAG_RESTING : 0)
+                | (engine.isActive() ? LiveState.FLAG_ALERT_ACTIVE : 0);
+        liveState.write(timeMillis, heartRate, baselineMean,
+                baselineWindow.standardDeviation(), baselineWindow.min(), baselineWindow.max(),
+                baselineWindow.size(), liveFlags, session, score != null ? score.get() : Double.NaN);
+    }
+
+    // 운행 시작 후 경과 시간 (운행 중이 아니면 0) - 휴식 중에도 같은 운행으로 봄
+    private long updateTrip(long timeMillis) {
+        if (session == SamplingScheduler.Session.IDLE.ordinal()) {
+            tripStartMillis = -1;
+            return 0;
+        }
+        if (tripStartMillis < 0) {
+            tripStartMillis = timeMillis;
+        }
+        return timeMillis - tripStartMillis;
+    }
+
+    // 2단계: 업로드 큐/저장소/구독자 전달 (샘플마다 호출, 저장소는 flush() 때 디스크에 반영)
+    public void record(long timeMillis, int heartRate, int flags) {
+        if ((metrics != null || recorder != null) && batchStartNanos < 0) {
+            batchStartNanos = System.nanoTime();
+        }
+        batchSamples++;
+
+        // 롤업 또는 업로드 큐에 추가 (시간 포맷은 업로드할 때 변환)
+        if (rollups != null) {
+            rollups.add(timeMillis, heartRate);
+            if (rawWindows != null) {
+                rawWindows.onSample(timeMillis, heartRate, flags);
+            }
+        } else if (uploader != null) {
+            uploader.offer(timeMillis, heartRate);
+        }
+        if (timeMillis > lastRecordedMillis) {
+            lastRecordedMillis = timeMillis;
+        }
+
+        // 기기 내 저장소에 기록
+        if (store != null) {
+            try {
+                store.append(timeMillis, heartRate, flags);
+            } catch (IOException e) {
+                callback.onError("Error storing heart rate", e);
+            }
+        }
+
+        // 구독자(UI 등)에게 전달
+        hub.publish(timeMillis, heartRate);
+        if (metrics != null) {
+            metrics.samples.incrementAndGet();
+        }
+    }
+
+    // 2단계 묶음 끝: 저장소를 디스크에 반영
+    public void flush() {
+        if (store != null) {
+            try {
+                store.flush();
+            } catch (IOException e) {
+                callback.onError("Error flushing heart rate store", e);
+            }
+        }
+        if (rawWindows != null) {
+            try {
+                long unavailable = rawWindows.exportDue(lastRecordedMillis); // 저장소 flush 뒤라 방금 기록한 샘플까지 읽힘
+                if (unavailable > 0 && recorder != null) {
+                    recorder.record(FlightRecorder.ERROR, FlightRecorder.ERROR_RAW_WINDOW, unavailable);
+                }
+            } catch (IOException e) {
+                callback.onError("Error reading raw window", e);
+            }
+        }
+        if (batchStartNanos >= 0) {
+            long took = System.nanoTime() - batchStartNanos;
+            if (metrics != null) {
+                metrics.batchProcessing.record(took);
+                metrics.batches.incrementAndGet();
+            }
+            if (recorder != null) {
+                recorder.record(FlightRecorder.BATCH, batchSamples, took);
+            }
+            batchStartNanos = -1;
+        }
+        batchSamples = 0;
+    }
+
+    // epoch 밀리초를 센서 타임스탬프 기준(부팅 후 경과 나노초)으로 되돌림 (ms 정밀도)
+    private long sensorNanosOf(long timeMillis) {
+        return (timeMillis - bootTimeMillis) * 1_000_000L;
+    }
+}
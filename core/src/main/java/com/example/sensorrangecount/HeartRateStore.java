@@ -0,0 +1,304 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// 기기 내 심박수 저장소 (append-only 바이너리 세그먼트 파일)
+// - 세그먼트 파일: <기준시각>.hrs, 헤더 16바이트 + 고정 8바이트 레코드
+// - 레코드: int 기준시각 대비 밀리초 + short 심박수 + short 플래그 (FLAG_VALID 로 유효 레코드 표시)
+// - 열 때 마지막 세그먼트의 잘린/깨진 꼬리를 잘라내서 복구
+// - 시각은 항상 증가 (마지막으로 기록한 시각보다 이른 샘플은 버리고 셈) -> 세그먼트끼리 겹치지 않고 조회 결과가 시간순
+// - flush() 는 매번 파일에 쓰고 (프로세스가 죽어도 남음), fsync 는 샘플 시각으로 SYNC_INTERVAL_MS 또는 SYNC_RECORDS 마다
+//   (전원이 꺼지면 그만큼 잃을 수 있음, 세그먼트를 바꿀 때와 close() 때는 항상)
+// - 시간 범위 조회는 작은 버퍼로 파일을 읽으면서 콜백 (전체를 메모리에 올리지 않음)
+public class HeartRateStore {
+    public static final int FLAG_ALERT = 1; // 졸음 감지로 진동한 샘플
+    public static final int FLAG_RESTING = 1 << 1; // 휴식 중 샘플
+    private static final int FLAG_VALID = 1 << 15; // 끝까지 기록된 레코드
+
+    private static final int MAGIC = 0x48525331; // "HRS1"
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 8;
+    private static final long SEGMENT_SPAN_MS = 60 * 60_000; // 세그먼트 하나가 담는 최대 기간 (1시간)
+    private static final String SUFFIX = ".hrs";
+    private static final long SYNC_INTERVAL_MS = 60_000; // fsync 간격 (샘플 시각 기준)
+    private static final int SYNC_RECORDS = 1024; // fsync 없이 쌓을 수 있는 최대 레코드 수 (8KB)
+
+    // 조회 콜백 - false 를 반환하면 조회 중단
+    public interface Visitor {
+        boolean onRecord(long timeMillis, int heartRate, int flags);
+    }
+
+    private final File directory; // 세그먼트 파일 디렉터리
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(RECORD_BYTES * 256); // 쓰기 버퍼
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_BYTES * 512); // 조회용 버퍼
+
+    private FileChannel channel; // 현재 쓰고 있는 세그먼트
+    private long segmentBase = Long.MIN_VALUE; // 현재 세그먼트 기준 시각
+    private long lastMillis = Long.MIN_VALUE; // 마지막으로 기록한 샘플 시각 (이보다 이른 샘플은 버림)
+    private int unsyncedRecords = 0; // 마지막 fsync 이후 기록한 레코드 수
+    private long firstUnsyncedMillis = 0; // 그 중 첫 샘플 시각
+    private long rejected = 0; // 시각이 거꾸로 가서 버린 샘플 수
+    private long syncs = 0; // fsync 횟수
+
+    public HeartRateStore(File directory) {
+        this.directory = directory;
+    }
+
+    // 저장소 열기 - 마지막 세그먼트의 꼬리 복구 후 이어서 기록
+    public synchronized void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        long[] bases = listSegments();
+        if (bases.length > 0) {
+            openSegment(bases[bases.length - 1]);
+        }
+    }
+
+    // 샘플 기록 (버퍼에 모았다가 flush() 또는 버퍼가 가득 차면 파일에 씀)
+    // 마지막 기록보다 이른 샘플(시계가 뒤로 감 등)은 버림 - 기록했으면 true
+    public synchronized boolean append(long timeMillis, int heartRate, int flags) throws IOException {
+        if (timeMillis < lastMillis) {
+            rejected++;
+            return false;
+        }
+        if (channel == null || timeMillis - segmentBase >= SEGMENT_SPAN_MS) {
+            startSegment(timeMillis);
+        }
+        if (!writeBuffer.hasRemaining()) {
+            writeBuffered();
+        }
+        writeBuffer.putInt((int) (timeMillis - segmentBase));
+        writeBuffer.putShort((short) heartRate);
+        writeBuffer.putShort((short) (flags | FLAG_VALID));
+        lastMillis = timeMillis;
+        if (unsyncedRecords++ == 0) {
+            firstUnsyncedMillis = timeMillis;
+        }
+        return true;
+    }
+
+    // 버퍼 내용을 파일에 씀 - fsync 는 간격/개수가 찼을 때만
+    public synchronized void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        writeBuffered();
+        if (unsyncedRecords >= SYNC_RECORDS || lastMillis - firstUnsyncedMillis >= SYNC_INTERVAL_MS) {
+            sync();
+        }
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getSyncs() {
+        return syncs;
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            writeBuffered();
+            sync();
+        } finally {
+            channel.close();
+            channel = null;
+            segmentBase = Long.MIN_VALUE;
+        }
+    }
+
+    // [fromMillis, toMillis) 범위의 샘플을 시간 순서대로 전달
+    public synchronized void scan(long fromMillis, long toMillis, Visitor visitor) throws IOException {
+        if (channel != null) {
+            writeBuffered();
+        }
+        long[] bases = listSegments();
+        for (int i = 0; i < bases.length; i++) {
+            long base = bases[i];
+            long end = i + 1 < bases.length ? bases[i + 1] : Long.MAX_VALUE;
+            if (base >= toMillis || end <= fromMillis) {
+                continue;
+            }
+            if (!scanSegment(base, fromMillis, toMillis, visitor)) {
+                return;
+            }
+        }
+    }
+
+    // cutoffMillis 이전 데이터만 담긴 세그먼트 삭제 (현재 기록 중인 세그먼트는 유지), 삭제한 파일 수 반환
+    public synchronized int deleteOlderThan(long cutoffMillis) {
+        long[] bases = listSegments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < bases.length; i++) {
+            if (bases[i + 1] <= cutoffMillis && bases[i] != segmentBase && segmentFile(bases[i]).delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private void startSegment(long base) throws IOException {
+        if (channel != null) {
+            writeBuffered();
+            sync();
+            channel.close();
+            channel = null;
+        }
+        openSegment(base);
+    }
+
+    private void sync() throws IOException {
+        if (unsyncedRecords > 0) {
+            channel.force(false);
+            syncs++;
+            unsyncedRecords = 0;
+        }
+    }
+
+    // 세그먼트 열기 - 새 파일이면 헤더를 쓰고, 기존 파일이면 꼬리 복구 후 끝에 이어서 기록
+    private void openSegment(long base) throws IOException {
+        FileChannel ch = FileChannel.open(segmentFile(base).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long last = recoverTail(ch, base);
+            if (last != Long.MIN_VALUE) {
+                lastMillis = Math.max(lastMillis, last);
+            } else {
+                ch.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(0).putLong(base).flip();
+                while (header.hasRemaining()) {
+                    ch.write(header, header.position());
+                }
+            }
+            ch.position(ch.size());
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        channel = ch;
+        segmentBase = base;
+    }
+
+    private void writeBuffered() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    // 헤더 확인 후, 중간에 끊긴 레코드와 유효 표시가 없는 꼬리 레코드를 잘라냄
+    // 마지막 유효 레코드 시각을 리턴 (레코드가 없으면 기준 시각, 헤더가 없거나 다르면 Long.MIN_VALUE)
+    private long recoverTail(FileChannel ch, long base) throws IOException {
+        long size = ch.size();
+        if (size < HEADER_BYTES) {
+            return Long.MIN_VALUE;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(ch, header, 0);
+        if (header.getInt(0) != MAGIC) {
+            return Long.MIN_VALUE;
+        }
+        long valid = HEADER_BYTES + (size - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        long last = base;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        while (valid > HEADER_BYTES) {
+            record.clear();
+            readFully(ch, record, valid - RECORD_BYTES);
+            if ((record.getShort(6) & FLAG_VALID) != 0) {
+                last = base + record.getInt(0);
+                break;
+            }
+            valid -= RECORD_BYTES;
+        }
+        if (valid != size) {
+            ch.truncate(valid);
+            ch.force(false);
+        }
+        return last;
+    }
+
+    private boolean scanSegment(long base, long fromMillis, long toMillis, Visitor visitor) throws IOException {
+        File file = segmentFile(base);
+        if (!file.exists()) {
+            return true;
+        }
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = HEADER_BYTES;
+            long size = ch.size();
+            while (position + RECORD_BYTES <= size) {
+                readBuffer.clear();
+                long remaining = (size - position) / RECORD_BYTES * RECORD_BYTES;
+                if (remaining < readBuffer.capacity()) {
+                    readBuffer.limit((int) remaining);
+                }
+                readFully(ch, readBuffer, position);
+                position += readBuffer.limit();
+                while (readBuffer.remaining() >= RECORD_BYTES) {
+                    long timeMillis = base + readBuffer.getInt();
+                    int heartRate = readBuffer.getShort() & 0xFFFF;
+                    int flags = readBuffer.getShort() & 0xFFFF;
+                    if ((flags & FLAG_VALID) == 0 || timeMillis < fromMillis) {
+                        continue;
+                    }
+                    if (timeMillis >= toMillis) {
+                        return false;
+                    }
+                    if (!visitor.onRecord(timeMillis, heartRate, flags & ~FLAG_VALID)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = ch.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    // 세그먼트 기준 시각 목록 (오름차순)
+    private long[] listSegments() {
+        String[] names = directory.list();
+        if (names == null) {
+            return new long[0];
+        }
+        long[] bases = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (!name.endsWith(SUFFIX)) {
+                continue;
+            }
+            try {
+                long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                bases[count++] = base;
+            } catch (NumberFormatException ignored) {
+                // 다른 파일은 무시
+            }
+        }
+        long[] result = Arrays.copyOf(bases, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private File segmentFile(long base) {
+        return new File(directory, base + SUFFIX);
+    }
+}
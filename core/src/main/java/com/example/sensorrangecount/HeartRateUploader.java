@@ -0,0 +1,101 @@
+package com.example.sensorrangecount;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// 심박수 업로드 큐 (큐/journal/재전송은 JournaledUploader)
+// - 센서 스레드는 offer() 로 샘플만 넣고 바로 리턴
+// - 워커 스레드가 모아서 JSON 배열(또는 HeartRateBatchCodec 바이너리) 한번에 전송
+public class HeartRateUploader extends JournaledUploader {
+    public static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final int RECORD_BYTES = 12; // journal 레코드 크기 (long 시간 + int 심박수)
+
+    // 바이너리 포맷 (setBinaryEncoding 으로 켬, 서버가 415 로 거부하면 JSON 으로 되돌아감)
+    private volatile HeartRateBatchCodec codec;
+    private volatile String userId;
+
+    // 센서 스레드 -> 워커 스레드 큐 (lock 으로 보호)
+    private final long[] queueTimes;
+    private final int[] queueRates;
+
+    // 워커 스레드 전용
+    private final long[] batchTimes;
+    private final int[] batchRates;
+    private final long[] replayTimes;
+    private final int[] replayRates;
+    private final HeartRateJson json = new HeartRateJson();
+
+    public HeartRateUploader(UploadTransport transport, File journalFile, int batchSize, long maxBatchAgeMs,
+                             int queueCapacity, long maxJournalRecords) {
+        super("HeartRateUploader", transport, journalFile, RECORD_BYTES, batchSize, maxBatchAgeMs, queueCapacity,
+                maxJournalRecords);
+        this.queueTimes = new long[queueCapacity];
+        this.queueRates = new int[queueCapacity];
+        this.batchTimes = new long[batchSize];
+        this.batchRates = new int[batchSize];
+        this.replayTimes = new long[batchSize];
+        this.replayRates = new int[batchSize];
+    }
+
+    // 바이너리 배치 포맷 사용 (start() 전에 호출)
+    public void setBinaryEncoding(String userId, boolean compress) {
+        this.userId = userId;
+        this.codec = new HeartRateBatchCodec(compress);
+    }
+
+    // 샘플 추가 (센서 스레드에서 호출, 블로킹/할당 없음)
+    public void offer(long timeMillis, int heartRate) {
+        synchronized (lock) {
+            int slot = reserveLocked();
+            queueTimes[slot] = timeMillis;
+            queueRates[slot] = heartRate;
+            commitLocked();
+        }
+    }
+
+    public long getDroppedSamples() {
+        return getDroppedRecords();
+    }
+
+    @Override
+    protected void moveToBatch(int queueSlot, int batchIndex) {
+        batchTimes[batchIndex] = queueTimes[queueSlot];
+        batchRates[batchIndex] = queueRates[queueSlot];
+    }
+
+    @Override
+    protected void writeRecord(DataOutputStream out, int batchIndex) throws IOException {
+        out.writeLong(batchTimes[batchIndex]);
+        out.writeInt(batchRates[batchIndex]);
+    }
+
+    @Override
+    protected void readRecord(ByteBuffer in, int replayIndex) {
+        replayTimes[replayIndex] = in.getLong();
+        replayRates[replayIndex] = in.getInt();
+    }
+
+    @Override
+    protected int sendRecords(boolean fromJournal, int count) throws IOException {
+        long[] times = fromJournal ? replayTimes : batchTimes;
+        int[] rates = fromJournal ? replayRates : batchRates;
+        HeartRateBatchCodec batchCodec = codec;
+        if (batchCodec != null) {
+            int responseCode = post(batchCodec.encode(userId, times, rates, count), HeartRateBatchCodec.CONTENT_TYPE);
+            if (responseCode != 415) {
+                return responseCode;
+            }
+            // 서버가 바이너리 포맷을 지원하지 않음 - 이후로는 JSON 사용
+            codec = null;
+        }
+        return post(json.buildBatch(times, rates, count), CONTENT_TYPE_JSON);
+    }
+
+    @Override
+    protected void countSent(PipelineMetrics metrics, int count) {
+        metrics.uploadBatchesSent.incrementAndGet();
+    }
+}
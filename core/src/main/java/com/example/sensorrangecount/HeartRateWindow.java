@@ -0,0 +1,143 @@
+package com.example.sensorrangecount;
+
+// 최근 windowMillis 동안의 심박수 통계 (평균/분산/최소/최대)
+// - int[] 원형 버퍼에 저장, 합계와 제곱합을 누적해서 샘플당 O(1)
+// - 최소/최대는 단조 큐(monotonic deque)로 분할상환 O(1)
+// - 박싱/할당 없음
+public class HeartRateWindow {
+    private final long windowMillis; // 통계를 낼 기간
+    private final int capacity; // 최대 보관 샘플 수 (넘치면 오래된 것부터 제거)
+
+    private final long[] times;
+    private final int[] values;
+    private long headSeq = 0; // 가장 오래된 샘플의 순번
+    private int size = 0;
+
+    private long sum = 0; // 합계
+    private long sumSquares = 0; // 제곱합
+
+    // 최소/최대 후보 샘플의 순번을 담는 단조 큐
+    private final long[] minQueue;
+    private int minHead = 0;
+    private int minSize = 0;
+    private final long[] maxQueue;
+    private int maxHead = 0;
+    private int maxSize = 0;
+
+    public HeartRateWindow(long windowMillis, int capacity) {
+        if (windowMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("windowMillis and capacity must be > 0");
+        }
+        this.windowMillis = windowMillis;
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.values = new int[capacity];
+        this.minQueue = new long[capacity];
+        this.maxQueue = new long[capacity];
+    }
+
+    // 샘플 추가 - 기간이 지난 샘플은 먼저 제거
+    public void add(long timeMillis, int value) {
+        evictOlderThan(timeMillis - windowMillis);
+        if (size == capacity) {
+            evictOldest();
+        }
+
+        long seq = headSeq + size;
+        int index = indexOf(seq);
+        times[index] = timeMillis;
+        values[index] = value;
+        size++;
+        sum += value;
+        sumSquares += (long) value * value;
+
+        while (minSize > 0 && values[indexOf(minQueue[(minHead + minSize - 1) % capacity])] >= value) {
+            minSize--;
+        }
+        minQueue[(minHead + minSize) % capacity] = seq;
+        minSize++;
+
+        while (maxSize > 0 && values[indexOf(maxQueue[(maxHead + maxSize - 1) % capacity])] <= value) {
+            maxSize--;
+        }
+        maxQueue[(maxHead + maxSize) % capacity] = seq;
+        maxSize++;
+    }
+
+    // cutoffMillis 이하 시각의 샘플 제거 (새 샘플 없이 시간만 지났을 때도 사용)
+    public void evictOlderThan(long cutoffMillis) {
+        while (size > 0 && times[indexOf(headSeq)] <= cutoffMillis) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        int index = indexOf(headSeq);
+        int value = values[index];
+        sum -= value;
+        sumSquares -= (long) value * value;
+        if (minSize > 0 && minQueue[minHead] == headSeq) {
+            minHead = (minHead + 1) % capacity;
+            minSize--;
+        }
+        if (maxSize > 0 && maxQueue[maxHead] == headSeq) {
+            maxHead = (maxHead + 1) % capacity;
+            maxSize--;
+        }
+        headSeq++;
+        size--;
+    }
+
+    public void clear() {
+        headSeq += size;
+        size = 0;
+        sum = 0;
+        sumSquares = 0;
+        minSize = 0;
+        maxSize = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // 평균 (비어 있으면 NaN)
+    public double mean() {
+        return size == 0 ? Double.NaN : (double) sum / size;
+    }
+
+    // 모분산 (비어 있으면 NaN)
+    public double variance() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double mean = (double) sum / size;
+        return Math.max(0.0, (double) sumSquares / size - mean * mean);
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    // 최소값 (비어 있으면 0)
+    public int min() {
+        return minSize == 0 ? 0 : values[indexOf(minQueue[minHead])];
+    }
+
+    // 최대값 (비어 있으면 0)
+    public int max() {
+        return maxSize == 0 ? 0 : values[indexOf(maxQueue[maxHead])];
+    }
+
+    private int indexOf(long seq) {
+        return (int) (seq % capacity);
+    }
+}
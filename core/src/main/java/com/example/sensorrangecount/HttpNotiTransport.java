@@ -0,0 +1,41 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+// 운행 알림 HTTP 전송 - GET {baseUrl}noti/{event}/{userId}, 응답 바디를 비워서 keep-alive 연결 재사용
+public class HttpNotiTransport implements NotiDispatcher.Transport {
+    private static final int CONNECT_TIMEOUT_MS = 10_000; // 연결 타임아웃
+    private static final int READ_TIMEOUT_MS = 15_000; // 응답 타임아웃
+
+    private final String baseUrl; // 서버 기본 URL (끝에 / 포함)
+    private final byte[] drainBuffer = new byte[512]; // 응답 바디를 비우기 위한 버퍼 (워커 스레드 전용)
+
+    public HttpNotiTransport(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public int send(NotiDispatcher.Event event, String userId, String idempotencyKey) throws IOException {
+        URL url = new URL(baseUrl + "noti/" + event.path + "/" + userId);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod("GET");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+
+        int responseCode = connection.getResponseCode();
+        InputStream is = responseCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (is != null) {
+            try (InputStream in = is) {
+                while (in.read(drainBuffer) != -1) {
+                    // 버림
+                }
+            }
+        }
+        return responseCode;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// HttpURLConnection 기반 전송 - 응답 바디를 끝까지 읽고 닫아서 keep-alive 연결이 재사용되도록 함
+public class HttpUploadTransport implements UploadTransport {
+    private static final int CONNECT_TIMEOUT_MS = 10_000; // 연결 타임아웃
+    private static final int READ_TIMEOUT_MS = 15_000; // 응답 타임아웃
+
+    private final URL url; // 전송할 서버 URL
+    private final byte[] drainBuffer = new byte[512]; // 응답 바디를 비우기 위한 버퍼
+    private final Set<HttpURLConnection> inFlight =
+            Collections.newSetFromMap(new ConcurrentHashMap<HttpURLConnection, Boolean>()); // cancel() 용
+
+    public HttpUploadTransport(String url) throws IOException {
+        this.url = new URL(url);
+    }
+
+    @Override
+    public int send(byte[] body, String contentType) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", contentType);
+        connection.setRequestProperty("Connection", "keep-alive");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+
+        inFlight.add(connection);
+        try {
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(body, 0, body.length);
+            }
+
+            int responseCode = connection.getResponseCode();
+            // 응답을 끝까지 읽어야 연결이 풀로 돌아감 (disconnect() 는 cancel() 때만)
+            InputStream is = responseCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (is != null) {
+                synchronized (drainBuffer) {
+                    try (InputStream in = is) {
+                        while (in.read(drainBuffer) != -1) {
+                            // 버림
+                        }
+                    }
+                }
+            }
+            return responseCode;
+        } finally {
+            inFlight.remove(connection);
+        }
+    }
+
+    // 타임아웃(연결 10초 + 응답 15초)을 기다리지 않고 진행 중인 요청을 닫음
+    @Override
+    public void cancel() {
+        for (HttpURLConnection connection : inFlight) {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 기기 없이 RelayTransport 를 돌려보기 위한 가짜 통로 (PC/재생용)
+// - 폰 쪽은 스레드 하나에서 RelayForwarder 로 처리하고 ack 를 돌려줌
+// - 연결 끊김, 링크 지연, ack 유실을 흉내낼 수 있음
+public class InMemoryRelayChannel implements RelayChannel {
+    private final RelayForwarder phone;
+    private final ExecutorService phoneThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FakePhone");
+        t.setDaemon(true);
+        return t;
+    });
+    private final CopyOnWriteArrayList<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean connected = true;
+    private volatile long linkDelayMs = 0; // 메시지 한 방향 지연
+    private volatile boolean dropAcks = false; // 폰은 서버에 보내지만 ack 가 워치에 오지 않음
+    private final AtomicLong messages = new AtomicLong(); // 워치 -> 폰 메시지 수
+    private final AtomicLong messageBytes = new AtomicLong();
+
+    public InMemoryRelayChannel(RelayForwarder phone) {
+        this.phone = phone;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void send(String path, byte[] data) throws IOException {
+        if (!connected) {
+            throw new IOException("Node not connected");
+        }
+        messages.incrementAndGet();
+        messageBytes.addAndGet(data.length);
+        phoneThread.execute(() -> {
+            sleep(linkDelayMs);
+            byte[] ack = phone.handle(path, data);
+            if (ack == null || dropAcks || !connected) {
+                return;
+            }
+            sleep(linkDelayMs);
+            for (Receiver receiver : receivers) {
+                receiver.onMessage(RelayTransport.PATH_ACK, ack);
+            }
+        });
+    }
+
+    @Override
+    public void addReceiver(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    public void setLinkDelayMs(long linkDelayMs) {
+        this.linkDelayMs = linkDelayMs;
+    }
+
+    public void setDropAcks(boolean dropAcks) {
+        this.dropAcks = dropAcks;
+    }
+
+    public long getMessageCount() {
+        return messages.get();
+    }
+
+    public long getMessageBytes() {
+        return messageBytes.get();
+    }
+
+    public void shutdown() {
+        phoneThread.shutdown();
+        try {
+            phoneThread.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
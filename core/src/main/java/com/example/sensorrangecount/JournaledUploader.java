@@ -0,0 +1,457 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+// 업로드 큐 + 오프라인 journal 공통 부분 (HeartRateUploader, RollupUploader)
+// - 생산 스레드는 큐에 넣고 바로 리턴, 워커 스레드 하나가 개수(batchSize) 또는 시간(maxBatchAgeMs) 기준으로 모아서 한번에 전송
+// - 전송 실패(오프라인) 시 journal 파일에 순서대로 쌓아두고, 서버가 살아나면 journal 부터 순서대로 재전송
+// - journal 에서 서버가 받은 위치는 <journal>.ack 에 기록 -> 재시작해도 받은 부분은 다시 보내지 않음
+//   (위치를 쓰기 전에 죽으면 마지막 배치가 한번 더 갈 수 있음 - at-least-once)
+// 하위 클래스는 레코드 배열(큐/배치/재전송용)과 journal 레코드 형식, 요청 바디만 정함
+public abstract class JournaledUploader {
+    private static final long MIN_BACKOFF_MS = 5_000; // 재시도 최소 대기 시간
+    private static final long MAX_BACKOFF_MS = 5 * 60_000; // 재시도 최대 대기 시간
+    private static final long BULK_YIELD_MAX_MS = 5_000; // 긴급 알림에 양보하는 최대 시간
+    private static final long STOP_DRAIN_MS = 2_000; // 종료 때 진행 중인 전송이 끝나기를 기다리는 시간
+    private static final long STOP_JOIN_MS = 30_000; // 전송을 끊은 뒤 기다리는 최대 시간 (연결 + 응답 타임아웃보다 길게)
+
+    // 전송 결과 콜백 (워커 스레드에서 호출됨)
+    public interface Listener {
+        void onBatchSent(int count, int responseCode);
+
+        void onBatchFailed(int count, String reason);
+    }
+
+    private final String threadName;
+    private final UploadTransport transport; // 전송 방식
+    private final File journalFile; // 오프라인 저장 파일
+    private final File ackFile; // journal 에서 전송한 위치 ([offset 8][~offset 8], 짝이 안 맞으면 처음부터)
+    private final int recordBytes; // journal 레코드 크기
+    protected final int batchSize; // 한번에 보낼 최대 레코드 수
+    private final long maxBatchAgeMs; // 첫 레코드가 들어온 뒤 최대 대기 시간
+    private final long maxJournalRecords; // journal 최대 레코드 수 (초과분은 버림)
+    private volatile Listener listener;
+    private Clock clock = Clock.SYSTEM; // 배치 대기/재시도 시간 계산용
+    private volatile PipelineMetrics metrics; // 없으면 계측 안 함
+    private volatile NetworkPriority networkPriority; // 없으면 양보하지 않음
+    private boolean journalRecovered = false;
+
+    // 생산 스레드 -> 워커 스레드 큐 (lock 으로 보호, 원형 버퍼 - 칸 내용은 하위 클래스 배열에)
+    protected final Object lock = new Object();
+    private final int queueCapacity;
+    private int queueHead = 0;
+    private int queueSize = 0;
+    private long firstQueuedAtMs = 0; // 큐가 비어있다가 처음 레코드가 들어온 시각
+    private long droppedRecords = 0; // 큐가 가득 차서 버린 레코드 수
+
+    // 워커 스레드 전용
+    private final byte[] replayBytes; // journal 에서 한 배치 읽는 버퍼
+    private final ByteBuffer replayBuffer;
+    private final byte[] ackRecord = new byte[16];
+    private long journalReadOffset = 0; // journal 에서 이미 전송한 위치 (ackFile 과 같음)
+    private long nextRetryAtMs = 0; // 오프라인일 때 다음 전송 시도 시각
+    private long backoffMs = MIN_BACKOFF_MS;
+
+    private volatile boolean running = false;
+    private Thread worker;
+
+    protected JournaledUploader(String threadName, UploadTransport transport, File journalFile, int recordBytes,
+                                int batchSize, long maxBatchAgeMs, int queueCapacity, long maxJournalRecords) {
+        if (batchSize <= 0 || queueCapacity < batchSize) {
+            throw new IllegalArgumentException("queueCapacity must be >= batchSize > 0");
+        }
+        this.threadName = threadName;
+        this.transport = transport;
+        this.journalFile = journalFile;
+        this.ackFile = new File(journalFile.getPath() + ".ack");
+        this.recordBytes = recordBytes;
+        this.batchSize = batchSize;
+        this.maxBatchAgeMs = maxBatchAgeMs;
+        this.queueCapacity = queueCapacity;
+        this.maxJournalRecords = maxJournalRecords;
+        this.replayBytes = new byte[batchSize * recordBytes];
+        this.replayBuffer = ByteBuffer.wrap(replayBytes);
+    }
+
+    // 큐 칸 queueSlot 의 레코드를 배치 배열 batchIndex 로 복사 (lock 보유 상태)
+    protected abstract void moveToBatch(int queueSlot, int batchIndex);
+
+    // 배치 배열의 레코드 하나를 journal 에 씀 (recordBytes 바이트)
+    protected abstract void writeRecord(DataOutputStream out, int batchIndex) throws IOException;
+
+    // journal 레코드 하나를 재전송 배열 replayIndex 로 읽음 (빅엔디안, writeRecord 와 같은 순서)
+    protected abstract void readRecord(ByteBuffer in, int replayIndex);
+
+    // 배치(fromJournal 이면 재전송) 배열의 앞 count 개를 post() 로 보내고 응답 코드를 돌려줌
+    protected abstract int sendRecords(boolean fromJournal, int count) throws IOException;
+
+    // 전송 성공 계측
+    protected abstract void countSent(PipelineMetrics metrics, int count);
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // 시계 교체 (start()/pump() 전에 호출, 재생할 때 VirtualClock 사용)
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    // 전송 시간/진행 중 요청 수 계측 (start() 전에 호출)
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 긴급 알림(NotiDispatcher.dispatchUrgent)과 네트워크 순서 조정
+    public void setNetworkPriority(NetworkPriority networkPriority) {
+        this.networkPriority = networkPriority;
+    }
+
+    // 워커 스레드 시작
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        worker = new Thread(this::runWorker, threadName);
+        worker.start();
+    }
+
+    // 워커 종료 - 큐에 남은 레코드는 journal 로 옮겨서 다음 실행 때 전송
+    // 전송이 타임아웃까지 막혀 있으면 끊음 (끊긴 배치도 journal 로, 워커가 서비스보다 오래 남지 않도록)
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        Thread w = worker;
+        if (w != null) {
+            try {
+                w.join(STOP_DRAIN_MS);
+                if (w.isAlive()) {
+                    transport.cancel();
+                    w.interrupt();
+                    w.join(STOP_JOIN_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    // 워커 스레드 없이 현재 시각 기준으로 보낼 배치를 모두 처리 (재생/테스트용, start() 와 같이 쓰지 않음)
+    public void pump() {
+        if (!journalRecovered) {
+            recoverJournal();
+        }
+        while (true) {
+            int count;
+            synchronized (lock) {
+                if (!isDueLocked()) {
+                    return;
+                }
+                count = drainLocked();
+            }
+            deliver(count);
+        }
+    }
+
+    public int getQueueSize() {
+        synchronized (lock) {
+            return queueSize;
+        }
+    }
+
+    protected long getDroppedRecords() {
+        synchronized (lock) {
+            return droppedRecords;
+        }
+    }
+
+    // 새 레코드를 넣을 큐 칸 (lock 보유 상태, 가득 찼으면 가장 오래된 레코드를 버림)
+    // 칸을 채운 뒤 commitLocked() 호출
+    protected final int reserveLocked() {
+        if (queueSize == queueCapacity) {
+            queueHead = (queueHead + 1) % queueCapacity;
+            queueSize--;
+            droppedRecords++;
+        }
+        return (queueHead + queueSize) % queueCapacity;
+    }
+
+    protected final void commitLocked() {
+        if (queueSize == 0) {
+            firstQueuedAtMs = nowMs();
+        }
+        queueSize++;
+        if (queueSize >= batchSize) {
+            lock.notifyAll();
+        }
+    }
+
+    // 요청 하나 전송 (계측 포함) - 긴급 알림이 대기 중이면 먼저 보내도록 기다림
+    protected final int post(byte[] body, String contentType) throws IOException {
+        NetworkPriority priority = networkPriority;
+        if (priority != null) {
+            priority.awaitBulkTurn(BULK_YIELD_MAX_MS);
+        }
+        PipelineMetrics m = metrics;
+        if (m == null) {
+            return transport.send(body, contentType);
+        }
+        long start = System.nanoTime();
+        m.uploadsInFlight.incrementAndGet();
+        try {
+            return transport.send(body, contentType);
+        } finally {
+            m.uploadsInFlight.decrementAndGet();
+            m.uploadSend.record(System.nanoTime() - start);
+        }
+    }
+
+    private void runWorker() {
+        recoverJournal();
+        while (true) {
+            int count;
+            boolean stopping;
+            synchronized (lock) {
+                while (running && !isDueLocked()) {
+                    try {
+                        lock.wait(waitTimeLocked());
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                stopping = !running;
+                count = drainLocked();
+            }
+
+            if (stopping) {
+                // 남은 레코드를 모두 journal 에 저장하고 종료
+                while (count > 0) {
+                    appendJournal(count);
+                    synchronized (lock) {
+                        count = drainLocked();
+                    }
+                }
+                return;
+            }
+
+            deliver(count);
+        }
+    }
+
+    // 배치 배열의 레코드 전송 (journal 이 남아 있으면 journal 부터)
+    private void deliver(int count) {
+        if (nowMs() < nextRetryAtMs || !replayJournal()) {
+            // 오프라인 상태 - 네트워크 시도 없이 journal 에 보관
+            appendJournal(count);
+            return;
+        }
+        if (count > 0 && !sendBatch(false, count)) {
+            appendJournal(count);
+        }
+    }
+
+    // 전송할 때가 됐는지 (lock 보유 상태)
+    private boolean isDueLocked() {
+        long now = nowMs();
+        if (queueSize >= batchSize) {
+            return true;
+        }
+        if (queueSize > 0 && now - firstQueuedAtMs >= maxBatchAgeMs) {
+            return true;
+        }
+        return hasJournal() && now >= nextRetryAtMs;
+    }
+
+    // 다음에 깨어나야 할 때까지 남은 시간 (0 = 무한 대기)
+    private long waitTimeLocked() {
+        long now = nowMs();
+        long wait = 0;
+        if (queueSize > 0) {
+            wait = Math.max(1, firstQueuedAtMs + maxBatchAgeMs - now);
+        }
+        if (hasJournal()) {
+            long retryWait = Math.max(1, nextRetryAtMs - now);
+            wait = wait == 0 ? retryWait : Math.min(wait, retryWait);
+        }
+        return wait;
+    }
+
+    // 큐에서 최대 batchSize 개를 배치 배열로 옮김 (lock 보유 상태)
+    private int drainLocked() {
+        int count = Math.min(queueSize, batchSize);
+        for (int i = 0; i < count; i++) {
+            moveToBatch(queueHead, i);
+            queueHead = (queueHead + 1) % queueCapacity;
+        }
+        queueSize -= count;
+        if (queueSize > 0) {
+            firstQueuedAtMs = nowMs();
+        }
+        return count;
+    }
+
+    // 배치 전송 - 성공(또는 재시도 의미 없는 4xx)이면 true, 오프라인이면 false
+    private boolean sendBatch(boolean fromJournal, int count) {
+        Listener l = listener;
+        PipelineMetrics m = metrics;
+        try {
+            int responseCode = sendRecords(fromJournal, count);
+            if (responseCode >= 200 && responseCode < 300) {
+                if (m != null) {
+                    countSent(m, count);
+                }
+                backoffMs = MIN_BACKOFF_MS;
+                nextRetryAtMs = 0;
+                if (l != null) {
+                    l.onBatchSent(count, responseCode);
+                }
+                return true;
+            }
+            if (responseCode >= 400 && responseCode < 500 && responseCode != 408 && responseCode != 429) {
+                // 요청 자체가 잘못된 경우 - 재시도해도 같으므로 버림
+                if (l != null) {
+                    l.onBatchFailed(count, "rejected: " + responseCode);
+                }
+                return true;
+            }
+            if (l != null) {
+                l.onBatchFailed(count, "server error: " + responseCode);
+            }
+        } catch (IOException e) {
+            if (l != null) {
+                l.onBatchFailed(count, e.getMessage());
+            }
+        }
+        if (m != null) {
+            m.uploadBatchesFailed.incrementAndGet();
+        }
+        nextRetryAtMs = nowMs() + backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        return false;
+    }
+
+    private boolean hasJournal() {
+        return journalFile.length() > journalReadOffset;
+    }
+
+    // 이전 실행에서 쓰다 만 레코드(프로세스 종료 등)는 잘라내고, 전송한 위치부터 이어서 보냄
+    private void recoverJournal() {
+        journalRecovered = true;
+        long length = journalFile.length();
+        long valid = length - length % recordBytes;
+        if (valid != length) {
+            try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+                raf.setLength(valid);
+            } catch (IOException ignored) {
+                // 다음 append 때 다시 시도
+            }
+        }
+        journalReadOffset = readAck(valid);
+    }
+
+    // 기록된 전송 위치 (없거나 깨졌거나 journal 과 맞지 않으면 0 - 처음부터 다시 보냄)
+    private long readAck(long journalLength) {
+        if (!ackFile.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(ackFile))) {
+            long offset = in.readLong();
+            if (in.readLong() != ~offset || offset < 0 || offset > journalLength || offset % recordBytes != 0) {
+                return 0;
+            }
+            return offset;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // 전송 위치 기록 (fsync 는 하지 않음 - 잃으면 그만큼 다시 보낼 뿐)
+    private void writeAck(RandomAccessFile ack, long offset) throws IOException {
+        long check = ~offset;
+        for (int i = 0; i < 8; i++) {
+            ackRecord[i] = (byte) (offset >>> (56 - 8 * i));
+            ackRecord[8 + i] = (byte) (check >>> (56 - 8 * i));
+        }
+        ack.seek(0);
+        ack.write(ackRecord);
+    }
+
+    // 배치 배열의 레코드를 journal 끝에 추가
+    private void appendJournal(int count) {
+        if (count == 0) {
+            return;
+        }
+        long records = (journalFile.length() - journalReadOffset) / recordBytes;
+        if (records + count > maxJournalRecords) {
+            Listener l = listener;
+            if (l != null) {
+                l.onBatchFailed(count, "journal full");
+            }
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(journalFile, true)))) {
+            for (int i = 0; i < count; i++) {
+                writeRecord(out, i);
+            }
+        } catch (IOException e) {
+            Listener l = listener;
+            if (l != null) {
+                l.onBatchFailed(count, "journal write failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // journal 을 전송한 위치부터 순서대로 전송 - 모두 보냈으면 true
+    // (전송 직후 위치를 쓰기 전에 프로세스가 죽으면 그 배치가 한번 더 감 - at-least-once)
+    private boolean replayJournal() {
+        if (!hasJournal()) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "r");
+             RandomAccessFile ack = new RandomAccessFile(ackFile, "rw")) {
+            long length = raf.length() - raf.length() % recordBytes;
+            while (journalReadOffset < length) {
+                int count = (int) Math.min(batchSize, (length - journalReadOffset) / recordBytes);
+                raf.seek(journalReadOffset);
+                raf.readFully(replayBytes, 0, count * recordBytes);
+                replayBuffer.clear();
+                for (int i = 0; i < count; i++) {
+                    readRecord(replayBuffer, i);
+                }
+                if (!sendBatch(true, count)) {
+                    return false;
+                }
+                journalReadOffset += (long) count * recordBytes;
+                writeAck(ack, journalReadOffset);
+            }
+        } catch (IOException e) {
+            // 읽기/위치 기록 실패 - 다음 재시도 때까지 대기
+            nextRetryAtMs = nowMs() + backoffMs;
+            return false;
+        }
+        // 모두 전송 완료 - 위치 파일을 먼저 지움 (남은 위치가 새 journal 에 적용되지 않도록)
+        if ((ackFile.delete() || !ackFile.exists()) && (journalFile.delete() || !journalFile.exists())) {
+            journalReadOffset = 0;
+        }
+        return true;
+    }
+
+    private long nowMs() {
+        return clock.nanoTime() / 1_000_000L;
+    }
+}
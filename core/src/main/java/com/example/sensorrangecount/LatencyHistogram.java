@@ -0,0 +1,101 @@
+package com.example.sensorrangecount;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 지연 시간 히스토그램 (나노초, 락 없음, 기록할 때 할당 없음)
+// - HDR 방식의 로그 구간: 2의 거듭제곱 구간마다 16칸 (상대 오차 약 6%)
+// - 기록: 칸 하나 증가 + 합계/최댓값 갱신 (수십 ns)
+// - 백분위수는 읽을 때 전체 칸을 훑어서 계산
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // 값 하나 기록 (음수는 0 으로 처리)
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 다른 스레드가 먼저 갱신함 - 다시 비교
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    // 백분위수 (0~100) - 해당 칸의 상한값 (기록이 없으면 0)
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // "name=개수/p50/p99/max" (마이크로초) 형식으로 추가
+    public void appendSummary(StringBuilder sb, String name) {
+        sb.append(name).append('=').append(count.get())
+                .append('/').append(getPercentile(50) / 1_000)
+                .append('/').append(getPercentile(99) / 1_000)
+                .append('/').append(max.get() / 1_000);
+    }
+
+    // 16 미만은 값 그대로, 그 이상은 (최상위 비트 위치, 그 아래 4비트) 로 칸 결정
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.sensorrangecount;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 최신 심박수/기준 심박수 통계/운행 상태를 여러 스레드에 공유 (seqlock)
+// - 쓰기는 감지 스레드 하나만 (HeartRatePipeline.detect), 락/할당 없음
+// - 읽기는 어느 스레드에서든 락 없이 - 쓰는 중이었거나 읽는 사이에 바뀌었으면 다시 읽음
+//   (쓰기가 짧아서 재시도는 드묾, 값이 섞인 스냅샷은 절대 나오지 않음 - LiveStateStressTest 로 확인)
+// - 값은 AtomicLongArray 칸마다 volatile 로 읽고 씀 (double 은 비트로 저장)
+public class LiveState {
+    public static final int FLAG_RESTING = 1; // 휴식 중
+    public static final int FLAG_ALERT_ACTIVE = 1 << 1; // 졸음 경보 상태 (DrowsinessEngine.isActive)
+
+    private static final int TIME = 0;
+    private static final int HEART_RATE = 1;
+    private static final int BASELINE_MEAN = 2;
+    private static final int BASELINE_STD_DEV = 3;
+    private static final int BASELINE_MIN = 4;
+    private static final int BASELINE_MAX = 5;
+    private static final int BASELINE_COUNT = 6;
+    private static final int FLAGS = 7;
+    private static final int SESSION = 8;
+    private static final int SCORE = 9;
+    private static final int SAMPLES = 10;
+    private static final int SLOTS = 11;
+
+    // 읽은 값 (호출하는 쪽에서 하나 만들어 재사용)
+    public static class Snapshot {
+        public long timeMillis; // 0 이면 아직 샘플 없음
+        public int heartRate;
+        public double baselineMean; // 기준 심박수 (샘플이 부족하면 NaN)
+        public double baselineStdDev;
+        public int baselineMin;
+        public int baselineMax;
+        public int baselineCount;
+        public int flags;
+        public int session; // SamplingScheduler.Session.ordinal()
+        public double score; // DrowsinessScore (없으면 NaN)
+        public long samples; // 지금까지 쓴 샘플 수
+
+        public boolean isResting() {
+            return (flags & FLAG_RESTING) != 0;
+        }
+
+        public boolean isAlertActive() {
+            return (flags & FLAG_ALERT_ACTIVE) != 0;
+        }
+    }
+
+    private final AtomicLong sequence = new AtomicLong(); // 홀수면 쓰는 중
+    private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+    private long samples = 0; // 쓰기 스레드 전용
+
+    public LiveState() {
+        slots.set(BASELINE_MEAN, Double.doubleToRawLongBits(Double.NaN));
+        slots.set(BASELINE_STD_DEV, Double.doubleToRawLongBits(Double.NaN));
+        slots.set(SCORE, Double.doubleToRawLongBits(Double.NaN));
+    }
+
+    // 샘플 하나 반영 (감지 스레드 하나에서만 호출)
+    public void write(long timeMillis, int heartRate, double baselineMean, double baselineStdDev, int baselineMin,
+                      int baselineMax, int baselineCount, int flags, int session, double score) {
+        long seq = sequence.get();
+        sequence.set(seq + 1); // 홀수: 쓰는 중 (뒤의 lazySet 들이 이보다 앞서 보이지 않음)
+        slots.lazySet(TIME, timeMillis);
+        slots.lazySet(HEART_RATE, heartRate);
+        slots.lazySet(BASELINE_MEAN, Double.doubleToRawLongBits(baselineMean));
+        slots.lazySet(BASELINE_STD_DEV, Double.doubleToRawLongBits(baselineStdDev));
+        slots.lazySet(BASELINE_MIN, baselineMin);
+        slots.lazySet(BASELINE_MAX, baselineMax);
+        slots.lazySet(BASELINE_COUNT, baselineCount);
+        slots.lazySet(FLAGS, flags);
+        slots.lazySet(SESSION, session);
+        slots.lazySet(SCORE, Double.doubleToRawLongBits(score));
+        slots.lazySet(SAMPLES, ++samples);
+        sequence.set(seq + 2); // 짝수: 완료
+    }
+
+    // 일관된 스냅샷을 out 에 채움 (어느 스레드에서든, 할당 없음) - 다시 읽은 횟수를 리턴
+    public int read(Snapshot out) {
+        int retries = 0;
+        while (true) {
+            long before = sequence.get();
+            if ((before & 1) == 0) {
+                out.timeMillis = slots.get(TIME);
+                out.heartRate = (int) slots.get(HEART_RATE);
+                out.baselineMean = Double.longBitsToDouble(slots.get(BASELINE_MEAN));
+                out.baselineStdDev = Double.longBitsToDouble(slots.get(BASELINE_STD_DEV));
+                out.baselineMin = (int) slots.get(BASELINE_MIN);
+                out.baselineMax = (int) slots.get(BASELINE_MAX);
+                out.baselineCount = (int) slots.get(BASELINE_COUNT);
+                out.flags = (int) slots.get(FLAGS);
+                out.session = (int) slots.get(SESSION);
+                out.score = Double.longBitsToDouble(slots.get(SCORE));
+                out.samples = slots.get(SAMPLES);
+                if (sequence.get() == before) {
+                    return retries;
+                }
+            }
+            retries++;
+            Thread.yield(); // 쓰기 스레드가 선점된 경우 (단일 코어 워치)
+        }
+    }
+
+    // 한 칸만 필요할 때 (스냅샷 없이, 칸 하나라 섞일 일 없음)
+    public int getFlags() {
+        return (int) slots.get(FLAGS);
+    }
+
+    public long getSequence() {
+        return sequence.get();
+    }
+}
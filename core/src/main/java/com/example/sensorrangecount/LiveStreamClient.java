@@ -0,0 +1,437 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+// 실시간 관제 화면용 스트림 (선택 기능) - WebSocket 연결 하나를 계속 열어 두고 샘플/경보를 작은 프레임으로 전송
+// - 프레임마다 순번(seq), 서버가 받은 순번을 ACK 로 알려줌 (여러 개를 한번에 ACK 해도 됨)
+// - 연결하면 HELLO(운전자, 스트림 id) -> 서버가 WELCOME(받은 마지막 순번) -> 그 다음부터 다시 보냄 (이어받기)
+// - ACK 받기 전 프레임은 원형 버퍼에 보관, 버퍼가 차면 가장 오래된 것부터 버림
+//   (실시간 화면용이라 끊긴 동안의 전체 기록은 업로드 큐가 담당)
+// - 보낼 게 없으면 heartbeatMs 마다 ping, heartbeatMs x 2 동안 서버에서 아무것도 안 오면 끊고 다시 연결
+// - 연결 실패/끊김은 지수 백오프 + 지터로 재연결
+// 프레임 (big-endian): HELLO [1][userId UTF][streamId 8], SAMPLE [2][seq 8][time 8][bpm 2], ALERT [3][seq 8][time 8][bpm 2]
+//                      서버 -> ACK [0x10][seq 8], WELCOME [0x11][seq 8]
+// offerSample()/offerAlert() 는 어느 스레드에서든 (짧은 lock, 할당 없음)
+public class LiveStreamClient {
+    static final int HELLO = 1;
+    static final int SAMPLE = 2;
+    static final int ALERT = 3;
+    static final int ACK = 0x10;
+    static final int WELCOME = 0x11;
+    static final int DATA_FRAME_BYTES = 1 + 8 + 8 + 2;
+
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+    private static final int MAX_FRAMES_PER_WRITE = 64; // 밀린 프레임은 한 번 write 에 이만큼씩
+
+    // 연결 상태 콜백 (스트림 스레드에서 호출됨)
+    public interface Listener {
+        void onConnected(long resumeFromSeq);
+
+        void onDisconnected(String reason);
+    }
+
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String userId;
+    private final long streamId; // 프로세스마다 새로 (서버는 이 id 별로 받은 순번을 기억)
+    private final long heartbeatMs;
+    private volatile Listener listener;
+    private final Random random = new Random();
+
+    // 보낼/ACK 대기 프레임 (lock 으로 보호, 순번 seq 는 seq & mask 칸)
+    private final Object lock = new Object();
+    private final int mask;
+    private final byte[] types;
+    private final long[] times;
+    private final short[] rates;
+    private final long[] sentNanos; // 보낸 시각 (ACK 왕복 시간 계측용)
+    private long nextSeq = 1; // 다음에 붙일 순번
+    private long ackedSeq = 0; // 서버가 받은 마지막 순번
+    private long sentSeq = 0; // 지금 연결에서 보낸 마지막 순번
+    private long dropped = 0; // ACK 전에 버퍼에서 밀려난 프레임 수
+    private boolean running = false;
+    private Thread worker;
+
+    // 지금 연결 (스트림 스레드가 만들고 읽기 스레드가 끊을 수 있음)
+    private volatile Socket socket;
+    private final Object writeLock = new Object(); // 소켓 출력 (스트림 스레드 + 읽기 스레드의 pong)
+
+    // 통계
+    private volatile long connects = 0;
+    private volatile long bytesSent = 0;
+    private volatile long framesSent = 0;
+    private final LatencyHistogram ackRtt = new LatencyHistogram(); // 보냄 -> ACK 받음
+
+    // uri: ws://host:port/path, capacity: ACK 대기 프레임 최대 수 (2 의 거듭제곱으로 올림)
+    public LiveStreamClient(String uri, String userId, int capacity, long heartbeatMs) {
+        URI parsed = URI.create(uri);
+        if (!"ws".equals(parsed.getScheme())) {
+            throw new IllegalArgumentException("only ws:// is supported: " + uri);
+        }
+        this.host = parsed.getHost();
+        this.port = parsed.getPort() > 0 ? parsed.getPort() : 80;
+        this.path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+        this.userId = userId;
+        this.streamId = random.nextLong();
+        this.heartbeatMs = heartbeatMs;
+        int size = Integer.highestOneBit(Math.max(1, capacity));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.types = new byte[size];
+        this.times = new long[size];
+        this.rates = new short[size];
+        this.sentNanos = new long[size];
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        worker = new Thread(this::runWorker, "LiveStream");
+        worker.start();
+    }
+
+    // 멈춤 (보내지 못한 프레임은 버림)
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        closeSocket(true);
+    }
+
+    public void offerSample(long timeMillis, int heartRate) {
+        offer(SAMPLE, timeMillis, heartRate);
+    }
+
+    public void offerAlert(long timeMillis, int heartRate) {
+        offer(ALERT, timeMillis, heartRate);
+    }
+
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    public long getAckedSeq() {
+        synchronized (lock) {
+            return ackedSeq;
+        }
+    }
+
+    public long getLastSeq() {
+        synchronized (lock) {
+            return nextSeq - 1;
+        }
+    }
+
+    public long getDropped() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    public long getConnects() {
+        return connects;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public LatencyHistogram getAckRtt() {
+        return ackRtt;
+    }
+
+    private void offer(int type, long timeMillis, int heartRate) {
+        synchronized (lock) {
+            long seq = nextSeq++;
+            int i = (int) (seq & mask);
+            types[i] = (byte) type;
+            times[i] = timeMillis;
+            rates[i] = (short) heartRate;
+            long oldest = nextSeq - (mask + 1); // 버퍼에 남은 가장 오래된 순번
+            if (ackedSeq < oldest - 1) {
+                dropped += oldest - 1 - ackedSeq;
+                ackedSeq = oldest - 1; // 덮어쓴 프레임은 포기
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void runWorker() {
+        int failures = 0;
+        while (isRunning()) {
+            long connectsBefore = connects;
+            String reason;
+            try {
+                connectAndStream();
+                reason = "closed";
+            } catch (IOException e) {
+                reason = String.valueOf(e.getMessage());
+            }
+            closeSocket(false);
+            Listener l = listener;
+            if (l != null && isRunning()) {
+                l.onDisconnected(reason);
+            }
+            if (connects != connectsBefore) {
+                failures = 0; // 연결됐다 끊긴 경우는 짧게 기다렸다 다시
+            }
+            failures++;
+            long backoff = Math.min(MAX_BACKOFF_MS, MIN_BACKOFF_MS << Math.min(failures - 1, 20));
+            // 지터: 백오프의 50~100% 사이에서 무작위
+            sleep(backoff / 2 + (long) (random.nextDouble() * (backoff / 2)));
+        }
+    }
+
+    private void connectAndStream() throws IOException {
+        Socket s = new Socket();
+        InputStream in;
+        try {
+            in = open(s);
+        } catch (IOException e) {
+            s.close(); // 연결 전 실패 (socket 에 넣기 전이라 여기서 닫음)
+            throw e;
+        }
+        OutputStream out = s.getOutputStream();
+        Thread reader = new Thread(() -> readLoop(s, in, out), "LiveStream-read");
+        reader.start();
+        writeLoop(s, out);
+    }
+
+    // 연결 + 핸드셰이크 + HELLO/WELCOME, 성공하면 socket 에 넣고 입력 스트림을 리턴
+    private InputStream open(Socket s) throws IOException {
+        s.setTcpNoDelay(true); // 작은 프레임을 모으지 않고 바로 보냄
+        s.setKeepAlive(true);
+        s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        s.setSoTimeout(CONNECT_TIMEOUT_MS);
+        InputStream in = new BufferedInputStream(s.getInputStream());
+        OutputStream out = s.getOutputStream();
+        handshake(in, out);
+
+        // HELLO -> WELCOME (서버가 받은 마지막 순번부터 이어서)
+        byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[3 + id.length + 8];
+        payload[0] = HELLO;
+        payload[1] = (byte) (id.length >>> 8);
+        payload[2] = (byte) id.length;
+        System.arraycopy(id, 0, payload, 3, id.length);
+        int n = WebSocketCodec.putLong(payload, 3 + id.length, streamId);
+        byte[] frame = new byte[WebSocketCodec.MAX_HEADER + n];
+        out.write(frame, 0, WebSocketCodec.writeFrame(frame, 0, WebSocketCodec.OP_BINARY, payload, 0, n,
+                random.nextInt(), true));
+        out.flush();
+        byte[] buf = new byte[64];
+        int[] length = new int[1];
+        if (WebSocketCodec.readFrame(in, buf, length) != WebSocketCodec.OP_BINARY || length[0] != 9
+                || buf[0] != WELCOME) {
+            throw new IOException("unexpected reply to hello");
+        }
+        long resumeFrom;
+        synchronized (lock) {
+            ackedSeq = Math.max(ackedSeq, Math.min(WebSocketCodec.getLong(buf, 1), nextSeq - 1));
+            sentSeq = ackedSeq;
+            resumeFrom = sentSeq + 1;
+        }
+        connects++;
+        s.setSoTimeout((int) (heartbeatMs * 2)); // 이 시간 동안 ACK/pong 이 없으면 끊긴 것으로 봄
+        socket = s;
+        Listener l = listener;
+        if (l != null) {
+            l.onConnected(resumeFrom);
+        }
+        return in;
+    }
+
+    private void handshake(InputStream in, OutputStream out) throws IOException {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+        String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String status = WebSocketCodec.readLine(in);
+        if (!status.startsWith("HTTP/1.1 101")) {
+            throw new IOException("handshake rejected: " + status);
+        }
+        String accept = null;
+        String line;
+        while (!(line = WebSocketCodec.readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Accept")) {
+                accept = line.substring(colon + 1).trim();
+            }
+        }
+        if (!WebSocketCodec.acceptOf(key).equals(accept)) {
+            throw new IOException("bad Sec-WebSocket-Accept");
+        }
+    }
+
+    // 스트림 스레드: 새 프레임을 기다렸다가 모아서 한번에 write, 한가하면 ping
+    private void writeLoop(Socket s, OutputStream out) throws IOException {
+        byte[] payload = new byte[DATA_FRAME_BYTES];
+        byte[] buf = new byte[MAX_FRAMES_PER_WRITE * (WebSocketCodec.MAX_HEADER + DATA_FRAME_BYTES)];
+        long lastWriteNanos = System.nanoTime();
+        while (true) {
+            int end = 0;
+            long first;
+            long last;
+            synchronized (lock) {
+                while (running && socket == s && sentSeq + 1 >= nextSeq) {
+                    long idleMs = (System.nanoTime() - lastWriteNanos) / 1_000_000L;
+                    if (idleMs >= heartbeatMs) {
+                        break;
+                    }
+                    try {
+                        lock.wait(heartbeatMs - idleMs);
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (!running || socket != s) {
+                    return;
+                }
+                first = Math.max(sentSeq + 1, ackedSeq + 1);
+                last = Math.min(nextSeq - 1, first + MAX_FRAMES_PER_WRITE - 1);
+                long now = System.nanoTime();
+                for (long seq = first; seq <= last; seq++) {
+                    int i = (int) (seq & mask);
+                    payload[0] = types[i];
+                    WebSocketCodec.putLong(payload, 1, seq);
+                    WebSocketCodec.putLong(payload, 9, times[i]);
+                    payload[17] = (byte) (rates[i] >>> 8);
+                    payload[18] = (byte) rates[i];
+                    sentNanos[i] = now;
+                    end = WebSocketCodec.writeFrame(buf, end, WebSocketCodec.OP_BINARY, payload, 0,
+                            DATA_FRAME_BYTES, random.nextInt(), true);
+                }
+                if (last >= first) {
+                    sentSeq = last;
+                }
+            }
+            synchronized (writeLock) {
+                if (end > 0) {
+                    out.write(buf, 0, end);
+                    out.flush();
+                    framesSent += last - first + 1;
+                    bytesSent += end;
+                } else {
+                    WebSocketCodec.writeControl(out, WebSocketCodec.OP_PING, random.nextInt(), true);
+                    bytesSent += 6;
+                }
+            }
+            lastWriteNanos = System.nanoTime();
+        }
+    }
+
+    // 연결마다 읽기 스레드: ACK/pong/ping/close 처리, 타임아웃/오류면 소켓을 닫아 스트림 스레드를 깨움
+    private void readLoop(Socket s, InputStream in, OutputStream out) {
+        byte[] buf = new byte[64];
+        int[] length = new int[1];
+        try {
+            while (socket == s) {
+                int opcode = WebSocketCodec.readFrame(in, buf, length);
+                long now = System.nanoTime();
+                if (opcode == WebSocketCodec.OP_BINARY && length[0] == 9 && buf[0] == ACK) {
+                    long seq = WebSocketCodec.getLong(buf, 1);
+                    synchronized (lock) {
+                        if (seq > ackedSeq && seq < nextSeq) {
+                            ackRtt.record(now - sentNanos[(int) (seq & mask)]);
+                            ackedSeq = seq;
+                        }
+                    }
+                } else if (opcode == WebSocketCodec.OP_PING) {
+                    synchronized (writeLock) {
+                        WebSocketCodec.writeControl(out, WebSocketCodec.OP_PONG, random.nextInt(), true);
+                    }
+                } else if (opcode == WebSocketCodec.OP_CLOSE) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // heartbeatMs x 2 동안 응답 없음
+        } catch (IOException e) {
+            // 끊김 - 아래에서 정리
+        }
+        if (socket == s) {
+            closeSocket(false);
+        }
+    }
+
+    private void closeSocket(boolean sendClose) {
+        Socket s;
+        synchronized (lock) {
+            s = socket;
+            socket = null;
+            lock.notifyAll(); // 스트림 스레드가 기다리는 중이면 깨움
+        }
+        if (s == null) {
+            return;
+        }
+        if (sendClose) {
+            try {
+                synchronized (writeLock) {
+                    WebSocketCodec.writeControl(s.getOutputStream(), WebSocketCodec.OP_CLOSE, random.nextInt(), true);
+                }
+            } catch (IOException e) {
+                // 닫는 중이라 무시
+            }
+        }
+        try {
+            s.close();
+        } catch (IOException e) {
+            // 무시
+        }
+    }
+
+    private boolean isRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    private void sleep(long ms) {
+        synchronized (lock) {
+            long until = System.currentTimeMillis() + ms;
+            long left;
+            while (running && (left = until - System.currentTimeMillis()) > 0) {
+                try {
+                    lock.wait(left);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// 계측값 한 줄 요약을 파일 끝에 추가 (기기에서 꺼내서 확인: adb shell run-as <패키지> cat files/metrics.log)
+// 파일이 maxBytes 를 넘으면 <이름>.1 로 옮기고 새로 시작 (최대 두 파일)
+public class MetricsSnapshotWriter {
+    private final File file;
+    private final long maxBytes;
+    private final PipelineMetrics metrics;
+    private final StringBuilder sb = new StringBuilder(512);
+
+    public MetricsSnapshotWriter(File file, long maxBytes, PipelineMetrics metrics) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.metrics = metrics;
+    }
+
+    // 스냅샷 한 줄 기록 (한 스레드에서만 호출)
+    public void write(long timeMillis) throws IOException {
+        if (file.length() > maxBytes) {
+            File old = new File(file.getPath() + ".1");
+            if (old.exists() && !old.delete()) {
+                throw new IOException("Cannot delete " + old);
+            }
+            if (!file.renameTo(old)) {
+                throw new IOException("Cannot rotate " + file);
+            }
+        }
+        sb.setLength(0);
+        metrics.appendSnapshot(sb, timeMillis);
+        sb.append('\n');
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
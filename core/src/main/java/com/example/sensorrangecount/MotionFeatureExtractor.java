@@ -0,0 +1,200 @@
+package com.example.sensorrangecount;
+
+// 가속도/자이로 샘플(25~50Hz)에서 졸음 관련 움직임 특징을 계산 (IMU 센서 스레드 전용)
+// - 시계는 손목에 있으므로 고개 끄덕임 대신 "손이 한동안 완전히 멈췄다가 갑자기 크게 움직임"(핸들 위 손이
+//   처졌다가 급히 바로잡음) 을 끄덕임으로 봄
+// - 특징: 저크(가속도 변화율) 평균, 정지 비율, 미세수면(정지가 MICRO_SLEEP_NANOS 이상 지속) 횟수, 끄덕임 횟수
+// - 1초 단위 구간 BINS 개를 원형으로 재사용 (샘플당 O(1), 할당 없음)
+// - 묶음이 끝날 때(publish) 점수를 volatile 로 공개 -> 다른 스레드(감지 스레드)에서 getScore 로 읽음
+// 타임스탬프는 센서 기준 (부팅 후 경과 나노초)
+public class MotionFeatureExtractor {
+    public static final long SAMPLE_BUDGET_NANOS = 2_000; // 샘플 하나 처리 목표 시간 (MotionBudgetTest)
+
+    private static final long BIN_NANOS = 1_000_000_000L; // 구간 하나 = 1초
+    private static final int BINS = 64; // 2의 거듭제곱, FEATURE_WINDOW_BINS 보다 크게
+    private static final int FEATURE_WINDOW_BINS = 60; // 정지 비율/미세수면/끄덕임을 볼 구간 (60초)
+    private static final int JERK_WINDOW_BINS = 10; // 저크 평균을 볼 구간 (10초)
+    private static final long STALE_NANOS = 30_000_000_000L; // 이보다 오래 샘플이 없으면 점수 없음 (NaN)
+
+    // 임계값 (손목 기준 초기값)
+    private static final float STILL_GYRO_RAD_S = 0.06f; // 이보다 느리게 돌면 정지
+    private static final float STILL_JERK = 5.0f; // 저크(m/s^3)가 이보다 작으면 정지 (차량 진동은 통과)
+    private static final float NOD_GYRO_RAD_S = 1.5f; // 정지 후 이보다 빠르게 돌면 끄덕임
+    private static final long NOD_MIN_STILL_NANOS = 1_500_000_000L; // 끄덕임 전 최소 정지 시간
+    private static final long MICRO_SLEEP_NANOS = 4_000_000_000L; // 미세수면으로 볼 정지 시간
+    private static final long MAX_GAP_NANOS = 500_000_000L; // 샘플 간격이 이보다 크면 저크 계산 안 함
+
+    // 1초 구간별 누적값 (binSecond 가 다르면 지난 구간이므로 비우고 다시 씀)
+    private final long[] binSecond = new long[BINS];
+    private final float[] jerkSum = new float[BINS];
+    private final int[] jerkCount = new int[BINS];
+    private final int[] gyroCount = new int[BINS];
+    private final int[] stillCount = new int[BINS];
+    private final int[] microSleeps = new int[BINS];
+    private final int[] nods = new int[BINS];
+
+    // 가속도 직전 샘플
+    private long lastAccelNanos = Long.MIN_VALUE;
+    private float lastAx, lastAy, lastAz;
+    private float lastJerk = 0;
+
+    // 정지 상태
+    private long stillSinceNanos = -1; // 정지 시작 시각 (움직이는 중이면 -1)
+    private boolean microSleepCounted = false; // 지금 정지 구간을 미세수면으로 이미 셌는지
+    private long lastSampleNanos = Long.MIN_VALUE;
+    private long microSleepTotal = 0; // reset 이후 누적 (IMU 스레드 전용)
+    private long nodTotal = 0;
+
+    // 공개값 (publish 에서 갱신)
+    private volatile double score = Double.NaN;
+    private volatile long scoreAtNanos = Long.MIN_VALUE;
+
+    public MotionFeatureExtractor() {
+        reset();
+    }
+
+    // 가속도 샘플 (m/s^2)
+    public void onAccel(long timestampNanos, float x, float y, float z) {
+        int bin = binOf(timestampNanos);
+        long dt = timestampNanos - lastAccelNanos;
+        if (lastAccelNanos != Long.MIN_VALUE && dt > 0 && dt <= MAX_GAP_NANOS) {
+            float dx = x - lastAx;
+            float dy = y - lastAy;
+            float dz = z - lastAz;
+            lastJerk = (float) (Math.sqrt(dx * dx + dy * dy + dz * dz) * 1e9 / dt);
+            jerkSum[bin] += lastJerk;
+            jerkCount[bin]++;
+        }
+        lastAccelNanos = timestampNanos;
+        lastAx = x;
+        lastAy = y;
+        lastAz = z;
+        lastSampleNanos = timestampNanos;
+    }
+
+    // 자이로 샘플 (rad/s) - 정지/미세수면/끄덕임 판단 (저크는 가장 최근 가속도 기준)
+    public void onGyro(long timestampNanos, float x, float y, float z) {
+        int bin = binOf(timestampNanos);
+        float rate = (float) Math.sqrt(x * x + y * y + z * z);
+        gyroCount[bin]++;
+        if (rate < STILL_GYRO_RAD_S && lastJerk < STILL_JERK) {
+            stillCount[bin]++;
+            if (stillSinceNanos < 0) {
+                stillSinceNanos = timestampNanos;
+                microSleepCounted = false;
+            } else if (!microSleepCounted && timestampNanos - stillSinceNanos >= MICRO_SLEEP_NANOS) {
+                microSleeps[bin]++;
+                microSleepTotal++;
+                microSleepCounted = true;
+            }
+        } else {
+            if (stillSinceNanos >= 0 && rate >= NOD_GYRO_RAD_S
+                    && timestampNanos - stillSinceNanos >= NOD_MIN_STILL_NANOS) {
+                nods[bin]++;
+                nodTotal++;
+            }
+            stillSinceNanos = -1;
+        }
+        lastSampleNanos = timestampNanos;
+    }
+
+    // 센서 묶음 끝 - 60초 구간 특징으로 점수를 계산해서 공개 (묶음마다 한번, 구간 수만큼 반복)
+    public void publish() {
+        if (lastSampleNanos == Long.MIN_VALUE) {
+            return;
+        }
+        long second = lastSampleNanos / BIN_NANOS;
+        int samples = 0;
+        int still = 0;
+        int sleeps = 0;
+        int nodCount = 0;
+        for (int i = 0; i < FEATURE_WINDOW_BINS; i++) {
+            int bin = (int) ((second - i) & (BINS - 1));
+            if (binSecond[bin] != second - i) {
+                continue;
+            }
+            samples += gyroCount[bin];
+            still += stillCount[bin];
+            sleeps += microSleeps[bin];
+            nodCount += nods[bin];
+        }
+        if (samples == 0) {
+            return;
+        }
+        double stillPart = clamp((still / (double) samples - 0.5) / 0.5); // 절반 넘게 정지해 있으면 올라감
+        double eventPart = Math.max(clamp(sleeps / 2.0), clamp(nodCount / 3.0));
+        score = 0.7 * eventPart + 0.3 * stillPart;
+        scoreAtNanos = lastSampleNanos;
+    }
+
+    // 움직임 점수 0~1 (nowNanos 기준으로 최근 샘플이 없으면 NaN) - 어느 스레드에서든 호출 가능
+    public double getScore(long nowNanos) {
+        long at = scoreAtNanos;
+        if (at == Long.MIN_VALUE || nowNanos - at > STALE_NANOS) {
+            return Double.NaN;
+        }
+        return score;
+    }
+
+    // 최근 10초 저크 평균 (m/s^3, 샘플이 없으면 NaN) - IMU 스레드 전용
+    public double meanJerk() {
+        if (lastSampleNanos == Long.MIN_VALUE) {
+            return Double.NaN;
+        }
+        long second = lastSampleNanos / BIN_NANOS;
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < JERK_WINDOW_BINS; i++) {
+            int bin = (int) ((second - i) & (BINS - 1));
+            if (binSecond[bin] == second - i) {
+                sum += jerkSum[bin];
+                count += jerkCount[bin];
+            }
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public long getMicroSleepTotal() {
+        return microSleepTotal;
+    }
+
+    public long getNodTotal() {
+        return nodTotal;
+    }
+
+    // 센서를 다시 등록할 때 (운행 시작 등) 지난 특징 제거
+    public void reset() {
+        for (int i = 0; i < BINS; i++) {
+            binSecond[i] = Long.MIN_VALUE;
+        }
+        lastAccelNanos = Long.MIN_VALUE;
+        lastJerk = 0;
+        stillSinceNanos = -1;
+        microSleepCounted = false;
+        lastSampleNanos = Long.MIN_VALUE;
+        microSleepTotal = 0;
+        nodTotal = 0;
+        score = Double.NaN;
+        scoreAtNanos = Long.MIN_VALUE;
+    }
+
+    // 샘플 시각의 구간 (처음 쓰는 구간이면 비움)
+    private int binOf(long timestampNanos) {
+        long second = timestampNanos / BIN_NANOS;
+        int bin = (int) (second & (BINS - 1));
+        if (binSecond[bin] != second) {
+            binSecond[bin] = second;
+            jerkSum[bin] = 0;
+            jerkCount[bin] = 0;
+            gyroCount[bin] = 0;
+            stillCount[bin] = 0;
+            microSleeps[bin] = 0;
+            nods[bin] = 0;
+        }
+        return bin;
+    }
+
+    private static double clamp(double value) {
+        return value < 0 ? 0 : (value > 1 ? 1 : value);
+    }
+}
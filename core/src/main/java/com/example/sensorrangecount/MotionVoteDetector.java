@@ -0,0 +1,25 @@
+package com.example.sensorrangecount;
+
+// 움직임이 섞인 졸음 점수(DrowsinessScore)가 level 이상이면 감지 - VoteDetector 의 한 표
+// - 심박수 감지기 하나와 같이 표를 모아야 경보 (움직임만으로는 경보 안 함)
+// - IMU 가 꺼져 있거나 오래되어 움직임 부분이 없으면 감지 안 함 (심박수 감지기들만으로 결정, 이전과 같음)
+// - 점수는 HeartRatePipeline.detect 에서 엔진보다 먼저 같은 샘플로 갱신
+public class MotionVoteDetector implements DrowsinessDetector {
+    private final DrowsinessScore score;
+    private final double level;
+
+    public MotionVoteDetector(DrowsinessScore score, double level) {
+        this.score = score;
+        this.level = level;
+    }
+
+    @Override
+    public boolean update(long timeMillis, int heartRate, double baseline) {
+        return !Double.isNaN(score.getMotionPart()) && score.get() >= level;
+    }
+
+    @Override
+    public void reset() {
+        // 상태 없음 (점수는 HeartRatePipeline 이 휴식 때 초기화)
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sensorrangecount;
+
+// 긴급 알림과 대량 업로드 사이의 네트워크 순서 조정
+// - 긴급 알림(졸음 경보)이 대기 중이면 업로드는 새 요청을 시작하기 전에 기다림
+// - 이미 보내고 있는 요청은 끊지 않음 (긴급 알림은 별도 연결로 바로 전송)
+public class NetworkPriority {
+    private final Object lock = new Object();
+    private int urgentCount = 0; // 아직 첫 전송 시도를 하지 않은 긴급 알림 수 (lock 으로 보호)
+
+    // 긴급 알림 추가 시 호출
+    public void beginUrgent() {
+        synchronized (lock) {
+            urgentCount++;
+        }
+    }
+
+    // 긴급 알림 첫 전송 시도 후 호출 (성공/실패 무관 - 재시도 대기 중에는 업로드를 막지 않음)
+    public void endUrgent() {
+        synchronized (lock) {
+            if (urgentCount > 0) {
+                urgentCount--;
+            }
+            if (urgentCount == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    public boolean isUrgentPending() {
+        synchronized (lock) {
+            return urgentCount > 0;
+        }
+    }
+
+    // 대량 전송 전에 호출 - 긴급 알림이 없어지거나 maxWaitMs 가 지날 때까지 대기
+    // 대기했으면 true
+    public boolean awaitBulkTurn(long maxWaitMs) {
+        synchronized (lock) {
+            if (urgentCount == 0) {
+                return false;
+            }
+            long deadline = System.nanoTime() / 1_000_000L + maxWaitMs;
+            while (urgentCount > 0) {
+                long wait = deadline - System.nanoTime() / 1_000_000L;
+                if (wait <= 0) {
+                    break;
+                }
+                try {
+                    lock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return true;
+        }
+    }
+}
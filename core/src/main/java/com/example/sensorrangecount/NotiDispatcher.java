@@ -0,0 +1,432 @@
+package com.example.sensorrangecount;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+
+// 운행 알림(시작/휴식/휴식 끝/종료/졸음) 전송기
+// - 워커 스레드 하나가 큐 순서대로 전송 (세션 안의 순서 보장)
+// - 알림마다 Idempotency-Key (사용자-운행 ID-순번, 호출하는 쪽이 DrivingSession 기록으로 만듦) 를 붙여서
+//   재전송해도 서버가 중복 처리하지 않도록 함 (프로세스가 다시 떠도 같은 전환은 같은 키)
+// - 보내지 못한 알림은 journalFile 에 남겨서 다음 실행 때 (생성할 때 큐에 다시 넣음) 같은 키로 이어서 전송
+//   (일반 알림은 dispatch() 에서 바로 기록, 긴급 알림은 경보 경로에서 I/O 를 하지 않도록 워커가 기록)
+// - 실패 시 지수 백오프 + 지터로 재시도
+// - 아직 전송되지 않은 휴식/휴식 끝 알림이 연달아 쌓이면 서로 상쇄
+// - 긴급 알림(dispatchUrgent)은 큐 맨 앞에 넣고 재시도 대기도 무시, 첫 시도 전까지 업로드를 멈춤
+public class NotiDispatcher {
+    private static final int QUEUE_CAPACITY = 64; // 대기 중인 알림 최대 수
+    private static final long MIN_BACKOFF_MS = 1_000; // 재시도 최소 대기 시간
+    private static final long MAX_BACKOFF_MS = 5 * 60_000; // 재시도 최대 대기 시간
+
+    // 알림 종류 (path 는 서버 URL 경로)
+    public enum Event {
+        START("start"),
+        REST("rest"),
+        END_REST("endrest"),
+        END("end"),
+        EMERGENCY("emergency");
+
+        public final String path;
+
+        Event(String path) {
+            this.path = path;
+        }
+
+        // path 로 찾기 (없으면 null)
+        public static Event ofPath(String path) {
+            for (Event event : values()) {
+                if (event.path.equals(path)) {
+                    return event;
+                }
+            }
+            return null;
+        }
+    }
+
+    // 알림 전송 방식
+    public interface Transport {
+        // 알림 하나를 전송하고 HTTP 응답 코드를 반환 (네트워크 오류 시 IOException)
+        int send(Event event, String userId, String idempotencyKey) throws IOException;
+    }
+
+    // 전송 결과 콜백 (워커 스레드에서 호출됨)
+    public interface Listener {
+        void onDelivered(Event event, int responseCode, long latencyMs);
+
+        void onFailed(Event event, String reason, int attempt);
+    }
+
+    private static final class Pending {
+        final Event event;
+        final String userId;
+        final String idempotencyKey;
+        final long enqueuedAtMs;
+        final long enqueuedAtNanos;
+        final boolean urgent;
+        int attempts = 0;
+
+        Pending(Event event, String userId, String idempotencyKey, long enqueuedAtNanos, boolean urgent) {
+            this.event = event;
+            this.userId = userId;
+            this.idempotencyKey = idempotencyKey;
+            this.enqueuedAtMs = enqueuedAtNanos / 1_000_000L;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+            this.urgent = urgent;
+        }
+    }
+
+    private final Transport transport;
+    private final File journalFile; // 보내지 못한 알림 (없으면 메모리에만)
+    private final File journalTemp;
+    private volatile Listener listener;
+    private volatile NetworkPriority networkPriority; // 없으면 긴급 알림도 업로드를 멈추지 않음
+    private volatile PipelineMetrics metrics; // 없으면 계측 안 함
+    private final Random jitter = new Random();
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>(); // lock 으로 보호
+    private Pending inFlight; // 전송 중인 알림 (상쇄 대상에서 제외)
+    private long queueVersion = 0; // 큐가 바뀔 때마다 증가 (journal 에 쓸 필요가 있는지)
+    private long nextAttemptAtMs = 0; // 재시도 대기 중이면 다음 시도 시각
+    private boolean running = false;
+    private Thread worker;
+
+    private final Object journalLock = new Object(); // journal 파일 쓰기 (dispatch 스레드와 워커)
+    private long savedVersion = 0; // journalLock 으로 보호
+
+    // 알림 종류별 전송 통계 (lock 으로 보호)
+    private final long[] deliveredCount = new long[Event.values().length];
+    private final long[] latencySumMs = new long[Event.values().length];
+    private final long[] latencyMaxMs = new long[Event.values().length];
+    private final long[] retryCount = new long[Event.values().length];
+    private final long[] droppedCount = new long[Event.values().length];
+
+    public NotiDispatcher(Transport transport) {
+        this(transport, null);
+    }
+
+    public NotiDispatcher(Transport transport, File journalFile) {
+        this.transport = transport;
+        this.journalFile = journalFile;
+        this.journalTemp = journalFile != null ? new File(journalFile.getPath() + ".tmp") : null;
+        synchronized (lock) {
+            restoreLocked(); // 다른 알림을 넣기 전에 (넣으면서 journal 을 새로 씀)
+        }
+    }
+
+    // Idempotency-Key - 운행 ID(DrivingSession.getSessionId) 와 운행 안에서 겹치지 않는 번호
+    // (전환은 DrivingSession.getSequence, 경보는 경보 시각)
+    public static String idempotencyKey(String userId, long sessionId, long sequence) {
+        return userId + "-" + sessionId + "-" + sequence;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // 업로드(HeartRateUploader)와 같은 객체를 공유
+    public void setNetworkPriority(NetworkPriority networkPriority) {
+        this.networkPriority = networkPriority;
+    }
+
+    // 졸음 알림(EMERGENCY) 요청 -> 첫 전송 시작 시간 (urgentNoti)
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        worker = new Thread(this::runWorker, "NotiDispatcher");
+        worker.start();
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+    }
+
+    // 알림 추가 (전송은 워커 스레드에서) - journal 에 기록한 뒤 리턴
+    public void dispatch(Event event, String userId, String idempotencyKey) {
+        synchronized (lock) {
+            queueVersion++;
+            if (!coalesceLocked(event)) {
+                if (queue.size() == QUEUE_CAPACITY) {
+                    Pending dropped = queue.pollFirst();
+                    droppedCount[dropped.event.ordinal()]++;
+                }
+                queue.addLast(new Pending(event, userId, idempotencyKey, System.nanoTime(), false));
+                lock.notifyAll();
+            }
+        }
+        saveJournal();
+    }
+
+    // 긴급 알림 추가 - 큐 맨 앞에 넣고 재시도 대기 중이어도 바로 전송
+    // 첫 전송 시도 전까지 NetworkPriority 로 업로드가 새 요청을 시작하지 않음
+    public void dispatchUrgent(Event event, String userId, String idempotencyKey) {
+        NetworkPriority priority = networkPriority;
+        if (priority != null) {
+            priority.beginUrgent();
+        }
+        synchronized (lock) {
+            if (queue.size() == QUEUE_CAPACITY) {
+                // 가장 최근의 일반 알림을 버림 (긴급 알림은 버리지 않음)
+                Pending dropped = queue.peekLast();
+                if (dropped != inFlight && !dropped.urgent) {
+                    queue.pollLast();
+                    droppedCount[dropped.event.ordinal()]++;
+                }
+            }
+            queue.addFirst(new Pending(event, userId, idempotencyKey, System.nanoTime(), true));
+            queueVersion++;
+            nextAttemptAtMs = 0;
+            lock.notifyAll();
+        }
+    }
+
+    // 아직 보내지 않은 반대 토글(휴식 <-> 휴식 끝)이 큐 끝에 있으면 둘 다 취소
+    private boolean coalesceLocked(Event event) {
+        Event opposite;
+        if (event == Event.REST) {
+            opposite = Event.END_REST;
+        } else if (event == Event.END_REST) {
+            opposite = Event.REST;
+        } else {
+            return false;
+        }
+        Pending last = queue.peekLast();
+        if (last != null && last != inFlight && last.event == opposite) {
+            queue.pollLast();
+            return true;
+        }
+        return false;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    // 알림 종류별 전송 통계 문자열 (디버그용)
+    public String formatMetrics() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (lock) {
+            for (Event event : Event.values()) {
+                int i = event.ordinal();
+                long count = deliveredCount[i];
+                sb.append(event.path)
+                        .append(" delivered=").append(count)
+                        .append(" avgMs=").append(count == 0 ? 0 : latencySumMs[i] / count)
+                        .append(" maxMs=").append(latencyMaxMs[i])
+                        .append(" retries=").append(retryCount[i])
+                        .append(" dropped=").append(droppedCount[i])
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    public long getAverageLatencyMs(Event event) {
+        synchronized (lock) {
+            long count = deliveredCount[event.ordinal()];
+            return count == 0 ? 0 : latencySumMs[event.ordinal()] / count;
+        }
+    }
+
+    public long getMaxLatencyMs(Event event) {
+        synchronized (lock) {
+            return latencyMaxMs[event.ordinal()];
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            saveJournal(); // 긴급 알림/전송 완료로 바뀐 큐
+            Pending pending;
+            synchronized (lock) {
+                while (running && (queue.isEmpty() || nowMs() < nextAttemptAtMs)) {
+                    long wait = queue.isEmpty() ? 0 : Math.max(1, nextAttemptAtMs - nowMs());
+                    try {
+                        lock.wait(wait);
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (!running) {
+                    break;
+                }
+                pending = queue.peekFirst();
+                inFlight = pending;
+            }
+
+            boolean done = send(pending);
+
+            synchronized (lock) {
+                inFlight = null;
+                if (done) {
+                    removeLocked(pending);
+                    queueVersion++;
+                    nextAttemptAtMs = 0;
+                } else {
+                    long backoff = Math.min(MAX_BACKOFF_MS, MIN_BACKOFF_MS << Math.min(pending.attempts - 1, 20));
+                    // 지터: 백오프의 50~100% 사이에서 무작위
+                    nextAttemptAtMs = nowMs() + backoff / 2 + (long) (jitter.nextDouble() * (backoff / 2));
+                    retryCount[pending.event.ordinal()]++;
+                    Pending first = queue.peekFirst();
+                    if (first != null && first.urgent && first.attempts == 0) {
+                        nextAttemptAtMs = 0; // 전송 중에 들어온 긴급 알림은 기다리지 않음
+                    }
+                }
+            }
+        }
+        saveJournal(); // 남은 알림은 다음 실행 때
+    }
+
+    // 전송 - 성공했거나 재시도 의미가 없으면 true
+    private boolean send(Pending pending) {
+        pending.attempts++;
+        Listener l = listener;
+        if (pending.event == Event.EMERGENCY && pending.attempts == 1) {
+            PipelineMetrics m = metrics;
+            if (m != null) {
+                m.urgentNoti.record(System.nanoTime() - pending.enqueuedAtNanos);
+            }
+        }
+        try {
+            int responseCode = transport.send(pending.event, pending.userId, pending.idempotencyKey);
+            if (responseCode >= 200 && responseCode < 300) {
+                long latency = nowMs() - pending.enqueuedAtMs;
+                synchronized (lock) {
+                    int i = pending.event.ordinal();
+                    deliveredCount[i]++;
+                    latencySumMs[i] += latency;
+                    latencyMaxMs[i] = Math.max(latencyMaxMs[i], latency);
+                }
+                if (l != null) {
+                    l.onDelivered(pending.event, responseCode, latency);
+                }
+                return true;
+            }
+            if (responseCode >= 400 && responseCode < 500 && responseCode != 408 && responseCode != 429) {
+                // 요청 자체가 잘못된 경우 - 재시도해도 같으므로 버림
+                synchronized (lock) {
+                    droppedCount[pending.event.ordinal()]++;
+                }
+                if (l != null) {
+                    l.onFailed(pending.event, "rejected: " + responseCode, pending.attempts);
+                }
+                return true;
+            }
+            if (l != null) {
+                l.onFailed(pending.event, "server error: " + responseCode, pending.attempts);
+            }
+        } catch (IOException e) {
+            if (l != null) {
+                l.onFailed(pending.event, e.getMessage(), pending.attempts);
+            }
+        } finally {
+            if (pending.urgent && pending.attempts == 1) {
+                NetworkPriority priority = networkPriority;
+                if (priority != null) {
+                    priority.endUrgent();
+                }
+            }
+        }
+        return false;
+    }
+
+    // 큐가 마지막으로 쓴 뒤 바뀌었으면 journal 을 새로 씀 (임시 파일에 쓰고 fsync 후 교체)
+    // 실패하면 메모리 큐는 그대로 두고 다음 변경 때 다시 시도
+    private void saveJournal() {
+        if (journalFile == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long version;
+            synchronized (lock) {
+                version = queueVersion;
+                if (version == savedVersion) {
+                    return;
+                }
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeInt(queue.size());
+                    for (Pending p : queue) {
+                        out.writeByte(p.event.ordinal());
+                        out.writeUTF(p.userId);
+                        out.writeUTF(p.idempotencyKey);
+                    }
+                } catch (IOException e) {
+                    return; // 메모리 스트림이라 일어나지 않음
+                }
+            }
+            try (FileOutputStream out = new FileOutputStream(journalTemp)) {
+                bytes.writeTo(out);
+                out.getFD().sync();
+            } catch (IOException e) {
+                return;
+            }
+            if (journalTemp.renameTo(journalFile)) {
+                savedVersion = version;
+            }
+        }
+    }
+
+    // 이전 실행에서 보내지 못한 알림을 큐에 (같은 키로 - 이미 갔으면 서버가 중복으로 처리)
+    // 긴급 알림도 일반 알림으로 (업로드를 멈추는 것은 처음 경보 때만)
+    private void restoreLocked() {
+        if (journalFile == null || !journalFile.exists()) {
+            return;
+        }
+        ArrayDeque<Pending> restored = new ArrayDeque<>();
+        Event[] events = Event.values();
+        try (DataInputStream in = new DataInputStream(new FileInputStream(journalFile))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int ordinal = in.readUnsignedByte();
+                String userId = in.readUTF();
+                String key = in.readUTF();
+                if (ordinal < events.length) {
+                    restored.add(new Pending(events[ordinal], userId, key, System.nanoTime(), false));
+                }
+            }
+        } catch (EOFException e) {
+            // 쓰다 만 파일 (교체 전이라 일어나지 않지만) - 읽은 것까지
+        } catch (IOException e) {
+            return;
+        }
+        while (!restored.isEmpty() && queue.size() < QUEUE_CAPACITY) {
+            queue.addLast(restored.pollFirst());
+        }
+    }
+
+    private void removeLocked(Pending pending) {
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next() == pending) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    private static long nowMs() {
+        return System.nanoTime() / 1_000_000L;
+    }
+}
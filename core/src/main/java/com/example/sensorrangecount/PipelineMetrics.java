@@ -0,0 +1,138 @@
+package com.example.sensorrangecount;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 심박수 처리 경로 계측값 (락 없음) - 디버그 화면과 주기적 스냅샷 파일에서 읽음
+// 지연 시간은 모두 나노초, sensorTo* 는 센서 타임스탬프 기준 (센서 FIFO 대기 포함)
+public class PipelineMetrics {
+    public final LatencyHistogram sensorToProcessed = new LatencyHistogram(); // 센서 이벤트 -> 감지 완료
+    public final LatencyHistogram sensorToVibrate = new LatencyHistogram(); // 센서 이벤트 -> 진동 호출 완료
+    public final LatencyHistogram batchProcessing = new LatencyHistogram(); // 묶음 하나 처리 시간
+    public final LatencyHistogram vibrateCall = new LatencyHistogram(); // vibrate() 호출 시간
+    public final LatencyHistogram uploadSend = new LatencyHistogram(); // 업로드 요청 하나 (응답까지)
+    public final LatencyHistogram urgentNoti = new LatencyHistogram(); // 졸음 알림(EMERGENCY) 요청 -> 첫 전송 시작
+
+    public final AtomicLong sensorEvents = new AtomicLong(); // 센서 이벤트 수 (0 포함)
+    public final AtomicLong samples = new AtomicLong(); // 처리한 샘플 수
+    public final AtomicLong batches = new AtomicLong();
+    public final AtomicLong alerts = new AtomicLong();
+    public final AtomicLong uploadBatchesSent = new AtomicLong();
+    public final AtomicLong uploadBatchesFailed = new AtomicLong();
+    public final AtomicLong rollupsSent = new AtomicLong(); // 서버가 받은 롤업 수 (10초/1분 합계)
+    public final AtomicLong alertBudgetMisses = new AtomicLong(); // 경보의 sensorToVibrate 가 목표(FIFO 보고 지연 + AlertLane.LATENCY_BUDGET_NANOS) 초과
+    public final AtomicLong recordDropped = new AtomicLong(); // 기록 스레드가 밀려서 버린 샘플 수
+    public final AtomicInteger uploadsInFlight = new AtomicInteger(); // 응답을 기다리는 업로드 요청 수
+
+    private volatile HeartRateUploader uploader; // 큐 길이 확인용 (없으면 0)
+    private volatile DrowsinessScore drowsinessScore; // 졸음 점수 표시용 (없으면 표시 안 함)
+
+    public void setUploader(HeartRateUploader uploader) {
+        this.uploader = uploader;
+    }
+
+    public void setDrowsinessScore(DrowsinessScore drowsinessScore) {
+        this.drowsinessScore = drowsinessScore;
+    }
+
+    public int getUploadQueueDepth() {
+        HeartRateUploader u = uploader;
+        return u == null ? 0 : u.getQueueSize();
+    }
+
+    // 한 줄 요약 (스냅샷 파일용) - 히스토그램은 이름=개수/p50/p99/max (마이크로초)
+    public void appendSnapshot(StringBuilder sb, long timeMillis) {
+        sb.append("t=").append(timeMillis)
+                .append(" events=").append(sensorEvents.get())
+                .append(" samples=").append(samples.get())
+                .append(" batches=").append(batches.get())
+                .append(" alerts=").append(alerts.get())
+                .append(" up.sent=").append(uploadBatchesSent.get())
+                .append(" up.failed=").append(uploadBatchesFailed.get())
+                .append(" up.inflight=").append(uploadsInFlight.get())
+                .append(" up.queue=").append(getUploadQueueDepth())
+                .append(" rollups=").append(rollupsSent.get())
+                .append(' ');
+        DrowsinessScore score = drowsinessScore;
+        if (score != null) {
+            sb.append("score=");
+            appendScore(sb, score.get());
+            sb.append(" score.hr=");
+            appendScore(sb, score.getHeartRatePart());
+            sb.append(" score.motion=");
+            appendScore(sb, score.getMotionPart());
+            sb.append(' ');
+        }
+        sensorToProcessed.appendSummary(sb, "lat.sensor");
+        sb.append(' ');
+        sensorToVibrate.appendSummary(sb, "lat.vibrate");
+        sb.append(" lane.miss=").append(alertBudgetMisses.get())
+                .append(" lane.dropped=").append(recordDropped.get()).append(' ');
+        urgentNoti.appendSummary(sb, "urgent");
+        sb.append(' ');
+        batchProcessing.appendSummary(sb, "batch");
+        sb.append(' ');
+        vibrateCall.appendSummary(sb, "vibrate");
+        sb.append(' ');
+        uploadSend.appendSummary(sb, "upload");
+    }
+
+    // 디버그 화면용 여러 줄 표시 (ms)
+    public void appendReadable(StringBuilder sb) {
+        sb.append("samples ").append(samples.get()).append(" / events ").append(sensorEvents.get())
+                .append('\n').append("batches ").append(batches.get())
+                .append(", alerts ").append(alerts.get()).append('\n');
+        DrowsinessScore score = drowsinessScore;
+        if (score != null) {
+            sb.append("score ");
+            appendScore(sb, score.get());
+            sb.append(" (hr ");
+            appendScore(sb, score.getHeartRatePart());
+            sb.append(", motion ");
+            appendScore(sb, score.getMotionPart());
+            sb.append(")\n");
+        }
+        appendHistogram(sb, "sensor->detect", sensorToProcessed);
+        appendHistogram(sb, "sensor->vibrate", sensorToVibrate);
+        sb.append("budget misses ").append(alertBudgetMisses.get())
+                .append(", record dropped ").append(recordDropped.get()).append('\n');
+        appendHistogram(sb, "urgent noti", urgentNoti);
+        appendHistogram(sb, "batch", batchProcessing);
+        appendHistogram(sb, "vibrate()", vibrateCall);
+        appendHistogram(sb, "upload", uploadSend);
+        sb.append("upload sent ").append(uploadBatchesSent.get())
+                .append(", failed ").append(uploadBatchesFailed.get()).append('\n')
+                .append("in flight ").append(uploadsInFlight.get())
+                .append(", queue ").append(getUploadQueueDepth()).append('\n')
+                .append("rollups sent ").append(rollupsSent.get()).append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder sb, String name, LatencyHistogram histogram) {
+        sb.append(name).append(": n=").append(histogram.getCount());
+        if (histogram.getCount() > 0) {
+            sb.append(" p50=");
+            appendMillis(sb, histogram.getPercentile(50));
+            sb.append(" p99=");
+            appendMillis(sb, histogram.getPercentile(99));
+            sb.append(" max=");
+            appendMillis(sb, histogram.getMax());
+        }
+        sb.append('\n');
+    }
+
+    // 0~1 점수를 소수점 두 자리로 (없으면 -)
+    private static void appendScore(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) {
+            sb.append('-');
+            return;
+        }
+        long hundredths = Math.round(value * 100);
+        sb.append(hundredths / 100).append('.').append(hundredths % 100 < 10 ? "0" : "").append(hundredths % 100);
+    }
+
+    // 나노초를 소수점 한 자리 ms 로
+    private static void appendMillis(StringBuilder sb, long nanos) {
+        long tenths = nanos / 100_000;
+        sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+
+// 원본 해상도 업로드 구간 관리 (롤업만 올릴 때 경보 전후/서버 요청 구간은 원본 그대로)
+// - 경보 샘플이 기록되면 [경보 - preEventMs, 경보 + postEventMs) 구간 예약 (겹치면 합침)
+// - 서버 요청은 request() 로 예약 (어느 스레드에서든)
+// - 구간이 끝난 뒤(가장 최근 샘플 시각 기준) 원본 업로드 큐(HeartRateUploader)에 넣음
+//   최근 샘플은 메모리 원형 버퍼에서, 버퍼보다 오래된 구간은 기기 저장소(HeartRateStore)에서 읽음
+// - 이미 올린 구간(최근 MAX_EXPORTED 개, 합쳐서 보관)과 겹치는 부분은 다시 보내지 않음 (예약 순서가 뒤바뀌어도)
+// - 저장소가 없으면 메모리 버퍼보다 오래된 부분은 보낼 수 없음 -> exportDue 가 그 길이를 리턴
+// - 업로드 큐에 maxQueued 개 넘게 쌓이면 멈췄다가 다음 묶음 때 이어서 (큐가 넘쳐서 버려지지 않게)
+// onSample()/exportDue() 는 기록 스레드 전용
+public class RawWindowExporter {
+    private static final int MAX_WINDOWS = 16; // 넘치면 가장 오래된 예약을 버림
+    private static final int MAX_EXPORTED = 16; // 기억하는 올린 구간 수 (넘치면 가장 오래된 구간부터 잊음)
+
+    private final HeartRateUploader uploader;
+    private final long preEventMs;
+    private final long postEventMs;
+    private final int maxQueued;
+    private HeartRateStore store; // 없으면 메모리 버퍼에 있는 만큼만
+
+    // 최근 원본 샘플 (preEventMs 이상 담을 수 있게)
+    private final long[] recentTimes;
+    private final int[] recentRates;
+    private int recentHead = 0;
+    private int recentSize = 0;
+
+    // 예약된 구간 (lock 으로 보호, 시작 시각 순서)
+    private final Object lock = new Object();
+    private final long[] windowFrom = new long[MAX_WINDOWS];
+    private final long[] windowTo = new long[MAX_WINDOWS];
+    private int windowCount = 0;
+    private long droppedWindows = 0;
+
+    // 올린 구간 [exportedFrom, exportedTo) - 시작 시각 순서, 겹치거나 맞닿으면 합침 (기록 스레드 전용)
+    private final long[] exportedFrom = new long[MAX_EXPORTED];
+    private final long[] exportedTo = new long[MAX_EXPORTED];
+    private int exportedCount = 0;
+    private long exportedSamples = 0;
+    private long unavailableMillis = 0; // 저장소가 없어서 보내지 못한 구간 길이 합
+    private long resumeAt = -1; // 큐가 차서 멈춘 경우 이어서 올릴 시각 (아니면 -1)
+
+    private final HeartRateStore.Visitor offerVisitor = (timeMillis, heartRate, flags) -> offer(timeMillis, heartRate);
+
+    public RawWindowExporter(HeartRateUploader uploader, long preEventMs, long postEventMs, int recentCapacity,
+                             int maxQueued) {
+        this.uploader = uploader;
+        this.preEventMs = preEventMs;
+        this.postEventMs = postEventMs;
+        this.maxQueued = maxQueued;
+        this.recentTimes = new long[recentCapacity];
+        this.recentRates = new int[recentCapacity];
+    }
+
+    public void setStore(HeartRateStore store) {
+        this.store = store;
+    }
+
+    // 기록된 샘플 하나 (경보 플래그면 구간 예약)
+    public void onSample(long timeMillis, int heartRate, int flags) {
+        int capacity = recentTimes.length;
+        int tail = (recentHead + recentSize) % capacity;
+        recentTimes[tail] = timeMillis;
+        recentRates[tail] = heartRate;
+        if (recentSize == capacity) {
+            recentHead = (recentHead + 1) % capacity;
+        } else {
+            recentSize++;
+        }
+        if ((flags & HeartRateStore.FLAG_ALERT) != 0) {
+            request(timeMillis - preEventMs, timeMillis + postEventMs);
+        }
+    }
+
+    // [fromMillis, toMillis) 를 원본으로 올리도록 예약 (서버 요청 등, 어느 스레드에서든)
+    public void request(long fromMillis, long toMillis) {
+        if (toMillis <= fromMillis) {
+            return;
+        }
+        synchronized (lock) {
+            if (windowCount > 0 && fromMillis <= windowTo[windowCount - 1]
+                    && fromMillis >= windowFrom[windowCount - 1]) {
+                windowTo[windowCount - 1] = Math.max(windowTo[windowCount - 1], toMillis); // 이어지는 경보
+                return;
+            }
+            if (windowCount == MAX_WINDOWS) {
+                System.arraycopy(windowFrom, 1, windowFrom, 0, MAX_WINDOWS - 1);
+                System.arraycopy(windowTo, 1, windowTo, 0, MAX_WINDOWS - 1);
+                windowCount--;
+                droppedWindows++;
+            }
+            windowFrom[windowCount] = fromMillis;
+            windowTo[windowCount] = toMillis;
+            windowCount++;
+        }
+    }
+
+    // 끝난 구간을 업로드 큐로 (묶음 처리 끝에 호출, latestMillis: 가장 최근 샘플 시각)
+    // 서버 요청 구간은 끝 시각이 지났으면 바로, 경보 구간은 경보 후 postEventMs 가 지나야 올림
+    // 리턴: 이번에 보낼 수 없었던 구간 길이 (밀리초, 저장소가 없고 메모리 버퍼보다 오래된 부분)
+    public long exportDue(long latestMillis) throws IOException {
+        long unavailableBefore = unavailableMillis;
+        while (true) {
+            long from;
+            long to;
+            synchronized (lock) {
+                int due = -1;
+                for (int i = 0; i < windowCount; i++) {
+                    if (windowTo[i] <= latestMillis) {
+                        due = i;
+                        break;
+                    }
+                }
+                if (due < 0) {
+                    return unavailableMillis - unavailableBefore;
+                }
+                from = windowFrom[due];
+                to = windowTo[due];
+                System.arraycopy(windowFrom, due + 1, windowFrom, due, windowCount - due - 1);
+                System.arraycopy(windowTo, due + 1, windowTo, due, windowCount - due - 1);
+                windowCount--;
+            }
+            if (!export(from, to)) {
+                request(resumeAt, to); // 남은 부분은 다음 묶음 때
+                return unavailableMillis - unavailableBefore;
+            }
+        }
+    }
+
+    public long getExportedSamples() {
+        return exportedSamples;
+    }
+
+    public long getUnavailableMillis() {
+        return unavailableMillis;
+    }
+
+    public long getDroppedWindows() {
+        synchronized (lock) {
+            return droppedWindows;
+        }
+    }
+
+    // 구간 하나를 업로드 큐로 (이미 올린 부분은 건너뜀) - 큐가 차서 중간에 멈췄으면 false (resumeAt 부터 남음)
+    private boolean export(long fromMillis, long toMillis) throws IOException {
+        long from = fromMillis;
+        resumeAt = -1;
+        while (from < toMillis) {
+            int i = 0;
+            while (i < exportedCount && exportedTo[i] <= from) {
+                i++;
+            }
+            if (i < exportedCount && exportedFrom[i] <= from) {
+                from = exportedTo[i]; // 이미 올린 부분
+                continue;
+            }
+            long gapTo = i < exportedCount ? Math.min(toMillis, exportedFrom[i]) : toMillis;
+            boolean complete = exportRange(from, gapTo);
+            markExported(from, complete ? gapTo : resumeAt);
+            if (!complete) {
+                return false;
+            }
+            from = gapTo;
+        }
+        return true;
+    }
+
+    // [from, to) 를 메모리 버퍼나 저장소에서 읽어서 업로드 큐로
+    private boolean exportRange(long from, long to) throws IOException {
+        boolean inRecent = recentSize > 0 && recentTimes[recentHead] <= from;
+        if (!inRecent && store != null) {
+            store.scan(from, to, offerVisitor);
+        } else {
+            if (!inRecent) {
+                long available = recentSize > 0 ? recentTimes[recentHead] : to;
+                unavailableMillis += Math.min(to, available) - from; // 버퍼보다 오래된 부분
+            }
+            int capacity = recentTimes.length;
+            for (int i = 0; i < recentSize; i++) {
+                int index = (recentHead + i) % capacity;
+                long t = recentTimes[index];
+                if (t >= from && t < to && !offer(t, recentRates[index])) {
+                    break;
+                }
+            }
+        }
+        return resumeAt < 0;
+    }
+
+    // 올린 구간 기록 - 겹치거나 맞닿은 구간과 합치고 시작 시각 순서로 넣음
+    private void markExported(long from, long to) {
+        if (to <= from) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < exportedCount; i++) {
+            if (exportedTo[i] >= from && exportedFrom[i] <= to) {
+                from = Math.min(from, exportedFrom[i]);
+                to = Math.max(to, exportedTo[i]);
+            } else {
+                exportedFrom[kept] = exportedFrom[i];
+                exportedTo[kept] = exportedTo[i];
+                kept++;
+            }
+        }
+        exportedCount = kept;
+        if (exportedCount == MAX_EXPORTED) {
+            System.arraycopy(exportedFrom, 1, exportedFrom, 0, MAX_EXPORTED - 1);
+            System.arraycopy(exportedTo, 1, exportedTo, 0, MAX_EXPORTED - 1);
+            exportedCount--;
+        }
+        int pos = exportedCount;
+        while (pos > 0 && exportedFrom[pos - 1] > from) {
+            exportedFrom[pos] = exportedFrom[pos - 1];
+            exportedTo[pos] = exportedTo[pos - 1];
+            pos--;
+        }
+        exportedFrom[pos] = from;
+        exportedTo[pos] = to;
+        exportedCount++;
+    }
+
+    // 업로드 큐에 넣음 - 큐가 maxQueued 이상이면 넣지 않고 resumeAt 을 남김
+    private boolean offer(long timeMillis, int heartRate) {
+        if (uploader.getQueueSize() >= maxQueued) {
+            resumeAt = timeMillis;
+            return false;
+        }
+        uploader.offer(timeMillis, heartRate);
+        exportedSamples++;
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+
+// 워치 <-> 폰 메시지 통로 (안드로이드: Wearable MessageClient, PC: InMemoryRelayChannel)
+public interface RelayChannel {
+
+    // 상대편에서 온 메시지 수신 (통로의 스레드에서 호출됨)
+    interface Receiver {
+        void onMessage(String path, byte[] data);
+    }
+
+    // 메시지를 받을 상대(폰)가 연결되어 있으면 true
+    boolean isConnected();
+
+    // 메시지 하나 전송 (상대가 없거나 전송 실패 시 IOException) - 받았다는 응답은 기다리지 않음
+    void send(String path, byte[] data) throws IOException;
+
+    void addReceiver(Receiver receiver);
+}
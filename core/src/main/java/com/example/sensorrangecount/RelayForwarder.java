@@ -0,0 +1,58 @@
+package com.example.sensorrangecount;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+// 폰 쪽 중계 - 워치에서 온 메시지(RelayTransport)를 서버로 보내고 응답 코드를 ack 로 돌려줌
+// 폰 앱(RelayListenerService)과 PC 용 InMemoryRelayChannel 이 같은 코드를 사용
+public class RelayForwarder {
+    private final UploadTransport upload; // 서버로 심박수 배치 전송
+    private final NotiDispatcher.Transport noti; // 서버로 운행 알림 전송
+    private volatile UploadTransport rollupUpload; // 롤업 배치 (없으면 upload 로)
+
+    public RelayForwarder(UploadTransport upload, NotiDispatcher.Transport noti) {
+        this.upload = upload;
+        this.noti = noti;
+    }
+
+    // 롤업(RollupUploader.CONTENT_TYPE) 을 받을 주소가 따로 있으면 설정
+    public void setRollupTransport(UploadTransport rollupUpload) {
+        this.rollupUpload = rollupUpload;
+    }
+
+    // 메시지 하나 처리 (서버 응답까지 블로킹) - 돌려보낼 ack (PATH_ACK), 알 수 없는 메시지면 null
+    public byte[] handle(String path, byte[] data) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int requestId;
+        try {
+            requestId = in.readInt();
+        } catch (IOException e) {
+            return null;
+        }
+        int responseCode;
+        try {
+            if (RelayTransport.PATH_HEART_RATE.equals(path)) {
+                String contentType = in.readUTF();
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                UploadTransport rollup = rollupUpload;
+                if (rollup != null && RollupUploader.CONTENT_TYPE.equals(contentType)) {
+                    responseCode = rollup.send(body, contentType);
+                } else {
+                    responseCode = upload.send(body, contentType);
+                }
+            } else if (RelayTransport.PATH_NOTI.equals(path)) {
+                NotiDispatcher.Event event = NotiDispatcher.Event.ofPath(in.readUTF());
+                String userId = in.readUTF();
+                String idempotencyKey = in.readUTF();
+                responseCode = event == null ? 400 : noti.send(event, userId, idempotencyKey);
+            } else {
+                return null;
+            }
+        } catch (IOException e) {
+            responseCode = RelayTransport.UPSTREAM_FAILED; // 워치가 직접 전송하도록
+        }
+        return RelayTransport.encodeAck(requestId, responseCode);
+    }
+}
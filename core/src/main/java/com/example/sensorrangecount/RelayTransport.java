@@ -0,0 +1,178 @@
+package com.example.sensorrangecount;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 폰을 거쳐 서버로 보내는 전송 (심박수 배치 + 운행 알림)
+// - 워치 Wi-Fi/LTE 대신 블루투스로 폰에 넘기고, 폰(RelayForwarder)이 서버로 보낸 뒤 응답 코드를 ack 로 돌려줌
+// - 폰이 연결되어 있지 않거나, 넘기지 못했거나, 폰이 서버에 닿지 못했으면 바로 HTTP 로 직접 전송
+// - ack 가 제시간에 오지 않으면 IOException (업로드/알림 큐의 재시도에 맡김 - 중복은 서버가 Idempotency-Key 로 걸러냄)
+// 메시지 (DataOutputStream):
+//   PATH_HEART_RATE: requestId(int) contentType(UTF) length(int) body
+//   PATH_NOTI:       requestId(int) event(UTF) userId(UTF) idempotencyKey(UTF)
+//   PATH_ACK:        requestId(int) responseCode(int, 서버에 닿지 못했으면 -1)
+public class RelayTransport implements UploadTransport, NotiDispatcher.Transport {
+    public static final String PATH_HEART_RATE = "/relay/heartrate";
+    public static final String PATH_NOTI = "/relay/noti";
+    public static final String PATH_ACK = "/relay/ack";
+    public static final int UPSTREAM_FAILED = -1; // 폰이 서버에 보내지 못함
+    private static final long ACK_TIMEOUT_MS = 30_000; // 폰의 HTTP 타임아웃(연결 10초 + 응답 15초)보다 길게
+
+    // 통로 하나를 여러 전송이 같이 써도 ack 가 섞이지 않도록 프로세스 전체에서 번호 발급
+    private static final AtomicInteger NEXT_REQUEST_ID = new AtomicInteger((int) System.nanoTime());
+
+    private static final class PendingAck {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile int responseCode;
+    }
+
+    private final RelayChannel channel;
+    private final UploadTransport uploadFallback; // 없으면 폰이 없을 때 IOException
+    private final NotiDispatcher.Transport notiFallback;
+    private final long ackTimeoutMs;
+    private final ConcurrentHashMap<Integer, PendingAck> pending = new ConcurrentHashMap<>();
+
+    // 전송 통계
+    private final AtomicLong relayed = new AtomicLong(); // 폰이 서버에 전달하고 ack 를 받음
+    private final AtomicLong fallbacks = new AtomicLong(); // HTTP 로 직접 전송
+    private final AtomicLong ackTimeouts = new AtomicLong();
+
+    public RelayTransport(RelayChannel channel, UploadTransport uploadFallback, NotiDispatcher.Transport notiFallback) {
+        this(channel, uploadFallback, notiFallback, ACK_TIMEOUT_MS);
+    }
+
+    public RelayTransport(RelayChannel channel, UploadTransport uploadFallback, NotiDispatcher.Transport notiFallback,
+                          long ackTimeoutMs) {
+        this.channel = channel;
+        this.uploadFallback = uploadFallback;
+        this.notiFallback = notiFallback;
+        this.ackTimeoutMs = ackTimeoutMs;
+        channel.addReceiver(this::onMessage);
+    }
+
+    // 심박수 배치
+    @Override
+    public int send(byte[] body, String contentType) throws IOException {
+        if (channel.isConnected()) {
+            int requestId = NEXT_REQUEST_ID.incrementAndGet();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(requestId);
+            out.writeUTF(contentType);
+            out.writeInt(body.length);
+            out.write(body);
+            int responseCode = relay(PATH_HEART_RATE, requestId, bytes.toByteArray());
+            if (responseCode != UPSTREAM_FAILED) {
+                return responseCode;
+            }
+        }
+        if (uploadFallback == null) {
+            throw new IOException("No relay node and no direct transport");
+        }
+        fallbacks.incrementAndGet();
+        return uploadFallback.send(body, contentType);
+    }
+
+    // 종료 때 막힌 직접 전송을 끊음 (폰 ack 대기는 업로더가 interrupt 해서 풀림)
+    @Override
+    public void cancel() {
+        if (uploadFallback != null) {
+            uploadFallback.cancel();
+        }
+    }
+
+    // 운행 알림
+    @Override
+    public int send(NotiDispatcher.Event event, String userId, String idempotencyKey) throws IOException {
+        if (channel.isConnected()) {
+            int requestId = NEXT_REQUEST_ID.incrementAndGet();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(requestId);
+            out.writeUTF(event.path);
+            out.writeUTF(userId);
+            out.writeUTF(idempotencyKey);
+            int responseCode = relay(PATH_NOTI, requestId, bytes.toByteArray());
+            if (responseCode != UPSTREAM_FAILED) {
+                return responseCode;
+            }
+        }
+        if (notiFallback == null) {
+            throw new IOException("No relay node and no direct transport");
+        }
+        fallbacks.incrementAndGet();
+        return notiFallback.send(event, userId, idempotencyKey);
+    }
+
+    // 폰에 넘기고 ack 대기 - 넘기지 못했거나 폰이 서버에 닿지 못했으면 UPSTREAM_FAILED (직접 전송으로)
+    private int relay(String path, int requestId, byte[] message) throws IOException {
+        PendingAck ack = new PendingAck();
+        pending.put(requestId, ack);
+        try {
+            try {
+                channel.send(path, message);
+            } catch (IOException e) {
+                return UPSTREAM_FAILED; // 연결이 방금 끊김
+            }
+            if (!ack.latch.await(ackTimeoutMs, TimeUnit.MILLISECONDS)) {
+                ackTimeouts.incrementAndGet();
+                throw new IOException("Relay ack timeout");
+            }
+            if (ack.responseCode != UPSTREAM_FAILED) {
+                relayed.incrementAndGet();
+            }
+            return ack.responseCode;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for relay ack");
+        } finally {
+            pending.remove(requestId);
+        }
+    }
+
+    private void onMessage(String path, byte[] data) {
+        if (!PATH_ACK.equals(path)) {
+            return;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            PendingAck ack = pending.get(in.readInt());
+            if (ack != null) { // 없으면 이미 타임아웃된 요청이거나 다른 프로세스의 요청
+                ack.responseCode = in.readInt();
+                ack.latch.countDown();
+            }
+        } catch (IOException e) {
+            // 잘린 ack - 무시 (요청 쪽은 타임아웃)
+        }
+    }
+
+    // 폰 쪽 ack 메시지
+    public static byte[] encodeAck(int requestId, int responseCode) {
+        byte[] data = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            data[i] = (byte) (requestId >>> (24 - i * 8));
+            data[4 + i] = (byte) (responseCode >>> (24 - i * 8));
+        }
+        return data;
+    }
+
+    public long getRelayedCount() {
+        return relayed.get();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    public long getAckTimeoutCount() {
+        return ackTimeouts.get();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.sensorrangecount;
+
+// 심박수 구간 통계 (롤업) - 단계(tier)마다 고정 길이 구간(예: 10초, 1분)의 개수/최소/최대/평균/표준편차
+// - 단계마다 상태는 구간 시작/개수/최소/최대/합/제곱합 뿐 (샘플당 O(1), 할당 없음)
+// - 구간은 epoch 기준으로 정렬 (10초 구간은 :00, :10, ...), 다음 구간의 샘플이 들어오면 닫아서 Sink 로 전달
+// - 늦게 도착한 샘플(이미 닫힌 구간)은 지금 구간에 포함
+// 기록 스레드 전용
+public class RollupAggregator {
+    public static final long[] DEFAULT_TIERS_MS = {10_000, 60_000};
+
+    // 닫힌 구간 하나
+    public interface Sink {
+        void onRollup(long startMillis, long bucketMillis, int count, int min, int max, double mean, double stdDev);
+    }
+
+    private final Sink sink;
+    private final long[] bucketMillis;
+    private final long[] bucketStart;
+    private final int[] count;
+    private final int[] min;
+    private final int[] max;
+    private final long[] sum;
+    private final long[] sumSquares;
+
+    public RollupAggregator(Sink sink, long... tiersMillis) {
+        if (tiersMillis.length == 0) {
+            throw new IllegalArgumentException("at least one tier");
+        }
+        this.sink = sink;
+        this.bucketMillis = tiersMillis.clone();
+        int tiers = tiersMillis.length;
+        this.bucketStart = new long[tiers];
+        this.count = new int[tiers];
+        this.min = new int[tiers];
+        this.max = new int[tiers];
+        this.sum = new long[tiers];
+        this.sumSquares = new long[tiers];
+        for (int i = 0; i < tiers; i++) {
+            if (tiersMillis[i] <= 0) {
+                throw new IllegalArgumentException("tier must be > 0");
+            }
+            bucketStart[i] = Long.MIN_VALUE;
+        }
+    }
+
+    public void add(long timeMillis, int heartRate) {
+        for (int i = 0; i < bucketMillis.length; i++) {
+            long start = timeMillis - Math.floorMod(timeMillis, bucketMillis[i]);
+            if (start > bucketStart[i]) {
+                emit(i);
+                bucketStart[i] = start;
+            }
+            if (count[i] == 0 || heartRate < min[i]) {
+                min[i] = heartRate;
+            }
+            if (count[i] == 0 || heartRate > max[i]) {
+                max[i] = heartRate;
+            }
+            count[i]++;
+            sum[i] += heartRate;
+            sumSquares[i] += (long) heartRate * heartRate;
+        }
+    }
+
+    // 열려 있는 구간을 모두 닫음 (서비스 종료 등) - 짧은 구간이 그대로 전달됨
+    public void flush() {
+        for (int i = 0; i < bucketMillis.length; i++) {
+            emit(i);
+        }
+    }
+
+    private void emit(int tier) {
+        int n = count[tier];
+        if (n == 0) {
+            return;
+        }
+        double mean = (double) sum[tier] / n;
+        double variance = Math.max(0.0, (double) sumSquares[tier] / n - mean * mean);
+        sink.onRollup(bucketStart[tier], bucketMillis[tier], n, min[tier], max[tier], mean, Math.sqrt(variance));
+        count[tier] = 0;
+        sum[tier] = 0;
+        sumSquares[tier] = 0;
+    }
+}
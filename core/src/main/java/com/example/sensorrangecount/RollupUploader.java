@@ -0,0 +1,150 @@
+package com.example.sensorrangecount;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// 롤업 업로드 큐 (RollupAggregator.Sink, 큐/journal/재전송은 JournaledUploader)
+// - 기록 스레드는 onRollup() 으로 넣고 바로 리턴, 워커 스레드가 모아서 JSON 배열 한번에 전송
+// JSON: [{"start": "2024/07/02 14:27:50", "seconds": 10, "count": 10, "min": 70, "max": 75,
+//         "mean": 72.4, "stddev": 1.2}, ...]
+public class RollupUploader extends JournaledUploader implements RollupAggregator.Sink {
+    // 서버가 원본 배치와 구분하도록 (폰 중계도 이걸로 롤업 주소를 고름)
+    public static final String CONTENT_TYPE = "application/json; type=rollup";
+
+    private static final int RECORD_BYTES = 28; // journal 레코드 (long 시작 + int 길이 + int 개수 + short 최소/최대 + float 평균/표준편차)
+
+    // 기록 스레드 -> 워커 스레드 큐 (lock 으로 보호)
+    private final Rollups queue;
+
+    // 워커 스레드 전용
+    private final Rollups batch;
+    private final Rollups replay;
+    private final StringBuilder json = new StringBuilder(1024);
+    private final TimestampFormatter formatter = new TimestampFormatter();
+
+    // 롤업 배열 묶음 (큐/배치/재전송 각각 하나)
+    private static final class Rollups {
+        final long[] starts;
+        final int[] seconds;
+        final int[] counts;
+        final int[] mins;
+        final int[] maxs;
+        final float[] means;
+        final float[] stdDevs;
+
+        Rollups(int capacity) {
+            starts = new long[capacity];
+            seconds = new int[capacity];
+            counts = new int[capacity];
+            mins = new int[capacity];
+            maxs = new int[capacity];
+            means = new float[capacity];
+            stdDevs = new float[capacity];
+        }
+    }
+
+    public RollupUploader(UploadTransport transport, File journalFile, int batchSize, long maxBatchAgeMs,
+                          int queueCapacity, long maxJournalRecords) {
+        super("RollupUploader", transport, journalFile, RECORD_BYTES, batchSize, maxBatchAgeMs, queueCapacity,
+                maxJournalRecords);
+        this.queue = new Rollups(queueCapacity);
+        this.batch = new Rollups(batchSize);
+        this.replay = new Rollups(batchSize);
+    }
+
+    // 닫힌 구간 하나 추가 (기록 스레드, 블로킹/할당 없음)
+    @Override
+    public void onRollup(long startMillis, long bucketMillis, int count, int min, int max, double mean,
+                         double stdDev) {
+        synchronized (lock) {
+            int slot = reserveLocked();
+            queue.starts[slot] = startMillis;
+            queue.seconds[slot] = (int) (bucketMillis / 1000);
+            queue.counts[slot] = count;
+            queue.mins[slot] = min;
+            queue.maxs[slot] = max;
+            queue.means[slot] = (float) mean;
+            queue.stdDevs[slot] = (float) stdDev;
+            commitLocked();
+        }
+    }
+
+    public long getDroppedRollups() {
+        return getDroppedRecords();
+    }
+
+    @Override
+    protected void moveToBatch(int queueSlot, int batchIndex) {
+        batch.starts[batchIndex] = queue.starts[queueSlot];
+        batch.seconds[batchIndex] = queue.seconds[queueSlot];
+        batch.counts[batchIndex] = queue.counts[queueSlot];
+        batch.mins[batchIndex] = queue.mins[queueSlot];
+        batch.maxs[batchIndex] = queue.maxs[queueSlot];
+        batch.means[batchIndex] = queue.means[queueSlot];
+        batch.stdDevs[batchIndex] = queue.stdDevs[queueSlot];
+    }
+
+    @Override
+    protected void writeRecord(DataOutputStream out, int batchIndex) throws IOException {
+        out.writeLong(batch.starts[batchIndex]);
+        out.writeInt(batch.seconds[batchIndex]);
+        out.writeInt(batch.counts[batchIndex]);
+        out.writeShort(batch.mins[batchIndex]);
+        out.writeShort(batch.maxs[batchIndex]);
+        out.writeFloat(batch.means[batchIndex]);
+        out.writeFloat(batch.stdDevs[batchIndex]);
+    }
+
+    @Override
+    protected void readRecord(ByteBuffer in, int replayIndex) {
+        replay.starts[replayIndex] = in.getLong();
+        replay.seconds[replayIndex] = in.getInt();
+        replay.counts[replayIndex] = in.getInt();
+        replay.mins[replayIndex] = in.getShort();
+        replay.maxs[replayIndex] = in.getShort();
+        replay.means[replayIndex] = in.getFloat();
+        replay.stdDevs[replayIndex] = in.getFloat();
+    }
+
+    @Override
+    protected int sendRecords(boolean fromJournal, int count) throws IOException {
+        return post(buildJson(fromJournal ? replay : batch, count), CONTENT_TYPE);
+    }
+
+    @Override
+    protected void countSent(PipelineMetrics metrics, int count) {
+        metrics.rollupsSent.addAndGet(count);
+    }
+
+    private byte[] buildJson(Rollups rollups, int count) {
+        json.setLength(0);
+        json.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append("{\"start\": \"");
+            formatter.append(json, rollups.starts[i]);
+            json.append("\", \"seconds\": ").append(rollups.seconds[i])
+                    .append(", \"count\": ").append(rollups.counts[i])
+                    .append(", \"min\": ").append(rollups.mins[i])
+                    .append(", \"max\": ").append(rollups.maxs[i])
+                    .append(", \"mean\": ");
+            appendTenths(json, rollups.means[i]);
+            json.append(", \"stddev\": ");
+            appendTenths(json, rollups.stdDevs[i]);
+            json.append('}');
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 소수점 한 자리 (심박수는 음수 없음)
+    private static void appendTenths(StringBuilder sb, float value) {
+        long tenths = Math.round(value * 10.0);
+        sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.sensorrangecount;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// 스레드 하나가 넣고 스레드 하나가 꺼내는(SPSC) 샘플 원형 버퍼 - 락/할당 없음
+// 항목: time(long) + stamp(long, 센서 타임스탬프 등) + value(int) + tag(int, 샘플/묶음 끝 구분 등)
+// 꺼내는 쪽은 await() 로 잠들 수 있고, 넣는 쪽이 깨움
+public class SampleRing {
+    private final long[] times;
+    private final long[] stamps;
+    private final int[] values;
+    private final int[] tags;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // 다음에 꺼낼 위치 (꺼내는 스레드만 씀)
+    private final AtomicLong tail = new AtomicLong(); // 다음에 넣을 위치 (넣는 스레드만 씀)
+    private volatile Thread waiter; // await() 중인 꺼내는 스레드
+
+    // 마지막으로 꺼낸 항목 (꺼내는 스레드 전용)
+    private long polledTime;
+    private long polledStamp;
+    private int polledValue;
+    private int polledTag;
+
+    // capacity 는 2의 거듭제곱
+    public SampleRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        times = new long[capacity];
+        stamps = new long[capacity];
+        values = new int[capacity];
+        tags = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // 항목 추가 - 가득 차면 false (넣는 스레드에서만 호출)
+    public boolean offer(long time, long stamp, int value, int tag) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        int i = (int) t & mask;
+        times[i] = time;
+        stamps[i] = stamp;
+        values[i] = value;
+        tags[i] = tag;
+        tail.set(t + 1); // volatile 쓰기 - 위 내용이 먼저 보이고, 아래 waiter 읽기와 순서가 바뀌지 않음
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return true;
+    }
+
+    // 항목 하나 꺼내기 - 비어 있으면 false (꺼내는 스레드에서만 호출, 값은 polled*() 로 읽음)
+    public boolean poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return false;
+        }
+        int i = (int) h & mask;
+        polledTime = times[i];
+        polledStamp = stamps[i];
+        polledValue = values[i];
+        polledTag = tags[i];
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    // 항목이 들어오거나 timeoutNanos 가 지날 때까지 대기 (꺼내는 스레드에서만 호출)
+    public void await(long timeoutNanos) {
+        if (!isEmpty()) {
+            return;
+        }
+        waiter = Thread.currentThread();
+        try {
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public long polledTime() {
+        return polledTime;
+    }
+
+    public long polledStamp() {
+        return polledStamp;
+    }
+
+    public int polledValue() {
+        return polledValue;
+    }
+
+    public int polledTag() {
+        return polledTag;
+    }
+}
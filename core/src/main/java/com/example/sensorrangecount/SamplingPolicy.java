@@ -0,0 +1,102 @@
+package com.example.sensorrangecount;
+
+import java.util.Locale;
+
+// 심박수 샘플링 정책 - 전력(센서를 켜 두는 시간, AP 를 깨우는 횟수)과 졸음 감지 지연 사이의 조절값
+// SamplingScheduler 가 상태(운행/휴식/대기)와 신호 안정도에 따라 어느 모드를 쓸지 고르고, 모드별 설정은 여기서 정함
+public class SamplingPolicy {
+    // 운행 중 신호가 불안정할 때 (하락 추세/변동 큼/운행 시작 직후)
+    public final int densePeriodUs;
+    public final int denseReportLatencyUs;
+    // 운행 중 신호가 안정적일 때
+    public final int stablePeriodUs;
+    public final int stableReportLatencyUs;
+    // 운행 전후(대기)와 휴식 중 - 주기(dutyCycleMs) 중 앞의 dutyOnMs 동안만 센서를 켬 (0 이면 끔)
+    public final long idleOnMs;
+    public final long restOnMs;
+    public final long dutyCycleMs;
+    public final int dutyReportLatencyUs;
+    // 안정 판단 기준
+    public final double maxStableStdDev; // 최근 2분 표준편차(bpm)가 이보다 크면 불안정
+    public final double trendDropRatio; // 최근 30초 평균이 2분 평균보다 이 비율 이상 낮으면 불안정
+    public final long denseHoldMs; // 불안정하다고 본 뒤 최소 유지 시간
+    public final long warmupMs; // 운행 시작 후 촘촘하게 샘플링하는 시간 (기준 심박수 채우기)
+
+    // 항상 켜 둠 - 주기는 원래 앱과 같은 SENSOR_DELAY_NORMAL(200ms), 보고 지연은 10초 FIFO 묶음
+    // (원래 앱은 FIFO 묶음 없이 Wake Lock 을 잡고 샘플마다 받음)
+    public static final SamplingPolicy ALWAYS_ON = new SamplingPolicy(
+            200_000, 10_000_000, 200_000, 10_000_000,
+            Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 10_000_000,
+            Double.MAX_VALUE, 1, 0, 0);
+
+    // 감지 지연 우선
+    public static final SamplingPolicy RESPONSIVE = new SamplingPolicy(
+            1_000_000, 5_000_000, 1_000_000, 15_000_000,
+            60_000, 60_000, 5 * 60_000, 30_000_000,
+            3.0, 0.03, 3 * 60_000, 5 * 60_000);
+
+    // 기본값
+    public static final SamplingPolicy BALANCED = new SamplingPolicy(
+            1_000_000, 10_000_000, 3_000_000, 30_000_000,
+            60_000, 30_000, 10 * 60_000, 60_000_000,
+            4.0, 0.04, 2 * 60_000, 5 * 60_000);
+
+    // 전력 우선 (대기/휴식 중에는 센서를 끔)
+    // 안정 구간을 5초 간격으로 하면 짧은 졸음 구간을 놓침 (SamplingReplayTest 의 놓친 경보 한도)
+    public static final SamplingPolicy POWER_SAVER = new SamplingPolicy(
+            2_000_000, 15_000_000, 3_000_000, 60_000_000,
+            0, 0, 15 * 60_000, 60_000_000,
+            4.0, 0.05, 90_000, 3 * 60_000);
+
+    public SamplingPolicy(int densePeriodUs, int denseReportLatencyUs, int stablePeriodUs, int stableReportLatencyUs,
+                          long idleOnMs, long restOnMs, long dutyCycleMs, int dutyReportLatencyUs,
+                          double maxStableStdDev, double trendDropRatio, long denseHoldMs, long warmupMs) {
+        if (dutyCycleMs <= 0) {
+            throw new IllegalArgumentException("dutyCycleMs must be > 0");
+        }
+        this.densePeriodUs = densePeriodUs;
+        this.denseReportLatencyUs = denseReportLatencyUs;
+        this.stablePeriodUs = stablePeriodUs;
+        this.stableReportLatencyUs = stableReportLatencyUs;
+        this.idleOnMs = idleOnMs;
+        this.restOnMs = restOnMs;
+        this.dutyCycleMs = dutyCycleMs;
+        this.dutyReportLatencyUs = dutyReportLatencyUs;
+        this.maxStableStdDev = maxStableStdDev;
+        this.trendDropRatio = trendDropRatio;
+        this.denseHoldMs = denseHoldMs;
+        this.warmupMs = warmupMs;
+    }
+
+    // 이름으로 찾기 (always-on/responsive/balanced/power-saver)
+    public static SamplingPolicy of(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "always-on":
+                return ALWAYS_ON;
+            case "responsive":
+                return RESPONSIVE;
+            case "balanced":
+                return BALANCED;
+            case "power-saver":
+                return POWER_SAVER;
+            default:
+                throw new IllegalArgumentException("Unknown sampling policy: " + name);
+        }
+    }
+
+    // 모드별 센서 설정 (OFF 는 등록하지 않음)
+    public int samplingPeriodUs(SamplingScheduler.Mode mode) {
+        return mode == SamplingScheduler.Mode.DENSE ? densePeriodUs : stablePeriodUs;
+    }
+
+    public int reportLatencyUs(SamplingScheduler.Mode mode) {
+        switch (mode) {
+            case DENSE:
+                return denseReportLatencyUs;
+            case STABLE:
+                return stableReportLatencyUs;
+            default:
+                return dutyReportLatencyUs;
+        }
+    }
+}
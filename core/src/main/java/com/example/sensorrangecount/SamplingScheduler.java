@@ -0,0 +1,134 @@
+package com.example.sensorrangecount;
+
+// 운행 상태와 신호 안정도에 따라 심박수 센서 모드를 고름 (스레드 안전, 센서 등록은 호출하는 쪽에서)
+// - 대기/휴식: 정책의 주기(dutyCycleMs) 중 일부만 켬 (DUTY), 켜는 시간이 0 이면 끔 (OFF)
+// - 운행: 시작 직후와 신호가 불안정할 때(하락 추세/변동 큼/경보 상태) DENSE, 안정적이면 STABLE
+// 시각은 주입한 단조 시계 기준 밀리초 (서비스는 SystemClock.elapsedRealtime - 벽시계를 바꿔도 대기/휴식 주기와
+// DENSE 유지 시간이 흔들리지 않음), onSample 의 샘플 시각도 같은 기준으로 전달
+public class SamplingScheduler {
+    private static final long STABILITY_WINDOW_MS = 2 * 60_000; // 안정도를 볼 구간
+    private static final long RECENT_WINDOW_MS = 30_000; // 추세를 볼 최근 구간
+    private static final int WINDOW_CAPACITY = 512;
+    private static final int MIN_STABILITY_SAMPLES = 10; // 이보다 적으면 불안정으로 봄
+
+    public enum Session {
+        IDLE, // 운행 시작 전/종료 후
+        DRIVING,
+        RESTING
+    }
+
+    public enum Mode {
+        OFF, // 센서 해제
+        DUTY, // 대기/휴식 중 잠깐 켬
+        STABLE, // 운행 중, 신호 안정
+        DENSE // 운행 중, 신호 불안정
+    }
+
+    private final SamplingPolicy policy;
+    private final Clock clock;
+    private final HeartRateWindow window = new HeartRateWindow(STABILITY_WINDOW_MS, WINDOW_CAPACITY);
+    private final HeartRateWindow recent = new HeartRateWindow(RECENT_WINDOW_MS, WINDOW_CAPACITY);
+    private Session session = Session.IDLE;
+    private long sessionStartMs;
+    private long denseUntilMs = 0;
+    private boolean alertActive = false;
+    private Mode mode = Mode.OFF;
+
+    public SamplingScheduler(SamplingPolicy policy, Clock clock) {
+        this.policy = policy;
+        this.clock = clock;
+        this.sessionStartMs = nowMs();
+        this.mode = evaluateLocked(sessionStartMs);
+    }
+
+    public SamplingPolicy getPolicy() {
+        return policy;
+    }
+
+    // 운행 시작/휴식/종료 - 새 모드를 리턴
+    public synchronized Mode setSession(Session session) {
+        long nowMs = nowMs();
+        if (session != this.session) {
+            this.session = session;
+            sessionStartMs = nowMs;
+            if (session == Session.DRIVING) {
+                denseUntilMs = nowMs + policy.warmupMs;
+            }
+        }
+        mode = evaluateLocked(nowMs);
+        return mode;
+    }
+
+    public synchronized Session getSession() {
+        return session;
+    }
+
+    // 센서에서 받은 샘플 (할당 없음) - elapsedMillis: 시계와 같은 기준 (센서 타임스탬프 밀리초)
+    public synchronized void onSample(long elapsedMillis, int heartRate) {
+        window.add(elapsedMillis, heartRate);
+        recent.add(elapsedMillis, heartRate);
+    }
+
+    // 졸음 경보 상태 (DrowsinessEngine.isActive) - 경보 중에는 촘촘하게
+    public synchronized void setAlertActive(boolean alertActive) {
+        this.alertActive = alertActive;
+    }
+
+    // 지금 써야 할 모드 (바뀌었는지는 호출하는 쪽에서 비교)
+    public synchronized Mode evaluate() {
+        mode = evaluateLocked(nowMs());
+        return mode;
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    // 대기/휴식 중 다음 켜기/끄기 시각 - 시계 기준 (운행 중이거나 계속 꺼져 있으면 -1)
+    public synchronized long nextDutyChangeMs() {
+        long nowMs = nowMs();
+        long onMs = dutyOnMs();
+        if (session == Session.DRIVING || onMs <= 0 || onMs >= policy.dutyCycleMs) {
+            return -1;
+        }
+        long elapsed = Math.max(0, nowMs - sessionStartMs);
+        long cycleStart = nowMs - elapsed % policy.dutyCycleMs;
+        long phase = elapsed % policy.dutyCycleMs;
+        return phase < onMs ? cycleStart + onMs : cycleStart + policy.dutyCycleMs;
+    }
+
+    private long nowMs() {
+        return clock.nanoTime() / 1_000_000;
+    }
+
+    private long dutyOnMs() {
+        return session == Session.RESTING ? policy.restOnMs : policy.idleOnMs;
+    }
+
+    private Mode evaluateLocked(long nowMs) {
+        if (session != Session.DRIVING) {
+            long onMs = dutyOnMs();
+            if (onMs <= 0) {
+                return Mode.OFF;
+            }
+            long phase = Math.max(0, nowMs - sessionStartMs) % policy.dutyCycleMs;
+            return phase < onMs ? Mode.DUTY : Mode.OFF;
+        }
+        window.evictOlderThan(nowMs - STABILITY_WINDOW_MS);
+        recent.evictOlderThan(nowMs - RECENT_WINDOW_MS);
+        if (isUnstableLocked()) {
+            denseUntilMs = Math.max(denseUntilMs, nowMs + policy.denseHoldMs);
+        }
+        return nowMs < denseUntilMs ? Mode.DENSE : Mode.STABLE;
+    }
+
+    private boolean isUnstableLocked() {
+        if (alertActive || window.size() < MIN_STABILITY_SAMPLES || recent.isEmpty()) {
+            return true;
+        }
+        if (window.standardDeviation() > policy.maxStableStdDev) {
+            return true;
+        }
+        return recent.mean() < window.mean() * (1 - policy.trendDropRatio);
+    }
+}
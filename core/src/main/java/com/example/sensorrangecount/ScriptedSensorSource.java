@@ -0,0 +1,116 @@
+package com.example.sensorrangecount;
+
+import java.util.Arrays;
+
+// 미리 정해둔 이벤트를 재생하는 센서 입력 (기기 없이 배치/처리 로직 확인용)
+// 사용 예: source.sample(t1, 70).sample(t2, 71).endBatch(); source.start(...); source.deliverAll();
+public class ScriptedSensorSource implements SensorSource {
+    private static final byte STEP_SAMPLE = 0;
+    private static final byte STEP_BATCH_END = 1;
+    private static final byte STEP_ACCURACY = 2;
+
+    private byte[] kinds = new byte[64];
+    private long[] timestamps = new long[64];
+    private float[] values = new float[64];
+    private int stepCount = 0;
+    private int position = 0; // 다음에 전달할 위치
+
+    private Listener listener;
+    private int samplingPeriodUs;
+    private int maxReportLatencyUs;
+    private int startCount = 0;
+
+    // 센서 이벤트 추가
+    public ScriptedSensorSource sample(long timestampNanos, float value) {
+        addStep(STEP_SAMPLE, timestampNanos, value);
+        return this;
+    }
+
+    // 이벤트 묶음 끝 추가
+    public ScriptedSensorSource endBatch() {
+        addStep(STEP_BATCH_END, 0, 0);
+        return this;
+    }
+
+    // 정확도 변경 추가
+    public ScriptedSensorSource accuracy(int accuracy) {
+        addStep(STEP_ACCURACY, accuracy, 0);
+        return this;
+    }
+
+    private void addStep(byte kind, long timestamp, float value) {
+        if (stepCount == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[stepCount] = kind;
+        timestamps[stepCount] = timestamp;
+        values[stepCount] = value;
+        stepCount++;
+    }
+
+    @Override
+    public boolean start(Listener listener, int samplingPeriodUs, int maxReportLatencyUs) {
+        this.listener = listener;
+        this.samplingPeriodUs = samplingPeriodUs;
+        this.maxReportLatencyUs = maxReportLatencyUs;
+        startCount++;
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        listener = null;
+    }
+
+    // 다음 묶음 끝(endBatch)까지 전달 - 더 전달할 것이 없으면 false
+    public boolean deliverNextBatch() {
+        if (listener == null || position >= stepCount) {
+            return false;
+        }
+        while (position < stepCount && listener != null) {
+            byte kind = kinds[position];
+            long timestamp = timestamps[position];
+            float value = values[position];
+            position++;
+            if (kind == STEP_SAMPLE) {
+                listener.onSample(timestamp, value);
+            } else if (kind == STEP_ACCURACY) {
+                listener.onAccuracyChanged((int) timestamp);
+            } else {
+                listener.onBatchEnd();
+                break;
+            }
+        }
+        return true;
+    }
+
+    // 남은 이벤트 모두 전달
+    public void deliverAll() {
+        while (deliverNextBatch()) {
+            // 계속 전달
+        }
+    }
+
+    public boolean isStarted() {
+        return listener != null;
+    }
+
+    public int getStartCount() {
+        return startCount;
+    }
+
+    public int getSamplingPeriodUs() {
+        return samplingPeriodUs;
+    }
+
+    public int getMaxReportLatencyUs() {
+        return maxReportLatencyUs;
+    }
+
+    public int getRemainingSteps() {
+        return stepCount - position;
+    }
+}
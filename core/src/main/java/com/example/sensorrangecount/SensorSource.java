@@ -0,0 +1,23 @@
+package com.example.sensorrangecount;
+
+// 센서 입력 추상화 - 실제 센서(AndroidSensorSource)와 스크립트 재생(ScriptedSensorSource)을 같은 방식으로 처리
+public interface SensorSource {
+
+    // 센서 이벤트 수신 (모두 같은 스레드에서 순서대로 호출됨)
+    interface Listener {
+        // 이벤트 하나 (timestampNanos: 부팅 후 경과 나노초)
+        void onSample(long timestampNanos, float value);
+
+        // 한번에 전달된 이벤트 묶음이 끝남 - 여기서 모아둔 샘플을 한번에 처리
+        void onBatchEnd();
+
+        // 센서 정확도 변경
+        void onAccuracyChanged(int accuracy);
+    }
+
+    // 센서 등록 - maxReportLatencyUs 가 0 보다 크면 센서 FIFO 에 모아서 한번에 전달
+    boolean start(Listener listener, int samplingPeriodUs, int maxReportLatencyUs);
+
+    // 센서 해제
+    void stop();
+}
@@ -0,0 +1,117 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+// SensorTraceWriter 로 기록한 트레이스 파일 읽기
+// 사용 예: try (SensorTraceReader reader = new SensorTraceReader(file)) { reader.readAll(visitor); }
+public class SensorTraceReader implements Closeable {
+
+    // 기록된 순서대로 호출됨
+    public interface Visitor {
+        void onSample(long timestampNanos, float value);
+
+        // deliveredAtNanos: 센서 FIFO 가 실제로 전달된 시각 (센서 타임스탬프와 같은 기준)
+        void onBatchEnd(long deliveredAtNanos);
+
+        void onAccuracyChanged(int accuracy);
+    }
+
+    private final DataInputStream in;
+    private final int sensorType;
+    private final long bootTimeMillis;
+    private final int samplingPeriodUs;
+    private final int maxReportLatencyUs;
+
+    public SensorTraceReader(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != SensorTraceWriter.MAGIC) {
+                throw new IOException("Not a sensor trace: " + file);
+            }
+            int version = in.readByte();
+            if (version != SensorTraceWriter.VERSION) {
+                throw new IOException("Unsupported trace version: " + version);
+            }
+            sensorType = in.readInt();
+            bootTimeMillis = in.readLong();
+            samplingPeriodUs = in.readInt();
+            maxReportLatencyUs = in.readInt();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public int getSensorType() {
+        return sensorType;
+    }
+
+    public long getBootTimeMillis() {
+        return bootTimeMillis;
+    }
+
+    public int getSamplingPeriodUs() {
+        return samplingPeriodUs;
+    }
+
+    public int getMaxReportLatencyUs() {
+        return maxReportLatencyUs;
+    }
+
+    // 남은 레코드를 모두 전달하고 레코드 수를 리턴
+    // (기록 중 프로세스가 죽어서 마지막 레코드가 잘린 경우 그 앞까지만 전달)
+    public long readAll(Visitor visitor) throws IOException {
+        long records = 0;
+        long lastTimestampNanos = 0;
+        while (true) {
+            int kind = in.read();
+            if (kind < 0) {
+                return records;
+            }
+            try {
+                if (kind == SensorTraceWriter.KIND_SAMPLE) {
+                    long timestampNanos = lastTimestampNanos + unZigZag(readVarint());
+                    float value = in.readFloat();
+                    lastTimestampNanos = timestampNanos;
+                    visitor.onSample(timestampNanos, value);
+                } else if (kind == SensorTraceWriter.KIND_BATCH_END) {
+                    visitor.onBatchEnd(lastTimestampNanos + unZigZag(readVarint()));
+                } else if (kind == SensorTraceWriter.KIND_ACCURACY) {
+                    visitor.onAccuracyChanged(in.readByte());
+                } else {
+                    throw new IOException("Corrupt trace record: " + kind);
+                }
+            } catch (EOFException e) {
+                return records;
+            }
+            records++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
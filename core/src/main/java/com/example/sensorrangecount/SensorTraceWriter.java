@@ -0,0 +1,122 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// 센서 원본 이벤트를 트레이스 파일로 기록하면서 그대로 다음 리스너에 전달 (SensorTraceReader 로 재생)
+// 파일 형식 (빅엔디안):
+// - 헤더: magic "HRTR"(4) + version(1) + sensorType(4) + bootTimeMillis(8) + samplingPeriodUs(4) + maxReportLatencyUs(4)
+// - 레코드: kind(1) + 내용
+//   SAMPLE:    zig-zag varint (타임스탬프 - 이전 타임스탬프) + float 값(4)
+//   BATCH_END: zig-zag varint (전달 시각 - 이전 타임스탬프) - 센서 FIFO 가 실제로 전달된 시각
+//   ACCURACY:  정확도(1)
+public class SensorTraceWriter implements SensorSource.Listener, Closeable {
+    static final int MAGIC = 0x48525452; // "HRTR"
+    static final byte VERSION = 1;
+    static final byte KIND_SAMPLE = 0;
+    static final byte KIND_BATCH_END = 1;
+    static final byte KIND_ACCURACY = 2;
+
+    private final DataOutputStream out;
+    private final Clock clock; // 묶음 전달 시각 기록용 (센서 타임스탬프와 같은 기준 - elapsedRealtimeNanos)
+    private final SensorSource.Listener delegate;
+    private long lastTimestampNanos = 0;
+    private long records = 0;
+    private IOException error; // 처음 발생한 쓰기 오류 (이후로는 기록하지 않고 전달만 함)
+
+    public SensorTraceWriter(File file, int sensorType, long bootTimeMillis, int samplingPeriodUs,
+                             int maxReportLatencyUs, Clock clock, SensorSource.Listener delegate) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        this.clock = clock;
+        this.delegate = delegate;
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(sensorType);
+            out.writeLong(bootTimeMillis);
+            out.writeInt(samplingPeriodUs);
+            out.writeInt(maxReportLatencyUs);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onSample(long timestampNanos, float value) {
+        if (error == null) {
+            try {
+                out.writeByte(KIND_SAMPLE);
+                writeVarint(zigZag(timestampNanos - lastTimestampNanos));
+                out.writeFloat(value);
+                lastTimestampNanos = timestampNanos;
+                records++;
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        delegate.onSample(timestampNanos, value);
+    }
+
+    @Override
+    public void onBatchEnd() {
+        if (error == null) {
+            try {
+                out.writeByte(KIND_BATCH_END);
+                writeVarint(zigZag(clock.nanoTime() - lastTimestampNanos));
+                out.flush(); // 묶음마다 디스크에 반영 (프로세스가 죽어도 앞부분은 남음)
+                records++;
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        delegate.onBatchEnd();
+    }
+
+    @Override
+    public void onAccuracyChanged(int accuracy) {
+        if (error == null) {
+            try {
+                out.writeByte(KIND_ACCURACY);
+                out.writeByte(accuracy);
+                records++;
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        delegate.onAccuracyChanged(accuracy);
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    public IOException getError() {
+        return error;
+    }
+
+    // 센서 해제 후 호출
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
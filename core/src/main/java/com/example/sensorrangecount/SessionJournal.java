@@ -0,0 +1,255 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// 운행 세션 전환(시작/휴식/재개/종료) 기록 파일 - 프로세스가 죽거나 시계가 바뀌어도 운행 시간을 다시 만들 수 있게
+// 레코드 40바이트 (big-endian): [type 4][seq 4][bootId 4][elapsed 8][wall 8][driving 8][crc32 4]
+// - elapsed: elapsedRealtime 밀리초 (같은 부팅 안에서는 이 값으로만 계산 - 벽시계 변경 영향 없음)
+// - wall: 벽시계 (다른 부팅에서 쓴 레코드를 지금 시간으로 옮길 때만)
+// - driving: 그 시점까지의 운행 시간 -> 마지막 레코드 하나로 상태를 다시 만듦 (레코드마다 체크포인트)
+// - START 때 파일을 비우고 새로 씀 -> 운행 하나 분량(레코드 몇 개)만 남아서 복원은 파일 하나 읽기
+// - write 는 호출 스레드에서 바로 (프로세스가 죽어도 커널에 남음), fsync 는 동기화 스레드가 밀린 것을 모아서 한 번 (group commit)
+// - 끝의 깨진 레코드(쓰다가 꺼짐)는 CRC/순번으로 걸러서 잘라냄
+public class SessionJournal {
+    public static final int START = 1;
+    public static final int REST = 2;
+    public static final int RESUME = 3;
+    public static final int STOP = 4;
+    static final int RECORD_BYTES = 40;
+
+    // 레코드 하나
+    public static class Entry {
+        public final int type;
+        public final int bootId;
+        public final long elapsedMillis;
+        public final long wallMillis;
+        public final long drivingMillis;
+
+        Entry(int type, int bootId, long elapsedMillis, long wallMillis, long drivingMillis) {
+            this.type = type;
+            this.bootId = bootId;
+            this.elapsedMillis = elapsedMillis;
+            this.wallMillis = wallMillis;
+            this.drivingMillis = drivingMillis;
+        }
+    }
+
+    private final File file;
+    private final Object lock = new Object();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES); // lock 안에서만
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private Thread syncer;
+    private boolean running = false;
+    private int seq = 0; // 마지막으로 쓴 순번 (START 가 1)
+    private long startWallMillis = 0; // 지금 운행의 START 레코드 벽시계 (운행 ID, 없으면 0)
+    private long appended = 0; // 쓴 레코드 수 (누적)
+    private long synced = 0; // fsync 까지 끝난 레코드 수
+    private long syncs = 0; // fsync 횟수
+    private IOException syncError;
+
+    public SessionJournal(File file) {
+        this.file = file;
+    }
+
+    // 파일을 열고 마지막 유효 레코드를 리턴 (없으면 null) - 깨진 끝부분은 잘라냄, 동기화 스레드 시작
+    public Entry open() throws IOException {
+        synchronized (lock) {
+            if (channel != null) {
+                throw new IllegalStateException("already open");
+            }
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            try {
+                return recover();
+            } catch (IOException e) {
+                channel.close();
+                channel = null;
+                throw e;
+            }
+        }
+    }
+
+    // 레코드를 처음부터 확인해서 마지막 유효 레코드까지 남김 (lock 안에서)
+    private Entry recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer all = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (all.hasRemaining() && channel.read(all, all.position()) >= 0) {
+            // 끝까지 읽음
+        }
+        all.flip();
+        Entry last = null;
+        int valid = 0;
+        while (all.remaining() >= RECORD_BYTES) {
+            int start = all.position();
+            crc.reset();
+            crc.update(all.array(), start, RECORD_BYTES - 4);
+            int type = all.getInt();
+            int recordSeq = all.getInt();
+            int bootId = all.getInt();
+            long elapsed = all.getLong();
+            long wall = all.getLong();
+            long driving = all.getLong();
+            int checksum = all.getInt();
+            if (checksum != (int) crc.getValue() || recordSeq != seq + 1 || (recordSeq == 1) != (type == START)) {
+                break;
+            }
+            seq = recordSeq;
+            if (type == START) {
+                startWallMillis = wall;
+            }
+            last = new Entry(type, bootId, elapsed, wall, driving);
+            valid = start + RECORD_BYTES;
+        }
+        if (valid != size) {
+            channel.truncate(valid);
+            channel.force(false);
+        }
+        running = true;
+        syncer = new Thread(this::runSyncer, "SessionJournal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        return last;
+    }
+
+    // 레코드 추가 (START 면 파일을 비우고 처음부터) - fsync 는 기다리지 않음
+    public void append(int type, int bootId, long elapsedMillis, long wallMillis, long drivingMillis)
+            throws IOException {
+        synchronized (lock) {
+            if (channel == null) {
+                throw new IllegalStateException("not open");
+            }
+            if (type == START) {
+                channel.truncate(0);
+                seq = 0;
+                startWallMillis = wallMillis;
+            }
+            record.clear();
+            record.putInt(type).putInt(seq + 1).putInt(bootId)
+                    .putLong(elapsedMillis).putLong(wallMillis).putLong(drivingMillis);
+            crc.reset();
+            crc.update(record.array(), 0, RECORD_BYTES - 4);
+            record.putInt((int) crc.getValue());
+            record.flip();
+            long position = channel.size();
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            seq++;
+            appended++;
+            lock.notifyAll();
+        }
+    }
+
+    // 지금까지 쓴 레코드가 fsync 될 때까지 대기
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            while (running && synced < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted");
+                }
+            }
+            if (syncError != null) {
+                IOException e = syncError;
+                syncError = null;
+                throw e;
+            }
+        }
+    }
+
+    // 지금(또는 마지막) 운행의 ID - START 레코드의 벽시계 (기록에서 복원되므로 프로세스가 바뀌어도 같음)
+    public long getSessionId() {
+        synchronized (lock) {
+            return startWallMillis;
+        }
+    }
+
+    // 마지막으로 쓴 레코드의 운행 안 순번 (START 가 1, 레코드마다 하나씩)
+    public int getSequence() {
+        synchronized (lock) {
+            return seq;
+        }
+    }
+
+    public long getAppends() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    public long getSyncs() {
+        synchronized (lock) {
+            return syncs;
+        }
+    }
+
+    // 남은 레코드를 fsync 하고 닫음
+    public void close() throws IOException {
+        Thread t;
+        synchronized (lock) {
+            if (channel == null) {
+                return;
+            }
+            running = false;
+            lock.notifyAll();
+            t = syncer;
+        }
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            try {
+                channel.force(false);
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    // 동기화 스레드: 쓴 레코드가 있으면 fsync 한 번 (그동안 들어온 레코드는 다음 fsync 에 같이)
+    private void runSyncer() {
+        while (true) {
+            long target;
+            FileChannel c;
+            synchronized (lock) {
+                while (running && synced == appended) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (!running) {
+                    return; // 남은 것은 close() 에서
+                }
+                target = appended;
+                c = channel;
+            }
+            IOException error = null;
+            try {
+                c.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (lock) {
+                synced = target;
+                syncs++;
+                if (error != null) {
+                    syncError = error;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.sensorrangecount;
+
+// 기준 심박수 * ratio 아래로 minDurationMs 이상 계속 머물면 감지
+public class SustainedBelowDetector implements DrowsinessDetector {
+    private final double ratio; // 기준 대비 비율 (예: 0.93)
+    private final long minDurationMs; // 최소 지속 시간
+    private long belowSince = -1; // 기준 아래로 내려간 시각 (-1 = 기준 위)
+
+    public SustainedBelowDetector(double ratio, long minDurationMs) {
+        this.ratio = ratio;
+        this.minDurationMs = minDurationMs;
+    }
+
+    @Override
+    public boolean update(long timeMillis, int heartRate, double baseline) {
+        if (heartRate >= baseline * ratio) {
+            belowSince = -1;
+            return false;
+        }
+        if (belowSince < 0) {
+            belowSince = timeMillis;
+        }
+        return timeMillis - belowSince >= minDurationMs;
+    }
+
+    @Override
+    public void reset() {
+        belowSince = -1;
+    }
+}
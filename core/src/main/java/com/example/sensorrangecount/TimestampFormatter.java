@@ -0,0 +1,96 @@
+package com.example.sensorrangecount;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+// "yyyy/MM/dd HH:mm:ss" 포맷터 - 시(hour) 단위로 앞부분을 캐시하고 분/초만 계산해서 할당 없이 StringBuilder 에 추가
+// (SimpleDateFormat 과 같은 결과, 스레드 하나에서만 사용)
+public class TimestampFormatter {
+    private static final long HOUR_MS = 60 * 60_000;
+
+    private final TimeZone zone;
+    private final Calendar calendar;
+    private final char[] hourPrefix = new char[14]; // "yyyy/MM/dd HH:"
+    private long hourStart = Long.MAX_VALUE; // 캐시된 시각(hour) 시작 (epoch 밀리초)
+    private long hourEnd = Long.MIN_VALUE;
+
+    public TimestampFormatter() {
+        this(TimeZone.getDefault());
+    }
+
+    public TimestampFormatter(TimeZone zone) {
+        this.zone = zone;
+        this.calendar = Calendar.getInstance(zone);
+    }
+
+    public void append(StringBuilder sb, long timeMillis) {
+        if ((timeMillis < hourStart || timeMillis >= hourEnd) && !updateHour(timeMillis)) {
+            appendUncached(sb, timeMillis);
+            return;
+        }
+        int secondsInHour = (int) ((timeMillis - hourStart) / 1000);
+        sb.append(hourPrefix);
+        appendTwoDigits(sb, secondsInHour / 60);
+        sb.append(':');
+        appendTwoDigits(sb, secondsInHour % 60);
+    }
+
+    public String format(long timeMillis) {
+        StringBuilder sb = new StringBuilder(19);
+        append(sb, timeMillis);
+        return sb.toString();
+    }
+
+    // 현지 시각 기준 시(hour) 시작을 오프셋으로 계산
+    // 시 중간에 오프셋이 바뀌는 경우(30분 서머타임 등)에는 캐시하지 않고 false 반환
+    private boolean updateHour(long timeMillis) {
+        int offset = zone.getOffset(timeMillis);
+        long start = timeMillis - Math.floorMod(timeMillis + offset, HOUR_MS);
+        if (zone.getOffset(start) != offset) {
+            hourStart = Long.MAX_VALUE;
+            hourEnd = Long.MIN_VALUE;
+            return false;
+        }
+        hourStart = start;
+        hourEnd = start + HOUR_MS;
+        calendar.setTimeInMillis(start);
+
+        int year = calendar.get(Calendar.YEAR);
+        hourPrefix[0] = (char) ('0' + year / 1000 % 10);
+        hourPrefix[1] = (char) ('0' + year / 100 % 10);
+        hourPrefix[2] = (char) ('0' + year / 10 % 10);
+        hourPrefix[3] = (char) ('0' + year % 10);
+        hourPrefix[4] = '/';
+        putTwoDigits(5, calendar.get(Calendar.MONTH) + 1);
+        hourPrefix[7] = '/';
+        putTwoDigits(8, calendar.get(Calendar.DAY_OF_MONTH));
+        hourPrefix[10] = ' ';
+        putTwoDigits(11, calendar.get(Calendar.HOUR_OF_DAY));
+        hourPrefix[13] = ':';
+        return true;
+    }
+
+    // 캐시 없이 Calendar 로 바로 포맷
+    private void appendUncached(StringBuilder sb, long timeMillis) {
+        calendar.setTimeInMillis(timeMillis);
+        sb.append(calendar.get(Calendar.YEAR)).append('/');
+        appendTwoDigits(sb, calendar.get(Calendar.MONTH) + 1);
+        sb.append('/');
+        appendTwoDigits(sb, calendar.get(Calendar.DAY_OF_MONTH));
+        sb.append(' ');
+        appendTwoDigits(sb, calendar.get(Calendar.HOUR_OF_DAY));
+        sb.append(':');
+        appendTwoDigits(sb, calendar.get(Calendar.MINUTE));
+        sb.append(':');
+        appendTwoDigits(sb, calendar.get(Calendar.SECOND));
+    }
+
+    private void putTwoDigits(int index, int value) {
+        hourPrefix[index] = (char) ('0' + value / 10);
+        hourPrefix[index + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
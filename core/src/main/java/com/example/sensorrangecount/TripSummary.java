@@ -0,0 +1,264 @@
+package com.example.sensorrangecount;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// 운행 하나의 요약 - 운행 종료 때 운행 시간과 같이 서버로 한 번에 전송 (서버가 원본을 다시 집계하지 않도록)
+// 샘플마다 한 번 갱신 (O(1), 할당 없음), 메모리는 운행 길이와 무관 (히스토그램 1KB + 필드 몇 개)
+// - 심박수 분포: 0~255 bpm 히스토그램 -> 1 bpm 단위라 백분위수가 원본을 정렬한 것과 같음 (nearest-rank)
+// - 기준 심박수 x ratio 아래에 있던 시간: 샘플 간격으로 적산 (MAX_GAP_MS 넘는 간격은 MAX_GAP_MS 까지만)
+// - 경보 구간: 엔진 경보 상태 진입~해제 (수, 총 시간, 가장 긴 구간) + 진동 수
+// - 휴식: 수, 총 시간 (서비스가 시작/종료 시각을 알려줌)
+// - 기준 심박수 변화: 처음/마지막 값 + 운행 경과 시간에 대한 기울기 (bpm/시간, 최소제곱)
+// 휴식 중 샘플은 분포/시간에 넣지 않음
+// 샘플은 감지 스레드, 시작/휴식/종료는 서비스 스레드 (모두 synchronized, 경합은 거의 없음)
+public class TripSummary {
+    static final int MAX_BPM = 255;
+    static final long MAX_GAP_MS = 10_000; // 이보다 긴 샘플 간격은 센서가 꺼졌던 것으로 봄
+    private static final double HOUR_MS = 60 * 60_000.0;
+    private static final int[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    private final double ratio; // 감지 기준 (DrowsinessEngine 과 같은 값)
+    private final TimestampFormatter formatter = new TimestampFormatter();
+
+    private final int[] histogram = new int[MAX_BPM + 1];
+    private long startMillis = -1;
+    private long lastMillis = -1;
+    private long samples = 0;
+    private long sum = 0;
+
+    private long prevMillis = -1; // 바로 전 샘플 (휴식/시작 직후면 -1)
+    private boolean prevBelow = false;
+    private long monitoredMs = 0;
+    private long belowMs = 0;
+
+    private int episodes = 0;
+    private long episodeStart = -1; // 진행 중인 경보 구간 시작 (없으면 -1)
+    private long episodeMs = 0;
+    private long longestEpisodeMs = 0;
+    private int alerts = 0;
+
+    private int rests = 0;
+    private long restStart = -1;
+    private long restMs = 0;
+
+    private double baselineFirst = Double.NaN;
+    private double baselineLast = Double.NaN;
+    private long baselineCount = 0;
+    private double sumX = 0; // 운행 경과 시간 (시간 단위)
+    private double sumY = 0;
+    private double sumXX = 0;
+    private double sumXY = 0;
+
+    public TripSummary(double ratio) {
+        this.ratio = ratio;
+    }
+
+    // 새 운행 시작 (이전 값은 모두 지움)
+    public synchronized void begin(long timeMillis) {
+        Arrays.fill(histogram, 0);
+        startMillis = timeMillis;
+        lastMillis = timeMillis;
+        samples = 0;
+        sum = 0;
+        prevMillis = -1;
+        prevBelow = false;
+        monitoredMs = 0;
+        belowMs = 0;
+        episodes = 0;
+        episodeStart = -1;
+        episodeMs = 0;
+        longestEpisodeMs = 0;
+        alerts = 0;
+        rests = 0;
+        restStart = -1;
+        restMs = 0;
+        baselineFirst = Double.NaN;
+        baselineLast = Double.NaN;
+        baselineCount = 0;
+        sumX = 0;
+        sumY = 0;
+        sumXX = 0;
+        sumXY = 0;
+    }
+
+    // 감지 결과가 나온 샘플 하나 (baseline: 감지에 쓴 기준 심박수, 없으면 NaN)
+    public synchronized void add(long timeMillis, int heartRate, double baseline, boolean resting, boolean active,
+                                 boolean alert) {
+        if (startMillis < 0) {
+            return;
+        }
+        if (timeMillis > lastMillis) {
+            lastMillis = timeMillis;
+        }
+        if (resting) {
+            prevMillis = -1; // 휴식 시간은 감시 시간에서 뺌
+            closeEpisode(timeMillis);
+            return;
+        }
+        if (prevMillis >= 0 && timeMillis > prevMillis) {
+            long dt = Math.min(timeMillis - prevMillis, MAX_GAP_MS);
+            monitoredMs += dt;
+            if (prevBelow) {
+                belowMs += dt;
+            }
+        }
+        prevMillis = timeMillis;
+        prevBelow = !Double.isNaN(baseline) && heartRate < baseline * ratio;
+
+        if (active && episodeStart < 0) {
+            episodes++;
+            episodeStart = timeMillis;
+        } else if (!active) {
+            closeEpisode(timeMillis);
+        }
+        if (alert) {
+            alerts++;
+        }
+
+        histogram[Math.max(0, Math.min(MAX_BPM, heartRate))]++;
+        samples++;
+        sum += heartRate;
+
+        if (!Double.isNaN(baseline)) {
+            if (Double.isNaN(baselineFirst)) {
+                baselineFirst = baseline;
+            }
+            baselineLast = baseline;
+            double x = (timeMillis - startMillis) / HOUR_MS;
+            baselineCount++;
+            sumX += x;
+            sumY += baseline;
+            sumXX += x * x;
+            sumXY += x * baseline;
+        }
+    }
+
+    public synchronized void restStarted(long timeMillis) {
+        if (startMillis >= 0 && restStart < 0) {
+            rests++;
+            restStart = timeMillis;
+        }
+    }
+
+    public synchronized void restEnded(long timeMillis) {
+        if (restStart >= 0) {
+            restMs += Math.max(0, timeMillis - restStart);
+            restStart = -1;
+        }
+    }
+
+    // nearest-rank 백분위수 (샘플이 없으면 -1)
+    public synchronized int percentile(double percentile) {
+        if (samples == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * samples));
+        long seen = 0;
+        for (int bpm = 0; bpm <= MAX_BPM; bpm++) {
+            seen += histogram[bpm];
+            if (seen >= rank) {
+                return bpm;
+            }
+        }
+        return MAX_BPM;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized long getBelowThresholdMs() {
+        return belowMs;
+    }
+
+    public synchronized long getMonitoredMs() {
+        return monitoredMs;
+    }
+
+    public synchronized int getEpisodes() {
+        return episodes;
+    }
+
+    public synchronized int getAlerts() {
+        return alerts;
+    }
+
+    // 기준 심박수 기울기 (bpm/시간, 값이 두 개 미만이거나 시간이 한 점이면 NaN)
+    public synchronized double baselineSlopePerHour() {
+        double denominator = baselineCount * sumXX - sumX * sumX;
+        if (baselineCount < 2 || denominator <= 0) {
+            return Double.NaN;
+        }
+        return (baselineCount * sumXY - sumX * sumY) / denominator;
+    }
+
+    // 운행 시간 전송용 JSON - 기존 {"drivingTime": "hh:mm:ss"} 에 "summary" 를 붙임
+    // endMillis: 운행 종료 시각 (진행 중인 경보 구간/휴식은 여기서 닫은 것으로 계산)
+    public synchronized String toJson(long drivingMillis, long endMillis) {
+        long end = Math.max(endMillis, lastMillis);
+        long openEpisode = episodeStart >= 0 ? end - episodeStart : 0;
+        long openRest = restStart >= 0 ? Math.max(0, end - restStart) : 0;
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"drivingTime\": \"");
+        appendDuration(sb, drivingMillis);
+        sb.append("\", \"summary\": {\"start\": \"");
+        formatter.append(sb, startMillis >= 0 ? startMillis : end);
+        sb.append("\", \"end\": \"");
+        formatter.append(sb, end);
+        sb.append("\", \"samples\": ").append(samples);
+        sb.append(", \"heartrate\": {");
+        if (samples > 0) {
+            sb.append("\"min\": ").append(percentile(0));
+            for (int p : PERCENTILES) {
+                sb.append(", \"p").append(p).append("\": ").append(percentile(p));
+            }
+            sb.append(", \"max\": ").append(percentile(100));
+            sb.append(", \"mean\": ").append(String.format(Locale.ROOT, "%.1f", (double) sum / samples));
+        }
+        sb.append("}, \"monitoredSec\": ").append(monitoredMs / 1000);
+        sb.append(", \"belowThresholdSec\": ").append(belowMs / 1000);
+        sb.append(", \"episodes\": {\"count\": ").append(episodes);
+        sb.append(", \"alerts\": ").append(alerts);
+        sb.append(", \"totalSec\": ").append((episodeMs + openEpisode) / 1000);
+        sb.append(", \"longestSec\": ").append(Math.max(longestEpisodeMs, openEpisode) / 1000);
+        sb.append("}, \"rests\": {\"count\": ").append(rests);
+        sb.append(", \"totalSec\": ").append((restMs + openRest) / 1000);
+        sb.append("}, \"baseline\": {");
+        if (!Double.isNaN(baselineFirst)) {
+            double slope = baselineSlopePerHour();
+            sb.append(String.format(Locale.ROOT, "\"start\": %.1f, \"end\": %.1f", baselineFirst, baselineLast));
+            if (!Double.isNaN(slope)) {
+                sb.append(String.format(Locale.ROOT, ", \"slopePerHour\": %.2f", slope));
+            }
+        }
+        sb.append("}}}");
+        return sb.toString();
+    }
+
+    private void closeEpisode(long timeMillis) {
+        if (episodeStart >= 0) {
+            long length = Math.max(0, timeMillis - episodeStart);
+            episodeMs += length;
+            longestEpisodeMs = Math.max(longestEpisodeMs, length);
+            episodeStart = -1;
+        }
+    }
+
+    // hh:mm:ss (MainActivity 가 보내던 형식)
+    private static void appendDuration(StringBuilder sb, long millis) {
+        long seconds = millis / 1000;
+        appendTwoDigits(sb, seconds / 3600);
+        sb.append(':');
+        appendTwoDigits(sb, seconds / 60 % 60);
+        sb.append(':');
+        appendTwoDigits(sb, seconds % 60);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, long value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+
+// 업로드 전송 방식 (HTTP, 테스트용 로컬 서버 등으로 교체 가능)
+public interface UploadTransport {
+
+    // body 를 전송하고 HTTP 응답 코드를 반환 (네트워크 오류 시 IOException)
+    int send(byte[] body, String contentType) throws IOException;
+
+    // 진행 중인 send() 를 끊음 (종료할 때 다른 스레드에서 호출, 끊긴 send() 는 IOException)
+    default void cancel() {
+    }
+}
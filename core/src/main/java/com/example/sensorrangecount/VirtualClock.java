@@ -0,0 +1,22 @@
+package com.example.sensorrangecount;
+
+// 재생용 가상 시계 - advanceTo() 로만 시간이 흐름 (뒤로 가지 않음)
+public class VirtualClock implements Clock {
+    private volatile long nanos;
+
+    public VirtualClock(long startNanos) {
+        this.nanos = startNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+
+    // 지정한 시각으로 이동 (이미 지난 시각이면 그대로)
+    public void advanceTo(long timeNanos) {
+        if (timeNanos > nanos) {
+            nanos = timeNanos;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.sensorrangecount;
+
+// 여러 감지기 중 required 개 이상이 감지하면 감지 (모든 감지기의 상태는 매 샘플 갱신)
+public class VoteDetector implements DrowsinessDetector {
+    private final int required; // 필요한 감지 수
+    private final DrowsinessDetector[] detectors;
+
+    public VoteDetector(int required, DrowsinessDetector... detectors) {
+        if (required < 1 || required > detectors.length) {
+            throw new IllegalArgumentException("required must be between 1 and " + detectors.length);
+        }
+        this.required = required;
+        this.detectors = detectors.clone();
+    }
+
+    @Override
+    public boolean update(long timeMillis, int heartRate, double baseline) {
+        int votes = 0;
+        for (DrowsinessDetector detector : detectors) {
+            if (detector.update(timeMillis, heartRate, baseline)) {
+                votes++;
+            }
+        }
+        return votes >= required;
+    }
+
+    @Override
+    public void reset() {
+        for (DrowsinessDetector detector : detectors) {
+            detector.reset();
+        }
+    }
+}
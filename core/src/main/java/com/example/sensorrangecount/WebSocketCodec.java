@@ -0,0 +1,166 @@
+package com.example.sensorrangecount;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+// 실시간 스트림에 필요한 만큼만 구현한 WebSocket (RFC 6455) - 핸드셰이크, 바이너리/ping/pong/close 프레임
+// - 조각난(fragmented) 메시지, 확장, 텍스트 프레임은 쓰지 않음
+// - 클라이언트가 보내는 프레임은 마스킹, 서버 프레임은 마스킹 없음
+// LiveStreamClient 와 LiveStreamServer 가 같이 사용
+final class WebSocketCodec {
+    static final int OP_BINARY = 0x2;
+    static final int OP_CLOSE = 0x8;
+    static final int OP_PING = 0x9;
+    static final int OP_PONG = 0xA;
+    static final int MAX_HEADER = 14;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private WebSocketCodec() {}
+
+    // Sec-WebSocket-Accept 값
+    static String acceptOf(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // HTTP 헤더 한 줄 (CRLF 제외, 헤더 끝이면 빈 문자열)
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new EOFException("connection closed during handshake");
+            }
+            if (c == '\n') {
+                int n = sb.length();
+                return n > 0 && sb.charAt(n - 1) == '\r' ? sb.substring(0, n - 1) : sb.toString();
+            }
+            if (sb.length() > 8192) {
+                throw new IOException("handshake line too long");
+            }
+            sb.append((char) c);
+        }
+    }
+
+    // buf[offset] 부터 프레임 헤더 + (마스킹한) payload 를 쓰고 끝 위치를 리턴
+    // masked: 클라이언트 프레임 (maskKey 로 마스킹)
+    static int writeFrame(byte[] buf, int offset, int opcode, byte[] payload, int payloadOffset, int length,
+                          int maskKey, boolean masked) {
+        int p = offset;
+        buf[p++] = (byte) (0x80 | opcode);
+        int maskBit = masked ? 0x80 : 0;
+        if (length < 126) {
+            buf[p++] = (byte) (maskBit | length);
+        } else if (length <= 0xFFFF) {
+            buf[p++] = (byte) (maskBit | 126);
+            buf[p++] = (byte) (length >>> 8);
+            buf[p++] = (byte) length;
+        } else {
+            buf[p++] = (byte) (maskBit | 127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[p++] = (byte) ((long) length >>> shift);
+            }
+        }
+        if (masked) {
+            buf[p++] = (byte) (maskKey >>> 24);
+            buf[p++] = (byte) (maskKey >>> 16);
+            buf[p++] = (byte) (maskKey >>> 8);
+            buf[p++] = (byte) maskKey;
+            for (int i = 0; i < length; i++) {
+                buf[p + i] = (byte) (payload[payloadOffset + i] ^ (maskKey >>> (24 - 8 * (i & 3))));
+            }
+        } else {
+            System.arraycopy(payload, payloadOffset, buf, p, length);
+        }
+        return p + length;
+    }
+
+    // 프레임 하나를 읽어서 payload 를 buf 에 (마스킹은 풀어서) - opcode 를 리턴, 길이는 length[0]
+    static int readFrame(InputStream in, byte[] buf, int[] length) throws IOException {
+        int b0 = readByte(in);
+        int b1 = readByte(in);
+        if ((b0 & 0x80) == 0) {
+            throw new IOException("fragmented frames not supported");
+        }
+        long n = b1 & 0x7F;
+        if (n == 126) {
+            n = (readByte(in) << 8) | readByte(in);
+        } else if (n == 127) {
+            n = 0;
+            for (int i = 0; i < 8; i++) {
+                n = (n << 8) | readByte(in);
+            }
+        }
+        if (n > buf.length) {
+            throw new IOException("frame too large: " + n);
+        }
+        int mask = 0;
+        boolean masked = (b1 & 0x80) != 0;
+        if (masked) {
+            for (int i = 0; i < 4; i++) {
+                mask = (mask << 8) | readByte(in);
+            }
+        }
+        readFully(in, buf, (int) n);
+        if (masked) {
+            for (int i = 0; i < n; i++) {
+                buf[i] ^= (byte) (mask >>> (24 - 8 * (i & 3)));
+            }
+        }
+        length[0] = (int) n;
+        return b0 & 0x0F;
+    }
+
+    static void writeControl(OutputStream out, int opcode, int maskKey, boolean masked) throws IOException {
+        byte[] frame = new byte[MAX_HEADER];
+        int end = writeFrame(frame, 0, opcode, frame, 0, 0, maskKey, masked);
+        out.write(frame, 0, end);
+        out.flush();
+    }
+
+    static long getLong(byte[] b, int p) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[p + i] & 0xFF);
+        }
+        return v;
+    }
+
+    static int putLong(byte[] b, int p, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[p++] = (byte) (v >>> (8 * i));
+        }
+        return p;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("connection closed");
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] buf, int n) throws IOException {
+        int read = 0;
+        while (read < n) {
+            int r = in.read(buf, read, n - read);
+            if (r < 0) {
+                throw new EOFException("connection closed");
+            }
+            read += r;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// 업로드가 밀린 상황에서 졸음 경보 지연 시간 (센서 타임스탬프 -> 진동) 이 목표 안인지, 기록 단계가 샘플을 잃지 않는지
+// - 느린 업로드 서버 + 업로드와 같이 쓰는 알림 네트워크 + 가끔 멈추는 구독자(I/O 지연 흉내)
+// - 센서 허브 흉내: 1초 간격 샘플을 BATCH 개씩 FIFO 에 모았다가 한번에 전달 (시간은 압축해서 PERIOD_MS 마다 한 묶음)
+//   센서 시계는 묶음을 전달할 때 마지막 샘플 시각에 맞추고 그 뒤로는 실제 시간만큼 흐름
+//   -> 묶음 안의 앞쪽 샘플은 FIFO 에서 기다린 시간까지 지연에 들어감 (목표 = 보고 지연 + LATENCY_BUDGET_NANOS)
+public class AlertLaneLatencyTest {
+    private static final long BOOT_MILLIS = 1_700_000_000_000L;
+    private static final long SAMPLE_NANOS = 1_000_000_000L; // 센서 샘플 간격 (1초)
+    private static final int BASELINE_RATE = 75; // 평소 심박수
+    private static final int DROWSY_RATE = 62; // 졸음 구간 심박수 (약 17% 하락)
+    private static final int EPISODE_SAMPLES = 240; // 졸음 구간 하나 주기
+    private static final int DROWSY_SAMPLES = 60; // 주기 중 졸음 구간 길이
+    private static final int EPISODES = 20;
+    private static final int BATCH = 10; // FIFO 한 묶음 (보고 지연 10초)
+    private static final long PERIOD_MS = 25; // 묶음 전달 간격 (실제 시간, 처리 목표보다 길게)
+    private static final long STALL_MS = 40; // 구독자가 멈추는 시간
+    private static final int STALL_EVERY = 100; // 몇 샘플마다 멈추는지
+    private static final long UPLOAD_MS = 300; // 업로드 요청 하나
+    private static final long NOTI_MS = 20; // 알림 요청 하나
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 센서 타임스탬프와 같은 기준의 시계 (묶음마다 다시 맞춤)
+    private static final class SensorHubClock implements Clock {
+        private volatile long offsetNanos;
+
+        void alignTo(long sensorNanos) {
+            offsetNanos = sensorNanos - System.nanoTime();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime() + offsetNanos;
+        }
+    }
+
+    @Test(timeout = 120_000)
+    public void alertLatencyStaysInBudgetUnderUploadBacklog() throws IOException, InterruptedException {
+        File dir = folder.getRoot();
+        final SensorHubClock clock = new SensorHubClock();
+        final PipelineMetrics metrics = new PipelineMetrics();
+
+        // 네트워크 하나를 업로드와 알림이 같이 씀 (동시에 하나만 전송)
+        final Semaphore network = new Semaphore(1, true);
+        HeartRateUploader uploader = new HeartRateUploader((body, contentType) -> {
+            network.acquireUninterruptibly();
+            try {
+                sleepMillis(UPLOAD_MS);
+                return 200;
+            } finally {
+                network.release();
+            }
+        }, new File(dir, "journal.bin"), 30, 100, 600, 12 * 60 * 60);
+        final NotiDispatcher dispatcher = new NotiDispatcher((event, userId, idempotencyKey) -> {
+            network.acquireUninterruptibly();
+            try {
+                sleepMillis(NOTI_MS);
+                return 200;
+            } finally {
+                network.release();
+            }
+        });
+        NetworkPriority priority = new NetworkPriority();
+        uploader.setNetworkPriority(priority);
+        dispatcher.setNetworkPriority(priority);
+        uploader.setMetrics(metrics);
+        dispatcher.setMetrics(metrics);
+
+        final AtomicInteger alerts = new AtomicInteger();
+        HeartRatePipeline pipeline = new HeartRatePipeline(BOOT_MILLIS, DrowsinessEngine.createDefault(),
+                new HeartRatePipeline.Callback() {
+                    @Override
+                    public void onBatchStart() {}
+
+                    @Override
+                    public void onBatchProcessed() {}
+
+                    @Override
+                    public void onAlert(long timeMillis, int heartRate) {
+                        alerts.incrementAndGet();
+                        dispatcher.dispatchUrgent(NotiDispatcher.Event.EMERGENCY, "E001",
+                                NotiDispatcher.idempotencyKey("E001", BOOT_MILLIS, timeMillis));
+                    }
+
+                    @Override
+                    public void onError(String message, IOException e) {
+                        throw new AssertionError(message, e);
+                    }
+                });
+        pipeline.setMetrics(metrics, clock);
+        pipeline.setUploader(uploader);
+        HeartRateStore store = new HeartRateStore(new File(dir, "store"));
+        store.open();
+        pipeline.setStore(store);
+        // 가끔 오래 걸리는 구독자 (UI 갱신/디스크 지연 흉내) - 기록 스레드에서 호출됨
+        final AtomicInteger published = new AtomicInteger();
+        pipeline.getHub().subscribe((timeMillis, heartRate) -> {
+            if (published.incrementAndGet() % STALL_EVERY == 0) {
+                sleepMillis(STALL_MS);
+            }
+        }, null, false);
+
+        AlertLane lane = AlertLane.withDefaultThreads(pipeline);
+        long reportLatencyNanos = BATCH * SAMPLE_NANOS;
+        lane.setReportLatencyNanos(reportLatencyNanos);
+        uploader.start();
+        dispatcher.start();
+        lane.start();
+
+        // 센서 스레드 흉내 - 묶음마다 정해진 시각에 전달 (밀리면 바로 이어서 전달)
+        int total = EPISODES * EPISODE_SAMPLES;
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i += BATCH) {
+            long due = start + TimeUnit.MILLISECONDS.toNanos((i / BATCH) * PERIOD_MS);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int end = Math.min(total, i + BATCH);
+            clock.alignTo((end - 1) * SAMPLE_NANOS); // FIFO 가 마지막 샘플을 받은 직후 전달
+            for (int j = i; j < end; j++) {
+                lane.onSample(j * SAMPLE_NANOS, rateAt(j));
+            }
+            lane.onBatchEnd();
+        }
+        lane.stop();
+        dispatcher.stop();
+        uploader.stop();
+        store.close();
+
+        StringBuilder summary = new StringBuilder();
+        metrics.sensorToVibrate.appendSummary(summary, "sensor->vibrate");
+        String message = String.format(Locale.ROOT, "%d alerts, %d budget misses (budget %d ms + %d ms FIFO), %s",
+                alerts.get(), metrics.alertBudgetMisses.get(), AlertLane.LATENCY_BUDGET_NANOS / 1_000_000,
+                reportLatencyNanos / 1_000_000, summary);
+        assertTrue(message, alerts.get() >= EPISODES / 2);
+        assertEquals(message, 0, metrics.alertBudgetMisses.get());
+        // 기록 스레드는 버린 것으로 센 샘플 말고는 모두 구독자에게 전달 (종료 직전 샘플 포함)
+        assertEquals(total - metrics.recordDropped.get(), published.get());
+    }
+
+    private static int rateAt(int index) {
+        int phase = index % EPISODE_SAMPLES;
+        int wobble = (index * 7) % 3 - 1;
+        return (phase >= EPISODE_SAMPLES - DROWSY_SAMPLES ? DROWSY_RATE : BASELINE_RATE) + wobble;
+    }
+
+    private static void sleepMillis(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+// 운전자 프로필 파일 - 저장 후 읽으면 같은 사전값/표준편차 (평균/M2 는 float 으로 줄여서 저장),
+// 다른 운전자 파일이나 깨진 파일은 빈 프로필
+public class BaselineProfileStoreTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY_START = 1_700_006_400_000L; // UTC 자정
+    private static final long HOUR_MS = 60 * 60_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripKeepsPriorWithinFloatPrecision() throws IOException {
+        BaselineProfileStore store = new BaselineProfileStore(new File(folder.getRoot(), "profiles"), UTC);
+        BaselineProfile profile = store.load("E001");
+        assertEquals(0, profile.totalCount());
+        // 9시 운행 시작 직후 구간: 평균이 정수로 떨어지지 않는 값, 14시 2시간째 구간: MAX_COUNT 를 넘겨서 잊기 시작
+        for (int i = 0; i < 1_000; i++) {
+            profile.add(DAY_START + 9 * HOUR_MS + i * 1_000L, i * 1_000L, 70 + i % 3);
+        }
+        for (int i = 0; i < BaselineProfile.MAX_COUNT + 500; i++) {
+            profile.add(DAY_START + 14 * HOUR_MS + i * 100L, 3 * HOUR_MS, 61 + i % 7);
+        }
+        assertTrue(store.save(profile));
+        assertFalse(store.save(profile)); // 바뀐 게 없으면 다시 쓰지 않음
+
+        BaselineProfile loaded = store.load("E001");
+        assertEquals(profile.totalCount(), loaded.totalCount());
+        long[][] points = {
+                {DAY_START + 9 * HOUR_MS, 0},
+                {DAY_START + 14 * HOUR_MS, 3 * HOUR_MS},
+                {DAY_START + 9 * HOUR_MS + 40 * 60_000L, 40 * 60_000L}, // 비어 있는 구간 - 같은 시간대 평균
+                {DAY_START + 3 * HOUR_MS, 0}, // 비어 있는 시간대 - 전체 평균
+        };
+        for (long[] p : points) {
+            double prior = profile.prior(p[0], p[1]);
+            assertFalse(Double.isNaN(prior));
+            assertEquals(prior, loaded.prior(p[0], p[1]), prior * 1e-6);
+            double stdDev = profile.stdDev(p[0], p[1]);
+            double loadedStdDev = loaded.stdDev(p[0], p[1]);
+            if (Double.isNaN(stdDev)) {
+                assertTrue(Double.isNaN(loadedStdDev));
+            } else {
+                assertEquals(stdDev, loadedStdDev, stdDev * 1e-4);
+            }
+        }
+        assertEquals(71.0, loaded.prior(DAY_START + 9 * HOUR_MS, 0), 0.01);
+    }
+
+    @Test
+    public void otherUserOrBrokenFileLoadsEmpty() throws IOException {
+        BaselineProfileStore store = new BaselineProfileStore(folder.getRoot(), UTC);
+        BaselineProfile profile = store.load("E/001");
+        for (int i = 0; i < 200; i++) {
+            profile.add(DAY_START + i * 1_000L, i * 1_000L, 72);
+        }
+        assertTrue(store.save(profile));
+
+        // "E/001" 과 "E_001" 은 같은 파일 이름 - 파일 안의 userId 가 다르면 새로 시작
+        assertEquals(store.fileOf("E/001"), store.fileOf("E_001"));
+        BaselineProfile other = store.load("E_001");
+        assertEquals(0, other.totalCount());
+        assertTrue(Double.isNaN(other.prior(DAY_START, 0)));
+        assertEquals(200, store.load("E/001").totalCount());
+
+        // 다른 형식 (magic 이 다름)
+        try (FileOutputStream out = new FileOutputStream(store.fileOf("E002"))) {
+            out.write(new byte[]{1, 2, 3, 4, 0, 0, 0, 1});
+        }
+        assertEquals(0, store.load("E002").totalCount());
+        assertEquals(0, store.load("E003").totalCount()); // 파일 없음
+        // 중간에 잘린 파일
+        File file = store.fileOf("E/001");
+        byte[] saved = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(saved, saved.length / 2));
+        assertEquals(0, store.load("E/001").totalCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.TimeZone;
+
+// 운전자 프로필 - 합성 운행 몇 개로 프로필을 만들어 저장하고, 다른 운행 시작 직후에 넣은 졸음 구간을
+// 프로필 없이/파일에서 읽은 프로필로 재생 (BaselineWarmupReplay.run) 해서 감지 여부와 지연 비교
+public class BaselineWarmupReplayTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long FIRST_TRIP = 1_700_035_200_000L; // UTC 8시 - 운행마다 하루씩
+    private static final int TRIP_SAMPLES = 40 * 60; // 40분 (1초 간격)
+    private static final int LEARN = 5;
+    private static final int EVALUATE = 5;
+    private static final double DROP = 0.85;
+    private static final long WARMUP_CHECK_MS = 10 * 60_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void profileDetectsEpisodesRightAfterStart() throws IOException {
+        BaselineProfileStore store = new BaselineProfileStore(folder.getRoot(), UTC);
+        BaselineProfile profile = store.load("E001");
+        for (int t = 0; t < LEARN; t++) {
+            BaselineWarmupReplay.run(trip(t), profile, -1, 1.0, Long.MAX_VALUE);
+        }
+        assertTrue(store.save(profile));
+
+        long[] offsets = {5_000, 30_000, 120_000};
+        for (long offset : offsets) {
+            int detectedCold = 0;
+            int detectedWarm = 0;
+            long delayCold = 0;
+            long delayWarm = 0;
+            for (int t = LEARN; t < LEARN + EVALUATE; t++) {
+                DrowsinessEvaluator.Trace trip = trip(t);
+                long until = offset + BaselineWarmupReplay.EPISODE_MS;
+                long[] cold = BaselineWarmupReplay.run(trip, null, offset, DROP, until);
+                long[] warm = BaselineWarmupReplay.run(trip, store.load("E001"), offset, DROP, until);
+                if (cold[0] >= 0) {
+                    detectedCold++;
+                    delayCold += cold[0];
+                }
+                if (warm[0] >= 0) {
+                    detectedWarm++;
+                    delayWarm += warm[0];
+                }
+            }
+            // 프로필이 있으면 시작 5초 뒤 구간부터 모두 잡고, 없을 때보다 늦지 않음
+            assertEquals("offset " + offset, EVALUATE, detectedWarm);
+            assertTrue("offset " + offset, detectedWarm >= detectedCold);
+            assertTrue("offset " + offset, delayWarm / detectedWarm <= 15_000);
+            if (detectedCold > 0) {
+                assertTrue("offset " + offset, delayWarm / detectedWarm <= delayCold / detectedCold);
+            }
+            if (offset == offsets[0]) {
+                // 실시간 창만으로는 처음 샘플이 졸음 구간이라 기준 심박수가 같이 내려감
+                assertTrue(detectedCold < EVALUATE);
+            }
+        }
+
+        // 졸음 구간 없이: 프로필은 첫 샘플부터 기준 심박수, 실시간 창은 MIN_BASELINE_SAMPLES 뒤, 오경보 없음
+        for (int t = LEARN; t < LEARN + EVALUATE; t++) {
+            long[] cold = BaselineWarmupReplay.run(trip(t), null, -1, 1.0, WARMUP_CHECK_MS);
+            long[] warm = BaselineWarmupReplay.run(trip(t), store.load("E001"), -1, 1.0, WARMUP_CHECK_MS);
+            assertEquals(0, warm[2]);
+            assertTrue(cold[2] >= (DrowsinessEngine.MIN_BASELINE_SAMPLES - 1) * 1_000L);
+            assertEquals(0, warm[1]);
+            assertEquals(0, cold[1]);
+        }
+    }
+
+    // 같은 운전자의 깨어 있는 운행 - 평소 심박수 73..75, 잡음 +-2, 가끔 착용 불량 (0 bpm)
+    private static DrowsinessEvaluator.Trace trip(int index) {
+        Random random = new Random(index);
+        long[] times = new long[TRIP_SAMPLES];
+        int[] rates = new int[TRIP_SAMPLES];
+        int normal = 73 + random.nextInt(3);
+        for (int i = 0; i < TRIP_SAMPLES; i++) {
+            times[i] = FIRST_TRIP + index * 86_400_000L + i * 1_000L;
+            rates[i] = random.nextInt(500) == 0 ? 0 : normal + random.nextInt(5) - 2;
+        }
+        return new DrowsinessEvaluator.Trace("trip" + index, times, rates);
+    }
+}
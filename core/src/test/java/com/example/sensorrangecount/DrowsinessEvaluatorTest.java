@@ -0,0 +1,78 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.TimeZone;
+
+// 졸음 평가 도구 - 저장소/CSV 의 휴식 플래그를 유지하고, 서비스와 같은 HeartRatePipeline.detect 로 감지
+public class DrowsinessEvaluatorTest {
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final int SAMPLES = 60 * 60; // 1시간 (1초 간격)
+    private static final int EPISODE_SAMPLES = 20 * 60; // 20분마다 졸음 구간 하나
+    private static final int DROWSY_SAMPLES = 90;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restingSamplesSuspendDetection() throws IOException {
+        File driving = writeCsv(new File(folder.getRoot(), "driving.csv"), false);
+        File resting = writeCsv(new File(folder.getRoot(), "resting.csv"), true);
+
+        DrowsinessEvaluator.Trace drivingTrace = DrowsinessEvaluator.load(driving);
+        DrowsinessEvaluator.Trace restingTrace = DrowsinessEvaluator.load(resting);
+        assertEquals(HeartRateStore.FLAG_RESTING, restingTrace.flags[EPISODE_SAMPLES - 1]);
+
+        DrowsinessEvaluator.Result all = DrowsinessEvaluator.evaluate(drivingTrace,
+                DrowsinessEngine.createDefault(), null);
+        DrowsinessEvaluator.Result rested = DrowsinessEvaluator.evaluate(restingTrace,
+                DrowsinessEngine.createDefault(), null);
+        assertTrue(all.alerts > 0);
+        assertEquals(SAMPLES, rested.samples);
+        // 휴식으로 표시된 졸음 구간(첫 번째)의 경보는 빠지고, 그 뒤 구간은 그대로
+        assertTrue(rested.alerts > 0 && rested.alerts < all.alerts);
+        assertTrue(rested.firstAlertMillis > all.firstAlertMillis);
+        assertTrue(rested.firstAlertMillis >= START_MILLIS + (2 * EPISODE_SAMPLES - DROWSY_SAMPLES) * 1_000L);
+    }
+
+    @Test
+    public void profileIsUsedAsPriorAndAccumulates() throws IOException {
+        DrowsinessEvaluator.Trace trace = DrowsinessEvaluator.load(
+                writeCsv(new File(folder.getRoot(), "trip.csv"), false));
+        BaselineProfile profile = new BaselineProfileStore(folder.newFolder("profiles"),
+                TimeZone.getTimeZone("UTC")).load("E001");
+        assertEquals(0, profile.totalCount());
+
+        DrowsinessEvaluator.Result result = DrowsinessEvaluator.evaluate(trace,
+                DrowsinessEngine.createDefault(), profile);
+        assertTrue(result.alerts > 0);
+        assertTrue(profile.totalCount() > 0);
+    }
+
+    // "epoch밀리초,심박수,플래그" - restFirstEpisode 면 첫 20분을 휴식으로
+    private static File writeCsv(File file, boolean restFirstEpisode) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("# time,rate,flags\n");
+            for (int i = 0; i < SAMPLES; i++) {
+                int flags = restFirstEpisode && i < EPISODE_SAMPLES ? HeartRateStore.FLAG_RESTING : 0;
+                writer.write((START_MILLIS + i * 1_000L) + "," + rateAt(i) + "," + flags + "\n");
+            }
+        }
+        return file;
+    }
+
+    private static int rateAt(int index) {
+        int phase = index % EPISODE_SAMPLES;
+        int wobble = (int) ((index * 2_654_435_761L) % 5) - 2; // 결정적인 잡음 -2..2
+        return (phase >= EPISODE_SAMPLES - DROWSY_SAMPLES ? 62 : 76) + wobble;
+    }
+}
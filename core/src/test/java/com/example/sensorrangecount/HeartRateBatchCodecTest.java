@@ -0,0 +1,78 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+// 바이너리 배치 왕복과 서버 디코더의 크기 확인 (압축 폭탄, 큰 varint)
+public class HeartRateBatchCodecTest {
+    private static final long START = 1_720_000_000_000L;
+
+    @Test
+    public void roundTripsPlainAndCompressed() throws IOException {
+        long[] times = new long[30];
+        int[] rates = new int[30];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = START + i * 1000L;
+            rates[i] = 70 + i % 5;
+        }
+        for (boolean compress : new boolean[]{false, true}) {
+            byte[] body = new HeartRateBatchCodec(compress).encode("E001", times, rates, times.length);
+            HeartRateBatchCodec.Batch batch = HeartRateBatchCodec.decode(body, 0, body.length);
+            assertEquals("E001", batch.userId);
+            assertArrayEquals(times, batch.times);
+            assertArrayEquals(rates, batch.heartRates);
+        }
+    }
+
+    @Test
+    public void rejectsDecompressionBomb() {
+        // 0 으로 채운 64MB 를 압축하면 수십 KB - 풀기 전에 최대 배치 크기에서 멈춰야 함
+        byte[] zeros = new byte[1 << 20];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{'H', 'R', 'B', 1, 1}, 0, 5);
+        byte[] chunk = new byte[64 * 1024];
+        for (int i = 0; i < 64; i++) {
+            deflater.setInput(zeros);
+            while (!deflater.needsInput()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        byte[] bomb = out.toByteArray();
+        assertTrue(bomb.length < 256 * 1024);
+        expectCorrupt(bomb, "inflates past");
+    }
+
+    @Test
+    public void rangeChecksLengthsBeforeNarrowing() {
+        // 사용자ID 길이 2^32 + 3 -> int 로 자르면 3 이 되어 통과하던 값
+        byte[] idLength = {'H', 'R', 'B', 1, 0, (byte) 0x83, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10,
+                'E', '0', '0', 0, 0};
+        expectCorrupt(idLength, "user id length");
+        // 샘플 수 2^32 + 1
+        byte[] count = {'H', 'R', 'B', 1, 0, 1, 'E', (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10, 0};
+        expectCorrupt(count, "count");
+    }
+
+    private static void expectCorrupt(byte[] body, String message) {
+        try {
+            HeartRateBatchCodec.decode(body, 0, body.length);
+            fail("decoded a corrupt batch");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
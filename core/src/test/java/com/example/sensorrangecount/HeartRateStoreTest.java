@@ -0,0 +1,71 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// 시각이 거꾸로 간 샘플 처리 (조회 결과가 겹치거나 순서가 바뀌지 않는지) 와 fsync 묶음
+public class HeartRateStoreTest {
+    private static final long START = 1_720_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void earlierSampleIsRejectedAndScanStaysOrdered() throws IOException {
+        File dir = folder.newFolder("store");
+        HeartRateStore store = new HeartRateStore(dir);
+        store.open();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.append(START + i * 1000L, 70 + i, 0));
+        }
+        // 시계가 5초 뒤로 감 - 이미 있는 구간과 겹치는 세그먼트를 만들지 않음
+        assertFalse(store.append(START + 4_500, 99, 0));
+        assertTrue(store.append(START + 9_000, 80, 0)); // 같은 시각은 허용
+        store.close();
+
+        // 다시 열어도 마지막 시각을 기억
+        store.open();
+        assertFalse(store.append(START + 1_000, 98, 0));
+        assertTrue(store.append(START + 10_000, 81, 0));
+        store.close();
+        assertEquals(2, store.getRejected());
+        assertEquals(1, dir.list().length);
+
+        final List<Long> times = new ArrayList<>();
+        store.scan(START, START + 60_000, (timeMillis, heartRate, flags) -> {
+            assertTrue(heartRate != 98 && heartRate != 99);
+            times.add(timeMillis);
+            return true;
+        });
+        assertEquals(12, times.size());
+        for (int i = 1; i < times.size(); i++) {
+            assertTrue(times.get(i) >= times.get(i - 1));
+        }
+    }
+
+    @Test
+    public void flushSyncsOnIntervalNotEveryBatch() throws IOException {
+        HeartRateStore store = new HeartRateStore(folder.newFolder("store"));
+        store.open();
+        // 1초 간격 샘플을 10개씩 flush - 10분이면 배치 60번
+        for (int i = 0; i < 600; i++) {
+            store.append(START + i * 1000L, 70, 0);
+            if (i % 10 == 9) {
+                store.flush();
+            }
+        }
+        assertTrue("syncs " + store.getSyncs(), store.getSyncs() <= 10);
+        assertTrue(store.getSyncs() >= 5);
+        store.close();
+    }
+}
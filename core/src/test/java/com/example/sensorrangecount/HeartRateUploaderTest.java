@@ -0,0 +1,134 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// 오프라인 journal 재전송 (재시작 후 이어서 보내기) 과 종료 때 막힌 전송 끊기
+public class HeartRateUploaderTest {
+    private static final int BATCH = 5;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 응답 코드를 정해두고 받은 요청 바디를 모으는 전송
+    private static class RecordingTransport implements UploadTransport {
+        final List<String> bodies = new ArrayList<>();
+        int okRemaining;
+
+        RecordingTransport(int okRemaining) {
+            this.okRemaining = okRemaining;
+        }
+
+        @Override
+        public int send(byte[] body, String contentType) throws IOException {
+            if (okRemaining == 0) {
+                throw new IOException("offline");
+            }
+            okRemaining--;
+            bodies.add(new String(body, StandardCharsets.UTF_8));
+            return 200;
+        }
+    }
+
+    @Test
+    public void restartResumesJournalFromAcknowledgedOffset() {
+        File journal = new File(folder.getRoot(), "journal.bin");
+        VirtualClock clock = new VirtualClock(0);
+
+        // 오프라인 - 4 배치가 journal 로
+        RecordingTransport offline = new RecordingTransport(0);
+        HeartRateUploader first = uploader(offline, journal, clock);
+        for (int i = 0; i < 4 * BATCH; i++) {
+            first.offer(1_000L * i, 70 + i);
+            first.pump();
+            clock.advanceTo(clock.nanoTime() + 10 * SECOND_NANOS); // 재시도 대기 시간이 지나도록
+        }
+        assertEquals(4 * BATCH * 12, journal.length());
+
+        // 재시작 - 2 배치만 보내고 다시 끊김
+        RecordingTransport partial = new RecordingTransport(2);
+        HeartRateUploader second = uploader(partial, journal, clock);
+        second.offer(100_000L, 99);
+        second.pump();
+        assertEquals(2, partial.bodies.size());
+
+        // 다시 재시작 - 남은 2 배치 + 새 샘플만 (앞 2 배치는 다시 보내지 않음)
+        clock.advanceTo(clock.nanoTime() + 60 * SECOND_NANOS);
+        RecordingTransport online = new RecordingTransport(Integer.MAX_VALUE);
+        HeartRateUploader third = uploader(online, journal, clock);
+        third.offer(200_000L, 98);
+        clock.advanceTo(clock.nanoTime() + 60 * SECOND_NANOS);
+        third.pump();
+        int samples = 0;
+        for (String body : online.bodies) {
+            samples += count(body, "\"heartrate\"");
+        }
+        assertEquals(2 * BATCH + 2, samples);
+        assertTrue(online.bodies.get(0).contains("\"heartrate\": " + (70 + 2 * BATCH)));
+        assertTrue(!journal.exists() && !new File(journal.getPath() + ".ack").exists());
+    }
+
+    @Test(timeout = 10_000)
+    public void stopCancelsBlockedSendAndKeepsBatch() throws InterruptedException {
+        File journal = new File(folder.getRoot(), "journal.bin");
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        UploadTransport stuck = new UploadTransport() {
+            @Override
+            public int send(byte[] body, String contentType) throws IOException {
+                sending.countDown();
+                try {
+                    // 응답 타임아웃까지 막힌 요청 흉내 - cancel() 로만 풀림
+                    if (!cancelled.await(60, TimeUnit.SECONDS)) {
+                        return 200;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("cancelled");
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.countDown();
+            }
+        };
+        HeartRateUploader uploader = new HeartRateUploader(stuck, journal, BATCH, 30_000, 100, 1_000);
+        uploader.start();
+        for (int i = 0; i < BATCH; i++) {
+            uploader.offer(1_000L * i, 70);
+        }
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        uploader.stop();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(BATCH * 12, journal.length());
+    }
+
+    private static HeartRateUploader uploader(UploadTransport transport, File journal, Clock clock) {
+        HeartRateUploader uploader = new HeartRateUploader(transport, journal, BATCH, 30_000, 100, 1_000);
+        uploader.setClock(clock);
+        return uploader;
+    }
+
+    private static int count(String text, String needle) {
+        int n = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+
+// 센서 콜백 -> 기준 심박수/감지 -> 업로드 큐 -> 구독자 경로가 정상 상태에서 샘플마다 할당하지 않는지 확인
+// 서비스와 같은 구성 (계측, 졸음 점수, 이벤트 기록기, 운행 요약, 운행 중) - 저장소는 디스크 I/O 라 뺌
+// 할당량은 현재 스레드의 누적 할당 바이트 (HotSpot 의 com.sun.management.ThreadMXBean)
+public class HotPathAllocationTest {
+    private static final long BOOT_MILLIS = 1_720_000_000_000L;
+    private static final int BATCH = 10; // 센서 FIFO 묶음 하나
+    private static final int WARMUP_SAMPLES = 300_000; // JIT 컴파일 + 기준 창/업로드 큐가 가득 찬 상태까지
+    private static final int MEASURED_SAMPLES = 200_000;
+
+    private File journal;
+    private HeartRatePipeline pipeline;
+    private int[] rates;
+    private long sample = 0;
+    private int consumed = 0;
+
+    @Before
+    public void setUp() throws IOException {
+        journal = Files.createTempFile("journal", ".bin").toFile();
+        pipeline = new HeartRatePipeline(BOOT_MILLIS, DrowsinessEngine.createDefault(),
+                new HeartRatePipeline.Callback() {
+                    @Override
+                    public void onBatchStart() {}
+
+                    @Override
+                    public void onBatchProcessed() {}
+
+                    @Override
+                    public void onAlert(long timeMillis, int heartRate) {}
+
+                    @Override
+                    public void onError(String message, IOException e) {
+                        throw new AssertionError(message, e);
+                    }
+                });
+        // 워커를 시작하지 않으므로 큐가 차면 오래된 샘플부터 버려짐 (HotPathBenchmark 와 같은 구성)
+        HeartRateUploader uploader = new HeartRateUploader((body, contentType) -> 200, journal, 30, 30_000, 600, 1);
+        PipelineMetrics metrics = new PipelineMetrics();
+        DrowsinessScore score = DrowsinessScore.createDefault(new MotionFeatureExtractor());
+        metrics.setDrowsinessScore(score);
+        pipeline.setUploader(uploader);
+        pipeline.setMetrics(metrics, Clock.SYSTEM);
+        pipeline.setDrowsinessScore(score);
+        pipeline.setFlightRecorder(new FlightRecorder(16_384, Clock.SYSTEM));
+        TripSummary summary = new TripSummary(DrowsinessEngine.DEFAULT_RATIO);
+        summary.begin(BOOT_MILLIS);
+        pipeline.setTripSummary(summary);
+        pipeline.setSession(SamplingScheduler.Session.DRIVING);
+        pipeline.getHub().subscribe((timeMillis, heartRate) -> consumed += heartRate, null, false);
+
+        rates = new int[4096];
+        double rate = 75;
+        Random random = new Random(3);
+        for (int i = 0; i < rates.length; i++) {
+            rate += (75 - rate) * 0.05 + random.nextGaussian();
+            rates[i] = (int) Math.round(rate);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        journal.delete();
+    }
+
+    @Test
+    public void steadyStateSampleDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        feed(WARMUP_SAMPLES);
+        long before = threads.getThreadAllocatedBytes(thread);
+        feed(MEASURED_SAMPLES);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        double perSample = (double) allocated / MEASURED_SAMPLES;
+        // 객체 하나라도 샘플마다 만들면 16바이트 이상 - 1 미만이면 카운터 호출 자체의 할당 정도
+        assertTrue(String.format(Locale.ROOT, "%d bytes for %d samples (%.2f bytes/sample)",
+                allocated, MEASURED_SAMPLES, perSample), perSample < 1.0);
+        assertTrue(consumed > 0);
+    }
+
+    // 센서 스레드 흉내 - 1초 간격 샘플을 BATCH 개씩 전달
+    private void feed(int samples) {
+        for (int i = 0; i < samples; i++) {
+            long timestampNanos = sample * 1_000_000_000L;
+            pipeline.onSample(timestampNanos, rates[(int) (sample & (rates.length - 1))]);
+            sample++;
+            if (sample % BATCH == 0) {
+                pipeline.onBatchEnd();
+            }
+        }
+    }
+}
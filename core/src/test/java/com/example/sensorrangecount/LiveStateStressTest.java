@@ -0,0 +1,201 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LiveState 동시성 확인 - 쓰기 스레드 하나가 쉬지 않고 쓰고 읽기 스레드 여러 개가 계속 읽음
+// - 쓸 때 모든 칸을 같은 번호 n 에서 계산한 값으로 채움 -> 읽은 스냅샷의 칸들이 서로 다른 n 이면 섞인 것(torn)
+// - 비교용으로 seqlock 없이 volatile 필드만 쓴 경우도 같은 방식으로 돌려서 검사가 섞임을 잡아내는지 확인
+public class LiveStateStressTest {
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+    private static final int READERS = 3;
+    private static final long DURATION_NANOS = 1_000_000_000L;
+
+    // 비교용: 칸마다 volatile 이지만 묶음으로는 보호하지 않음
+    private static class PlainState {
+        volatile long timeMillis;
+        volatile int heartRate;
+        volatile double baselineMean;
+        volatile double baselineStdDev;
+        volatile int baselineMin;
+        volatile int baselineMax;
+        volatile int baselineCount;
+        volatile int flags;
+        volatile int session;
+        volatile double score;
+        volatile long samples;
+
+        void write(long n) {
+            timeMillis = timeOf(n);
+            heartRate = heartRateOf(n);
+            baselineMean = meanOf(n);
+            baselineStdDev = stdDevOf(n);
+            baselineMin = minOf(n);
+            baselineMax = minOf(n) + 1000;
+            baselineCount = countOf(n);
+            flags = (int) (n & 3);
+            session = (int) (n % 3);
+            score = scoreOf(n);
+            samples = n;
+        }
+
+        void read(LiveState.Snapshot out) {
+            out.timeMillis = timeMillis;
+            out.heartRate = heartRate;
+            out.baselineMean = baselineMean;
+            out.baselineStdDev = baselineStdDev;
+            out.baselineMin = baselineMin;
+            out.baselineMax = baselineMax;
+            out.baselineCount = baselineCount;
+            out.flags = flags;
+            out.session = session;
+            out.score = score;
+            out.samples = samples;
+        }
+    }
+
+    // 한 번 실행한 결과
+    private static class Run {
+        long writes;
+        long reads;
+        long torn;
+        long retries;
+    }
+
+    @Test(timeout = 30_000)
+    public void seqlockSnapshotIsNeverTorn() throws InterruptedException {
+        Run run = run(true, READERS, DURATION_NANOS);
+        assertTrue(run.reads > 0 && run.writes > 0);
+        assertEquals(describe(run), 0, run.torn);
+    }
+
+    // 검사 자체가 섞임을 잡아내는지 - 코어가 하나면 쓰기와 읽기가 겹치지 않으므로 건너뜀
+    @Test(timeout = 30_000)
+    public void checkSeesTearingOnPlainFields() throws InterruptedException {
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+        Run run = run(false, READERS, DURATION_NANOS);
+        assertTrue(describe(run), run.torn > 0);
+    }
+
+    private static String describe(Run run) {
+        return String.format(Locale.ROOT, "writes %,d, reads %,d, torn %d, retries/read %.3f",
+                run.writes, run.reads, run.torn, run.reads == 0 ? 0 : (double) run.retries / run.reads);
+    }
+
+    private static Run run(final boolean seqlock, int readerCount, final long durationNanos)
+            throws InterruptedException {
+        final LiveState state = new LiveState();
+        final PlainState plain = new PlainState();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong torn = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final long[] writes = {0};
+
+        Thread writer = new Thread(() -> {
+            long n = 0;
+            while (running.get()) {
+                n++;
+                if (seqlock) {
+                    state.write(timeOf(n), heartRateOf(n), meanOf(n), stdDevOf(n), minOf(n), minOf(n) + 1000,
+                            countOf(n), (int) (n & 3), (int) (n % 3), scoreOf(n));
+                } else {
+                    plain.write(n);
+                }
+            }
+            writes[0] = n;
+        }, "writer");
+
+        Thread[] readers = new Thread[readerCount];
+        for (int i = 0; i < readerCount; i++) {
+            readers[i] = new Thread(() -> {
+                LiveState.Snapshot s = new LiveState.Snapshot();
+                long localReads = 0;
+                long localTorn = 0;
+                long localRetries = 0;
+                while (running.get()) {
+                    if (seqlock) {
+                        localRetries += state.read(s);
+                    } else {
+                        plain.read(s);
+                    }
+                    localReads++;
+                    if (s.samples != 0 && !isConsistent(s)) {
+                        localTorn++;
+                    }
+                }
+                reads.addAndGet(localReads);
+                torn.addAndGet(localTorn);
+                retries.addAndGet(localRetries);
+            }, "reader-" + i);
+        }
+
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        Thread.sleep(durationNanos / 1_000_000);
+        running.set(false);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Run run = new Run();
+        run.writes = writes[0];
+        run.reads = reads.get();
+        run.torn = torn.get();
+        run.retries = retries.get();
+        return run;
+    }
+
+    // 모든 칸이 samples(n) 에서 계산한 값과 같은지
+    private static boolean isConsistent(LiveState.Snapshot s) {
+        long n = s.samples;
+        return s.timeMillis == timeOf(n)
+                && s.heartRate == heartRateOf(n)
+                && s.baselineMean == meanOf(n)
+                && s.baselineStdDev == stdDevOf(n)
+                && s.baselineMin == minOf(n)
+                && s.baselineMax == minOf(n) + 1000
+                && s.baselineCount == countOf(n)
+                && s.flags == (int) (n & 3)
+                && s.session == (int) (n % 3)
+                && s.score == scoreOf(n);
+    }
+
+    private static long timeOf(long n) {
+        return BASE_MILLIS + n * 1000;
+    }
+
+    private static int heartRateOf(long n) {
+        return 40 + (int) (n % 160);
+    }
+
+    private static double meanOf(long n) {
+        return n * 0.25;
+    }
+
+    private static double stdDevOf(long n) {
+        return n * 0.5;
+    }
+
+    private static int minOf(long n) {
+        return (int) (n % 1000);
+    }
+
+    private static int countOf(long n) {
+        return (int) (n % 1024);
+    }
+
+    private static double scoreOf(long n) {
+        return n / 1e9;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+// MotionFeatureExtractor 의 샘플당 처리 시간과 감지 개수 (합성 데이터 한 시간 분량, 50Hz, 10초 묶음)
+// 할당은 ./gradlew :core:jmh 의 MotionBenchmark (gc.alloc.rate.norm) 로 확인
+public class MotionBudgetTest {
+    private static final int HZ = 50;
+    private static final long PERIOD_NANOS = 1_000_000_000L / HZ;
+    private static final int PER_BATCH = 10 * HZ; // 10초 묶음
+    private static final long TOTAL = 3600L * HZ; // 한 시간
+
+    @Test
+    public void sampleStaysInBudgetAndDetectsEpisodes() {
+        float[][] loop = MotionTraces.motionLoop(HZ, 1);
+
+        // 워밍업 (JIT) 후 측정
+        run(new MotionFeatureExtractor(), loop, 600L * HZ);
+        MotionFeatureExtractor extractor = new MotionFeatureExtractor();
+        long start = System.nanoTime();
+        run(extractor, loop, TOTAL);
+        long elapsed = System.nanoTime() - start;
+
+        double perSample = (double) elapsed / (TOTAL * 2); // 가속도 + 자이로
+        assertTrue(String.format(Locale.ROOT, "%.0f ns/sample (budget %d ns)", perSample,
+                MotionFeatureExtractor.SAMPLE_BUDGET_NANOS), perSample <= MotionFeatureExtractor.SAMPLE_BUDGET_NANOS);
+        long episodes = TOTAL / loop[0].length;
+        assertEquals(episodes, extractor.getMicroSleepTotal());
+        assertEquals(episodes, extractor.getNodTotal());
+    }
+
+    private static void run(MotionFeatureExtractor extractor, float[][] loop, long total) {
+        int length = loop[0].length;
+        long baseNanos = 1_000_000_000_000L;
+        for (long i = 0; i < total; i++) {
+            int k = (int) (i % length);
+            long t = baseNanos + i * PERIOD_NANOS;
+            extractor.onAccel(t, loop[0][k], loop[1][k], loop[2][k]);
+            extractor.onGyro(t + PERIOD_NANOS / 2, loop[3][k], loop[4][k], loop[5][k]);
+            if ((i + 1) % PER_BATCH == 0) {
+                extractor.publish();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.sensorrangecount;
+
+import java.util.Random;
+
+// 테스트/벤치마크(MotionBenchmark)용 합성 IMU 데이터 - MOTION_LOOP_SECONDS 마다 정지 + 끄덕임 구간 하나
+final class MotionTraces {
+    static final int MOTION_LOOP_SECONDS = 120; // 합성 데이터 반복 주기 (정지/끄덕임 한번씩)
+    private static final int STILL_SECONDS = 6; // 주기 중 정지 구간 길이
+    private static final double NOD_SECONDS = 0.3; // 정지 후 크게 움직이는 시간
+
+    private MotionTraces() {
+    }
+
+    // 한 주기(MOTION_LOOP_SECONDS) 합성 데이터 - {ax, ay, az, gx, gy, gz}
+    // 평소: 핸들 조작(느린 사인) + 차량 진동, 주기 끝: 정지 STILL_SECONDS 초 후 끄덕임
+    static float[][] motionLoop(int hz, long seed) {
+        Random random = new Random(seed);
+        int length = MOTION_LOOP_SECONDS * hz;
+        float[][] loop = new float[6][length];
+        int stillStart = (MOTION_LOOP_SECONDS - STILL_SECONDS) * hz - (int) (NOD_SECONDS * hz);
+        int nodStart = stillStart + STILL_SECONDS * hz;
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / hz;
+            boolean still = i >= stillStart && i < nodStart;
+            boolean nod = i >= nodStart && i < nodStart + NOD_SECONDS * hz;
+            double accelNoise = still ? 0.005 : 0.2;
+            double gyroNoise = still ? 0.005 : 0.05;
+            double steer = still ? 0 : 0.3 * Math.sin(2 * Math.PI * 0.2 * t);
+            loop[0][i] = (float) (0.5 * steer + accelNoise * random.nextGaussian());
+            loop[1][i] = (float) (accelNoise * random.nextGaussian());
+            loop[2][i] = (float) (9.81 + accelNoise * random.nextGaussian());
+            loop[3][i] = (float) ((nod ? 2.5 : steer) + gyroNoise * random.nextGaussian());
+            loop[4][i] = (float) (gyroNoise * random.nextGaussian());
+            loop[5][i] = (float) (gyroNoise * random.nextGaussian());
+        }
+        return loop;
+    }
+}
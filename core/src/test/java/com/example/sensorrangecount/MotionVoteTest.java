@@ -0,0 +1,93 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// 움직임이 섞인 졸음 점수가 경보 결정에 들어가는지 - 심박수 감지기 하나(CUSUM)만 잡는 얕은 하락(6%)에
+// 정지/끄덕임이 겹치면 경보, 손목이 평소처럼 움직이거나 IMU 가 꺼져 있으면 심박수만 쓸 때와 같음
+public class MotionVoteTest {
+    private static final long BOOT_MILLIS = 1_700_000_000_000L;
+    private static final int HZ = 25;
+    private static final int AWAKE_SECONDS = 5 * 60; // 기준 심박수를 채우는 구간
+    private static final int DIP_SECONDS = 3 * 60;
+    private static final int NORMAL_RATE = 75;
+    private static final int DIP_RATE = 70; // 약 6.7% 하락 - 지속 하락/EWMA 기준(7%)에는 못 미침
+
+    private enum Imu { OFF, AWAKE, DROWSY }
+
+    @Test
+    public void motionVoteConfirmsShallowDipOnlyWithDrowsyMotion() {
+        List<Long> heartRateOnly = run(false, Imu.DROWSY);
+        List<Long> off = run(true, Imu.OFF);
+        List<Long> awake = run(true, Imu.AWAKE);
+        List<Long> drowsy = run(true, Imu.DROWSY);
+
+        assertTrue(heartRateOnly.isEmpty());
+        assertEquals(heartRateOnly, off);
+        assertEquals(heartRateOnly, awake);
+        assertTrue(!drowsy.isEmpty());
+        assertTrue(drowsy.get(0) >= BOOT_MILLIS + AWAKE_SECONDS * 1_000L); // 하락 구간 안에서만
+    }
+
+    // 1초마다 IMU 1초 분량(25Hz) -> publish -> 심박수 샘플 하나 - 경보 시각 리턴
+    private static List<Long> run(boolean motionVote, Imu imu) {
+        final List<Long> alerts = new ArrayList<>();
+        MotionFeatureExtractor motion = new MotionFeatureExtractor();
+        DrowsinessScore score = DrowsinessScore.createDefault(motion);
+        DrowsinessEngine engine = motionVote
+                ? DrowsinessEngine.create(DrowsinessEngine.DEFAULT_RATIO, score)
+                : DrowsinessEngine.createDefault();
+        HeartRatePipeline pipeline = new HeartRatePipeline(BOOT_MILLIS, engine, new HeartRatePipeline.Callback() {
+            @Override
+            public void onBatchStart() {}
+
+            @Override
+            public void onBatchProcessed() {}
+
+            @Override
+            public void onAlert(long timeMillis, int heartRate) {
+                alerts.add(timeMillis);
+            }
+
+            @Override
+            public void onError(String message, IOException e) {}
+        });
+        pipeline.setDrowsinessScore(score);
+        pipeline.setSession(SamplingScheduler.Session.DRIVING);
+        Random random = new Random(7);
+        for (int second = 0; second < AWAKE_SECONDS + DIP_SECONDS; second++) {
+            boolean dip = second >= AWAKE_SECONDS;
+            if (imu != Imu.OFF) {
+                feedSecond(motion, random, second, imu == Imu.DROWSY && dip);
+            }
+            int wobble = second % 3 - 1;
+            pipeline.detect(BOOT_MILLIS + second * 1_000L, (dip ? DIP_RATE : NORMAL_RATE) + wobble, 0);
+        }
+        return alerts;
+    }
+
+    // 깨어 있음: 핸들 조작 + 차량 진동, 졸림: 8초 정지 후 0.3초 끄덕임 반복
+    private static void feedSecond(MotionFeatureExtractor motion, Random random, int second, boolean drowsy) {
+        for (int i = 0; i < HZ; i++) {
+            long t = (second * (long) HZ + i) * (1_000_000_000L / HZ);
+            double phase = (second % 9) + (double) i / HZ;
+            boolean nod = drowsy && phase >= 8 && phase < 8.3;
+            boolean still = drowsy && !nod;
+            double accelNoise = still ? 0.005 : 0.2;
+            double gyroNoise = still ? 0.005 : 0.05;
+            double steer = still ? 0 : 0.3 * Math.sin(2 * Math.PI * 0.2 * (second + (double) i / HZ));
+            motion.onAccel(t, (float) (0.5 * steer + accelNoise * random.nextGaussian()),
+                    (float) (accelNoise * random.nextGaussian()), (float) (9.81 + accelNoise * random.nextGaussian()));
+            motion.onGyro(t, (float) ((nod ? 2.5 : steer) + gyroNoise * random.nextGaussian()),
+                    (float) (gyroNoise * random.nextGaussian()), (float) (gyroNoise * random.nextGaussian()));
+        }
+        motion.publish();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// 운행 알림 - 프로세스가 다시 떠도 Idempotency-Key 가 겹치지 않고, 보내지 못한 종료 알림은 같은 키로 다시 전송
+public class NotiDispatcherTest {
+    private static final String USER = "E001";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keysContinueAcrossRestart() throws IOException {
+        File file = new File(folder.getRoot(), "session.journal");
+        SessionJournal journal = new SessionJournal(file);
+        DrivingSession session = new DrivingSession(journal, 1);
+        session.restore(0, 0);
+        session.start(1_000, 1_700_000_000_000L);
+        String start = key(session);
+        session.rest(2_000, 1_700_000_001_000L);
+        String rest = key(session);
+        journal.close(); // 프로세스 종료
+
+        SessionJournal reopened = new SessionJournal(file);
+        DrivingSession restored = new DrivingSession(reopened, 1);
+        restored.restore(3_000, 1_700_000_002_000L);
+        restored.resume(4_000, 1_700_000_003_000L);
+        String resume = key(restored);
+        restored.stop(5_000, 1_700_000_004_000L);
+        String end = key(restored);
+        reopened.close();
+
+        assertEquals(USER + "-1700000000000-1", start);
+        assertEquals(USER + "-1700000000000-2", rest);
+        assertEquals(USER + "-1700000000000-3", resume);
+        assertEquals(USER + "-1700000000000-4", end);
+    }
+
+    @Test(timeout = 10_000)
+    public void undeliveredEndIsResentWithSameKey() throws InterruptedException {
+        File journal = new File(folder.getRoot(), "noti.journal");
+
+        // 오프라인 - 종료 알림이 보내지지 않은 채로 종료
+        NotiDispatcher offline = new NotiDispatcher((event, userId, key) -> {
+            throw new IOException("offline");
+        }, journal);
+        offline.start();
+        offline.dispatch(NotiDispatcher.Event.REST, USER, USER + "-7-2");
+        offline.dispatch(NotiDispatcher.Event.END, USER, USER + "-7-3");
+        offline.stop();
+        assertTrue(journal.exists());
+
+        // 다음 실행 - 이전 알림부터 같은 키로
+        final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch delivered = new CountDownLatch(3);
+        NotiDispatcher online = new NotiDispatcher((event, userId, key) -> {
+            sent.add(event.path + " " + key);
+            delivered.countDown();
+            return 200;
+        }, journal);
+        online.dispatch(NotiDispatcher.Event.START, USER, USER + "-8-1");
+        online.start();
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        online.stop();
+        assertEquals("rest E001-7-2", sent.get(0));
+        assertEquals("end E001-7-3", sent.get(1));
+        assertEquals("start E001-8-1", sent.get(2));
+    }
+
+    private static String key(DrivingSession session) {
+        return NotiDispatcher.idempotencyKey(USER, session.getSessionId(), session.getSequence());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+// 원본 구간 업로드 - 순서가 뒤바뀐 겹치는 구간은 한번만, 저장소 없이 버퍼보다 오래된 부분은 빠진 길이로 알림
+public class RawWindowExporterTest {
+    private static final int SAMPLES = 600; // 1초 간격 10분
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void overlappingWindowsOutOfOrderAreSentOnce() throws IOException {
+        RawWindowExporter exporter = exporter(SAMPLES);
+        exporter.request(300_000, 400_000);
+        exporter.request(100_000, 200_000);
+        assertEquals(0, exporter.exportDue(599_000));
+        assertEquals(200, exporter.getExportedSamples());
+
+        // 두 구간 사이를 걸친 요청 - 사이의 200~300초만 새로
+        exporter.request(150_000, 350_000);
+        exporter.exportDue(599_000);
+        assertEquals(300, exporter.getExportedSamples());
+
+        // 전부 덮는 요청 - 앞뒤 50초씩만 새로
+        exporter.request(50_000, 450_000);
+        exporter.exportDue(599_000);
+        assertEquals(400, exporter.getExportedSamples());
+    }
+
+    @Test
+    public void missingStoreReportsUnavailablePart() throws IOException {
+        RawWindowExporter exporter = exporter(100); // 마지막 100초 (500~599초) 만 메모리에
+        exporter.request(400_000, 550_000);
+        assertEquals(100_000, exporter.exportDue(599_000));
+        assertEquals(50, exporter.getExportedSamples());
+        assertEquals(100_000, exporter.getUnavailableMillis());
+    }
+
+    private RawWindowExporter exporter(int recentCapacity) {
+        File journal = new File(folder.getRoot(), "journal.bin");
+        // 워커를 시작하지 않음 - 큐에 쌓인 것만 셈
+        HeartRateUploader uploader = new HeartRateUploader((body, contentType) -> 200, journal, 30, 30_000,
+                4 * SAMPLES, 1_000);
+        RawWindowExporter exporter = new RawWindowExporter(uploader, 0, 0, recentCapacity, 4 * SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            exporter.onSample(i * 1000L, 70, 0);
+        }
+        return exporter;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+// 폰 중계 전송 - InMemoryRelayChannel 로 폰 연결 상태를 바꿔가며 RelayTransport 의 중계/HTTP 직접 전송/ack 유실 확인
+// 마지막 테스트는 서비스와 같은 업로드 설정으로 연결 -> 끊김 -> ack 유실 -> 연결 을 지나도 샘플을 잃지 않는지
+public class RelayTransportTest {
+    private static final String USER = "E001";
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final long ACK_TIMEOUT_MS = 200; // 실제(30초)보다 짧게
+    // 서비스(HeartRateService)와 같은 업로드 설정
+    private static final int UPLOAD_BATCH_SIZE = 30;
+    private static final long UPLOAD_MAX_BATCH_AGE_MS = 30_000;
+    private static final int UPLOAD_QUEUE_CAPACITY = 600;
+    private static final long UPLOAD_MAX_JOURNAL_RECORDS = 12 * 60 * 60;
+
+    // 가짜 서버 (받은 샘플 시각, 경로별 요청 수) - online 이 false 면 폰에서 서버로 가는 요청이 실패
+    private static class Server {
+        final Set<Long> sampleTimes = new HashSet<>();
+        long samples = 0; // 중복 포함
+        int batches = 0;
+        int notis = 0;
+        volatile boolean online = true;
+
+        synchronized int receiveBatch(byte[] body) throws IOException {
+            batches++;
+            HeartRateBatchCodec.Batch batch = HeartRateBatchCodec.decode(body, 0, body.length);
+            for (long time : batch.times) {
+                sampleTimes.add(time);
+            }
+            samples += batch.times.length;
+            return 200;
+        }
+
+        synchronized int receiveNoti() {
+            notis++;
+            return 200;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Server server = new Server();
+    private final int[] direct = {0, 0}; // HTTP 직접 전송: 배치, 알림
+    private InMemoryRelayChannel channel;
+    private RelayTransport transport;
+
+    @Before
+    public void setUp() {
+        RelayForwarder phone = new RelayForwarder((body, contentType) -> {
+            if (!server.online) {
+                throw new IOException("phone offline");
+            }
+            return server.receiveBatch(body);
+        }, (event, userId, key) -> {
+            if (!server.online) {
+                throw new IOException("phone offline");
+            }
+            return server.receiveNoti();
+        });
+        channel = new InMemoryRelayChannel(phone);
+        transport = new RelayTransport(channel, (body, contentType) -> {
+            synchronized (direct) {
+                direct[0]++;
+            }
+            return server.receiveBatch(body);
+        }, (event, userId, key) -> {
+            synchronized (direct) {
+                direct[1]++;
+            }
+            return server.receiveNoti();
+        }, ACK_TIMEOUT_MS);
+    }
+
+    @After
+    public void tearDown() {
+        channel.shutdown();
+    }
+
+    @Test(timeout = 10_000)
+    public void connectedRelaysThroughPhone() throws IOException {
+        assertEquals(200, transport.send(batch(0, 30), HeartRateBatchCodec.CONTENT_TYPE));
+        assertEquals(200, transport.send(NotiDispatcher.Event.START, USER, USER + "-1-1"));
+
+        assertEquals(2, transport.getRelayedCount());
+        assertEquals(0, transport.getFallbackCount());
+        assertEquals(2, channel.getMessageCount());
+        assertEquals(0, direct[0] + direct[1]);
+        assertEquals(30, server.sampleTimes.size());
+        assertEquals(1, server.notis);
+    }
+
+    @Test(timeout = 10_000)
+    public void disconnectedFallsBackToHttp() throws IOException {
+        channel.setConnected(false);
+        assertEquals(200, transport.send(batch(0, 30), HeartRateBatchCodec.CONTENT_TYPE));
+        assertEquals(200, transport.send(NotiDispatcher.Event.REST, USER, USER + "-1-2"));
+
+        assertEquals(0, channel.getMessageCount());
+        assertEquals(0, transport.getRelayedCount());
+        assertEquals(2, transport.getFallbackCount());
+        assertEquals(1, direct[0]);
+        assertEquals(1, direct[1]);
+        assertEquals(30, server.sampleTimes.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void phoneWithoutUpstreamFallsBackToHttp() throws IOException {
+        server.online = false; // 폰은 연결되어 있지만 서버에 닿지 못함 -> ack 로 알려주면 워치가 직접 전송
+        assertEquals(200, transport.send(batch(0, 30), HeartRateBatchCodec.CONTENT_TYPE));
+
+        assertEquals(1, channel.getMessageCount());
+        assertEquals(0, transport.getRelayedCount());
+        assertEquals(1, transport.getFallbackCount());
+        assertEquals(1, direct[0]);
+        assertEquals(30, server.sampleTimes.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void lostAckFailsTheSendForRetry() {
+        channel.setDropAcks(true); // 폰은 서버에 보냈지만 ack 가 오지 않음
+        try {
+            transport.send(batch(0, 30), HeartRateBatchCodec.CONTENT_TYPE);
+            fail("expected ack timeout");
+        } catch (IOException e) {
+            assertEquals(1, transport.getAckTimeoutCount());
+        }
+        assertEquals(0, transport.getFallbackCount()); // 직접 보내면 중복 - 업로드 큐의 재시도에 맡김
+        assertEquals(0, direct[0]);
+    }
+
+    @Test(timeout = 60_000)
+    public void uploaderLosesNoSamplesAcrossLinkChanges() {
+        File journal = new File(folder.getRoot(), "upload.bin");
+        VirtualClock clock = new VirtualClock(0);
+        HeartRateUploader uploader = new HeartRateUploader(transport, journal, UPLOAD_BATCH_SIZE,
+                UPLOAD_MAX_BATCH_AGE_MS, UPLOAD_QUEUE_CAPACITY, UPLOAD_MAX_JOURNAL_RECORDS);
+        uploader.setClock(clock);
+        uploader.setBinaryEncoding(USER, false);
+
+        // 0~20분 연결 / 20~40분 끊김 / 40~45분 ack 유실 / 45~60분 연결
+        int seconds = 60 * 60;
+        String phase = "";
+        int notiFailures = 0;
+        int notisSent = 0;
+        long relayedBefore = 0;
+        for (int second = 0; second < seconds; second++) {
+            int minute = second / 60;
+            String next = minute < 20 ? "connected" : minute < 40 ? "disconnected" : minute < 45 ? "ack-loss"
+                    : "reconnected";
+            if (!next.equals(phase)) {
+                phase = next;
+                channel.setConnected(!phase.equals("disconnected"));
+                channel.setDropAcks(phase.equals("ack-loss"));
+                if (phase.equals("reconnected")) {
+                    relayedBefore = transport.getRelayedCount();
+                }
+                notisSent++;
+                try {
+                    transport.send(NotiDispatcher.Event.REST, USER, USER + "-1-" + notisSent);
+                } catch (IOException e) {
+                    notiFailures++; // NotiDispatcher 라면 같은 키로 재시도
+                }
+            }
+            clock.advanceTo(second * 1_000_000_000L);
+            uploader.offer(START_MILLIS + second * 1_000L, 70 + second % 7);
+            if (second % 10 == 9) {
+                uploader.pump();
+            }
+        }
+        // 재시도 대기 시간이 지나도록 시간을 보내면서 남은 배치 전송
+        for (int i = 1; i <= 60 && uploader.getQueueSize() > 0; i++) {
+            clock.advanceTo((seconds + i * 10L) * 1_000_000_000L);
+            uploader.pump();
+        }
+
+        assertEquals(0, uploader.getQueueSize());
+        assertEquals(seconds, server.sampleTimes.size()); // 잃은 샘플 없음 (ack 유실 구간은 중복 가능)
+        assertTrue(server.samples >= seconds);
+        assertTrue(direct[0] > 0); // 끊긴 동안 HTTP 로
+        assertTrue(transport.getAckTimeoutCount() > 0);
+        assertEquals(1, notiFailures); // ack 유실 구간 시작 알림
+        assertTrue(transport.getRelayedCount() > relayedBefore); // 다시 연결되면 폰으로
+        assertTrue(!journal.exists() || journal.length() == 0);
+    }
+
+    // 1초 간격 샘플 count 개를 업로드 형식(HeartRateBatchCodec)으로
+    private static byte[] batch(int from, int count) {
+        long[] times = new long[count];
+        int[] rates = new int[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = START_MILLIS + (from + i) * 1_000L;
+            rates[i] = 70 + i % 5;
+        }
+        return new HeartRateBatchCodec(false).encode(USER, times, rates, count);
+    }
+}
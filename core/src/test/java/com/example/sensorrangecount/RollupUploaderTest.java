@@ -0,0 +1,104 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// 롤업 journal 재전송 - 재시작해도 서버가 받은 롤업은 다시 보내지 않음, 실패한 배치는 계측에 셈
+public class RollupUploaderTest {
+    private static final int BATCH = 5;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+    private static final long BUCKET_MILLIS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 정한 개수만 받고 그 뒤로는 오프라인인 전송
+    private static class RecordingTransport implements UploadTransport {
+        final List<String> bodies = new ArrayList<>();
+        int okRemaining;
+
+        RecordingTransport(int okRemaining) {
+            this.okRemaining = okRemaining;
+        }
+
+        @Override
+        public int send(byte[] body, String contentType) throws IOException {
+            assertEquals(RollupUploader.CONTENT_TYPE, contentType);
+            if (okRemaining == 0) {
+                throw new IOException("offline");
+            }
+            okRemaining--;
+            bodies.add(new String(body, StandardCharsets.UTF_8));
+            return 200;
+        }
+    }
+
+    @Test
+    public void restartResumesJournalFromAcknowledgedOffset() {
+        File journal = new File(folder.getRoot(), "rollups.bin");
+        VirtualClock clock = new VirtualClock(0);
+        PipelineMetrics metrics = new PipelineMetrics();
+
+        // 오프라인 - 4 배치가 journal 로
+        RollupUploader first = uploader(new RecordingTransport(0), journal, clock, metrics);
+        for (int i = 0; i < 4 * BATCH; i++) {
+            first.onRollup(BUCKET_MILLIS * i, BUCKET_MILLIS, 10, 60 + i, 80 + i, 70.25 + i, 1.5);
+            first.pump();
+            clock.advanceTo(clock.nanoTime() + 10 * SECOND_NANOS); // 재시도 대기 시간이 지나도록
+        }
+        assertEquals(4 * BATCH * 28, journal.length());
+        assertTrue(metrics.uploadBatchesFailed.get() > 0);
+
+        // 재시작 - 2 배치만 보내고 다시 끊김
+        RecordingTransport partial = new RecordingTransport(2);
+        RollupUploader second = uploader(partial, journal, clock, metrics);
+        second.onRollup(1_000_000L, BUCKET_MILLIS, 10, 99, 99, 99, 0);
+        second.pump();
+        assertEquals(2, partial.bodies.size());
+        assertTrue(partial.bodies.get(1).contains("\"min\": " + (60 + 2 * BATCH - 1)));
+
+        // 다시 재시작 - 남은 2 배치 + 새 롤업 둘만 (앞 2 배치는 다시 보내지 않음)
+        clock.advanceTo(clock.nanoTime() + 60 * SECOND_NANOS);
+        RecordingTransport online = new RecordingTransport(Integer.MAX_VALUE);
+        RollupUploader third = uploader(online, journal, clock, metrics);
+        third.onRollup(2_000_000L, BUCKET_MILLIS, 10, 98, 98, 98, 0);
+        clock.advanceTo(clock.nanoTime() + 60 * SECOND_NANOS);
+        third.pump();
+        int rollups = 0;
+        for (String body : online.bodies) {
+            rollups += count(body, "\"start\"");
+        }
+        assertEquals(2 * BATCH + 2, rollups);
+        // journal 에서 읽은 값이 그대로 (short 최소/최대, float 평균)
+        assertTrue(online.bodies.get(0).contains("\"min\": " + (60 + 2 * BATCH) + ", \"max\": " + (80 + 2 * BATCH)
+                + ", \"mean\": " + (70 + 2 * BATCH) + ".3, \"stddev\": 1.5"));
+        assertEquals(4 * BATCH + 2, metrics.rollupsSent.get());
+        assertTrue(!journal.exists() && !new File(journal.getPath() + ".ack").exists());
+    }
+
+    private static RollupUploader uploader(UploadTransport transport, File journal, Clock clock,
+                                           PipelineMetrics metrics) {
+        RollupUploader uploader = new RollupUploader(transport, journal, BATCH, 30_000, 100, 1_000);
+        uploader.setClock(clock);
+        uploader.setMetrics(metrics);
+        return uploader;
+    }
+
+    private static int count(String text, String needle) {
+        int n = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+}
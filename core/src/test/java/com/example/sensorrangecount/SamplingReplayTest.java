@@ -0,0 +1,103 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+// 샘플링 정책 - 합성 운행(처음/끝 대기 5분, 중간 휴식 15분, 길이/깊이가 다른 졸음 구간)을 SamplingReplay 로 재생해서
+// 정책마다 항상 켠 경우(ALWAYS_ON) 대비 샘플을 얼마나 줄이는지, 운행 중 경보를 얼마나 놓치는지 확인
+// (이전 power-saver - 안정 구간 5초 간격 - 는 놓친 경보가 한도를 넘음)
+public class SamplingReplayTest {
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final int TRIPS = 12;
+    private static final int TRIP_SAMPLES = 2 * 60 * 60; // 2시간 (1초 간격)
+    private static final long IDLE_MS = 5 * 60_000;
+    private static final long REST_FROM_MS = 60 * 60_000;
+    private static final long REST_TO_MS = REST_FROM_MS + 15 * 60_000;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final double MAX_MISSED = 0.05; // 놓친 경보 한도 (항상 켠 경우 경보 대비)
+
+    private static final List<DrowsinessEvaluator.Trace> trips = new ArrayList<>();
+    private static final List<SamplingReplay.Result> references = new ArrayList<>();
+    private static long referenceSamples = 0;
+    private static int referenceAlerts = 0;
+
+    @BeforeClass
+    public static void replayAlwaysOn() {
+        SamplingReplay reference = replay(SamplingPolicy.ALWAYS_ON);
+        for (int i = 0; i < TRIPS; i++) {
+            trips.add(trip(i));
+            SamplingReplay.Result result = reference.replay(trips.get(i));
+            references.add(result);
+            referenceSamples += result.samples;
+            referenceAlerts += result.alertTimes.size();
+        }
+        assertTrue(referenceAlerts >= TRIPS * 10);
+    }
+
+    @Test
+    public void responsive() {
+        check(SamplingPolicy.RESPONSIVE, 0.90);
+    }
+
+    @Test
+    public void balanced() {
+        check(SamplingPolicy.BALANCED, 0.65);
+    }
+
+    @Test
+    public void powerSaver() {
+        check(SamplingPolicy.POWER_SAVER, 0.40);
+    }
+
+    // 센서가 전달한 샘플이 maxKeptRatio 이하, 놓친 경보가 MAX_MISSED 이하
+    private static void check(SamplingPolicy policy, double maxKeptRatio) {
+        SamplingReplay replay = replay(policy);
+        long kept = 0;
+        int missed = 0;
+        for (int i = 0; i < TRIPS; i++) {
+            SamplingReplay.Result result = replay.replay(trips.get(i));
+            SamplingReplay.compare(references.get(i), result);
+            kept += result.kept;
+            missed += result.missedAlerts;
+        }
+        double keptRatio = (double) kept / referenceSamples;
+        double missedRatio = (double) missed / referenceAlerts;
+        assertTrue("kept " + keptRatio, keptRatio <= maxKeptRatio);
+        assertTrue("missed " + missed + "/" + referenceAlerts, missedRatio <= MAX_MISSED);
+    }
+
+    private static SamplingReplay replay(SamplingPolicy policy) {
+        return new SamplingReplay(policy, DrowsinessEngine.DEFAULT_RATIO, IDLE_MS,
+                Arrays.asList(new long[]{REST_FROM_MS, REST_TO_MS}), new BaselineProfile("E001", UTC));
+    }
+
+    // 운행 하나 - 평소 심박수 72..76, 잡음 +-2, 3..12분 간격으로 30초..3분 길이, 8..16% 하락한 졸음 구간
+    private static DrowsinessEvaluator.Trace trip(int index) {
+        Random random = new Random(index);
+        long[] times = new long[TRIP_SAMPLES];
+        int[] rates = new int[TRIP_SAMPLES];
+        double normal = 72 + random.nextInt(5); // 같은 운전자 - 운행마다 조금씩 다름
+        int nextEpisode = 180 + random.nextInt(540);
+        int episodeEnd = -1;
+        double drop = 0;
+        for (int i = 0; i < TRIP_SAMPLES; i++) {
+            if (i == nextEpisode) {
+                episodeEnd = i + 30 + random.nextInt(151);
+                drop = 0.08 + random.nextDouble() * 0.08;
+                nextEpisode = episodeEnd + 180 + random.nextInt(540);
+            }
+            double rate = normal * (i < episodeEnd ? 1 - drop : 1) + random.nextInt(5) - 2;
+            times[i] = START_MILLIS + index * 86_400_000L + i * 1_000L;
+            rates[i] = random.nextInt(1_000) == 0 ? 0 : (int) Math.round(rate); // 가끔 착용 불량 (0 bpm)
+        }
+        return new DrowsinessEvaluator.Trace("trip" + index, times, rates);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 센서 묶음 처리 - ScriptedSensorSource 로 FIFO 묶음을 재생해서 HeartRatePipeline 과 AlertLane 을 확인
+// - 묶음 하나에 onBatchStart/onBatchProcessed 한 쌍 (Wake Lock 을 잡고 놓는 단위)
+// - 묶음 끝에는 그 묶음의 샘플이 모두 기록(구독자 전달)까지 끝나 있음
+// - 0 bpm (착용 안 함) 샘플은 건너뜀, 0 만 있는 묶음은 묶음으로 치지 않음
+// - 센서 스레드에서 모으는 묶음이 가득 차면 묶음 끝을 기다리지 않고 먼저 처리
+public class SensorBatchTest {
+    private static final long BOOT_MILLIS = 1_700_000_000_000L;
+    private static final long SAMPLE_NANOS = 1_000_000_000L;
+    private static final int BURST = 10; // 보통 묶음 (보고 지연 10초)
+    private static final int OVERFLOW_BURST = 300; // HeartRatePipeline 의 묶음 버퍼(256)보다 큰 묶음
+
+    // 묶음 콜백과 그 시점까지 구독자에게 전달된 샘플 수
+    private static class BatchCounter implements HeartRatePipeline.Callback {
+        final AtomicInteger starts = new AtomicInteger();
+        final AtomicInteger published = new AtomicInteger();
+        final List<Integer> publishedAtProcessed = new ArrayList<>();
+        final Semaphore processed = new Semaphore(0);
+
+        @Override
+        public void onBatchStart() {
+            starts.incrementAndGet();
+        }
+
+        @Override
+        public void onBatchProcessed() {
+            synchronized (publishedAtProcessed) {
+                publishedAtProcessed.add(published.get());
+            }
+            processed.release();
+        }
+
+        @Override
+        public void onAlert(long timeMillis, int heartRate) {}
+
+        @Override
+        public void onError(String message, IOException e) {
+            throw new AssertionError(message, e);
+        }
+
+        int processedCount() {
+            synchronized (publishedAtProcessed) {
+                return publishedAtProcessed.size();
+            }
+        }
+
+        int publishedAt(int batch) {
+            synchronized (publishedAtProcessed) {
+                return publishedAtProcessed.get(batch);
+            }
+        }
+    }
+
+    @Test
+    public void pipelineProcessesEachBurstOnceAndFlushesOnOverflow() {
+        BatchCounter counter = new BatchCounter();
+        HeartRatePipeline pipeline = pipeline(counter);
+        ScriptedSensorSource source = new ScriptedSensorSource();
+        long t = burst(source, 0, BURST, true); // 샘플 8개 + 0 bpm 2개
+        t = zeros(source, t, 3); // 착용 안 함 - 묶음 아님
+        t = burst(source, t, BURST, false);
+        burst(source, t, OVERFLOW_BURST, false);
+        source.start(pipeline, 1_000_000, (int) (BURST * SAMPLE_NANOS / 1_000));
+
+        assertTrue(source.deliverNextBatch());
+        assertEquals(1, counter.starts.get());
+        assertEquals(1, counter.processedCount());
+        assertEquals(BURST - 2, counter.publishedAt(0)); // 묶음 끝에 모두 처리, 0 bpm 은 빠짐
+
+        assertTrue(source.deliverNextBatch());
+        assertEquals(1, counter.starts.get());
+        assertEquals(1, counter.processedCount());
+
+        assertTrue(source.deliverNextBatch());
+        assertEquals(2, counter.starts.get());
+        assertEquals(2, counter.processedCount());
+        assertEquals(2 * BURST - 2, counter.publishedAt(1));
+
+        // 가득 차면 묶음 끝 전에 256 개를 먼저 처리하고 나머지는 새 묶음으로
+        assertTrue(source.deliverNextBatch());
+        assertEquals(4, counter.starts.get());
+        assertEquals(4, counter.processedCount());
+        assertEquals(2 * BURST - 2 + 256, counter.publishedAt(2));
+        assertEquals(2 * BURST - 2 + OVERFLOW_BURST, counter.publishedAt(3));
+        assertEquals(0, source.getRemainingSteps());
+        assertEquals(2 * BURST + 3 + OVERFLOW_BURST, pipeline.getMetrics().sensorEvents.get());
+    }
+
+    @Test(timeout = 30_000)
+    public void alertLaneDrainsEachBurstBeforeBatchProcessed() throws InterruptedException {
+        BatchCounter counter = new BatchCounter();
+        HeartRatePipeline pipeline = pipeline(counter);
+        AlertLane lane = AlertLane.withDefaultThreads(pipeline);
+        ScriptedSensorSource source = new ScriptedSensorSource();
+        int bursts = 20;
+        long t = 0;
+        for (int i = 0; i < bursts; i++) {
+            t = burst(source, t, BURST, true);
+            if (i % 5 == 4) {
+                t = zeros(source, t, 2);
+            }
+        }
+        lane.start();
+        source.start(lane, 1_000_000, (int) (BURST * SAMPLE_NANOS / 1_000));
+
+        int batches = 0;
+        while (source.getRemainingSteps() > 0) {
+            int before = counter.starts.get();
+            assertTrue(source.deliverNextBatch());
+            if (counter.starts.get() == before) {
+                continue; // 0 bpm 만 있는 묶음
+            }
+            // 센서 FIFO 처럼 다음 묶음은 앞 묶음 처리가 끝난 뒤에
+            assertTrue(counter.processed.tryAcquire(5, TimeUnit.SECONDS));
+            batches++;
+            assertEquals(batches, counter.starts.get());
+            assertEquals(batches, counter.processedCount());
+            assertEquals(batches * (BURST - 2), counter.publishedAt(batches - 1));
+        }
+        lane.stop();
+        assertEquals(bursts, batches);
+        assertEquals(bursts, counter.processedCount());
+        assertEquals(0, pipeline.getMetrics().recordDropped.get());
+    }
+
+    private static HeartRatePipeline pipeline(final BatchCounter counter) {
+        HeartRatePipeline pipeline = new HeartRatePipeline(BOOT_MILLIS, DrowsinessEngine.createDefault(), counter);
+        pipeline.setMetrics(new PipelineMetrics(), Clock.SYSTEM);
+        pipeline.getHub().subscribe((timeMillis, heartRate) -> counter.published.incrementAndGet(), null, false);
+        return pipeline;
+    }
+
+    // 1초 간격 묶음 하나 (withZeros 면 두 번째와 마지막 샘플이 0 bpm) - 다음 샘플 시각을 리턴
+    private static long burst(ScriptedSensorSource source, long t, int count, boolean withZeros) {
+        for (int i = 0; i < count; i++) {
+            boolean zero = withZeros && (i == 1 || i == count - 1);
+            source.sample(t, zero ? 0 : 70 + (i % 3));
+            t += SAMPLE_NANOS;
+        }
+        source.endBatch();
+        return t;
+    }
+
+    private static long zeros(ScriptedSensorSource source, long t, int count) {
+        for (int i = 0; i < count; i++) {
+            source.sample(t, 0);
+            t += SAMPLE_NANOS;
+        }
+        source.endBatch();
+        return t;
+    }
+}
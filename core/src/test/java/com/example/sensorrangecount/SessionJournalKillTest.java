@@ -0,0 +1,299 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+
+// 운행 세션 기록(SessionJournal/DrivingSession)을 프로세스 강제 종료로 확인
+// - 자식 JVM 이 기록 파일에서 세션을 복원한 뒤 시작/휴식/재개/종료를 계속 (가상 시계, 가끔 벽시계 +-1시간)
+//   전환을 기록할 때마다 번호를 출력 -> 부모가 임의의 시점에 kill -9
+// - 부모가 같은 시드로 전환을 다시 만들어서 모델로 계산한 상태/운행 시간과, 기록 파일에서 복원한 값이 같은지 확인
+//   (출력한 마지막 전환까지 또는 그 다음 것까지 - 기록은 했지만 출력 전에 죽은 경우)
+// - 3번에 한 번 파일 끝에 쓰다 만 레코드를 붙이고, 4번에 한 번 재부팅 (elapsedRealtime 이 0 부터, 꺼져 있던 시간 포함)
+public class SessionJournalKillTest {
+    private static final int RUNS = 20;
+    private static final long WALL_JUMP_MS = 60 * 60_000L;
+
+    // 전환 하나 (가상 시계로 dt 뒤, 벽시계는 jump 만큼 더 바뀜)
+    static class Step {
+        int type;
+        long dt;
+        long jump;
+    }
+
+    // 자식과 부모가 같은 순서로 만드는 전환 (지금 상태에서 가능한 것 중 무작위)
+    static void next(Random random, DrivingSession.State state, Step step) {
+        step.dt = 1 + random.nextInt(5_000);
+        step.jump = random.nextInt(10) == 0 ? (random.nextBoolean() ? WALL_JUMP_MS : -WALL_JUMP_MS) : 0;
+        int choice = random.nextInt(4);
+        switch (state) {
+            case IDLE:
+                step.type = SessionJournal.START;
+                break;
+            case DRIVING:
+                step.type = choice < 3 ? SessionJournal.REST : SessionJournal.STOP;
+                break;
+            default:
+                step.type = choice < 3 ? SessionJournal.RESUME : SessionJournal.STOP;
+                break;
+        }
+    }
+
+    // 기대값 계산용 모델 - 마지막 기록 시점(가상 시각 g, 벽시계, 부팅)과 그때의 운행 시간
+    static class Model {
+        DrivingSession.State state = DrivingSession.State.IDLE;
+        long driving = 0;
+        long g = 0;
+        long wall = 0;
+        int boot = 0;
+
+        Model copy() {
+            Model m = new Model();
+            m.state = state;
+            m.driving = driving;
+            m.g = g;
+            m.wall = wall;
+            m.boot = boot;
+            return m;
+        }
+
+        void apply(int type, long g, long wall, int boot) {
+            if (type == SessionJournal.START) {
+                state = DrivingSession.State.DRIVING;
+                driving = 0;
+            } else if (type == SessionJournal.REST) {
+                driving += g - this.g;
+                state = DrivingSession.State.RESTING;
+            } else if (type == SessionJournal.RESUME) {
+                state = DrivingSession.State.DRIVING;
+            } else {
+                state = DrivingSession.State.IDLE;
+                driving = 0;
+            }
+            this.g = g;
+            this.wall = wall;
+            this.boot = boot;
+        }
+
+        // 지금(gNow, wallNow, bootNow) 복원했을 때의 운행 시간
+        long drivingAt(long gNow, long wallNow, int bootNow) {
+            if (state != DrivingSession.State.DRIVING) {
+                return driving;
+            }
+            return driving + (boot == bootNow ? gNow - g : Math.max(0, wallNow - wall));
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 자식 JVM 진입점
+    public static void main(String[] args) throws Exception {
+        runChild(new File(args[0]), Long.parseLong(args[1]), Integer.parseInt(args[2]),
+                Long.parseLong(args[3]), Long.parseLong(args[4]));
+    }
+
+    @Test(timeout = 300_000)
+    public void killedWriterRestoresLastRecordedTransition() throws Exception {
+        File dir = folder.getRoot();
+        // 테스트 실행기에 따라 java.class.path 가 테스트 클래스를 담지 않을 수 있어서 직접 만듦
+        String classPath = location(SessionJournalKillTest.class) + File.pathSeparator + location(DrivingSession.class);
+        File file = new File(dir, "session.journal");
+        Random random = new Random(1);
+        Model model = new Model();
+        long g = 1_000_000; // 가상 시각 (밀리초)
+        long wallOffset = 1_700_000_000_000L;
+        int boot = 1;
+        long bootStart = 0;
+        long transitions = 0;
+        for (int run = 0; run < RUNS; run++) {
+            // 1. 자식 실행 -> 임의 시점에 kill -9
+            // 출력은 파일로 (kill 해도 이미 쓴 줄은 남음)
+            File output = new File(dir, "child.out");
+            Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", classPath, SessionJournalKillTest.class.getName(), file.getPath(), String.valueOf(run),
+                    String.valueOf(boot), String.valueOf(g - bootStart), String.valueOf(g + wallOffset))
+                    .redirectErrorStream(true).redirectOutput(output).start();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!firstLine(output).equals("ready") && child.isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            if (!firstLine(output).equals("ready")) {
+                child.destroyForcibly().waitFor();
+                fail("child failed to start: " + new String(Files.readAllBytes(output.toPath()),
+                        StandardCharsets.US_ASCII));
+            }
+            Thread.sleep(random.nextInt(30));
+            child.destroyForcibly().waitFor();
+            int printed = 0;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(output), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (!line.equals("ready")) {
+                        printed = Integer.parseInt(line.trim());
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // 마지막 줄이 쓰다 만 경우 - 그 앞 번호까지
+            }
+
+            // 2. 같은 시드로 printed, printed + 1 번째까지의 모델
+            Random steps = new Random(run);
+            Step step = new Step();
+            Model candidate = model.copy();
+            Model withPrinted = null;
+            for (int k = 1; k <= printed + 1; k++) {
+                next(steps, candidate.state, step);
+                g += step.dt;
+                wallOffset += step.jump;
+                candidate.apply(step.type, g, g + wallOffset, boot);
+                if (k == printed) {
+                    withPrinted = candidate.copy();
+                }
+            }
+            if (withPrinted == null) {
+                withPrinted = model.copy();
+            }
+            Model withNext = candidate;
+
+            // 3. 쓰다 만 레코드 / 꺼져 있던 시간 / 재부팅
+            if (run % 3 == 2) {
+                byte[] garbage = new byte[1 + random.nextInt(SessionJournal.RECORD_BYTES - 1)];
+                random.nextBytes(garbage);
+                try (FileOutputStream f = new FileOutputStream(file, true)) {
+                    f.write(garbage);
+                }
+            }
+            g += random.nextInt(10_000);
+            if (run % 4 == 3) {
+                boot++;
+                bootStart = g;
+            }
+
+            // 4. 복원해서 비교
+            long elapsedNow = g - bootStart;
+            long wallNow = g + wallOffset;
+            SessionJournal journal = new SessionJournal(file);
+            DrivingSession session = new DrivingSession(journal, boot);
+            DrivingSession.State state = session.restore(elapsedNow, wallNow);
+            long driving = session.getTimer().elapsedMillis(elapsedNow);
+            journal.close();
+            Model matched = null;
+            if (state == withPrinted.state && driving == withPrinted.drivingAt(g, wallNow, boot)) {
+                matched = withPrinted;
+            } else if (state == withNext.state && driving == withNext.drivingAt(g, wallNow, boot)) {
+                matched = withNext;
+            }
+            transitions += printed;
+            if (matched == null) {
+                fail(String.format(Locale.ROOT, "run %d: restored %s %d ms, expected %s %d ms or %s %d ms",
+                        run, state, driving, withPrinted.state, withPrinted.drivingAt(g, wallNow, boot),
+                        withNext.state, withNext.drivingAt(g, wallNow, boot)));
+            }
+            // 재부팅 후 복원은 지금 부팅 기준으로 다시 기록함
+            if (matched.boot != boot && matched.state != DrivingSession.State.IDLE) {
+                matched.driving = matched.drivingAt(g, wallNow, boot);
+                matched.g = g;
+                matched.wall = wallNow;
+                matched.boot = boot;
+            }
+            model = matched;
+        }
+        assertTrue("no transitions before the kills", transitions > 0);
+    }
+
+    // 휴식/재개를 반복한 긴 운행 하나 (START 뒤로 레코드 200개)를 닫았다가 복원
+    @Test
+    public void longSessionRestoresDrivingTime() throws IOException {
+        File file = new File(folder.getRoot(), "session.journal");
+        SessionJournal journal = new SessionJournal(file);
+        DrivingSession session = new DrivingSession(journal, 1);
+        session.restore(0, 0);
+        long elapsed = 0;
+        session.start(elapsed, elapsed);
+        for (int i = 0; i < 100; i++) {
+            session.rest(elapsed += 3_600_000, elapsed);
+            session.resume(elapsed += 600_000, elapsed);
+        }
+        journal.close();
+
+        SessionJournal reopened = new SessionJournal(file);
+        DrivingSession restored = new DrivingSession(reopened, 1);
+        assertEquals(DrivingSession.State.DRIVING, restored.restore(elapsed, elapsed));
+        assertEquals(100 * 3_600_000L, restored.getTimer().elapsedMillis(elapsed));
+        reopened.close();
+    }
+
+    private static String location(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static String firstLine(File file) throws IOException {
+        if (!file.exists()) {
+            return "";
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int end = 0;
+        while (end < bytes.length && bytes[end] != '\n') {
+            end++;
+        }
+        return end < bytes.length ? new String(bytes, 0, end, StandardCharsets.US_ASCII).trim() : "";
+    }
+
+    // 자식: 복원 후 전환을 계속 기록하면서 번호 출력 (kill 될 때까지)
+    private static void runChild(File file, long seed, int boot, long elapsed, long wall) throws IOException {
+        DrivingSession session = new DrivingSession(new SessionJournal(file), boot);
+        session.addListener(new DrivingSession.Listener() {
+            @Override
+            public void onStateChanged(DrivingSession.State state) {}
+
+            @Override
+            public void onJournalFailed(IOException e) {
+                System.out.println("journal failed: " + e.getMessage());
+                System.exit(3);
+            }
+        });
+        session.restore(elapsed, wall);
+        System.out.println("ready");
+        System.out.flush();
+        Random random = new Random(seed);
+        Step step = new Step();
+        for (int k = 1; ; k++) {
+            next(random, session.getState(), step);
+            elapsed += step.dt;
+            wall += step.dt + step.jump;
+            apply(session, step.type, elapsed, wall);
+            System.out.println(k);
+            System.out.flush();
+        }
+    }
+
+    static void apply(DrivingSession session, int type, long elapsed, long wall) {
+        if (type == SessionJournal.START) {
+            session.start(elapsed, wall);
+        } else if (type == SessionJournal.REST) {
+            session.rest(elapsed, wall);
+        } else if (type == SessionJournal.RESUME) {
+            session.resume(elapsed, wall);
+        } else {
+            session.stop(elapsed, wall);
+        }
+    }
+}
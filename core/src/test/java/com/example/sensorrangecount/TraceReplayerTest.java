@@ -0,0 +1,92 @@
+package com.example.sensorrangecount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+// 트레이스 재생이 결정적인지 - 합성 8시간 트레이스(SensorTraceWriter)를 두 번 재생해서 경보 시각과 업로드 checksum 비교
+// 운행 하나로 재생 (휴식 구간 포함) -> 프로필/운행 요약 경로도 같이 확인
+public class TraceReplayerTest {
+    private static final long BOOT_MILLIS = 1_700_000_000_000L;
+    private static final long SAMPLE_NANOS = 1_000_000_000L;
+    private static final int SAMPLES = 8 * 60 * 60; // 8시간 (1초 간격)
+    private static final int BATCH = 10; // FIFO 한 묶음
+    private static final int EPISODE_SAMPLES = 40 * 60; // 40분마다 졸음 구간 하나
+    private static final int DROWSY_SAMPLES = 90;
+    private static final long REST_FROM_MS = 4 * 60 * 60_000L; // 4시간째 15분 휴식
+    private static final long REST_TO_MS = REST_FROM_MS + 15 * 60_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayIsDeterministic() throws IOException {
+        File trace = writeTrace(new File(folder.getRoot(), "shift.hrt"));
+        long[] rest = {REST_FROM_MS, REST_TO_MS};
+
+        TraceReplayer.Result first = TraceReplayer.replay(trace, DrowsinessEngine.createDefault(), 0, 0, true, rest);
+        TraceReplayer.Result second = TraceReplayer.replay(trace, DrowsinessEngine.createDefault(), 0, 0, true, rest);
+
+        assertEquals(SAMPLES, first.samples);
+        assertFalse(first.alertTimes.isEmpty());
+        assertEquals(first.alertTimes, second.alertTimes);
+        assertEquals(first.checksum, second.checksum);
+        assertEquals(first.uploadRequests, second.uploadRequests);
+        assertEquals(first.uploadedBytes, second.uploadedBytes);
+        assertEquals(0, first.pendingSamples);
+
+        // 휴식 구간에는 경보 없음, 운행 시간은 휴식을 뺀 것
+        for (long alertTime : first.alertTimes) {
+            long since = alertTime - first.startMillis;
+            assertTrue(since < REST_FROM_MS || since >= REST_TO_MS);
+        }
+        assertEquals((SAMPLES - 1) * 1_000L - (REST_TO_MS - REST_FROM_MS), first.drivingMillis, 2_000);
+        assertNotNull(first.tripSummary);
+        assertTrue(first.profileSamples > 0);
+        assertEquals(first.profileSamples, second.profileSamples);
+    }
+
+    // 1Hz 심박수, BATCH 개씩 묶어서 전달 (전달 시각 = 마지막 샘플 + 0.5초)
+    private static File writeTrace(File file) throws IOException {
+        VirtualClock clock = new VirtualClock(0);
+        SensorSource.Listener ignore = new SensorSource.Listener() {
+            @Override
+            public void onSample(long timestampNanos, float value) {}
+
+            @Override
+            public void onBatchEnd() {}
+
+            @Override
+            public void onAccuracyChanged(int accuracy) {}
+        };
+        long baseNanos = 3_600 * SAMPLE_NANOS; // 부팅 한 시간 뒤 시작
+        try (SensorTraceWriter writer = new SensorTraceWriter(file, 21, BOOT_MILLIS, 1_000_000,
+                (int) (BATCH * SAMPLE_NANOS / 1_000), clock, ignore)) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long t = baseNanos + i * SAMPLE_NANOS;
+                writer.onSample(t, rateAt(i));
+                if ((i + 1) % BATCH == 0 || i == SAMPLES - 1) {
+                    clock.advanceTo(t + SAMPLE_NANOS / 2);
+                    writer.onBatchEnd();
+                }
+            }
+        }
+        return file;
+    }
+
+    private static int rateAt(int index) {
+        int phase = index % EPISODE_SAMPLES;
+        int wobble = (int) ((index * 2_654_435_761L) % 5) - 2; // 결정적인 잡음 -2..2
+        int drift = index / 3_600; // 시간마다 1 bpm 씩 낮아짐
+        int rate = (phase >= EPISODE_SAMPLES - DROWSY_SAMPLES ? 62 : 76) - drift + wobble;
+        return index % 997 == 0 ? 0 : rate; // 가끔 착용 불량 (0 bpm)
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// 운전자 프로필(BaselineProfile)이 운행 시작 직후 감지를 얼마나 앞당기는지 재생으로 확인 (PC 에서 실행)
+// - 앞쪽 --learn 개 트립을 HeartRatePipeline 으로 재생해서 프로필을 만들고 파일로 저장
+// - 나머지 트립마다 시작 후 N초에 졸음 구간(심박수 x --drop, EPISODE_MS 동안)을 넣고
+//   프로필 없이/저장한 파일에서 읽은 프로필로 각각 처음부터 재생 -> 그 구간 안에 경보가 났는지
+// - 졸음 구간을 넣지 않은 재생에서 처음 WARMUP_CHECK_MS 동안 난 경보는 오경보로 셈
+// 시작 후 --gate 초에 넣은 구간을 프로필로 90% 이상 잡지 못하면 종료 코드 1
+// (합성 운행으로 같은 비교를 하는 테스트: BaselineWarmupReplayTest)
+// 사용법: java ... BaselineWarmupReplay [--learn=5] [--drop=0.85] [--offsets=5,15,30,60,120,300] [--gate=5]
+//         <trace.csv | 저장소 디렉터리>...
+public class BaselineWarmupReplay {
+    static final long EPISODE_MS = 120_000;
+    private static final long WARMUP_CHECK_MS = 10 * 60_000;
+
+    // 시작 오프셋 하나의 결과 (프로필 없음/있음)
+    static class Row {
+        final long offsetMs;
+        int episodes = 0;
+        int detectedCold = 0;
+        int detectedWarm = 0;
+        long delaySumCold = 0; // 구간 시작 -> 경보 (잡은 것만)
+        long delaySumWarm = 0;
+
+        Row(long offsetMs) {
+            this.offsetMs = offsetMs;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int learn = 5;
+        double drop = 0.85;
+        long[] offsets = {5_000, 15_000, 30_000, 60_000, 120_000, 300_000};
+        long gateMs = 5_000;
+        List<DrowsinessEvaluator.Trace> traces = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--learn=")) {
+                learn = Integer.parseInt(arg.substring("--learn=".length()));
+            } else if (arg.startsWith("--drop=")) {
+                drop = Double.parseDouble(arg.substring("--drop=".length()));
+            } else if (arg.startsWith("--offsets=")) {
+                String[] parts = arg.substring("--offsets=".length()).split(",");
+                offsets = new long[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    offsets[i] = Long.parseLong(parts[i]) * 1000;
+                }
+            } else if (arg.startsWith("--gate=")) {
+                gateMs = Long.parseLong(arg.substring("--gate=".length())) * 1000;
+            } else if (arg.startsWith("--")) {
+                System.err.println("unknown option: " + arg);
+                System.exit(2);
+            } else {
+                traces.add(DrowsinessEvaluator.load(new File(arg)));
+            }
+        }
+        if (traces.size() <= learn) {
+            System.err.println("usage: BaselineWarmupReplay [--learn=5] [--drop=0.85] [--offsets=5,15,30] [--gate=5]"
+                    + " <trace.csv | store dir>... (more traces than --learn)");
+            System.exit(2);
+        }
+
+        // 1. 프로필 만들기 -> 저장
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        File dir = Files.createTempDirectory("baseline-profile").toFile();
+        BaselineProfileStore store = new BaselineProfileStore(dir, utc);
+        BaselineProfile profile = store.load("replay");
+        for (int t = 0; t < learn; t++) {
+            run(traces.get(t), profile, -1, 1.0, Long.MAX_VALUE);
+        }
+        store.save(profile);
+        System.out.printf(Locale.ROOT, "profile from %d trips: %d samples, %d bytes%n",
+                learn, profile.totalCount(), store.fileOf("replay").length());
+
+        // 2. 나머지 트립으로 감지 비교 (프로필은 매번 파일에서 다시 읽어서 재생끼리 영향 없게)
+        Row[] rows = new Row[offsets.length];
+        int falseCold = 0;
+        int falseWarm = 0;
+        long firstBaselineCold = 0;
+        long firstBaselineWarm = 0;
+        int evaluated = 0;
+        for (int t = learn; t < traces.size(); t++) {
+            DrowsinessEvaluator.Trace trace = traces.get(t);
+            long[] cold = run(trace, null, -1, 1.0, WARMUP_CHECK_MS);
+            long[] warm = run(trace, store.load("replay"), -1, 1.0, WARMUP_CHECK_MS);
+            falseCold += (int) cold[1];
+            falseWarm += (int) warm[1];
+            firstBaselineCold += cold[2];
+            firstBaselineWarm += warm[2];
+            evaluated++;
+            for (int i = 0; i < offsets.length; i++) {
+                if (rows[i] == null) {
+                    rows[i] = new Row(offsets[i]);
+                }
+                long until = offsets[i] + EPISODE_MS;
+                long[] c = run(trace, null, offsets[i], drop, until);
+                long[] w = run(trace, store.load("replay"), offsets[i], drop, until);
+                Row row = rows[i];
+                row.episodes++;
+                if (c[0] >= 0) {
+                    row.detectedCold++;
+                    row.delaySumCold += c[0];
+                }
+                if (w[0] >= 0) {
+                    row.detectedWarm++;
+                    row.delaySumWarm += w[0];
+                }
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%d trips, drop x%.2f for %d s%n", evaluated, drop, EPISODE_MS / 1000);
+        System.out.printf(Locale.ROOT, "first usable baseline after: cold %.1f s, profile %.1f s (mean)%n",
+                firstBaselineCold / 1000.0 / evaluated, firstBaselineWarm / 1000.0 / evaluated);
+        System.out.printf(Locale.ROOT, "false alerts in first %d min: cold %d, profile %d%n",
+                WARMUP_CHECK_MS / 60_000, falseCold, falseWarm);
+        System.out.println("episode start   detected (cold -> profile)     mean delay (cold -> profile)");
+        boolean pass = true;
+        for (Row row : rows) {
+            System.out.printf(Locale.ROOT, "%8d s      %3d/%d -> %3d/%d              %6s -> %6s%n",
+                    row.offsetMs / 1000, row.detectedCold, row.episodes, row.detectedWarm, row.episodes,
+                    delay(row.delaySumCold, row.detectedCold), delay(row.delaySumWarm, row.detectedWarm));
+            if (row.offsetMs >= gateMs && row.detectedWarm * 10 < row.episodes * 9) {
+                pass = false;
+            }
+        }
+        System.out.printf(Locale.ROOT, "profile detects >= 90%% of episodes from %d s -> %s%n",
+                gateMs / 1000, pass ? "PASS" : "FAIL");
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        System.exit(pass ? 0 : 1);
+    }
+
+    private static String delay(long sum, int count) {
+        return count == 0 ? "-" : String.format(Locale.ROOT, "%.1fs", sum / 1000.0 / count);
+    }
+
+    // 트립 하나를 서비스와 같은 감지 경로로 재생 (운행 중 상태, 처음부터 untilMs 까지)
+    // episodeMs >= 0 이면 그때부터 EPISODE_MS 동안 심박수 x drop
+    // 리턴: {구간 시작 -> 첫 경보 (구간 안에서 없으면 -1), 구간 밖 경보 수, 첫 기준 심박수까지 걸린 시간}
+    static long[] run(DrowsinessEvaluator.Trace trace, BaselineProfile profile, long episodeMs,
+                              double drop, long untilMs) {
+        final long[] alertAt = {-1};
+        HeartRatePipeline pipeline = new HeartRatePipeline(0, DrowsinessEngine.createDefault(),
+                new HeartRatePipeline.Callback() {
+                    @Override
+                    public void onBatchStart() {}
+
+                    @Override
+                    public void onBatchProcessed() {}
+
+                    @Override
+                    public void onAlert(long timeMillis, int heartRate) {
+                        alertAt[0] = timeMillis;
+                    }
+
+                    @Override
+                    public void onError(String message, IOException e) {}
+                });
+        pipeline.setSession(SamplingScheduler.Session.DRIVING);
+        pipeline.setBaselineProfile(profile);
+        LiveState.Snapshot live = new LiveState.Snapshot();
+        long start = trace.times.length > 0 ? trace.times[0] : 0;
+        long detected = -1;
+        long otherAlerts = 0;
+        long firstBaseline = -1;
+        for (int i = 0; i < trace.times.length; i++) {
+            long elapsed = trace.times[i] - start;
+            if (elapsed >= untilMs) {
+                break;
+            }
+            int heartRate = trace.heartRates[i];
+            if (heartRate == 0) {
+                continue;
+            }
+            boolean inEpisode = episodeMs >= 0 && elapsed >= episodeMs && elapsed < episodeMs + EPISODE_MS;
+            if (inEpisode) {
+                heartRate = (int) Math.round(heartRate * drop);
+            }
+            alertAt[0] = -1;
+            pipeline.detect(trace.times[i], heartRate, 0);
+            if (firstBaseline < 0) {
+                pipeline.getLiveState().read(live);
+                if (!Double.isNaN(live.baselineMean)) {
+                    firstBaseline = elapsed;
+                }
+            }
+            if (alertAt[0] >= 0) {
+                if (inEpisode && detected < 0) {
+                    detected = elapsed - episodeMs;
+                } else if (!inEpisode) {
+                    otherAlerts++;
+                }
+            }
+        }
+        return new long[]{detected, otherAlerts, Math.max(firstBaseline, 0)};
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// 기록된 심박수 트레이스를 감지 엔진에 재생해서 임계값을 조정하는 오프라인 평가 도구 (PC 에서 실행)
+// 사용법: java ... DrowsinessEvaluator [--ratio=0.90,0.93,0.96] [--profile=<프로필 디렉터리>:<userId>]
+//                                      <trace.csv | 저장소 디렉터리>...
+// - CSV: 한 줄에 "epoch밀리초,심박수[,플래그]" (# 으로 시작하는 줄은 무시, 플래그는 HeartRateStore.FLAG_*)
+// - 디렉터리: 워치에서 가져온 HeartRateStore 디렉터리 (files/heartrate) - 휴식 플래그도 같이 읽음
+// - 감지는 서비스와 같은 HeartRatePipeline.detect (운행 중으로 보고, 휴식 플래그 구간은 엔진을 휴식 상태로)
+// - --profile: 워치에서 가져온 운전자 프로필 (files/profiles) 을 사전값으로 (비율마다 다시 읽음)
+public class DrowsinessEvaluator {
+
+    // 트레이스 하나 (메모리에 primitive 배열로 보관)
+    public static class Trace {
+        public final String name;
+        public final long[] times;
+        public final int[] heartRates;
+        public final int[] flags; // HeartRateStore.FLAG_* (휴식 구간 등)
+
+        public Trace(String name, long[] times, int[] heartRates) {
+            this(name, times, heartRates, new int[times.length]);
+        }
+
+        public Trace(String name, long[] times, int[] heartRates, int[] flags) {
+            this.name = name;
+            this.times = times;
+            this.heartRates = heartRates;
+            this.flags = flags;
+        }
+    }
+
+    // 트레이스 하나의 평가 결과
+    public static class Result {
+        public int samples = 0;
+        public int alerts = 0;
+        public long firstAlertMillis = -1; // 첫 경보 시각 (없으면 -1)
+    }
+
+    // 트레이스를 서비스의 감지 경로(HeartRatePipeline.detect)로 재생 - 트레이스 하나를 운행 하나로
+    // 휴식 플래그가 바뀌면 서비스의 휴식 시작/끝처럼 엔진과 세션을 바꿈, profile 이 있으면 사전값으로 쓰고 누적
+    public static Result evaluate(Trace trace, DrowsinessEngine engine, BaselineProfile profile) {
+        final Result result = new Result();
+        long bootTimeMillis = trace.times.length > 0 ? trace.times[0] : 0;
+        HeartRatePipeline pipeline = new HeartRatePipeline(bootTimeMillis, engine, new HeartRatePipeline.Callback() {
+            @Override
+            public void onBatchStart() {}
+
+            @Override
+            public void onBatchProcessed() {}
+
+            @Override
+            public void onAlert(long timeMillis, int heartRate) {
+                result.alerts++;
+                if (result.firstAlertMillis < 0) {
+                    result.firstAlertMillis = timeMillis;
+                }
+            }
+
+            @Override
+            public void onError(String message, IOException e) {}
+        });
+        pipeline.setBaselineProfile(profile);
+        pipeline.setSession(SamplingScheduler.Session.DRIVING);
+        engine.setResting(false);
+        for (int i = 0; i < trace.times.length; i++) {
+            int heartRate = trace.heartRates[i];
+            if (heartRate == 0) {
+                continue;
+            }
+            boolean resting = (trace.flags[i] & HeartRateStore.FLAG_RESTING) != 0;
+            if (resting != engine.isResting()) {
+                engine.setResting(resting);
+                pipeline.setSession(resting ? SamplingScheduler.Session.RESTING : SamplingScheduler.Session.DRIVING);
+            }
+            result.samples++;
+            pipeline.detect(trace.times[i], heartRate, 0);
+        }
+        engine.setResting(false);
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        double[] ratios = {0.90, 0.93, 0.96};
+        File profileDir = null;
+        String userId = null;
+        List<Trace> traces = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--ratio=")) {
+                String[] parts = arg.substring("--ratio=".length()).split(",");
+                ratios = new double[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    ratios[i] = Double.parseDouble(parts[i]);
+                }
+            } else if (arg.startsWith("--profile=")) {
+                String value = arg.substring("--profile=".length());
+                int colon = value.lastIndexOf(':');
+                profileDir = new File(value.substring(0, colon));
+                userId = value.substring(colon + 1);
+            } else {
+                traces.add(load(new File(arg)));
+            }
+        }
+        if (traces.isEmpty()) {
+            System.err.println("usage: DrowsinessEvaluator [--ratio=0.90,0.93] [--profile=<dir>:<userId>] "
+                    + "<trace.csv | store dir>...");
+            System.exit(2);
+        }
+
+        for (double ratio : ratios) {
+            long start = System.nanoTime();
+            int samples = 0;
+            int alerts = 0;
+            int tripsWithAlert = 0;
+            StringBuilder detail = new StringBuilder();
+            BaselineProfile profile = profileDir != null
+                    ? new BaselineProfileStore(profileDir, TimeZone.getDefault()).load(userId) : null;
+            for (Trace trace : traces) {
+                DrowsinessEngine engine = DrowsinessEngine.create(ratio);
+                Result result = evaluate(trace, engine, profile);
+                samples += result.samples;
+                alerts += result.alerts;
+                if (result.alerts > 0) {
+                    tripsWithAlert++;
+                }
+                detail.append(String.format(Locale.ROOT, "  %s samples=%d alerts=%d firstAlert=%d%n",
+                        trace.name, result.samples, result.alerts, result.firstAlertMillis));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "ratio=%.3f trips=%d tripsWithAlert=%d samples=%d alerts=%d (%.0f trips/s, %.0f samples/s)%n",
+                    ratio, traces.size(), tripsWithAlert, samples, alerts,
+                    traces.size() / seconds, samples / seconds);
+            System.out.print(detail);
+        }
+    }
+
+    // CSV 파일 또는 저장소 디렉터리 읽기
+    public static Trace load(File file) throws IOException {
+        final long[][] times = {new long[1024]};
+        final int[][] rates = {new int[1024]};
+        final int[][] flagsOf = {new int[1024]};
+        final int[] count = {0};
+        HeartRateStore.Visitor collector = new HeartRateStore.Visitor() {
+            @Override
+            public boolean onRecord(long timeMillis, int heartRate, int flags) {
+                if (count[0] == times[0].length) {
+                    times[0] = Arrays.copyOf(times[0], count[0] * 2);
+                    rates[0] = Arrays.copyOf(rates[0], count[0] * 2);
+                    flagsOf[0] = Arrays.copyOf(flagsOf[0], count[0] * 2);
+                }
+                times[0][count[0]] = timeMillis;
+                rates[0][count[0]] = heartRate;
+                flagsOf[0][count[0]] = flags;
+                count[0]++;
+                return true;
+            }
+        };
+
+        if (file.isDirectory()) {
+            HeartRateStore store = new HeartRateStore(file);
+            store.scan(Long.MIN_VALUE, Long.MAX_VALUE, collector);
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) {
+                        continue;
+                    }
+                    int comma = line.indexOf(',');
+                    if (comma < 0) {
+                        continue;
+                    }
+                    int end = line.indexOf(',', comma + 1);
+                    int flags = 0;
+                    if (end < 0) {
+                        end = line.length();
+                    } else {
+                        flags = parseFlags(line.substring(end + 1));
+                    }
+                    collector.onRecord(Long.parseLong(line.substring(0, comma).trim()),
+                            (int) Double.parseDouble(line.substring(comma + 1, end).trim()), flags);
+                }
+            }
+        }
+        return new Trace(file.getName(), Arrays.copyOf(times[0], count[0]), Arrays.copyOf(rates[0], count[0]),
+                Arrays.copyOf(flagsOf[0], count[0]));
+    }
+
+    // CSV 세 번째 열 (정수가 아니면 플래그 없음)
+    private static int parseFlags(String column) {
+        int end = column.indexOf(',');
+        try {
+            return Integer.parseInt((end < 0 ? column : column.substring(0, end)).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
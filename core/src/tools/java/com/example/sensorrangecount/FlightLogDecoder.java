@@ -0,0 +1,163 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// FlightRecorder 덤프를 시간순 텍스트로 출력 (PC 에서 실행)
+// 기기에서 꺼내기: adb shell run-as <패키지> cat files/flight/flight-<시각>-<이유>.bin > flight.bin
+// - 이벤트 시각은 덤프할 때의 벽시계/단조 시계 쌍으로 epoch 로 바꿈 (벽시계가 바뀌어도 이벤트 간격은 정확)
+// - --no-samples: SAMPLE 이벤트는 빼고 출력, --utc: UTC 로 출력 (기본은 이 PC 의 시간대)
+// 사용법: java ... FlightLogDecoder [--no-samples] [--utc] <flight.bin>...
+public class FlightLogDecoder {
+    public static void main(String[] args) throws IOException {
+        boolean samples = true;
+        TimeZone zone = TimeZone.getDefault();
+        int files = 0;
+        for (String arg : args) {
+            if (arg.equals("--no-samples")) {
+                samples = false;
+            } else if (arg.equals("--utc")) {
+                zone = TimeZone.getTimeZone("UTC");
+            } else if (arg.startsWith("--")) {
+                System.err.println("unknown option: " + arg);
+                System.exit(2);
+            } else {
+                decode(new File(arg), samples, zone, new StringBuilder(128));
+                files++;
+            }
+        }
+        if (files == 0) {
+            System.err.println("usage: FlightLogDecoder [--no-samples] [--utc] <flight.bin>...");
+            System.exit(2);
+        }
+    }
+
+    static void decode(File file, boolean samples, TimeZone zone, StringBuilder sb) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT);
+        format.setTimeZone(zone);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FlightRecorder.MAGIC) {
+                throw new IOException(file + ": not a flight recorder dump");
+            }
+            int version = in.readInt();
+            if (version != FlightRecorder.VERSION) {
+                throw new IOException(file + ": unsupported version " + version);
+            }
+            int reason = in.readInt();
+            long wallMillis = in.readLong();
+            long anchorNanos = in.readLong();
+            long recorded = in.readLong();
+            int count = in.readInt();
+            System.out.printf(Locale.ROOT, "%s: dumped %s (%s), %d events kept of %d recorded%n", file.getName(),
+                    format.format(new Date(wallMillis)), nameOf(FlightRecorder.DUMP_REASONS, reason), count, recorded);
+
+            long firstNanos = 0;
+            long expected = -1;
+            for (int i = 0; i < count; i++) {
+                long header;
+                long timeNanos;
+                long a;
+                long b;
+                try {
+                    header = in.readLong();
+                    timeNanos = in.readLong();
+                    a = in.readLong();
+                    b = in.readLong();
+                } catch (EOFException e) {
+                    System.out.println("  (truncated after " + i + " events)");
+                    return;
+                }
+                long seq = FlightRecorder.sequenceOf(header);
+                if (i == 0) {
+                    firstNanos = timeNanos;
+                } else if (seq != expected) {
+                    System.out.println("  ... " + (seq - expected) + " events skipped (overwritten during dump)");
+                }
+                expected = seq + 1;
+                int type = FlightRecorder.typeOf(header);
+                if (type == FlightRecorder.SAMPLE && !samples) {
+                    continue;
+                }
+                long eventMillis = wallMillis - (anchorNanos - timeNanos) / 1_000_000L;
+                sb.setLength(0);
+                sb.append(format.format(new Date(eventMillis)));
+                sb.append(String.format(Locale.ROOT, " %+10.3fs  ", (timeNanos - firstNanos) / 1e9));
+                appendEvent(sb, type, a, b);
+                System.out.println(sb);
+            }
+        }
+    }
+
+    // 이벤트 한 줄 (종류별로 인자 해석)
+    static void appendEvent(StringBuilder sb, int type, long a, long b) {
+        sb.append(nameOf(FlightRecorder.NAMES, type));
+        switch (type) {
+            case FlightRecorder.SAMPLE:
+                sb.append(" hr=").append(a);
+                if ((b & HeartRateStore.FLAG_RESTING) != 0) {
+                    sb.append(" resting");
+                }
+                if ((b & HeartRateStore.FLAG_ALERT) != 0) {
+                    sb.append(" alert");
+                }
+                break;
+            case FlightRecorder.ALERT:
+                sb.append(" hr=").append(a).append(String.format(Locale.ROOT, " baseline=%.2f", b / 100.0));
+                break;
+            case FlightRecorder.BATCH:
+                sb.append(" samples=").append(a).append(String.format(Locale.ROOT, " took=%.3fms", b / 1e6));
+                break;
+            case FlightRecorder.UPLOAD_SENT:
+            case FlightRecorder.ROLLUP_SENT:
+                sb.append(" count=").append(a).append(" code=").append(b);
+                break;
+            case FlightRecorder.UPLOAD_FAILED:
+            case FlightRecorder.ROLLUP_FAILED:
+                sb.append(" count=").append(a);
+                break;
+            case FlightRecorder.NOTI_SENT:
+                sb.append(' ').append(nameOf(NotiDispatcher.Event.values(), a)).append(" latency=").append(b).append("ms");
+                break;
+            case FlightRecorder.NOTI_FAILED:
+                sb.append(' ').append(nameOf(NotiDispatcher.Event.values(), a)).append(" attempt=").append(b);
+                break;
+            case FlightRecorder.SAMPLING_MODE:
+                sb.append(' ').append(nameOf(SamplingScheduler.Mode.values(), a))
+                        .append(" -> ").append(nameOf(SamplingScheduler.Mode.values(), b));
+                break;
+            case FlightRecorder.SESSION:
+                sb.append(' ').append(nameOf(SamplingScheduler.Session.values(), a));
+                break;
+            case FlightRecorder.REST:
+            case FlightRecorder.SERVICE:
+                sb.append(a != 0 ? " start" : " stop");
+                break;
+            case FlightRecorder.ERROR:
+                sb.append(" code=").append(a);
+                if (b != 0) {
+                    sb.append(" value=").append(b);
+                }
+                break;
+            case FlightRecorder.DUMP:
+                sb.append(' ').append(nameOf(FlightRecorder.DUMP_REASONS, a));
+                break;
+            case FlightRecorder.CRASH:
+                sb.append(" thread=").append(a);
+                break;
+            default:
+                sb.append(" a=").append(a).append(" b=").append(b);
+        }
+    }
+
+    private static String nameOf(Object[] names, long index) {
+        return index >= 0 && index < names.length ? String.valueOf(names[(int) index]) : "#" + index;
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// 기록된 운행 트레이스로 샘플링 정책(SamplingPolicy) 비교 (PC 에서 실행)
+// - 트레이스는 1초 간격으로 다 받은 샘플 -> 정책이 센서를 끄거나 간격을 늘리면 그만큼 샘플을 버리고,
+//   FIFO 지연(reportLatency)만큼 늦게 감지 엔진에 전달
+// - 항상 켜 둔 경우(ALWAYS_ON)의 경보와 비교해서 놓친 경보와 늦어진 시간을 봄
+//   (놓친 경보: 근처에 경보가 하나도 없음, 줄어든 반복: 같은 졸음 구간에서 경보는 했지만 반복 경보 수가 적음)
+// - 감지는 서비스와 같은 HeartRatePipeline.detect, 정책마다 운전자 프로필 하나를 트레이스 순서대로 누적해서 사전값으로 씀
+//   (센서를 꺼 두는 대기/휴식 뒤 운행을 시작할 때 기준 심박수가 비어 있지 않도록, 서비스와 같음)
+// 사용법: java ... SamplingReplay [--policy=balanced,power-saver,responsive] [--ratio=0.93]
+//         [--idle=5] [--rest=60-75] <trace.hrt | trace.csv | 저장소 디렉터리>...
+//         (--idle: 트레이스 처음과 끝 N분을 운행 전후 대기로 봄, --rest: 트레이스 시작 기준 휴식 구간(분), 여러 번 가능)
+public class SamplingReplay {
+    private static final long MATCH_BEFORE_MS = 60_000; // 항상 켠 경우의 경보와 같은 경보로 보는 범위
+    private static final long MATCH_AFTER_MS = 3 * 60_000;
+
+    // 정책 하나로 트레이스 하나를 재생한 결과
+    public static class Result {
+        public long samples = 0; // 트레이스 샘플 수
+        public long kept = 0; // 센서가 실제로 전달했을 샘플 수
+        public long onMillis = 0; // 센서를 켜 둔 시간
+        public long denseMillis = 0; // 그 중 DENSE 모드 시간
+        public long wakeups = 0; // FIFO 배치 전달 횟수 (AP 깨움)
+        public long durationMillis = 0;
+        public final List<Long> alertTimes = new ArrayList<>(); // 경보 시각 (전달 시각 기준)
+        public long alertDelaySumMillis = 0; // 항상 켠 경우 대비 (매칭된 경보만)
+        public long alertDelayMaxMillis = 0;
+        public int matchedAlerts = 0;
+        public int missedAlerts = 0; // 근처(MATCH_BEFORE/AFTER_MS)에 경보가 없음 - 운전자가 경보를 못 받음
+        public int lostRepeats = 0; // 근처에 경보는 있지만 다른 경보와 이미 짝지어짐 - 반복 경보가 줄어듦
+    }
+
+    private final SamplingPolicy policy;
+    private final double ratio;
+    private final long idleMillis;
+    private final List<long[]> restWindows; // 트레이스 시작 기준 [from, to) 밀리초
+    private final BaselineProfile profile; // 이 정책으로 재생한 트레이스에서 누적 (null 이면 실시간 창만)
+
+    SamplingReplay(SamplingPolicy policy, double ratio, long idleMillis, List<long[]> restWindows,
+                   BaselineProfile profile) {
+        this.policy = policy;
+        this.ratio = ratio;
+        this.idleMillis = idleMillis;
+        this.restWindows = restWindows;
+        this.profile = profile;
+    }
+
+    private SamplingScheduler.Session sessionAt(long elapsedMillis, long totalMillis) {
+        if (elapsedMillis < idleMillis || elapsedMillis >= totalMillis - idleMillis) {
+            return SamplingScheduler.Session.IDLE;
+        }
+        for (long[] window : restWindows) {
+            if (elapsedMillis >= window[0] && elapsedMillis < window[1]) {
+                return SamplingScheduler.Session.RESTING;
+            }
+        }
+        return SamplingScheduler.Session.DRIVING;
+    }
+
+    // 재생 상태 (트레이스 하나)
+    private final class Run implements HeartRatePipeline.Callback {
+        final Result result = new Result();
+        final DrowsinessEngine engine = DrowsinessEngine.create(ratio);
+        final HeartRatePipeline pipeline;
+        final VirtualClock clock; // 트레이스 시각 (epoch 밀리초 -> 나노초)
+        final SamplingScheduler scheduler;
+        final long[] pendingTimes = new long[4096];
+        final int[] pendingRates = new int[4096];
+        int pendingCount = 0;
+        long pendingStart = -1;
+        SamplingScheduler.Mode mode;
+        long modeSince;
+        long deliveredAt; // 처리 중인 FIFO 배치의 전달 시각
+
+        Run(long startMillis) {
+            clock = new VirtualClock(startMillis * 1_000_000);
+            scheduler = new SamplingScheduler(policy, clock);
+            mode = scheduler.getMode();
+            modeSince = startMillis;
+            pipeline = new HeartRatePipeline(startMillis, engine, this);
+            pipeline.setBaselineProfile(profile);
+            pipeline.setSession(scheduler.getSession());
+        }
+
+        void setSession(SamplingScheduler.Session session, long nowMillis) {
+            flush(nowMillis);
+            engine.setResting(session == SamplingScheduler.Session.RESTING);
+            pipeline.setSession(session);
+            setMode(scheduler.setSession(session), nowMillis);
+        }
+
+        @Override
+        public void onBatchStart() {}
+
+        @Override
+        public void onBatchProcessed() {}
+
+        @Override
+        public void onAlert(long timeMillis, int heartRate) {
+            // 운행 전후 대기 중의 경보는 세지 않음 (정책이 센서를 끄는 구간, 서비스도 운행 중에만 경보)
+            if (scheduler.getSession() == SamplingScheduler.Session.DRIVING) {
+                result.alertTimes.add(deliveredAt);
+            }
+        }
+
+        @Override
+        public void onError(String message, IOException e) {}
+
+        void setMode(SamplingScheduler.Mode next, long nowMillis) {
+            if (next == mode) {
+                return;
+            }
+            flush(nowMillis); // 다시 등록하면 FIFO 에 있던 샘플이 전달됨
+            if (mode != SamplingScheduler.Mode.OFF) {
+                result.onMillis += nowMillis - modeSince;
+            }
+            if (mode == SamplingScheduler.Mode.DENSE) {
+                result.denseMillis += nowMillis - modeSince;
+            }
+            mode = next;
+            modeSince = nowMillis;
+        }
+
+        void flush(long deliveredAt) {
+            if (pendingCount == 0) {
+                return;
+            }
+            result.wakeups++;
+            this.deliveredAt = deliveredAt;
+            for (int i = 0; i < pendingCount; i++) {
+                scheduler.onSample(pendingTimes[i], pendingRates[i]);
+                pipeline.detect(pendingTimes[i], pendingRates[i], 0);
+            }
+            pendingCount = 0;
+            pendingStart = -1;
+            scheduler.setAlertActive(engine.isActive());
+            clock.advanceTo(deliveredAt * 1_000_000);
+            SamplingScheduler.Mode next = scheduler.evaluate();
+            if (next != mode) {
+                setMode(next, deliveredAt);
+            }
+        }
+    }
+
+    public Result replay(DrowsinessEvaluator.Trace trace) {
+        long start = trace.times[0];
+        long total = trace.times[trace.times.length - 1] - start;
+        Run run = new Run(start);
+        long lastKept = Long.MIN_VALUE / 2;
+        for (int i = 0; i < trace.times.length; i++) {
+            long t = trace.times[i];
+            int heartRate = trace.heartRates[i];
+            if (heartRate == 0) {
+                continue;
+            }
+            run.result.samples++;
+
+            SamplingScheduler.Session session = sessionAt(t - start, total);
+            run.clock.advanceTo(t * 1_000_000);
+            if (session != run.scheduler.getSession()) {
+                run.setSession(session, t);
+            } else if (session != SamplingScheduler.Session.DRIVING) {
+                run.setMode(run.scheduler.evaluate(), t); // 켜기/끄기 주기
+            }
+            if (run.mode == SamplingScheduler.Mode.OFF) {
+                continue;
+            }
+
+            // 샘플링 간격 (반 초 여유 - 트레이스 간격이 정확히 1초가 아님)
+            if (t - lastKept < policy.samplingPeriodUs(run.mode) / 1000 - 500) {
+                continue;
+            }
+            lastKept = t;
+            run.result.kept++;
+            if (run.pendingCount == run.pendingTimes.length) {
+                run.flush(t);
+            }
+            if (run.pendingStart < 0) {
+                run.pendingStart = t;
+            }
+            run.pendingTimes[run.pendingCount] = t;
+            run.pendingRates[run.pendingCount] = heartRate;
+            run.pendingCount++;
+            if (t - run.pendingStart >= policy.reportLatencyUs(run.mode) / 1000) {
+                run.flush(t);
+            }
+        }
+        long end = start + total;
+        run.flush(end);
+        run.setMode(SamplingScheduler.Mode.OFF, end);
+        run.result.durationMillis = total;
+        return run.result;
+    }
+
+    // reference(항상 켠 경우) 경보마다 가장 가까운 경보를 찾아 지연 시간 계산
+    static void compare(Result reference, Result result) {
+        boolean[] used = new boolean[result.alertTimes.size()];
+        for (long alert : reference.alertTimes) {
+            int match = -1;
+            boolean near = false;
+            for (int i = 0; i < result.alertTimes.size(); i++) {
+                long t = result.alertTimes.get(i);
+                if (t >= alert - MATCH_BEFORE_MS && t <= alert + MATCH_AFTER_MS) {
+                    near = true;
+                    if (!used[i]) {
+                        match = i;
+                        break;
+                    }
+                }
+            }
+            if (match < 0) {
+                if (near) {
+                    result.lostRepeats++;
+                } else {
+                    result.missedAlerts++;
+                }
+                continue;
+            }
+            used[match] = true;
+            long delay = Math.max(0, result.alertTimes.get(match) - alert);
+            result.matchedAlerts++;
+            result.alertDelaySumMillis += delay;
+            result.alertDelayMaxMillis = Math.max(result.alertDelayMaxMillis, delay);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<SamplingPolicy> policies = new ArrayList<>();
+        List<String> policyNames = new ArrayList<>();
+        double ratio = DrowsinessEngine.DEFAULT_RATIO;
+        long idleMillis = 0;
+        List<long[]> restWindows = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--policy=")) {
+                for (String name : arg.substring("--policy=".length()).split(",")) {
+                    policies.add(SamplingPolicy.of(name));
+                    policyNames.add(name);
+                }
+            } else if (arg.startsWith("--ratio=")) {
+                ratio = Double.parseDouble(arg.substring("--ratio=".length()));
+            } else if (arg.startsWith("--idle=")) {
+                idleMillis = Long.parseLong(arg.substring("--idle=".length())) * 60_000;
+            } else if (arg.startsWith("--rest=")) {
+                String[] range = arg.substring("--rest=".length()).split("-");
+                restWindows.add(new long[]{Long.parseLong(range[0]) * 60_000, Long.parseLong(range[1]) * 60_000});
+            } else {
+                files.add(new File(arg));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("usage: SamplingReplay [--policy=balanced,...] [--ratio=0.93] [--idle=min] "
+                    + "[--rest=fromMin-toMin] <trace>...");
+            System.exit(2);
+        }
+        if (policies.isEmpty()) {
+            for (String name : new String[]{"responsive", "balanced", "power-saver"}) {
+                policies.add(SamplingPolicy.of(name));
+                policyNames.add(name);
+            }
+        }
+
+        List<DrowsinessEvaluator.Trace> traces = new ArrayList<>();
+        for (File file : files) {
+            DrowsinessEvaluator.Trace trace = file.getName().endsWith(".hrt") ? loadSensorTrace(file)
+                    : DrowsinessEvaluator.load(file);
+            if (trace.times.length > 1) {
+                traces.add(trace);
+            }
+        }
+
+        SamplingReplay reference = new SamplingReplay(SamplingPolicy.ALWAYS_ON, ratio, idleMillis, restWindows,
+                new BaselineProfile("replay", TimeZone.getDefault()));
+        Result[] referenceResults = new Result[traces.size()];
+        Result referenceTotal = new Result();
+        for (int i = 0; i < traces.size(); i++) {
+            referenceResults[i] = reference.replay(traces.get(i));
+            add(referenceTotal, referenceResults[i]);
+        }
+        System.out.printf(Locale.ROOT, "%d traces, %.1f h, %d samples, %d alerts (always-on)%n%n",
+                traces.size(), referenceTotal.durationMillis / 3.6e6, referenceTotal.samples,
+                referenceTotal.alertTimes.size());
+        System.out.println("policy        samples%   sensor-on%  dense%  wakeups/h  alerts  missed  repeats-lost"
+                + "  delay-avg-s  delay-max-s");
+        print("always-on", referenceTotal, referenceTotal);
+        for (int p = 0; p < policies.size(); p++) {
+            SamplingReplay replay = new SamplingReplay(policies.get(p), ratio, idleMillis, restWindows,
+                    new BaselineProfile("replay", TimeZone.getDefault()));
+            Result total = new Result();
+            for (int i = 0; i < traces.size(); i++) {
+                Result result = replay.replay(traces.get(i));
+                compare(referenceResults[i], result);
+                add(total, result);
+            }
+            print(policyNames.get(p), referenceTotal, total);
+        }
+    }
+
+    private static void add(Result total, Result result) {
+        total.samples += result.samples;
+        total.kept += result.kept;
+        total.onMillis += result.onMillis;
+        total.denseMillis += result.denseMillis;
+        total.wakeups += result.wakeups;
+        total.durationMillis += result.durationMillis;
+        total.alertTimes.addAll(result.alertTimes);
+        total.alertDelaySumMillis += result.alertDelaySumMillis;
+        total.alertDelayMaxMillis = Math.max(total.alertDelayMaxMillis, result.alertDelayMaxMillis);
+        total.matchedAlerts += result.matchedAlerts;
+        total.missedAlerts += result.missedAlerts;
+        total.lostRepeats += result.lostRepeats;
+    }
+
+    private static void print(String name, Result reference, Result result) {
+        double hours = Math.max(1, result.durationMillis) / 3.6e6;
+        System.out.printf(Locale.ROOT, "%-12s %8.1f %11.1f %7.1f %10.0f %7d %7d %13d %12.1f %12.1f%n",
+                name, 100.0 * result.kept / Math.max(1, reference.samples),
+                100.0 * result.onMillis / Math.max(1, result.durationMillis),
+                100.0 * result.denseMillis / Math.max(1, result.durationMillis),
+                result.wakeups / hours, result.alertTimes.size(), result.missedAlerts, result.lostRepeats,
+                result.matchedAlerts == 0 ? 0 : result.alertDelaySumMillis / 1000.0 / result.matchedAlerts,
+                result.alertDelayMaxMillis / 1000.0);
+    }
+
+    // 센서 트레이스(.hrt)의 샘플을 epoch 밀리초 기준으로 읽기
+    static DrowsinessEvaluator.Trace loadSensorTrace(File file) throws IOException {
+        final long[][] times = {new long[4096]};
+        final int[][] rates = {new int[4096]};
+        final int[] count = {0};
+        try (SensorTraceReader reader = new SensorTraceReader(file)) {
+            final long bootTimeMillis = reader.getBootTimeMillis();
+            reader.readAll(new SensorTraceReader.Visitor() {
+                @Override
+                public void onSample(long timestampNanos, float value) {
+                    if (count[0] == times[0].length) {
+                        times[0] = Arrays.copyOf(times[0], count[0] * 2);
+                        rates[0] = Arrays.copyOf(rates[0], count[0] * 2);
+                    }
+                    times[0][count[0]] = bootTimeMillis + timestampNanos / 1_000_000L;
+                    rates[0][count[0]] = (int) value;
+                    count[0]++;
+                }
+
+                @Override
+                public void onBatchEnd(long deliveredAtNanos) {}
+
+                @Override
+                public void onAccuracyChanged(int accuracy) {}
+            });
+        }
+        return new DrowsinessEvaluator.Trace(file.getName(), Arrays.copyOf(times[0], count[0]),
+                Arrays.copyOf(rates[0], count[0]));
+    }
+}
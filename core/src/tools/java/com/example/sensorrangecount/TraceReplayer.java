@@ -0,0 +1,357 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+
+// 기록된 센서 트레이스를 가상 시계로 HeartRatePipeline 에 재생 (PC/CI 에서 실행, 실제 시간 대기 없음)
+// - 경보(진동) 시각과 업로드 내용이 매번 같아야 함 -> checksum 을 비교해서 회귀 확인
+// - 업로드는 실제 서버 대신 기록만 하는 전송으로 보내고, --offline 구간에서는 전송 실패로 처리
+// - --rollup: 서비스의 롤업 모드 (10초/1분 롤업 + 경보 전후 원본) - 요청 수/보낸 양 비교용
+// - 트레이스 하나를 운행 하나로 재생 (서비스처럼 DrivingSession 으로 시작/휴식/종료)
+//   -> 운행 경과에 따른 프로필 사전값/누적, 휴식 중 감지 중단, 운행 요약까지 같이 돎
+//   프로필은 빈 것(UTC)에서 시작해서 재생하면서 쌓임, --rest 구간은 휴식
+// 사용법: java ... TraceReplayer [--ratio=0.93] [--offline=60-90] [--rest=120-135]... [--rollup] <trace.hrt>...
+//         (--offline/--rest 는 트레이스 시작 후 분 단위 구간)
+public class TraceReplayer implements SensorTraceReader.Visitor {
+    // 서비스(HeartRateService)와 같은 업로드 설정
+    private static final int UPLOAD_BATCH_SIZE = 30;
+    private static final long UPLOAD_MAX_BATCH_AGE_MS = 30_000;
+    private static final int UPLOAD_QUEUE_CAPACITY = 600;
+    private static final long UPLOAD_MAX_JOURNAL_RECORDS = 12 * 60 * 60;
+    private static final int ROLLUP_BATCH_SIZE = 60;
+    private static final long ROLLUP_MAX_BATCH_AGE_MS = 5 * 60_000;
+    private static final int ROLLUP_QUEUE_CAPACITY = 240;
+    private static final long ROLLUP_MAX_JOURNAL_RECORDS = 7 * 24 * 60 * 7; // 약 7일
+    private static final long RAW_PRE_EVENT_MS = 2 * 60_000;
+    private static final long RAW_POST_EVENT_MS = 2 * 60_000;
+    private static final int RAW_RECENT_CAPACITY = 2048;
+
+    // 재생 결과
+    public static class Result {
+        public long samples = 0;
+        public long batches = 0;
+        public final List<Long> alertTimes = new ArrayList<>(); // 경보 시각 (epoch 밀리초)
+        public int uploadRequests = 0; // 전송 시도 횟수 (실패 포함)
+        public long uploadedSamples = 0; // 서버가 받은 샘플 수
+        public long uploadedBytes = 0;
+        public int rollupRequests = 0; // 그중 롤업 요청 수
+        public long uploadedRollups = 0; // 서버가 받은 롤업 수
+        public long pendingSamples = 0; // 재생이 끝난 뒤 큐에 남은 샘플 수
+        public long startMillis = 0; // 첫 샘플 시각 (epoch 밀리초)
+        public long virtualNanos = 0; // 재생한 트레이스 길이
+        public long checksum = 0; // 경보 시각 + 업로드 내용 CRC32
+        public long drivingMillis = 0; // 휴식을 뺀 운행 시간 (DrivingSession)
+        public String tripSummary; // 운행 종료 때 서버로 보내는 요약 (TripSummary.toJson)
+        public long profileSamples = 0; // 재생하면서 프로필에 쌓인 샘플 수
+        public final PipelineMetrics metrics = new PipelineMetrics(); // 지연 시간은 가상 시계 기준 (센서 FIFO 대기)
+    }
+
+    private final VirtualClock clock;
+    private final HeartRatePipeline pipeline;
+    private final HeartRateUploader uploader;
+    private final RollupUploader rollupUploader; // --rollup 일 때만
+    private final RollupAggregator rollups;
+    private final Result result = new Result();
+    private final CRC32 crc = new CRC32();
+    private final long offlineFromNanos;
+    private final long offlineToNanos;
+    private final long[] restNanos; // 휴식 구간 [시작, 끝, 시작, 끝, ...] (트레이스 시작 기준)
+    private final long bootTimeMillis;
+    private final DrowsinessEngine engine;
+    private final SessionJournal sessionJournal;
+    private final DrivingSession session;
+    private final TripSummary tripSummary;
+    private final BaselineProfile profile = new BaselineProfile("replay", TimeZone.getTimeZone("UTC"));
+    private long startNanos = -1;
+
+    private TraceReplayer(long bootTimeMillis, DrowsinessEngine engine, File journalFile, File rollupJournalFile,
+                          File sessionFile, long offlineFromNanos, long offlineToNanos, long[] restNanos)
+            throws IOException {
+        this.clock = new VirtualClock(0);
+        this.bootTimeMillis = bootTimeMillis;
+        this.engine = engine;
+        this.offlineFromNanos = offlineFromNanos;
+        this.offlineToNanos = offlineToNanos;
+        this.restNanos = restNanos;
+        this.tripSummary = new TripSummary(DrowsinessEngine.DEFAULT_RATIO); // 서비스와 같이
+        this.sessionJournal = new SessionJournal(sessionFile);
+        this.session = new DrivingSession(sessionJournal, 1);
+        session.restore(0, bootTimeMillis);
+        this.uploader = new HeartRateUploader(this::send, journalFile,
+                UPLOAD_BATCH_SIZE, UPLOAD_MAX_BATCH_AGE_MS, UPLOAD_QUEUE_CAPACITY, UPLOAD_MAX_JOURNAL_RECORDS);
+        uploader.setClock(clock);
+        // JSON 은 기기 시간대로 시각을 포맷하므로, 어디서 돌려도 같은 checksum 이 나오게 바이너리(비압축)로 전송
+        uploader.setBinaryEncoding("replay", false);
+        uploader.setListener(new HeartRateUploader.Listener() {
+            @Override
+            public void onBatchSent(int count, int responseCode) {
+                result.uploadedSamples += count;
+            }
+
+            @Override
+            public void onBatchFailed(int count, String reason) {}
+        });
+        this.pipeline = new HeartRatePipeline(bootTimeMillis, engine, new HeartRatePipeline.Callback() {
+            @Override
+            public void onBatchStart() {}
+
+            @Override
+            public void onBatchProcessed() {}
+
+            @Override
+            public void onAlert(long timeMillis, int heartRate) {
+                result.alertTimes.add(timeMillis);
+                updateChecksum(timeMillis);
+            }
+
+            @Override
+            public void onError(String message, IOException e) {}
+        });
+        pipeline.setUploader(uploader);
+        pipeline.setMetrics(result.metrics, clock);
+        pipeline.setTripSummary(tripSummary);
+        pipeline.setBaselineProfile(profile);
+        if (rollupJournalFile != null) {
+            rollupUploader = new RollupUploader(this::send, rollupJournalFile, ROLLUP_BATCH_SIZE,
+                    ROLLUP_MAX_BATCH_AGE_MS, ROLLUP_QUEUE_CAPACITY, ROLLUP_MAX_JOURNAL_RECORDS);
+            rollupUploader.setClock(clock);
+            rollupUploader.setListener(new HeartRateUploader.Listener() {
+                @Override
+                public void onBatchSent(int count, int responseCode) {
+                    result.uploadedRollups += count;
+                }
+
+                @Override
+                public void onBatchFailed(int count, String reason) {}
+            });
+            rollups = new RollupAggregator(rollupUploader, RollupAggregator.DEFAULT_TIERS_MS);
+            pipeline.setRollups(rollups, new RawWindowExporter(uploader, RAW_PRE_EVENT_MS, RAW_POST_EVENT_MS,
+                    RAW_RECENT_CAPACITY, UPLOAD_QUEUE_CAPACITY / 2));
+        } else {
+            rollupUploader = null;
+            rollups = null;
+        }
+    }
+
+    // 트레이스 하나 재생 (offlineFromMs/offlineToMs: 트레이스 시작 기준 오프라인 구간, 없으면 0/0)
+    public static Result replay(File traceFile, DrowsinessEngine engine, long offlineFromMs, long offlineToMs)
+            throws IOException {
+        return replay(traceFile, engine, offlineFromMs, offlineToMs, false, new long[0]);
+    }
+
+    // rollup: 서비스의 롤업 모드로 재생, restMs: 휴식 구간 [시작, 끝, ...] (트레이스 시작 기준 밀리초)
+    public static Result replay(File traceFile, DrowsinessEngine engine, long offlineFromMs, long offlineToMs,
+                                boolean rollup, long[] restMs) throws IOException {
+        File journalFile = Files.createTempFile("replay-journal", ".bin").toFile();
+        File rollupJournalFile = rollup ? Files.createTempFile("replay-rollups", ".bin").toFile() : null;
+        File sessionFile = Files.createTempFile("replay-session", ".journal").toFile();
+        long[] restNanos = new long[restMs.length];
+        for (int i = 0; i < restMs.length; i++) {
+            restNanos[i] = restMs[i] * 1_000_000L;
+        }
+        try (SensorTraceReader reader = new SensorTraceReader(traceFile)) {
+            TraceReplayer replayer = new TraceReplayer(reader.getBootTimeMillis(), engine, journalFile,
+                    rollupJournalFile, sessionFile, offlineFromMs * 1_000_000L, offlineToMs * 1_000_000L, restNanos);
+            try {
+                reader.readAll(replayer);
+                return replayer.finish();
+            } finally {
+                replayer.sessionJournal.close();
+            }
+        } finally {
+            deleteJournal(journalFile);
+            if (rollupJournalFile != null) {
+                deleteJournal(rollupJournalFile);
+            }
+            sessionFile.delete();
+        }
+    }
+
+    // 업로드 journal 과 전송 위치 파일 (<journal>.ack)
+    private static void deleteJournal(File journalFile) {
+        journalFile.delete();
+        new File(journalFile.getPath() + ".ack").delete();
+    }
+
+    @Override
+    public void onSample(long timestampNanos, float value) {
+        if (startNanos < 0) {
+            startNanos = timestampNanos;
+            result.startMillis = bootTimeMillis + timestampNanos / 1_000_000L;
+            clock.advanceTo(timestampNanos);
+            if (session.start(elapsedMillis(), wallMillis())) { // 서비스의 startDriving 과 같은 순서
+                tripSummary.begin(wallMillis());
+                pipeline.setSession(SamplingScheduler.Session.DRIVING);
+            }
+        }
+        clock.advanceTo(timestampNanos);
+        updateRest(timestampNanos - startNanos);
+        result.samples++;
+        pipeline.onSample(timestampNanos, value);
+    }
+
+    // 휴식 구간에 들어가거나 나옴 (서비스의 startRest/endRest 와 같은 순서)
+    private void updateRest(long sinceStartNanos) {
+        boolean inRest = false;
+        for (int i = 0; i + 1 < restNanos.length; i += 2) {
+            if (sinceStartNanos >= restNanos[i] && sinceStartNanos < restNanos[i + 1]) {
+                inRest = true;
+                break;
+            }
+        }
+        if (inRest && session.getState() == DrivingSession.State.DRIVING) {
+            if (session.rest(elapsedMillis(), wallMillis())) {
+                engine.setResting(true);
+                tripSummary.restStarted(wallMillis());
+                pipeline.setSession(SamplingScheduler.Session.RESTING);
+            }
+        } else if (!inRest && session.getState() == DrivingSession.State.RESTING) {
+            if (session.resume(elapsedMillis(), wallMillis())) {
+                engine.setResting(false);
+                tripSummary.restEnded(wallMillis());
+                pipeline.setSession(SamplingScheduler.Session.DRIVING);
+            }
+        }
+    }
+
+    private long elapsedMillis() {
+        return clock.nanoTime() / 1_000_000L;
+    }
+
+    private long wallMillis() {
+        return bootTimeMillis + elapsedMillis();
+    }
+
+    @Override
+    public void onBatchEnd(long deliveredAtNanos) {
+        clock.advanceTo(deliveredAtNanos);
+        result.batches++;
+        pipeline.onBatchEnd();
+        uploader.pump(); // 워커 스레드 대신 묶음마다 보낼 것을 처리
+        if (rollupUploader != null) {
+            rollupUploader.pump();
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(int accuracy) {
+        pipeline.onAccuracyChanged(accuracy);
+    }
+
+    // 운행 종료 후, 마지막 묶음 이후 시간이 지난 것으로 보고 남은 배치를 전송
+    private Result finish() {
+        long endNanos = clock.nanoTime();
+        long drivingMillis = session.stop(elapsedMillis(), wallMillis());
+        if (drivingMillis >= 0) { // 서비스의 stopDriving 과 같은 순서
+            if (engine.isResting()) {
+                engine.setResting(false);
+                tripSummary.restEnded(wallMillis());
+            }
+            pipeline.setSession(SamplingScheduler.Session.IDLE);
+            result.drivingMillis = drivingMillis;
+            result.tripSummary = tripSummary.toJson(drivingMillis, wallMillis());
+        }
+        result.profileSamples = profile.totalCount();
+        if (rollups != null) {
+            rollups.flush(); // 마지막 구간
+            clock.advanceTo(endNanos + ROLLUP_MAX_BATCH_AGE_MS * 1_000_000L);
+            rollupUploader.pump();
+        }
+        clock.advanceTo(Math.max(clock.nanoTime(), endNanos + UPLOAD_MAX_BATCH_AGE_MS * 1_000_000L));
+        uploader.pump();
+        result.pendingSamples = uploader.getQueueSize();
+        result.virtualNanos = startNanos < 0 ? 0 : endNanos - startNanos;
+        result.checksum = crc.getValue();
+        return result;
+    }
+
+    // 기록만 하는 업로드 전송 (가상 시각이 오프라인 구간이면 실패)
+    private int send(byte[] body, String contentType) throws IOException {
+        result.uploadRequests++;
+        if (RollupUploader.CONTENT_TYPE.equals(contentType)) {
+            result.rollupRequests++;
+        }
+        long elapsed = clock.nanoTime() - startNanos;
+        if (elapsed >= offlineFromNanos && elapsed < offlineToNanos) {
+            throw new IOException("offline");
+        }
+        result.uploadedBytes += body.length;
+        crc.update(body, 0, body.length);
+        return 200;
+    }
+
+    private void updateChecksum(long value) {
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (value >>> i));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        double ratio = DrowsinessEngine.DEFAULT_RATIO;
+        long offlineFromMs = 0;
+        long offlineToMs = 0;
+        boolean rollup = false;
+        List<Long> rests = new ArrayList<>();
+        List<File> traces = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--ratio=")) {
+                ratio = Double.parseDouble(arg.substring("--ratio=".length()));
+            } else if (arg.startsWith("--offline=")) {
+                String[] range = arg.substring("--offline=".length()).split("-");
+                offlineFromMs = Long.parseLong(range[0]) * 60_000;
+                offlineToMs = Long.parseLong(range[1]) * 60_000;
+            } else if (arg.startsWith("--rest=")) {
+                String[] range = arg.substring("--rest=".length()).split("-");
+                rests.add(Long.parseLong(range[0]) * 60_000);
+                rests.add(Long.parseLong(range[1]) * 60_000);
+            } else if (arg.equals("--rollup")) {
+                rollup = true;
+            } else {
+                traces.add(new File(arg));
+            }
+        }
+        if (traces.isEmpty()) {
+            System.err.println("usage: TraceReplayer [--ratio=0.93] [--offline=fromMin-toMin] "
+                    + "[--rest=fromMin-toMin]... [--rollup] <trace.hrt>...");
+            System.exit(2);
+        }
+        long[] restMs = new long[rests.size()];
+        for (int i = 0; i < restMs.length; i++) {
+            restMs[i] = rests.get(i);
+        }
+
+        for (File trace : traces) {
+            long start = System.nanoTime();
+            Result result = replay(trace, DrowsinessEngine.create(ratio), offlineFromMs, offlineToMs, rollup,
+                    restMs);
+            long wallNanos = System.nanoTime() - start;
+            System.out.printf(Locale.ROOT, "%s: %.2f h, %d samples, %d batches, %d alerts%n",
+                    trace.getName(), result.virtualNanos / 3.6e12, result.samples, result.batches,
+                    result.alertTimes.size());
+            for (long alertTime : result.alertTimes) {
+                System.out.printf(Locale.ROOT, "  alert at +%.1f min%n",
+                        (alertTime - result.startMillis) / 60_000.0);
+            }
+            System.out.printf(Locale.ROOT, "  uploads: %d requests, %d samples, %d bytes, %d pending%n",
+                    result.uploadRequests, result.uploadedSamples, result.uploadedBytes, result.pendingSamples);
+            if (rollup) {
+                System.out.printf(Locale.ROOT, "  of which rollups: %d requests, %d rollups (raw: %d requests)%n",
+                        result.rollupRequests, result.uploadedRollups, result.uploadRequests - result.rollupRequests);
+            }
+            System.out.printf(Locale.ROOT, "  trip: %.2f h driving, %d profile samples%n",
+                    result.drivingMillis / 3.6e6, result.profileSamples);
+            LatencyHistogram latency = result.metrics.sensorToProcessed;
+            System.out.printf(Locale.ROOT, "  sensor->detect: p50 %.1f s, p99 %.1f s, max %.1f s%n",
+                    latency.getPercentile(50) / 1e9, latency.getPercentile(99) / 1e9, latency.getMax() / 1e9);
+            System.out.printf(Locale.ROOT, "  checksum: %08x%n", result.checksum);
+            System.out.printf(Locale.ROOT, "  replayed in %.0f ms (%.0fx real time)%n",
+                    wallNanos / 1e6, wallNanos == 0 ? 0 : (double) result.virtualNanos / wallNanos);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+// 운행 요약(TripSummary) 확인 (PC 에서 실행) - 트립마다 서비스와 같은 감지 경로로 재생하면서 요약을 만들고
+// 모든 샘플을 메모리에 모아서 따로 계산한 값(정렬한 백분위수, 같은 기준 심박수로 적산한 시간, 경보 수)과 비교
+// - --rest=from,to (분): 그 구간은 휴식 (요약의 휴식 시간, 휴식 중 샘플 제외 확인)
+// 하나라도 다르면 종료 코드 1
+// 사용법: java ... TripSummaryReplay [--rest=40,50] [--print] <trace.csv | 저장소 디렉터리>...
+public class TripSummaryReplay {
+    private static final double[] CHECKED_PERCENTILES = {0, 5, 25, 50, 75, 95, 100};
+
+    public static void main(String[] args) throws IOException {
+        long restFrom = 40 * 60_000L;
+        long restTo = 50 * 60_000L;
+        boolean print = false;
+        int traces = 0;
+        int failed = 0;
+        long totalSamples = 0;
+        long totalNanos = 0;
+        long rawBytes = 0;
+        long summaryBytes = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--rest=")) {
+                String[] parts = arg.substring("--rest=".length()).split(",");
+                restFrom = Long.parseLong(parts[0]) * 60_000L;
+                restTo = Long.parseLong(parts[1]) * 60_000L;
+                continue;
+            }
+            if (arg.equals("--print")) {
+                print = true;
+                continue;
+            }
+            if (arg.startsWith("--")) {
+                System.err.println("unknown option: " + arg);
+                System.exit(2);
+            }
+            DrowsinessEvaluator.Trace trace = DrowsinessEvaluator.load(new File(arg));
+            Result r = run(trace, restFrom, restTo);
+            traces++;
+            totalSamples += r.summary.getSamples();
+            totalNanos += r.addNanos;
+            rawBytes += r.rawBytes;
+            summaryBytes += r.json.length();
+            if (print) {
+                System.out.println(r.json);
+            }
+            if (!r.mismatch.isEmpty()) {
+                failed++;
+                System.out.println(arg + ": " + r.mismatch);
+            }
+        }
+        if (traces == 0) {
+            System.err.println("usage: TripSummaryReplay [--rest=40,50] [--print] <trace.csv | store dir>...");
+            System.exit(2);
+        }
+        System.out.printf(Locale.ROOT, "%d trips, %d driving samples, detect + summary %.0f ns/sample%n",
+                traces, totalSamples, (double) totalNanos / Math.max(1, totalSamples));
+        System.out.printf(Locale.ROOT, "payload %.0f bytes/trip vs %.0f KB/trip of heartrate rows%n",
+                (double) summaryBytes / traces, rawBytes / 1024.0 / traces);
+        System.out.println("summary matches full-pass computation on every trip -> " + (failed == 0 ? "PASS" : "FAIL"));
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    static class Result {
+        final TripSummary summary = new TripSummary(DrowsinessEngine.DEFAULT_RATIO);
+        String json;
+        String mismatch = "";
+        long addNanos = 0;
+        long rawBytes = 0;
+    }
+
+    private static Result run(DrowsinessEvaluator.Trace trace, long restFrom, long restTo) {
+        final int[] alerts = {0};
+        HeartRatePipeline pipeline = new HeartRatePipeline(0, DrowsinessEngine.createDefault(),
+                new HeartRatePipeline.Callback() {
+                    @Override
+                    public void onBatchStart() {}
+
+                    @Override
+                    public void onBatchProcessed() {}
+
+                    @Override
+                    public void onAlert(long timeMillis, int heartRate) {
+                        alerts[0]++;
+                    }
+
+                    @Override
+                    public void onError(String message, IOException e) {}
+                });
+        Result r = new Result();
+        pipeline.setTripSummary(r.summary);
+        pipeline.setSession(SamplingScheduler.Session.DRIVING);
+        long start = trace.times.length > 0 ? trace.times[0] : 0;
+        r.summary.begin(start);
+
+        // 같은 기준 심박수(감지 직전 창)로 따로 계산
+        HeartRateWindow window = new HeartRateWindow(HeartRatePipeline.BASELINE_WINDOW_MS,
+                HeartRatePipeline.BASELINE_CAPACITY);
+        int[] rates = new int[trace.times.length];
+        int n = 0;
+        long belowMs = 0;
+        long monitoredMs = 0;
+        long prev = -1;
+        boolean prevBelow = false;
+        boolean resting = false;
+        long end = start;
+        for (int i = 0; i < trace.times.length; i++) {
+            long time = trace.times[i];
+            int heartRate = trace.heartRates[i];
+            if (heartRate == 0) {
+                continue;
+            }
+            long elapsed = time - start;
+            boolean rest = elapsed >= restFrom && elapsed < restTo;
+            if (rest != resting) {
+                resting = rest;
+                pipeline.getEngine().setResting(rest);
+                pipeline.setSession(rest ? SamplingScheduler.Session.RESTING : SamplingScheduler.Session.DRIVING);
+                if (rest) {
+                    r.summary.restStarted(time);
+                } else {
+                    r.summary.restEnded(time);
+                }
+            }
+            double baseline = DrowsinessEngine.baselineOf(window);
+            long t0 = System.nanoTime();
+            pipeline.detect(time, heartRate, 0);
+            r.addNanos += System.nanoTime() - t0;
+            window.add(time, heartRate);
+            end = time;
+            r.rawBytes += 56; // {"heartrate": 72, "heartratelogtime": "2024/07/02 14:27:59"},
+            if (rest) {
+                prev = -1;
+                continue;
+            }
+            rates[n++] = heartRate;
+            if (prev >= 0 && time > prev) {
+                long dt = Math.min(time - prev, TripSummary.MAX_GAP_MS);
+                monitoredMs += dt;
+                if (prevBelow) {
+                    belowMs += dt;
+                }
+            }
+            prev = time;
+            prevBelow = !Double.isNaN(baseline) && heartRate < baseline * DrowsinessEngine.DEFAULT_RATIO;
+        }
+        r.json = r.summary.toJson(end - start, end);
+
+        StringBuilder mismatch = new StringBuilder();
+        Arrays.sort(rates, 0, n);
+        for (double p : CHECKED_PERCENTILES) {
+            int expected = n == 0 ? -1 : rates[(int) Math.max(0, Math.ceil(p / 100.0 * n) - 1)];
+            if (r.summary.percentile(p) != expected) {
+                mismatch.append(String.format(Locale.ROOT, "p%.0f %d != %d; ", p, r.summary.percentile(p), expected));
+            }
+        }
+        check(mismatch, "samples", r.summary.getSamples(), n);
+        check(mismatch, "monitoredMs", r.summary.getMonitoredMs(), monitoredMs);
+        check(mismatch, "belowMs", r.summary.getBelowThresholdMs(), belowMs);
+        check(mismatch, "alerts", r.summary.getAlerts(), alerts[0]);
+        r.mismatch = mismatch.toString();
+        return r;
+    }
+
+    private static void check(StringBuilder mismatch, String name, long actual, long expected) {
+        if (actual != expected) {
+            mismatch.append(name).append(' ').append(actual).append(" != ").append(expected).append("; ");
+        }
+    }
+}
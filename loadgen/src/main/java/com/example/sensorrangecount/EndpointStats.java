@@ -0,0 +1,88 @@
+package com.example.sensorrangecount;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 엔드포인트 하나의 요청 통계 (여러 스레드에서 동시에 기록, 락 없음)
+// 지연 시간은 1ms 단위 칸에 세어두고 백분위수는 출력할 때 계산
+public class EndpointStats {
+    private static final int MAX_TRACKED_MS = 30_000; // 이보다 긴 요청은 마지막 칸에 모음
+
+    private final String name;
+    private final AtomicLongArray latencyCounts = new AtomicLongArray(MAX_TRACKED_MS + 1);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    // 요청 하나 기록 (success: 2xx 응답)
+    public void record(long latencyNanos, int bodyBytes, boolean success) {
+        requests.incrementAndGet();
+        if (!success) {
+            errors.incrementAndGet();
+        }
+        bytes.addAndGet(bodyBytes);
+        long millis = latencyNanos / 1_000_000L;
+        latencyCounts.incrementAndGet((int) Math.min(millis, MAX_TRACKED_MS));
+        long micros = latencyNanos / 1_000L;
+        long max;
+        while (micros > (max = maxLatencyMicros.get()) && !maxLatencyMicros.compareAndSet(max, micros)) {
+            // 다른 스레드가 먼저 갱신함 - 다시 비교
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    // 백분위수 (ms, 칸의 상한값) - 기록이 없으면 0
+    public long percentileMs(double percentile) {
+        long total = 0;
+        for (int i = 0; i < latencyCounts.length(); i++) {
+            total += latencyCounts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < latencyCounts.length(); i++) {
+            seen += latencyCounts.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return i + 1;
+            }
+        }
+        return MAX_TRACKED_MS;
+    }
+
+    public static String header() {
+        return String.format(Locale.ROOT, "%-22s %9s %8s %7s %9s %7s %7s %9s %11s",
+                "endpoint", "requests", "errors", "err%", "req/s", "p50ms", "p99ms", "maxms", "KB");
+    }
+
+    public String format(double elapsedSeconds) {
+        long count = requests.get();
+        long failed = errors.get();
+        return String.format(Locale.ROOT, "%-22s %9d %8d %6.2f%% %9.1f %7d %7d %9.1f %11.1f",
+                name, count, failed, count == 0 ? 0.0 : failed * 100.0 / count,
+                elapsedSeconds <= 0 ? 0.0 : count / elapsedSeconds,
+                percentileMs(50), percentileMs(99), maxLatencyMicros.get() / 1000.0, bytes.get() / 1024.0);
+    }
+}
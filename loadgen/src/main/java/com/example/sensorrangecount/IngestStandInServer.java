@@ -0,0 +1,195 @@
+package com.example.sensorrangecount;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 실제 백엔드 대신 쓰는 로컬 수신 서버 - 앱이 호출하는 경로만 받아서 개수/지연 시간만 기록
+// - POST /heartrate/heartrate  (JSON 배열/객체 또는 바이너리 배치)
+// - POST /heartrate/drivingtime
+// - GET  /noti/{event}/{userId}  (Idempotency-Key 중복 확인)
+// 단독 실행: java ... IngestStandInServer [--port=9000] [--delay-ms=20] [--error-rate=0.01] [--no-binary]
+public class IngestStandInServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long delayMs; // 요청마다 추가하는 처리 지연 (DB 쓰기 흉내)
+    private final double errorRate; // 503 으로 응답할 비율
+    private final boolean acceptBinary; // false 면 바이너리 배치에 415 응답
+
+    private final EndpointStats heartRateStats = new EndpointStats("server heartrate");
+    private final EndpointStats drivingTimeStats = new EndpointStats("server drivingtime");
+    private final EndpointStats notiStats = new EndpointStats("server noti");
+    private final AtomicLong receivedSamples = new AtomicLong();
+    private final AtomicLong duplicateNotis = new AtomicLong();
+    private final Set<String> idempotencyKeys = ConcurrentHashMap.newKeySet();
+
+    public IngestStandInServer(int port, long delayMs, double errorRate, boolean acceptBinary) throws IOException {
+        this.delayMs = delayMs;
+        this.errorRate = errorRate;
+        this.acceptBinary = acceptBinary;
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        executor = VirtualThreads.newPerTaskExecutor(256);
+        server.setExecutor(executor);
+        server.createContext("/heartrate/heartrate", this::handleHeartRate);
+        server.createContext("/heartrate/drivingtime", this::handleDrivingTime);
+        server.createContext("/noti/", this::handleNoti);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleHeartRate(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        byte[] body = readBody(exchange);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int code;
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            code = 405;
+        } else if (HeartRateBatchCodec.isBatchContentType(contentType)) {
+            if (!acceptBinary) {
+                code = 415;
+            } else {
+                try {
+                    HeartRateBatchCodec.Batch batch = HeartRateBatchCodec.decode(body, 0, body.length);
+                    code = respondCode();
+                    if (code == 200) {
+                        receivedSamples.addAndGet(batch.times.length);
+                    }
+                } catch (IOException e) {
+                    code = 400;
+                }
+            }
+        } else {
+            code = respondCode();
+            if (code == 200) {
+                receivedSamples.addAndGet(countJsonSamples(body));
+            }
+        }
+        respond(exchange, code);
+        heartRateStats.record(System.nanoTime() - start, body.length, code == 200);
+    }
+
+    private void handleDrivingTime(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        byte[] body = readBody(exchange);
+        int code = "POST".equals(exchange.getRequestMethod()) ? respondCode() : 405;
+        respond(exchange, code);
+        drivingTimeStats.record(System.nanoTime() - start, body.length, code == 200);
+    }
+
+    private void handleNoti(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        readBody(exchange);
+        String[] parts = exchange.getRequestURI().getPath().split("/"); // "", "noti", event, userId
+        int code = parts.length == 4 ? respondCode() : 404;
+        if (code == 200) {
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (key != null && !idempotencyKeys.add(key)) {
+                duplicateNotis.incrementAndGet(); // 재전송 - 서버는 한번만 처리해야 함
+            }
+        }
+        respond(exchange, code);
+        notiStats.record(System.nanoTime() - start, 0, code == 200);
+    }
+
+    private int respondCode() {
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return 503;
+        }
+        return 200;
+    }
+
+    private static void respond(HttpExchange exchange, int code) throws IOException {
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // {"heartrate": ...} 객체 개수
+    private static int countJsonSamples(byte[] body) {
+        String json = new String(body, StandardCharsets.UTF_8);
+        int count = 0;
+        int index = 0;
+        while ((index = json.indexOf("\"heartrate\"", index)) >= 0) {
+            count++;
+            index += 11;
+        }
+        return count;
+    }
+
+    public void printReport(double elapsedSeconds) {
+        System.out.println(EndpointStats.header());
+        System.out.println(heartRateStats.format(elapsedSeconds));
+        System.out.println(drivingTimeStats.format(elapsedSeconds));
+        System.out.println(notiStats.format(elapsedSeconds));
+        System.out.printf(Locale.ROOT, "server received %d heart rate samples (%.1f/s), %d duplicate notifications%n",
+                receivedSamples.get(), elapsedSeconds <= 0 ? 0.0 : receivedSamples.get() / elapsedSeconds,
+                duplicateNotis.get());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 9000;
+        long delayMs = 0;
+        double errorRate = 0;
+        boolean acceptBinary = true;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--delay-ms=")) {
+                delayMs = Long.parseLong(arg.substring("--delay-ms=".length()));
+            } else if (arg.startsWith("--error-rate=")) {
+                errorRate = Double.parseDouble(arg.substring("--error-rate=".length()));
+            } else if (arg.equals("--no-binary")) {
+                acceptBinary = false;
+            }
+        }
+        IngestStandInServer server = new IngestStandInServer(port, delayMs, errorRate, acceptBinary);
+        server.start();
+        System.out.println("stand-in server listening on " + server.getPort());
+        long start = System.nanoTime();
+        while (true) {
+            TimeUnit.SECONDS.sleep(10);
+            server.printReport((System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.sensorrangecount;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// LiveStreamClient 확인용 서버 (PC 에서 실행) - 실제 관제 서버 대신
+// - 핸드셰이크 -> HELLO 의 스트림 id 별로 받은 마지막 순번을 기억해서 WELCOME 으로 알려줌
+// - 이미 받은 순번은 버리고(중복), 건너뛴 순번은 누락으로 셈
+// - 읽을 게 더 없을 때 마지막 순번 하나만 ACK (누적 ACK)
+// - 지연 = 받은 시각 - 샘플 시각 (같은 PC 시계)
+// --drop-every=N: 데이터 프레임 N 개마다 연결을 끊음 (재연결/이어받기 확인)
+// --demo: 같은 프로세스에서 클라이언트를 붙여서 끊김 속에 누락/중복 없이 전달되는지 확인, 실패면 종료 코드 1
+// 사용법: java ... LiveStreamServer [--port=9000] [--drop-every=0] [--demo [--samples=5000]]
+public class LiveStreamServer {
+    // 스트림 하나 (HELLO 의 스트림 id 별)
+    static class Stream {
+        final String userId;
+        long lastSeq = 0;
+        long received = 0; // 새 프레임 수
+        long duplicates = 0;
+        long gaps = 0;
+        long alerts = 0;
+        long bytes = 0; // WebSocket 프레임 바이트 (핸드셰이크 제외)
+        final LatencyHistogram lag = new LatencyHistogram();
+
+        Stream(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final int dropEvery;
+    private final boolean verbose;
+    private final Map<Long, Stream> streams = new HashMap<>();
+    private volatile long connections = 0;
+
+    // bind: null 이면 모든 주소
+    LiveStreamServer(InetAddress bind, int port, int dropEvery, boolean verbose) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, bind);
+        this.dropEvery = dropEvery;
+        this.verbose = verbose;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 9000;
+        int dropEvery = 0;
+        boolean demo = false;
+        int samples = 5000;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--drop-every=")) {
+                dropEvery = Integer.parseInt(arg.substring("--drop-every=".length()));
+            } else if (arg.startsWith("--samples=")) {
+                samples = Integer.parseInt(arg.substring("--samples=".length()));
+            } else if (arg.equals("--demo")) {
+                demo = true;
+            } else {
+                System.err.println("unknown option: " + arg);
+                System.exit(2);
+            }
+        }
+        if (demo) {
+            System.exit(runDemo(samples, dropEvery > 0 ? dropEvery : 700) ? 0 : 1);
+        }
+        LiveStreamServer server = new LiveStreamServer(null, port, dropEvery, true);
+        System.out.println("listening on ws://0.0.0.0:" + port + "/");
+        server.serve();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // 연결마다 스레드 하나
+    void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket s;
+            try {
+                s = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            connections++;
+            Thread t = new Thread(() -> handle(s), "LiveStreamServer-" + connections);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void handle(Socket s) {
+        String reason = "closed";
+        Stream stream = null;
+        try {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            String key = null;
+            WebSocketCodec.readLine(in); // GET /path HTTP/1.1
+            String line;
+            while (!(line = WebSocketCodec.readLine(in)).isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                    key = line.substring(colon + 1).trim();
+                }
+            }
+            if (key == null) {
+                out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + WebSocketCodec.acceptOf(key) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            byte[] buf = new byte[1024];
+            byte[] reply = new byte[WebSocketCodec.MAX_HEADER + 9];
+            byte[] payload = new byte[9];
+            int[] length = new int[1];
+            if (WebSocketCodec.readFrame(in, buf, length) != WebSocketCodec.OP_BINARY
+                    || buf[0] != LiveStreamClient.HELLO) {
+                throw new IOException("expected hello");
+            }
+            int idLength = ((buf[1] & 0xFF) << 8) | (buf[2] & 0xFF);
+            String userId = new String(buf, 3, idLength, StandardCharsets.UTF_8);
+            long streamId = WebSocketCodec.getLong(buf, 3 + idLength);
+            long resume;
+            synchronized (this) {
+                stream = streams.get(streamId);
+                if (stream == null) {
+                    stream = new Stream(userId);
+                    streams.put(streamId, stream);
+                }
+                resume = stream.lastSeq;
+            }
+            payload[0] = LiveStreamClient.WELCOME;
+            WebSocketCodec.putLong(payload, 1, resume);
+            out.write(reply, 0, WebSocketCodec.writeFrame(reply, 0, WebSocketCodec.OP_BINARY, payload, 0, 9, 0, false));
+            out.flush();
+            if (verbose) {
+                System.out.printf(Locale.ROOT, "%s stream %016x: hello, resume after %d%n", userId, streamId, resume);
+            }
+
+            int frames = 0;
+            while (true) {
+                int opcode = WebSocketCodec.readFrame(in, buf, length);
+                if (opcode == WebSocketCodec.OP_PING) {
+                    WebSocketCodec.writeControl(out, WebSocketCodec.OP_PONG, 0, false);
+                    continue;
+                }
+                if (opcode == WebSocketCodec.OP_CLOSE) {
+                    WebSocketCodec.writeControl(out, WebSocketCodec.OP_CLOSE, 0, false);
+                    break;
+                }
+                if (opcode != WebSocketCodec.OP_BINARY || length[0] != LiveStreamClient.DATA_FRAME_BYTES) {
+                    continue;
+                }
+                frames++;
+                if (dropEvery > 0 && frames % dropEvery == 0) {
+                    reason = "dropped after " + frames + " frames";
+                    break; // 이 프레임은 받지 못한 것으로 -> 클라이언트는 WELCOME 순번 다음부터 다시 보내야 함
+                }
+                long now = System.currentTimeMillis();
+                long seq = WebSocketCodec.getLong(buf, 1);
+                long time = WebSocketCodec.getLong(buf, 9);
+                long ack;
+                synchronized (this) {
+                    // 헤더 2 + 마스크 4 + payload
+                    stream.bytes += 6 + length[0];
+                    if (seq <= stream.lastSeq) {
+                        stream.duplicates++;
+                    } else {
+                        stream.gaps += seq - stream.lastSeq - 1;
+                        stream.lastSeq = seq;
+                        stream.received++;
+                        if (buf[0] == LiveStreamClient.ALERT) {
+                            stream.alerts++;
+                        }
+                        stream.lag.record(Math.max(0, now - time) * 1_000_000L);
+                    }
+                    ack = stream.lastSeq;
+                }
+                if (in.available() == 0) {
+                    payload[0] = LiveStreamClient.ACK;
+                    WebSocketCodec.putLong(payload, 1, ack);
+                    out.write(reply, 0, WebSocketCodec.writeFrame(reply, 0, WebSocketCodec.OP_BINARY, payload, 0, 9,
+                            0, false));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            reason = String.valueOf(e.getMessage());
+        } finally {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // 무시
+            }
+        }
+        if (verbose && stream != null) {
+            StringBuilder sb = new StringBuilder();
+            synchronized (this) {
+                sb.append(stream.userId).append(": ").append(reason)
+                        .append(", last seq ").append(stream.lastSeq)
+                        .append(", dup ").append(stream.duplicates)
+                        .append(", gaps ").append(stream.gaps)
+                        .append(", ").append(stream.bytes).append(" bytes, ");
+                stream.lag.appendSummary(sb, "lag_us");
+            }
+            System.out.println(sb);
+        }
+    }
+
+    // 같은 프로세스에서 클라이언트 -> 서버 (dropEvery 프레임마다 서버가 끊음)
+    // 샘플 samples 개를 2ms 간격으로 넣고, 중간에 heartbeat x 2.5 동안 쉬어서 ping 으로 연결이 유지되는지도 확인
+    private static boolean runDemo(int samples, int dropEvery) throws Exception {
+        final long heartbeatMs = 1_000;
+        LiveStreamServer server = new LiveStreamServer(InetAddress.getLoopbackAddress(), 0, dropEvery, false);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "LiveStreamServer");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        LiveStreamClient client = new LiveStreamClient("ws://127.0.0.1:" + server.getPort() + "/heartrate/live",
+                "E001", 8192, heartbeatMs);
+        client.start();
+        int alerts = 0;
+        long idleConnects = -1;
+        for (int i = 0; i < samples; i++) {
+            long now = System.currentTimeMillis();
+            if (i % 500 == 499) {
+                client.offerAlert(now, 55);
+                alerts++;
+            } else {
+                client.offerSample(now, 60 + i % 20);
+            }
+            if (i == samples / 2) {
+                // 한가한 구간: ping 만 오가야 하고 연결은 그대로
+                long connects = client.getConnects();
+                Thread.sleep(heartbeatMs * 5 / 2);
+                idleConnects = client.getConnects() - connects;
+            }
+            Thread.sleep(2);
+        }
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (client.getAckedSeq() < client.getLastSeq() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        long frames = client.getFramesSent();
+        long bytes = client.getBytesSent();
+        long connects = client.getConnects();
+        client.stop();
+        server.close();
+
+        Stream stream;
+        synchronized (server) {
+            stream = server.streams.size() == 1 ? server.streams.values().iterator().next() : null;
+        }
+        if (stream == null) {
+            System.out.println("expected exactly one stream, got " + server.streams.size() + " -> FAIL");
+            return false;
+        }
+        int httpBytes = httpRequestBytes();
+        boolean pass;
+        synchronized (server) {
+            System.out.printf(Locale.ROOT, "%d frames (%d alerts), server dropped the connection every %d frames%n",
+                    samples, alerts, dropEvery);
+            System.out.printf(Locale.ROOT, "connects %d, frames sent %d (resent %d), client dropped %d%n",
+                    connects, frames, frames - samples, client.getDropped());
+            System.out.printf(Locale.ROOT, "server: last seq %d, received %d, alerts %d, duplicates %d, gaps %d%n",
+                    stream.lastSeq, stream.received, stream.alerts, stream.duplicates, stream.gaps);
+            System.out.printf(Locale.ROOT, "reconnects during %d ms idle: %d%n", heartbeatMs * 5 / 2, idleConnects);
+            System.out.printf(Locale.ROOT, "lag p50 %.1f ms, p99 %.1f ms, max %.1f ms; ack rtt p50 %.2f ms%n",
+                    stream.lag.getPercentile(50) / 1e6, stream.lag.getPercentile(99) / 1e6,
+                    stream.lag.getMax() / 1e6, client.getAckRtt().getPercentile(50) / 1e6);
+            System.out.printf(Locale.ROOT, "bytes per sample: stream %.1f (client->server), one-sample HTTP POST %d%n",
+                    (double) bytes / frames, httpBytes);
+            pass = stream.lastSeq == samples && stream.received == samples && stream.gaps == 0
+                    && stream.alerts == alerts && client.getDropped() == 0 && idleConnects == 0
+                    && connects > 1;
+        }
+        System.out.println("every frame delivered once across reconnects -> " + (pass ? "PASS" : "FAIL"));
+        return pass;
+    }
+
+    // 샘플 하나를 기존 HTTP 업로드(HttpUploadTransport + 배치 코덱)로 보낼 때 요청 바이트 수
+    private static int httpRequestBytes() throws IOException {
+        try (ServerSocket http = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final int[] size = {0};
+            Thread t = new Thread(() -> {
+                try (Socket s = http.accept()) {
+                    InputStream in = s.getInputStream();
+                    int contentLength = 0;
+                    String line;
+                    while (!(line = WebSocketCodec.readLine(in)).isEmpty()) {
+                        size[0] += line.length() + 2;
+                        if (line.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                            contentLength = Integer.parseInt(line.substring(15).trim());
+                        }
+                    }
+                    size[0] += 2;
+                    for (int i = 0; i < contentLength && in.read() >= 0; i++) {
+                        size[0]++;
+                    }
+                    s.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n"
+                            .getBytes(StandardCharsets.US_ASCII));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "http");
+            t.start();
+            byte[] body = new HeartRateBatchCodec(false).encode("E001",
+                    new long[]{System.currentTimeMillis()}, new int[]{72}, 1);
+            new HttpUploadTransport("http://127.0.0.1:" + http.getLocalPort() + "/heartrate")
+                    .send(body, HeartRateBatchCodec.CONTENT_TYPE);
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return size[0];
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.sensorrangecount;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 가상 워치 부하 생성기 (PC 에서 실행)
+// - 워치마다 virtual thread 하나 (Java 21 미만이면 플랫폼 스레드)
+// - --url 을 주지 않으면 로컬 수신 서버(IngestStandInServer)를 띄워서 전송
+// 사용법: java ... LoadGenerator [--watches=1000] [--duration=60] [--speedup=60] [--strategy=legacy|batch|binary]
+//         [--ramp=10] [--trace=shift.hrt]... [--url=http://host:9000/]
+//         [--server-delay-ms=0] [--server-error-rate=0] [--no-binary]
+public class LoadGenerator {
+
+    // 요청 대상과 클라이언트 쪽 통계 (모든 가상 워치가 공유, 전송 객체는 워치마다 따로 생성)
+    static class Targets {
+        final String baseUrl; // 끝에 / 포함
+        final EndpointStats heartRateStats = new EndpointStats("client heartrate");
+        final EndpointStats drivingTimeStats = new EndpointStats("client drivingtime");
+        final EndpointStats notiStats = new EndpointStats("client noti");
+
+        Targets(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        void printReport(double elapsedSeconds) {
+            System.out.println(EndpointStats.header());
+            System.out.println(heartRateStats.format(elapsedSeconds));
+            System.out.println(drivingTimeStats.format(elapsedSeconds));
+            System.out.println(notiStats.format(elapsedSeconds));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int watches = 1000;
+        int durationSeconds = 60;
+        double speedup = 60;
+        int rampSeconds = 10;
+        VirtualWatch.Strategy strategy = VirtualWatch.Strategy.BATCH;
+        String url = null;
+        long serverDelayMs = 0;
+        double serverErrorRate = 0;
+        boolean acceptBinary = true;
+        List<int[]> traces = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--watches=")) {
+                watches = Integer.parseInt(arg.substring("--watches=".length()));
+            } else if (arg.startsWith("--duration=")) {
+                durationSeconds = Integer.parseInt(arg.substring("--duration=".length()));
+            } else if (arg.startsWith("--speedup=")) {
+                speedup = Double.parseDouble(arg.substring("--speedup=".length()));
+            } else if (arg.startsWith("--ramp=")) {
+                rampSeconds = Integer.parseInt(arg.substring("--ramp=".length()));
+            } else if (arg.startsWith("--strategy=")) {
+                strategy = VirtualWatch.Strategy.valueOf(arg.substring("--strategy=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--trace=")) {
+                traces.add(loadTrace(new File(arg.substring("--trace=".length()))));
+            } else if (arg.startsWith("--url=")) {
+                url = arg.substring("--url=".length());
+                if (!url.endsWith("/")) {
+                    url += "/";
+                }
+            } else if (arg.startsWith("--server-delay-ms=")) {
+                serverDelayMs = Long.parseLong(arg.substring("--server-delay-ms=".length()));
+            } else if (arg.startsWith("--server-error-rate=")) {
+                serverErrorRate = Double.parseDouble(arg.substring("--server-error-rate=".length()));
+            } else if (arg.equals("--no-binary")) {
+                acceptBinary = false;
+            } else {
+                System.err.println("unknown option: " + arg);
+                System.exit(2);
+            }
+        }
+
+        // 워치마다 keep-alive 연결 하나를 유지하는 실제 상황과 비슷하게 연결 캐시를 늘림
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(5, watches)));
+
+        IngestStandInServer server = null;
+        if (url == null) {
+            server = new IngestStandInServer(0, serverDelayMs, serverErrorRate, acceptBinary);
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort() + "/";
+        }
+        Targets targets = new Targets(url);
+
+        System.out.printf(Locale.ROOT, "%d watches, strategy=%s, speedup=%.0fx, %d s, %s threads -> %s%n",
+                watches, strategy, speedup, durationSeconds,
+                VirtualThreads.isAvailable() ? "virtual" : "platform", url);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor(watches);
+        Random random = new Random(1);
+        for (int i = 0; i < watches; i++) {
+            int[] heartRates = traces.isEmpty() ? syntheticTrace(random.nextLong()) : traces.get(i % traces.size());
+            String userId = String.format(Locale.ROOT, "E%03d", i + 1);
+            executor.execute(new VirtualWatch(userId, strategy, speedup, heartRates, deadline, targets, random.nextLong()));
+            if (rampSeconds > 0) {
+                // 모든 워치가 같은 순간에 시작하지 않도록 나눠서 시작
+                long due = start + TimeUnit.SECONDS.toNanos(rampSeconds) * (i + 1) / watches;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        }
+
+        while (System.nanoTime() < deadline) {
+            TimeUnit.SECONDS.sleep(Math.min(10, Math.max(1, (deadline - System.nanoTime()) / 1_000_000_000L)));
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "%n[%.0f s]%n", elapsed);
+            targets.printReport(elapsed);
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%n=== result (%.1f s) ===%n", elapsed);
+        targets.printReport(elapsed);
+        if (server != null) {
+            System.out.println();
+            server.printReport(elapsed);
+            server.stop();
+        }
+        System.exit(0);
+    }
+
+    // 평균 근처에서 흔들리다가 가끔 천천히 떨어지는(졸음 구간) 2시간 분량의 심박수
+    static int[] syntheticTrace(long seed) {
+        Random random = new Random(seed);
+        int[] rates = new int[2 * 60 * 60];
+        double resting = 65 + random.nextInt(20);
+        double rate = resting;
+        int drowsyUntil = -1;
+        for (int i = 0; i < rates.length; i++) {
+            if (drowsyUntil < i && random.nextInt(1800) == 0) {
+                drowsyUntil = i + 300 + random.nextInt(600);
+            }
+            double target = i < drowsyUntil ? resting * 0.88 : resting;
+            rate += (target - rate) * 0.02 + random.nextGaussian() * 0.8;
+            rates[i] = (int) Math.round(rate);
+        }
+        return rates;
+    }
+
+    // 워치에서 기록한 센서 트레이스(SensorTraceWriter)의 심박수 값만 읽기
+    static int[] loadTrace(File file) throws IOException {
+        final int[][] rates = {new int[4096]};
+        final int[] count = {0};
+        try (SensorTraceReader reader = new SensorTraceReader(file)) {
+            reader.readAll(new SensorTraceReader.Visitor() {
+                @Override
+                public void onSample(long timestampNanos, float value) {
+                    if ((int) value == 0) {
+                        return;
+                    }
+                    if (count[0] == rates[0].length) {
+                        rates[0] = Arrays.copyOf(rates[0], count[0] * 2);
+                    }
+                    rates[0][count[0]++] = (int) value;
+                }
+
+                @Override
+                public void onBatchEnd(long deliveredAtNanos) {}
+
+                @Override
+                public void onAccuracyChanged(int accuracy) {}
+            });
+        }
+        if (count[0] == 0) {
+            throw new IOException("No heart rate samples in " + file);
+        }
+        return Arrays.copyOf(rates[0], count[0]);
+    }
+}
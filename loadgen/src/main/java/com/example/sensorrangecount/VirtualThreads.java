@@ -0,0 +1,37 @@
+package com.example.sensorrangecount;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 작업마다 virtual thread 를 쓰는 실행기 (Java 21 이상) - 없으면 고정 크기 스레드 풀
+// (Java 8 로 컴파일하기 위해 리플렉션으로 호출)
+final class VirtualThreads {
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private VirtualThreads() {
+    }
+
+    static boolean isAvailable() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    static ExecutorService newPerTaskExecutor(int fallbackThreads) {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // 아래 스레드 풀 사용
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads);
+    }
+
+    private static Method findVirtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
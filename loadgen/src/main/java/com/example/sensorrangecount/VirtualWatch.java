@@ -0,0 +1,188 @@
+package com.example.sensorrangecount;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+// 가상 워치 하나 - 운행 세션(시작 -> 운행 -> 휴식 -> 운행 -> 종료)을 반복하면서 앱과 같은 요청을 전송
+// 가상 시간 1초마다 심박수 샘플 하나 (speedup 배 빠르게 진행)
+class VirtualWatch implements Runnable {
+    private static final int UPLOAD_BATCH_SIZE = 30; // HeartRateService 와 같은 배치 크기
+    private static final int DRIVE_SEGMENT_SECONDS = 2 * 60 * 60; // 휴식 전후 운행 시간 (±20%)
+    private static final int REST_SECONDS = 15 * 60; // 휴식 시간 (±20%)
+
+    // 업로드 방식
+    enum Strategy {
+        LEGACY, // 샘플마다 JSON 객체 하나 POST (배치 도입 전 서비스)
+        BATCH, // 30개씩 JSON 배열 POST (HeartRateUploader 기본값)
+        BINARY // 30개씩 바이너리 배치 POST (HeartRateBatchCodec, deflate)
+    }
+
+    private final String userId;
+    private final Strategy strategy;
+    private final double speedup;
+    private final int[] heartRates; // 재생할 심박수 (끝나면 처음부터)
+    private final long deadlineNanos;
+    private final LoadGenerator.Targets targets;
+    private final UploadTransport heartRateTransport;
+    private final UploadTransport drivingTimeTransport;
+    private final NotiDispatcher.Transport notiTransport;
+    private final Random random;
+
+    private final long[] batchTimes = new long[UPLOAD_BATCH_SIZE];
+    private final int[] batchRates = new int[UPLOAD_BATCH_SIZE];
+    private int batchCount = 0;
+    private final HeartRateJson json = new HeartRateJson();
+    private final HeartRateBatchCodec codec = new HeartRateBatchCodec(true);
+    private final TimestampFormatter formatter = new TimestampFormatter();
+    private final StringBuilder sb = new StringBuilder(64);
+    private boolean binaryRejected = false; // 서버가 415 로 거부하면 JSON 사용
+
+    private int traceIndex;
+    private long virtualTimeMillis = System.currentTimeMillis();
+    private long sessionId;
+    private int sequence;
+
+    VirtualWatch(String userId, Strategy strategy, double speedup, int[] heartRates, long deadlineNanos,
+                 LoadGenerator.Targets targets, long seed) throws IOException {
+        this.userId = userId;
+        this.strategy = strategy;
+        this.speedup = speedup;
+        this.heartRates = heartRates;
+        this.deadlineNanos = deadlineNanos;
+        this.targets = targets;
+        this.heartRateTransport = new HttpUploadTransport(targets.baseUrl + "heartrate/heartrate");
+        this.drivingTimeTransport = new HttpUploadTransport(targets.baseUrl + "heartrate/drivingtime");
+        this.notiTransport = new HttpNotiTransport(targets.baseUrl);
+        this.random = new Random(seed);
+        this.traceIndex = random.nextInt(heartRates.length);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!expired()) {
+                runSession();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSession() throws InterruptedException {
+        sessionId = virtualTimeMillis;
+        sequence = 0;
+        sendNoti(NotiDispatcher.Event.START);
+        int driven = drive(vary(DRIVE_SEGMENT_SECONDS));
+        if (expired()) {
+            return;
+        }
+        sendNoti(NotiDispatcher.Event.REST);
+        drive(vary(REST_SECONDS)); // 휴식 중에도 서비스는 심박수를 계속 보냄
+        if (expired()) {
+            return;
+        }
+        sendNoti(NotiDispatcher.Event.END_REST);
+        driven += drive(vary(DRIVE_SEGMENT_SECONDS));
+        if (expired()) {
+            return;
+        }
+        sendNoti(NotiDispatcher.Event.END);
+        sendDrivingTime(driven);
+    }
+
+    // 가상 시간으로 seconds 초 동안 샘플 생성/전송 - 실제로 진행한 초를 리턴
+    private int drive(int seconds) throws InterruptedException {
+        long sleepNanos = (long) (1e9 / speedup);
+        long next = System.nanoTime();
+        for (int s = 0; s < seconds; s++) {
+            if (expired()) {
+                return s;
+            }
+            virtualTimeMillis += 1000;
+            onSample(virtualTimeMillis, heartRates[traceIndex]);
+            traceIndex = (traceIndex + 1) % heartRates.length;
+            next += sleepNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+            }
+        }
+        return seconds;
+    }
+
+    private void onSample(long timeMillis, int heartRate) {
+        if (strategy == Strategy.LEGACY) {
+            sb.setLength(0);
+            sb.append("{\"heartrate\": ").append(heartRate).append(", \"heartratelogtime\": \"");
+            formatter.append(sb, timeMillis);
+            sb.append("\"}");
+            sendHeartRate(sb.toString().getBytes(StandardCharsets.UTF_8), HeartRateUploader.CONTENT_TYPE_JSON);
+            return;
+        }
+        batchTimes[batchCount] = timeMillis;
+        batchRates[batchCount] = heartRate;
+        if (++batchCount < UPLOAD_BATCH_SIZE) {
+            return;
+        }
+        if (strategy == Strategy.BINARY && !binaryRejected) {
+            int code = sendHeartRate(codec.encode(userId, batchTimes, batchRates, batchCount),
+                    HeartRateBatchCodec.CONTENT_TYPE);
+            if (code == 415) {
+                binaryRejected = true;
+                sendHeartRate(json.buildBatch(batchTimes, batchRates, batchCount), HeartRateUploader.CONTENT_TYPE_JSON);
+            }
+        } else {
+            sendHeartRate(json.buildBatch(batchTimes, batchRates, batchCount), HeartRateUploader.CONTENT_TYPE_JSON);
+        }
+        batchCount = 0;
+    }
+
+    private int sendHeartRate(byte[] body, String contentType) {
+        long start = System.nanoTime();
+        int code = -1;
+        try {
+            code = heartRateTransport.send(body, contentType);
+        } catch (IOException e) {
+            // 오류로 기록
+        }
+        targets.heartRateStats.record(System.nanoTime() - start, body.length, code >= 200 && code < 300);
+        return code;
+    }
+
+    // MainActivity.sendDrivingTimeToServer 와 같은 형식
+    private void sendDrivingTime(int seconds) {
+        byte[] body = String.format(Locale.ROOT, "{\"drivingTime\": \"%02d:%02d:%02d\"}",
+                seconds / 3600, (seconds % 3600) / 60, seconds % 60).getBytes(StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        int code = -1;
+        try {
+            code = drivingTimeTransport.send(body, HeartRateUploader.CONTENT_TYPE_JSON);
+        } catch (IOException e) {
+            // 오류로 기록
+        }
+        targets.drivingTimeStats.record(System.nanoTime() - start, body.length, code >= 200 && code < 300);
+    }
+
+    // NotiDispatcher 와 같은 Idempotency-Key (사용자-세션-순번), 재시도 없이 한번만 전송
+    private void sendNoti(NotiDispatcher.Event event) {
+        String key = userId + "-" + sessionId + "-" + (sequence++);
+        long start = System.nanoTime();
+        int code = -1;
+        try {
+            code = notiTransport.send(event, userId, key);
+        } catch (IOException e) {
+            // 오류로 기록
+        }
+        targets.notiStats.record(System.nanoTime() - start, 0, code >= 200 && code < 300);
+    }
+
+    private int vary(int seconds) {
+        return (int) (seconds * (0.8 + 0.4 * random.nextDouble()));
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted();
+    }
+}
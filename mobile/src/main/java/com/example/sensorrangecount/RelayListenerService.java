@@ -0,0 +1,41 @@
+package com.example.sensorrangecount;
+
+import android.util.Log;
+
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.Wearable;
+import com.google.android.gms.wearable.WearableListenerService;
+
+import java.io.IOException;
+
+// 워치에서 온 중계 메시지(/relay/...)를 서버로 보내고 응답 코드를 ack 로 돌려줌
+// onMessageReceived 는 백그라운드 스레드에서 차례로 호출됨 (HTTP 호출 가능)
+public class RelayListenerService extends WearableListenerService {
+    private static final String HEART_URL = "http://172.168.10.88:9000/heartrate/heartrate"; // 워치 HeartRateService 와 같은 URL
+    private static final String ROLLUP_URL = "http://172.168.10.88:9000/heartrate/rollup"; // 워치 HeartRateService 와 같은 URL
+    private static final String BASE_URL = "http://172.168.10.88:9000/"; // 워치 MainActivity 와 같은 URL
+
+    private RelayForwarder forwarder;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        try {
+            forwarder = new RelayForwarder(new HttpUploadTransport(HEART_URL), new HttpNotiTransport(BASE_URL));
+            forwarder.setRollupTransport(new HttpUploadTransport(ROLLUP_URL));
+        } catch (IOException e) {
+            Log.e("TAG___", "Invalid heart rate url: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        if (forwarder == null) {
+            return; // ack 가 없으면 워치가 타임아웃 후 재시도
+        }
+        byte[] ack = forwarder.handle(event.getPath(), event.getData());
+        if (ack != null) {
+            Wearable.getMessageClient(this).sendMessage(event.getSourceNodeId(), RelayTransport.PATH_ACK, ack);
+        }
+    }
+}